@@ -19,18 +19,28 @@
  */
 package fr.univartois.cril.pbd4;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.sat4j.core.VecInt;
 import org.sat4j.specs.IVecInt;
 
 import fr.univartois.cril.pbd4.caching.CachingStrategy;
+import fr.univartois.cril.pbd4.listener.CompositeListener;
 import fr.univartois.cril.pbd4.listener.D4Listener;
 import fr.univartois.cril.pbd4.partitioning.CutsetComputationStrategy;
 import fr.univartois.cril.pbd4.partitioning.CutsetUpdateStrategy;
 import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+import fr.univartois.cril.pbd4.pbc.TruthTable;
 
 /**
  * The AbstractD4 class implements the "skeleton" of the D4 algorithm [Lagniez
@@ -51,6 +61,11 @@ public abstract class AbstractD4<T, R> {
      */
     protected final PseudoBooleanFormula formula;
 
+    /**
+     * The literals assumed to be satisfied in the input formula.
+     */
+    private final IVecInt assumptions;
+
     /**
      * The cache in which formulae that have already been treated are stored.
      */
@@ -62,36 +77,174 @@ public abstract class AbstractD4<T, R> {
 
     private final CutsetUpdateStrategy cutsetUpdateStrategy;
 
+    /**
+     * The number of threads used to compile the formula.
+     * When more than one thread is used, independent connected components are
+     * compiled in parallel, as fork/join tasks.
+     */
+    private final int numberOfThreads;
+
+    /**
+     * The number of decisions below which both branches of a decision are explored in
+     * parallel, as fork/join tasks.
+     */
+    private final int parallelBranchingDepth;
+
+    /**
+     * Whether the D4 algorithm is driven by an explicit stack of frames rather than by
+     * recursive calls.
+     */
+    private final boolean explicitStack;
+
+    /**
+     * The maximum number of variables of the connected components whose models are
+     * enumerated rather than explored by branching on their variables.
+     */
+    private final int enumerationThreshold;
+
+    /**
+     * The policy deciding when the satisfiability of a sub-formula must be checked
+     * after BCP.
+     */
+    private final SatCheckPolicy satCheckPolicy;
+
+    /**
+     * The budget of the computation.
+     * Once it is exhausted, the sub-formulae that remain to be explored are given up.
+     */
+    private final Budget budget;
+
     /**
      * Creates a new AbstractD4.
      *
      * @param configuration The configuration of the algorithm.
      */
     protected AbstractD4(D4 configuration) {
+        this(configuration, Objects.requireNonNull(configuration.getListener()));
+    }
+
+    /**
+     * Creates a new AbstractD4, which notifies an additional listener.
+     *
+     * @param configuration The configuration of the algorithm.
+     * @param additionalListener The listener to notify, in addition to those of the
+     *        configuration.
+     */
+    protected AbstractD4(D4 configuration, D4Listener additionalListener) {
         this.formula = Objects.requireNonNull(configuration.getFormula());
+        this.assumptions = configuration.getAssumptions();
         this.cache = Objects.requireNonNull(configuration.getCache());
-        this.listener = Objects.requireNonNull(configuration.getListener());
+        this.listener = compose(configuration.getListener(), additionalListener);
         this.cutsetComputationStrategy =
                 Objects.requireNonNull(configuration.getCutsetComputationStrategy());
         this.cutsetUpdateStrategy = Objects.requireNonNull(configuration.getCutsetUpdateStrategy());
+        this.numberOfThreads = configuration.getNumberOfThreads();
+        this.parallelBranchingDepth =
+                (numberOfThreads > 1) ? configuration.getParallelBranchingDepth() : 0;
+        this.explicitStack = (numberOfThreads == 1) && configuration.usesExplicitStack();
+        this.enumerationThreshold = configuration.getEnumerationThreshold();
+        this.satCheckPolicy = Objects.requireNonNull(configuration.getSatCheckPolicy());
+        this.budget = configuration.getBudget();
+    }
+
+    /**
+     * Composes the listeners to notify during the execution of the algorithm.
+     *
+     * @param listener The listener of the configuration.
+     * @param additionalListener The additional listener to notify.
+     *
+     * @return The listener notifying both listeners.
+     */
+    private static D4Listener compose(D4Listener listener, D4Listener additionalListener) {
+        if (listener == additionalListener) {
+            return listener;
+        }
+
+        var composite = new CompositeListener();
+        composite.addListener(Objects.requireNonNull(listener));
+        composite.addListener(additionalListener);
+        return composite;
     }
 
     /**
      * Executes the D4 algorithm on the associated pseudo-Boolean formula.
+     * If the budget of the computation runs out, the output is partial: the
+     * sub-formulae that have not been explored are considered as unsatisfiable.
      *
      * @return The output of the algorithm on the input formula.
      */
     public final R compute() {
         listener.init(formula);
         listener.start();
+        budget.start();
         cutsetComputationStrategy.compilationStarts();
-        T intermediateResult = compute(formula.numberOfVariables(), formula, VecInt.EMPTY);
-        R result = toFinalResult(intermediateResult);
-        cutsetComputationStrategy.compilationEnds();
+        cache.compilationStarts();
+        R result;
+        try {
+            T intermediateResult;
+            if (numberOfThreads > 1) {
+                intermediateResult = computeInParallel();
+            } else if (explicitStack) {
+                intermediateResult = computeWithExplicitStack();
+            } else {
+                intermediateResult = compute(numberOfFreeVariables(), assumedFormula(),
+                        VecInt.EMPTY, 0);
+            }
+            result = toFinalResult(intermediateResult);
+
+        } finally {
+            // The strategies must release their resources even if the computation fails.
+            cache.compilationEnds();
+            cutsetComputationStrategy.compilationEnds();
+        }
         listener.end();
         return result;
     }
 
+    /**
+     * Gives the formula on which the D4 algorithm is executed, i.e., the input formula
+     * in which the assumptions are satisfied.
+     *
+     * @return The assumed formula.
+     */
+    private PseudoBooleanFormula assumedFormula() {
+        if (assumptions.isEmpty()) {
+            return formula;
+        }
+        return formula.assume(assumptions);
+    }
+
+    /**
+     * Gives the number of variables that may be free in the assumed formula.
+     * Contrary to decisions, the assumed literals are not reported as propagated
+     * literals, so that their variables must not be considered as free.
+     * As the assumptions are distinct and not contradictory (see
+     * {@link D4#underAssumptions(IVecInt)}), each of them fixes a different variable.
+     *
+     * @return The number of variables that may be free in the assumed formula.
+     */
+    private int numberOfFreeVariables() {
+        return formula.numberOfVariables() - assumptions.size();
+    }
+
+    /**
+     * Executes the D4 algorithm on the input formula, using a pool of
+     * {@link #numberOfThreads} threads.
+     *
+     * @return The intermediate result of the computation on the input formula.
+     */
+    private T computeInParallel() {
+        var pool = new ForkJoinPool(numberOfThreads);
+        try {
+            return pool.invoke(ForkJoinTask.adapt(
+                    () -> compute(numberOfFreeVariables(), assumedFormula(), VecInt.EMPTY,
+                            0)));
+
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     /**
      * Executes the D4 algorithm on the given pseudo-Boolean formula.
      *
@@ -102,13 +255,18 @@ public abstract class AbstractD4<T, R> {
      * @param variables The subset of variables to consider while
      *        performing the computation (i.e., the variables on
      *        which to branch).
+     * @param depth The number of decisions made to reach the sub-formula.
      *
      * @return The intermediate result of the computation on the given formula.
      */
-    private T compute(int previousNbVariables, PseudoBooleanFormula subFormula, IVecInt variables) {
-        // Applying BCP to the formula.
+    private T compute(int previousNbVariables, PseudoBooleanFormula subFormula, IVecInt variables,
+            int depth) {
+        // Applying BCP to the formula, unless the budget has run out.
         listener.propagate();
-        var output = subFormula.propagate();
+        if (budget.isExhausted()) {
+            return giveUp();
+        }
+        var output = subFormula.propagate(satCheckPolicy.maxConflicts(depth, previousNbVariables));
 
         if (output.isUnsatisfiable()) {
             // The current formula is unsatisfiable.
@@ -138,33 +296,346 @@ public abstract class AbstractD4<T, R> {
 
         // Recursively compiling the connected components of the resulting
         // formula.
+        long startTime = System.nanoTime();
         var conjuncts = new LinkedList<T>();
         listener.computeConnectedComponents();
         var connectedComponents = simplifiedFormula.connectedComponents();
         listener.connectedComponentsFound(connectedComponents);
-        for (var component : connectedComponents) {
-            // Updating the variables to branch on.
-            var branchingVariables = computeBranchingVariables(simplifiedFormula, component,
-                    restrict(variables, component.variables()));
-
-            // Making a decision.
-            var v = branchingVariables.last();
-            branchingVariables = branchingVariables.pop();
-            listener.branchOn(v);
-            conjuncts.add(decision(v,
-                    compute(component.numberOfVariables(), component.assume(v), branchingVariables),
-                    compute(component.numberOfVariables(), component.assume(-v),
-                            branchingVariables)));
-        }
-
-        // Computing the result of the conjunction, and caching the result.
-        T result = conjunction(nbFreeVariables, propagatedLiterals, conjuncts);
-        cache.put(simplifiedFormula, result);
-        simplifiedFormula.onCaching();
-        listener.cachingConjunction();
+        boolean lookUpComponents = connectedComponents.size() > 1;
+        if (lookUpComponents && (numberOfThreads > 1)) {
+            conjuncts.addAll(compute(simplifiedFormula, connectedComponents, variables, depth));
+
+        } else {
+            for (var component : connectedComponents) {
+                conjuncts.add(
+                        compute(simplifiedFormula, component, variables, lookUpComponents, depth));
+            }
+        }
+
+        return cacheConjunction(simplifiedFormula, nbFreeVariables, propagatedLiterals,
+                conjuncts, startTime);
+    }
+
+    /**
+     * Combines and caches the results computed for the connected components of a
+     * formula.
+     *
+     * @param simplifiedFormula The formula from which the components have been
+     *        extracted.
+     * @param nbFreeVariables The number of unassigned variables that do not appear in
+     *        {@code simplifiedFormula}.
+     * @param propagatedLiterals The literals that have been propagated, yielding
+     *        {@code simplifiedFormula}.
+     * @param conjuncts The results computed for the components.
+     * @param startTime The time at which the computation on the components started.
+     *
+     * @return The intermediate result of the computation on the formula.
+     */
+    private T cacheConjunction(PseudoBooleanFormula simplifiedFormula, int nbFreeVariables,
+            IVecInt propagatedLiterals, LinkedList<T> conjuncts, long startTime) {
+        // Caching the result computed for the components.
+        // This result must not depend on the literals propagated before reaching them.
+        T result = (conjuncts.size() == 1) ? conjuncts.getFirst()
+                : conjunction(0, VecInt.EMPTY, conjuncts);
+        if (!budget.isExhausted()) {
+            // Once the budget has run out, results may be partial and are not cached.
+            cache.put(simplifiedFormula, result, System.nanoTime() - startTime);
+            simplifiedFormula.onCaching();
+            listener.cachingConjunction();
+        }
+        return cached(nbFreeVariables, propagatedLiterals, result);
+    }
+
+    /**
+     * Executes the D4 algorithm in parallel on the connected components of a
+     * pseudo-Boolean formula.
+     * Each component is compiled in its own fork/join task.
+     *
+     * @param formula The formula from which the components have been extracted.
+     * @param components The connected components of the formula.
+     * @param variables The subset of variables to consider while performing the
+     *        computation (i.e., the variables on which to branch).
+     * @param depth The number of decisions made to reach the formula.
+     *
+     * @return The intermediate results of the computation on the given components, in
+     *         the same order as the components.
+     */
+    private List<T> compute(PseudoBooleanFormula formula,
+            Collection<PseudoBooleanFormula> components, IVecInt variables, int depth) {
+        // Forking the compilation of the components.
+        var tasks = new ArrayList<ForkJoinTask<T>>(components.size());
+        for (var component : components) {
+            tasks.add(ForkJoinTask.adapt(
+                    () -> compute(formula, component, variables, true, depth)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        // Collecting the results computed for the components.
+        var results = new ArrayList<T>(tasks.size());
+        for (var task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Executes the D4 algorithm on a connected component of a pseudo-Boolean formula.
+     *
+     * @param formula The formula from which the component has been extracted.
+     * @param component The connected component for which a computation must be
+     *        performed.
+     * @param variables The subset of variables to consider while performing the
+     *        computation (i.e., the variables on which to branch).
+     * @param lookUp Whether the component must be looked for in the cache.
+     *        If the component is the only one in {@code formula}, it has
+     *        the same key as {@code formula}, and there is no need to
+     *        look for it again.
+     * @param depth The number of decisions made to reach the component.
+     *
+     * @return The intermediate result of the computation on the given component.
+     */
+    private T compute(PseudoBooleanFormula formula, PseudoBooleanFormula component,
+            IVecInt variables, boolean lookUp, int depth) {
+        // Looking for the component in the cache.
+        long startTime = System.nanoTime();
+        if (lookUp) {
+            var cached = cache.get(component);
+            if (cached.isPresent()) {
+                listener.cached(component);
+                return cached.get();
+            }
+        }
+
+        // Enumerating the models of small components, without branching on them.
+        var truthTable = truthTableOf(component);
+        if (truthTable.isPresent()) {
+            listener.enumerated(component);
+            return cacheComponent(component, lookUp, enumerated(truthTable.get()), startTime);
+        }
+
+        // Updating the variables to branch on.
+        var branchingVariables = computeBranchingVariables(formula, component,
+                restrict(variables, component.variables()));
+
+        // Making a decision.
+        var v = branchingVariables.last();
+        branchingVariables = branchingVariables.pop();
+        listener.branchOn(v);
+        T result = decide(component, v, branchingVariables, depth);
+        return cacheComponent(component, lookUp, result, startTime);
+    }
+
+    /**
+     * Gives up the computation on a sub-formula, because the budget of the
+     * computation has run out.
+     * The sub-formula is considered as unsatisfiable, so that the result computed for
+     * the input formula under-approximates its actual result (e.g., the model count is
+     * a lower bound).
+     *
+     * @return The intermediate result of the computation on the given-up sub-formula.
+     */
+    private T giveUp() {
+        return unsatisfiable();
+    }
+
+    /**
+     * Caches the result computed for a connected component, if needed.
+     *
+     * @param component The component for which the result has been computed.
+     * @param lookUp Whether the component has been looked for in the cache, and must
+     *        thus be cached.
+     * @param result The result computed for the component.
+     * @param startTime The time at which the computation on the component started.
+     *
+     * @return The intermediate result of the computation on the given component.
+     */
+    private T cacheComponent(PseudoBooleanFormula component, boolean lookUp, T result,
+            long startTime) {
+        if (lookUp && !budget.isExhausted()) {
+            // Once the budget has run out, results may be partial and are not cached.
+            cache.put(component, result, System.nanoTime() - startTime);
+            component.onCaching();
+        }
         return result;
     }
 
+    /**
+     * Executes the D4 algorithm on both branches of a decision, and combines their
+     * results.
+     * Until {@link #parallelBranchingDepth} decisions have been made, the negative
+     * branch is forked, so that an idle thread may steal it while the positive branch
+     * is explored by the current thread.
+     *
+     * @param component The component on which the decision is made.
+     * @param variable The variable on which to branch.
+     * @param variables The subset of variables to consider while exploring the
+     *        branches (i.e., the variables on which to branch).
+     * @param depth The number of decisions made to reach the component.
+     *
+     * @return The intermediate result of the computation on the given component.
+     */
+    private T decide(PseudoBooleanFormula component, int variable, IVecInt variables,
+            int depth) {
+        int nbVariables = component.numberOfVariables();
+        if (depth < parallelBranchingDepth) {
+            var ifFalse = ForkJoinTask.adapt(
+                    () -> compute(nbVariables, component.assume(-variable), variables, depth + 1));
+            ifFalse.fork();
+            T ifTrue = compute(nbVariables, component.assume(variable), variables, depth + 1);
+            return decision(variable, ifTrue, ifFalse.join());
+        }
+
+        return decision(variable,
+                compute(nbVariables, component.assume(variable), variables, depth + 1),
+                compute(nbVariables, component.assume(-variable), variables, depth + 1));
+    }
+
+    /**
+     * Executes the D4 algorithm on the input formula, without any recursive call.
+     * The formulae and components that remain to be compiled are stored in an explicit
+     * stack of frames, so that the depth of the compilation is not bounded by the size
+     * of the stack of the current thread.
+     * The same callbacks as in the recursive algorithm are invoked, in the same order.
+     *
+     * @return The intermediate result of the computation on the input formula.
+     */
+    private T computeWithExplicitStack() {
+        var stack = new ArrayDeque<Frame>();
+        T result = start(numberOfFreeVariables(), assumedFormula(), VecInt.EMPTY, 0, stack);
+        while (!stack.isEmpty()) {
+            result = stack.peek().resume(result, stack);
+        }
+        return result;
+    }
+
+    /**
+     * Starts the computation on the given pseudo-Boolean formula.
+     * If the result can be computed right away (e.g., because the formula is
+     * unsatisfiable or cached), it is returned.
+     * Otherwise, a frame compiling the connected components of the formula is pushed
+     * on the stack.
+     *
+     * @param previousNbVariables The number of variables previously in the formula.
+     * @param subFormula The sub-formula for which a computation must be performed.
+     * @param variables The subset of variables to consider while performing the
+     *        computation (i.e., the variables on which to branch).
+     * @param depth The number of decisions made to reach the sub-formula.
+     * @param stack The stack of the frames to execute.
+     *
+     * @return The intermediate result of the computation on the given formula, or an
+     *         unspecified value if a frame has been pushed.
+     */
+    private T start(int previousNbVariables, PseudoBooleanFormula subFormula,
+            IVecInt variables, int depth, Deque<Frame> stack) {
+        // Applying BCP to the formula, unless the budget has run out.
+        listener.propagate();
+        if (budget.isExhausted()) {
+            return giveUp();
+        }
+        var output = subFormula.propagate(satCheckPolicy.maxConflicts(depth, previousNbVariables));
+
+        if (output.isUnsatisfiable()) {
+            // The current formula is unsatisfiable.
+            listener.unsatisfiable(subFormula);
+            return unsatisfiable();
+        }
+
+        // Retrieving the literals that have been propagated.
+        var propagatedLiterals = output.getPropagatedLiterals();
+        int nbFreeVariables = previousNbVariables - propagatedLiterals.size();
+        listener.propagated(propagatedLiterals, nbFreeVariables);
+        if (output.isSatisfiable()) {
+            // A solution has been found while propagating.
+            // The propagated literals form an implicant of the sub-formula.
+            listener.implicant(subFormula);
+            return implicant(nbFreeVariables, propagatedLiterals);
+        }
+
+        // Looking for the resulting formula in the cache.
+        var simplifiedFormula = output.getSimplifiedFormula();
+        nbFreeVariables -= simplifiedFormula.numberOfVariables();
+        var cached = cache.get(simplifiedFormula);
+        if (cached.isPresent()) {
+            listener.cached(simplifiedFormula);
+            return cached(nbFreeVariables, propagatedLiterals, cached.get());
+        }
+
+        // The connected components of the resulting formula must be compiled.
+        long startTime = System.nanoTime();
+        listener.computeConnectedComponents();
+        var connectedComponents = simplifiedFormula.connectedComponents();
+        listener.connectedComponentsFound(connectedComponents);
+        stack.push(new ConjunctionFrame(simplifiedFormula, nbFreeVariables, propagatedLiterals,
+                connectedComponents, variables, depth, startTime));
+        return null;
+    }
+
+    /**
+     * Starts the computation on a connected component of a pseudo-Boolean formula.
+     * If the component is cached, its result is returned.
+     * Otherwise, a frame deciding on a variable of the component is pushed on the
+     * stack.
+     *
+     * @param formula The formula from which the component has been extracted.
+     * @param component The connected component for which a computation must be
+     *        performed.
+     * @param variables The subset of variables to consider while performing the
+     *        computation (i.e., the variables on which to branch).
+     * @param lookUp Whether the component must be looked for in the cache.
+     * @param depth The number of decisions made to reach the component.
+     * @param stack The stack of the frames to execute.
+     *
+     * @return The intermediate result of the computation on the given component, or
+     *         an unspecified value if a frame has been pushed.
+     */
+    private T start(PseudoBooleanFormula formula, PseudoBooleanFormula component,
+            IVecInt variables, boolean lookUp, int depth, Deque<Frame> stack) {
+        // Looking for the component in the cache.
+        long startTime = System.nanoTime();
+        if (lookUp) {
+            var cached = cache.get(component);
+            if (cached.isPresent()) {
+                listener.cached(component);
+                return cached.get();
+            }
+        }
+
+        // Enumerating the models of small components, without branching on them.
+        var truthTable = truthTableOf(component);
+        if (truthTable.isPresent()) {
+            listener.enumerated(component);
+            return cacheComponent(component, lookUp, enumerated(truthTable.get()), startTime);
+        }
+
+        // Updating the variables to branch on.
+        var branchingVariables = computeBranchingVariables(formula, component,
+                restrict(variables, component.variables()));
+
+        // Making a decision.
+        var v = branchingVariables.last();
+        branchingVariables = branchingVariables.pop();
+        listener.branchOn(v);
+        stack.push(new DecisionFrame(component, v, branchingVariables, lookUp, depth,
+                startTime));
+        return null;
+    }
+
+    /**
+     * Computes the truth table of a connected component, if it is small enough for its
+     * models to be enumerated.
+     *
+     * @param component The component to compute the truth table of.
+     *
+     * @return The truth table of the component, or {@link Optional#empty()} if its
+     *         models must rather be explored by branching on its variables.
+     */
+    private Optional<TruthTable> truthTableOf(PseudoBooleanFormula component) {
+        if (component.numberOfVariables() > enumerationThreshold) {
+            return Optional.empty();
+        }
+        return TruthTable.of(component);
+    }
+
     /**
      * Computes the vector of the best variables on which to branch.
      *
@@ -277,6 +748,82 @@ public abstract class AbstractD4<T, R> {
      */
     protected abstract T conjunction(int nbFreeVariables, IVecInt literals, List<T> conjuncts);
 
+    /**
+     * Produces the intermediate result of the algorithm on a connected component whose
+     * models have been enumerated.
+     *
+     * @param truthTable The truth table of the component.
+     *
+     * @return The intermediate result of the algorithm on the component.
+     *
+     * @implSpec The default implementation rebuilds the result from the other
+     *           callbacks, by branching on the variables of the table from the last
+     *           one to the first one.
+     *           Variables whose value does not matter are considered as free, and
+     *           blocks of rows that are either empty or full are closed right away.
+     */
+    protected T enumerated(TruthTable truthTable) {
+        return enumerateBlock(truthTable, truthTable.numberOfVariables(), 0);
+    }
+
+    /**
+     * Produces the intermediate result of the algorithm on a block of rows of a truth
+     * table.
+     *
+     * @param truthTable The truth table to consider.
+     * @param nbVariables The number of variables that are not assigned in the block,
+     *        i.e., the first variables of the table.
+     * @param from The index of the first row of the block.
+     *
+     * @return The intermediate result of the algorithm on the block.
+     */
+    private T enumerateBlock(TruthTable truthTable, int nbVariables, int from) {
+        int size = 1 << nbVariables;
+        long nbModels = truthTable.countModels(from, size);
+        if (nbModels == 0) {
+            return unsatisfiable();
+        }
+        if (nbModels == size) {
+            return implicant(nbVariables, VecInt.EMPTY);
+        }
+
+        // The rows in which the last variable is falsified come first.
+        int half = size >> 1;
+        if (truthTable.sameRows(from, from + half, half)) {
+            // The value of the last variable does not matter.
+            return cached(1, VecInt.EMPTY, enumerateBlock(truthTable, nbVariables - 1, from));
+        }
+
+        int variable = truthTable.getVariable(nbVariables - 1);
+        return decision(variable,
+                enumerateBranch(truthTable, variable, nbVariables - 1, from + half),
+                enumerateBranch(truthTable, -variable, nbVariables - 1, from));
+    }
+
+    /**
+     * Produces the intermediate result of the algorithm on a branch of a decision
+     * made on a truth table.
+     *
+     * @param truthTable The truth table to consider.
+     * @param literal The literal satisfied in the branch.
+     * @param nbVariables The number of variables that are not assigned in the branch,
+     *        i.e., the first variables of the table.
+     * @param from The index of the first row of the branch.
+     *
+     * @return The intermediate result of the algorithm on the branch.
+     */
+    private T enumerateBranch(TruthTable truthTable, int literal, int nbVariables, int from) {
+        int size = 1 << nbVariables;
+        long nbModels = truthTable.countModels(from, size);
+        if (nbModels == 0) {
+            return unsatisfiable();
+        }
+        if (nbModels == size) {
+            return implicant(nbVariables, VecInt.of(literal));
+        }
+        return cached(0, VecInt.of(literal), enumerateBlock(truthTable, nbVariables, from));
+    }
+
     /**
      * Produces the final result of the algorithm from the last intermediate
      * result
@@ -289,4 +836,249 @@ public abstract class AbstractD4<T, R> {
      */
     protected abstract R toFinalResult(T intermediateResult);
 
+    /**
+     * The Frame is the representation of a computation that is suspended on the
+     * explicit stack used by {@link AbstractD4#computeWithExplicitStack()}.
+     */
+    private abstract class Frame {
+
+        /**
+         * Resumes the computation of this frame, which is on the top of the stack.
+         * This computation goes on until either it is complete, or it needs the result
+         * of a new frame.
+         *
+         * @param value The result of the last frame pushed by this frame, if it has
+         *        been pushed since the last time this frame was resumed.
+         *        This value is ignored otherwise.
+         * @param stack The stack of the frames to execute.
+         *
+         * @return The result of this frame, if it is complete (in this case, it has
+         *         been popped from the stack), or an unspecified value if a new frame
+         *         has been pushed.
+         */
+        abstract T resume(T value, Deque<Frame> stack);
+
+    }
+
+    /**
+     * The ConjunctionFrame is a frame compiling the connected components of a
+     * formula, one after the other.
+     */
+    private final class ConjunctionFrame extends Frame {
+
+        /**
+         * The formula from which the components have been extracted.
+         */
+        private final PseudoBooleanFormula simplifiedFormula;
+
+        /**
+         * The number of unassigned variables that do not appear in the formula.
+         */
+        private final int nbFreeVariables;
+
+        /**
+         * The literals that have been propagated, yielding the formula.
+         */
+        private final IVecInt propagatedLiterals;
+
+        /**
+         * The iterator over the components that remain to be compiled.
+         */
+        private final Iterator<PseudoBooleanFormula> components;
+
+        /**
+         * Whether the components must be looked for in the cache.
+         */
+        private final boolean lookUpComponents;
+
+        /**
+         * The subset of variables to consider while compiling the components.
+         */
+        private final IVecInt variables;
+
+        /**
+         * The number of decisions made to reach the formula.
+         */
+        private final int depth;
+
+        /**
+         * The time at which the compilation of the components started.
+         */
+        private final long startTime;
+
+        /**
+         * The results computed for the components compiled so far.
+         */
+        private final LinkedList<T> conjuncts;
+
+        /**
+         * Whether this frame is waiting for the result of a component.
+         */
+        private boolean waiting;
+
+        /**
+         * Creates a new ConjunctionFrame.
+         *
+         * @param simplifiedFormula The formula from which the components have been
+         *        extracted.
+         * @param nbFreeVariables The number of unassigned variables that do not appear
+         *        in the formula.
+         * @param propagatedLiterals The literals that have been propagated, yielding the
+         *        formula.
+         * @param components The components to compile.
+         * @param variables The subset of variables to consider while compiling the
+         *        components.
+         * @param depth The number of decisions made to reach the formula.
+         * @param startTime The time at which the compilation of the components started.
+         */
+        private ConjunctionFrame(PseudoBooleanFormula simplifiedFormula, int nbFreeVariables,
+                IVecInt propagatedLiterals, Collection<PseudoBooleanFormula> components,
+                IVecInt variables, int depth, long startTime) {
+            this.simplifiedFormula = simplifiedFormula;
+            this.nbFreeVariables = nbFreeVariables;
+            this.propagatedLiterals = propagatedLiterals;
+            this.components = components.iterator();
+            this.lookUpComponents = components.size() > 1;
+            this.variables = variables;
+            this.depth = depth;
+            this.startTime = startTime;
+            this.conjuncts = new LinkedList<>();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.AbstractD4.Frame#resume(java.lang.Object,
+         * java.util.Deque)
+         */
+        @Override
+        T resume(T value, Deque<Frame> stack) {
+            if (waiting) {
+                conjuncts.add(value);
+                waiting = false;
+            }
+
+            while (components.hasNext()) {
+                T result = start(simplifiedFormula, components.next(), variables,
+                        lookUpComponents, depth, stack);
+                if (stack.peek() != this) {
+                    // The result of the component is not known yet.
+                    waiting = true;
+                    return null;
+                }
+                conjuncts.add(result);
+            }
+
+            // All components have been compiled.
+            stack.pop();
+            return cacheConjunction(simplifiedFormula, nbFreeVariables, propagatedLiterals,
+                    conjuncts, startTime);
+        }
+
+    }
+
+    /**
+     * The DecisionFrame is a frame compiling both branches of a decision made on a
+     * connected component, one after the other.
+     */
+    private final class DecisionFrame extends Frame {
+
+        /**
+         * The component on which the decision is made.
+         */
+        private final PseudoBooleanFormula component;
+
+        /**
+         * The variable on which to branch.
+         */
+        private final int variable;
+
+        /**
+         * The subset of variables to consider while exploring the branches.
+         */
+        private final IVecInt variables;
+
+        /**
+         * Whether the component has been looked for in the cache.
+         */
+        private final boolean lookUp;
+
+        /**
+         * The number of decisions made to reach the component.
+         */
+        private final int depth;
+
+        /**
+         * The time at which the compilation of the component started.
+         */
+        private final long startTime;
+
+        /**
+         * The number of branches that have been started so far.
+         */
+        private int nbStartedBranches;
+
+        /**
+         * The result computed for the positive branch.
+         */
+        private T ifTrue;
+
+        /**
+         * Creates a new DecisionFrame.
+         *
+         * @param component The component on which the decision is made.
+         * @param variable The variable on which to branch.
+         * @param variables The subset of variables to consider while exploring the
+         *        branches.
+         * @param lookUp Whether the component has been looked for in the cache.
+         * @param depth The number of decisions made to reach the component.
+         * @param startTime The time at which the compilation of the component started.
+         */
+        private DecisionFrame(PseudoBooleanFormula component, int variable,
+                IVecInt variables, boolean lookUp, int depth, long startTime) {
+            this.component = component;
+            this.variable = variable;
+            this.variables = variables;
+            this.lookUp = lookUp;
+            this.depth = depth;
+            this.startTime = startTime;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.AbstractD4.Frame#resume(java.lang.Object,
+         * java.util.Deque)
+         */
+        @Override
+        T resume(T value, Deque<Frame> stack) {
+            if (nbStartedBranches == 0) {
+                // Starting the positive branch.
+                nbStartedBranches++;
+                value = start(component.numberOfVariables(), component.assume(variable),
+                        variables, depth + 1, stack);
+                if (stack.peek() != this) {
+                    return null;
+                }
+            }
+
+            if (nbStartedBranches == 1) {
+                // Starting the negative branch.
+                ifTrue = value;
+                nbStartedBranches++;
+                value = start(component.numberOfVariables(), component.assume(-variable),
+                        variables, depth + 1, stack);
+                if (stack.peek() != this) {
+                    return null;
+                }
+            }
+
+            // Both branches have been explored.
+            stack.pop();
+            return cacheComponent(component, lookUp, decision(variable, ifTrue, value),
+                    startTime);
+        }
+
+    }
+
 }
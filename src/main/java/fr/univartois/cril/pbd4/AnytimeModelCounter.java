@@ -0,0 +1,605 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+import org.sat4j.specs.IVecInt;
+
+import fr.univartois.cril.pbd4.listener.D4Listener;
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+import fr.univartois.cril.pbd4.pbc.TruthTable;
+
+/**
+ * The AnytimeModelCounter is a {@link D4ModelCounter} that maintains, while counting
+ * the models of the input formula, a lower bound and an upper bound on their number.
+ * In these bounds, the branches and components that have not been explored yet are
+ * respectively considered as having no model and as having all possible models.
+ * Yet, when the satisfiability of each sub-formula is checked before it is decomposed,
+ * its components are known to have at least one model, which tightens the lower bound.
+ * The bounds are tightened as the results of decisions and conjunctions are
+ * computed, and are periodically reported to the listener of the counter.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class AnytimeModelCounter extends D4ModelCounter {
+
+    /**
+     * The tracker of the search, maintaining the bounds on the number of models.
+     */
+    private final BoundsTracker tracker;
+
+    /**
+     * Creates a new AnytimeModelCounter.
+     *
+     * @param configuration The configuration of the counter.
+     */
+    AnytimeModelCounter(D4 configuration) {
+        this(configuration, new BoundsTracker(configuration));
+    }
+
+    /**
+     * Creates a new AnytimeModelCounter.
+     *
+     * @param configuration The configuration of the counter.
+     * @param tracker The tracker of the search, maintaining the bounds on the number
+     *        of models.
+     */
+    private AnytimeModelCounter(D4 configuration, BoundsTracker tracker) {
+        super(configuration, tracker);
+        this.tracker = tracker;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.D4ModelCounter#unsatisfiable()
+     */
+    @Override
+    protected BigInteger unsatisfiable() {
+        return tracker.formulaCounted(super.unsatisfiable());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.D4ModelCounter#cached(int,
+     * org.sat4j.specs.IVecInt, java.math.BigInteger)
+     */
+    @Override
+    protected BigInteger cached(int nbFreeVariables, IVecInt propagatedLiterals, BigInteger cached) {
+        // Implicants and conjunctions are also counted through this method.
+        return tracker.formulaCounted(super.cached(nbFreeVariables, propagatedLiterals, cached));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.D4ModelCounter#decision(int,
+     * java.math.BigInteger, java.math.BigInteger)
+     */
+    @Override
+    protected BigInteger decision(int variable, BigInteger ifTrue, BigInteger ifFalse) {
+        return tracker.decisionCounted(super.decision(variable, ifTrue, ifFalse));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.D4ModelCounter#enumerated(fr.univartois.cril.pbd4.pbc.
+     * TruthTable)
+     */
+    @Override
+    protected BigInteger enumerated(TruthTable truthTable) {
+        return tracker.componentEnumerated(super.enumerated(truthTable));
+    }
+
+    /**
+     * The BoundsTracker follows the search performed by the counter, and maintains the
+     * nodes on the path from the input formula to the formula currently considered.
+     * From the models counted for the nodes that have been left, it computes the
+     * bounds on the number of models of the input formula.
+     */
+    private static final class BoundsTracker implements D4Listener {
+
+        /**
+         * The configuration of the counter.
+         */
+        private final D4 configuration;
+
+        /**
+         * The listener to notify when the bounds are updated.
+         */
+        private final D4Listener listener;
+
+        /**
+         * The period (in nanoseconds) at which the bounds are reported.
+         */
+        private final long period;
+
+        /**
+         * The nodes on the current path of the search, from the last one to the first
+         * one.
+         */
+        private final Deque<Node> path;
+
+        /**
+         * Whether the sub-formulae are proven satisfiable before being decomposed.
+         */
+        private final boolean checked;
+
+        /**
+         * The number of variables of the input formula.
+         */
+        private int nbVariables;
+
+        /**
+         * The last upper bound computed before the budget of the counter ran out.
+         * Once this is the case, the models counted for the sub-formulae are only lower
+         * bounds, and cannot be used anymore to compute upper bounds.
+         */
+        private BigInteger upperBound;
+
+        /**
+         * The time (in nanoseconds) at which the bounds have been reported for the last
+         * time.
+         */
+        private long lastReport;
+
+        /**
+         * Creates a new BoundsTracker.
+         *
+         * @param configuration The configuration of the counter.
+         */
+        private BoundsTracker(D4 configuration) {
+            this.configuration = configuration;
+            this.listener = configuration.getListener();
+            this.period = configuration.getBoundsReportingPeriod().toNanos();
+            this.path = new ArrayDeque<>();
+            this.checked = configuration.getSatCheckPolicy().isComplete();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.listener.D4Listener#init(fr.univartois.cril.
+         * pbd4.pbc.PseudoBooleanFormula)
+         */
+        @Override
+        public void init(PseudoBooleanFormula formula) {
+            nbVariables = formula.numberOfVariables();
+            path.clear();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.listener.D4Listener#start()
+         */
+        @Override
+        public void start() {
+            lastReport = System.nanoTime();
+            upperBound = BigInteger.ONE.shiftLeft(nbVariables);
+            listener.boundsUpdated(BigInteger.ZERO, upperBound);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.listener.D4Listener#propagate()
+         */
+        @Override
+        public void propagate() {
+            // A formula is always either the input formula or a branch of a decision.
+            var decision = (DecisionNode) path.peek();
+            int nbFreeVariables = (decision == null) ? nbVariables : (decision.nbVariables - 1);
+            path.push(new FormulaNode(nbFreeVariables, checked));
+            reportIfNeeded();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * fr.univartois.cril.pbd4.listener.D4Listener#propagated(org.sat4j.specs.IVecInt,
+         * int)
+         */
+        @Override
+        public void propagated(IVecInt propagatedLiterals, int nbFreeVariables) {
+            ((FormulaNode) path.element()).nbFreeVariables = nbFreeVariables;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.listener.D4Listener#connectedComponentsFound(
+         * java.util.Collection)
+         */
+        @Override
+        public void connectedComponentsFound(Collection<PseudoBooleanFormula> connectedComponents) {
+            ((FormulaNode) path.element()).decompose(connectedComponents);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.listener.D4Listener#cached(fr.univartois.cril.
+         * pbd4.pbc.PseudoBooleanFormula)
+         */
+        @Override
+        public void cached(PseudoBooleanFormula cachedFormula) {
+            var formula = (FormulaNode) path.element();
+            if (formula.components != null) {
+                // The cached formula is a component, whose models are not known here.
+                formula.componentCounted(null);
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.listener.D4Listener#branchOn(int)
+         */
+        @Override
+        public void branchOn(int v) {
+            var formula = (FormulaNode) path.element();
+            path.push(new DecisionNode(formula.components[formula.current], checked));
+        }
+
+        /**
+         * Notifies this tracker that the models of the current formula have been
+         * counted.
+         *
+         * @param nbModels The number of models of the formula.
+         *
+         * @return The number of models of the formula.
+         */
+        private BigInteger formulaCounted(BigInteger nbModels) {
+            path.pop();
+            var decision = (DecisionNode) path.peek();
+            if (decision == null) {
+                // The input formula has been counted.
+                if (configuration.isComplete()) {
+                    upperBound = nbModels;
+                }
+                listener.boundsUpdated(nbModels, upperBound);
+
+            } else {
+                decision.branchCounted(nbModels);
+            }
+            return nbModels;
+        }
+
+        /**
+         * Notifies this tracker that the models of the current component have been
+         * enumerated, without branching on its variables.
+         *
+         * @param nbModels The number of models of the component.
+         *
+         * @return The number of models of the component.
+         */
+        private BigInteger componentEnumerated(BigInteger nbModels) {
+            ((FormulaNode) path.element()).componentCounted(nbModels);
+            return nbModels;
+        }
+
+        /**
+         * Notifies this tracker that the models of the current decision have been
+         * counted.
+         *
+         * @param nbModels The number of models of the decision.
+         *
+         * @return The number of models of the decision.
+         */
+        private BigInteger decisionCounted(BigInteger nbModels) {
+            path.pop();
+            ((FormulaNode) path.element()).componentCounted(nbModels);
+            return nbModels;
+        }
+
+        /**
+         * Reports the bounds on the number of models of the input formula if the
+         * reporting period has elapsed.
+         */
+        private void reportIfNeeded() {
+            long now = System.nanoTime();
+            if (now - lastReport < period) {
+                return;
+            }
+
+            // Combining the bounds from the last node to the input formula.
+            BigInteger lower = null;
+            BigInteger upper = null;
+            for (var node : path) {
+                lower = node.lowerBound(lower);
+                upper = node.upperBound(upper);
+            }
+            if (configuration.isComplete()) {
+                upperBound = upper;
+            }
+            listener.boundsUpdated(lower, upperBound);
+            lastReport = now;
+        }
+
+    }
+
+    /**
+     * The Node is a node on the current path of the search.
+     */
+    private interface Node {
+
+        /**
+         * Gives a lower bound on the number of models of this node.
+         *
+         * @param child The lower bound of the child of this node that is currently
+         *        explored, or {@code null} if there is no such child.
+         *
+         * @return The lower bound of this node.
+         */
+        BigInteger lowerBound(BigInteger child);
+
+        /**
+         * Gives an upper bound on the number of models of this node.
+         *
+         * @param child The upper bound of the child of this node that is currently
+         *        explored, or {@code null} if there is no such child.
+         *
+         * @return The upper bound of this node.
+         */
+        BigInteger upperBound(BigInteger child);
+
+    }
+
+    /**
+     * The FormulaNode is a node representing a (sub-)formula on which BCP is applied,
+     * and which is then decomposed into connected components.
+     */
+    private static final class FormulaNode implements Node {
+
+        /**
+         * The number of variables that may still be free in the formula.
+         */
+        private int nbFreeVariables;
+
+        /**
+         * The number of free variables that do not appear in any component.
+         */
+        private int nbOutsideVariables;
+
+        /**
+         * The number of variables of each connected component of the formula, or
+         * {@code null} if the formula has not been decomposed yet.
+         */
+        private int[] components;
+
+        /**
+         * The number of models of each component that has been counted, or
+         * {@code null} if this number is not known.
+         */
+        private BigInteger[] nbModels;
+
+        /**
+         * The index of the component that is currently explored.
+         */
+        private int current;
+
+        /**
+         * Whether the formula is proven satisfiable before being decomposed.
+         */
+        private final boolean checked;
+
+        /**
+         * Creates a new FormulaNode.
+         *
+         * @param nbFreeVariables The number of variables that may be free in the
+         *        formula.
+         * @param checked Whether the formula is proven satisfiable before being
+         *        decomposed.
+         */
+        private FormulaNode(int nbFreeVariables, boolean checked) {
+            this.nbFreeVariables = nbFreeVariables;
+            this.checked = checked;
+        }
+
+        /**
+         * Decomposes this formula into connected components.
+         *
+         * @param connectedComponents The connected components of the formula.
+         */
+        private void decompose(Collection<PseudoBooleanFormula> connectedComponents) {
+            components = connectedComponents.stream()
+                    .mapToInt(PseudoBooleanFormula::numberOfVariables)
+                    .toArray();
+            nbModels = new BigInteger[components.length];
+            nbOutsideVariables = nbFreeVariables;
+            for (int size : components) {
+                nbOutsideVariables -= size;
+            }
+        }
+
+        /**
+         * Notifies this node that the models of the current component have been
+         * counted.
+         *
+         * @param count The number of models of the component, or {@code null} if it
+         *        is not known.
+         */
+        private void componentCounted(BigInteger count) {
+            nbModels[current] = count;
+            current++;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * fr.univartois.cril.pbd4.AnytimeModelCounter.Node#lowerBound(java.math.BigInteger)
+         */
+        @Override
+        public BigInteger lowerBound(BigInteger child) {
+            if (components == null) {
+                return BigInteger.ZERO;
+            }
+
+            // If the decomposed formula has been found satisfiable by the solver, so is
+            // each of its components.
+            // Otherwise, the components whose models are not known may have none.
+            var bound = BigInteger.ONE;
+            for (int i = 0; i < current; i++) {
+                if (nbModels[i] != null) {
+                    bound = bound.multiply(nbModels[i]);
+
+                } else if (!checked) {
+                    return BigInteger.ZERO;
+                }
+            }
+            if (current < components.length) {
+                if (!checked && ((child == null) || (current < components.length - 1))) {
+                    return BigInteger.ZERO;
+                }
+                if (child != null) {
+                    bound = bound.multiply(child);
+                }
+            }
+            return bound.shiftLeft(nbOutsideVariables);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * fr.univartois.cril.pbd4.AnytimeModelCounter.Node#upperBound(java.math.BigInteger)
+         */
+        @Override
+        public BigInteger upperBound(BigInteger child) {
+            if (components == null) {
+                return BigInteger.ONE.shiftLeft(nbFreeVariables);
+            }
+
+            var bound = BigInteger.ONE;
+            int nbUnknownVariables = nbOutsideVariables;
+            for (int i = 0; i < components.length; i++) {
+                if ((i < current) && (nbModels[i] != null)) {
+                    bound = bound.multiply(nbModels[i]);
+
+                } else if ((i == current) && (child != null)) {
+                    bound = bound.multiply(child);
+
+                } else {
+                    nbUnknownVariables += components[i];
+                }
+            }
+            return bound.shiftLeft(nbUnknownVariables);
+        }
+
+    }
+
+    /**
+     * The DecisionNode is a node representing a decision made on a variable of a
+     * connected component.
+     */
+    private static final class DecisionNode implements Node {
+
+        /**
+         * The number of variables of the component.
+         */
+        private final int nbVariables;
+
+        /**
+         * The number of models of the component when the variable is satisfied, or
+         * {@code null} if this branch has not been counted yet.
+         */
+        private BigInteger ifTrue;
+
+        /**
+         * Whether the component is proven satisfiable.
+         */
+        private final boolean checked;
+
+        /**
+         * Creates a new DecisionNode.
+         *
+         * @param nbVariables The number of variables of the component.
+         * @param checked Whether the component is proven satisfiable.
+         */
+        private DecisionNode(int nbVariables, boolean checked) {
+            this.nbVariables = nbVariables;
+            this.checked = checked;
+        }
+
+        /**
+         * Notifies this node that the models of one of its branches have been counted.
+         *
+         * @param count The number of models of the branch.
+         */
+        private void branchCounted(BigInteger count) {
+            if (ifTrue == null) {
+                ifTrue = count;
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * fr.univartois.cril.pbd4.AnytimeModelCounter.Node#lowerBound(java.math.BigInteger)
+         */
+        @Override
+        public BigInteger lowerBound(BigInteger child) {
+            var bound = (ifTrue == null) ? BigInteger.ZERO : ifTrue;
+            if (child != null) {
+                bound = bound.add(child);
+            }
+
+            if (checked) {
+                // The component is satisfiable, so that at least one branch has a model.
+                return bound.max(BigInteger.ONE);
+            }
+            return bound;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * fr.univartois.cril.pbd4.AnytimeModelCounter.Node#upperBound(java.math.BigInteger)
+         */
+        @Override
+        public BigInteger upperBound(BigInteger child) {
+            var branch = BigInteger.ONE.shiftLeft(nbVariables - 1);
+            if (ifTrue == null) {
+                // The first branch is being explored.
+                return ((child == null) ? branch : child).add(branch);
+            }
+
+            // The second branch is being explored.
+            return ifTrue.add((child == null) ? branch : child);
+        }
+
+    }
+
+}
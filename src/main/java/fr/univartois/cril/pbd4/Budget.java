@@ -0,0 +1,166 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The Budget represents the resources (wall-clock time and heap memory) that the D4
+ * algorithm is allowed to use.
+ * Once the budget is exhausted, it remains so until the next computation starts.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class Budget {
+
+    /**
+     * The value representing the absence of limit.
+     */
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * The memory pools of the heap that report their usage after the last garbage
+     * collection.
+     */
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = ManagementFactory
+        .getMemoryPoolMXBeans().stream()
+        .filter(pool -> (pool.getType() == MemoryType.HEAP)
+                && (pool.getCollectionUsage() != null))
+        .collect(toUnmodifiableList());
+
+    /**
+     * The maximum wall-clock time (in nanoseconds) of a computation.
+     */
+    private final long timeLimit;
+
+    /**
+     * The maximum amount of heap memory (in bytes) in use during a computation.
+     */
+    private final long memoryLimit;
+
+    /**
+     * The time (as given by {@link System#nanoTime()}) at which the current computation
+     * must stop.
+     */
+    private long deadline;
+
+    /**
+     * Whether this budget has been exhausted during the current computation.
+     */
+    private volatile boolean exhausted;
+
+    /**
+     * Creates a new Budget.
+     *
+     * @param timeLimit The maximum wall-clock time (in nanoseconds) of a computation.
+     * @param memoryLimit The maximum amount of heap memory (in bytes) in use during a
+     *        computation.
+     */
+    private Budget(long timeLimit, long memoryLimit) {
+        this.timeLimit = timeLimit;
+        this.memoryLimit = memoryLimit;
+        this.deadline = UNLIMITED;
+    }
+
+    /**
+     * Creates a new Budget.
+     *
+     * @param timeLimit The maximum wall-clock time of a computation, or {@code null} if
+     *        there is no such limit.
+     * @param memoryLimit The maximum amount of heap memory (in bytes) in use during a
+     *        computation, or {@code 0} if there is no such limit.
+     *
+     * @return The created budget.
+     */
+    static Budget of(Duration timeLimit, long memoryLimit) {
+        return new Budget((timeLimit == null) ? UNLIMITED : timeLimit.toNanos(),
+                (memoryLimit == 0) ? UNLIMITED : memoryLimit);
+    }
+
+    /**
+     * Notifies this budget that a computation starts.
+     */
+    void start() {
+        long now = System.nanoTime();
+        deadline = (timeLimit < UNLIMITED - now) ? (now + timeLimit) : UNLIMITED;
+        exhausted = false;
+    }
+
+    /**
+     * Checks whether this budget is exhausted, i.e., whether the time limit has been
+     * reached or the heap memory in use exceeds the memory limit.
+     * The memory in use is that measured by the JVM after the last garbage
+     * collection, so that objects that have not been collected yet are not counted.
+     *
+     * @return Whether this budget is exhausted.
+     */
+    boolean isExhausted() {
+        if (!exhausted && (deadline < UNLIMITED) && (System.nanoTime() - deadline >= 0)) {
+            exhausted = true;
+        }
+
+        if (!exhausted && (memoryLimit < UNLIMITED)) {
+            exhausted = heapInUseAfterCollection() > memoryLimit;
+        }
+
+        return exhausted;
+    }
+
+    /**
+     * Gives the amount of heap memory that was in use after the last garbage
+     * collection.
+     * Memory pools that have not been collected yet are ignored.
+     *
+     * @return The amount of heap memory (in bytes) that survived the last garbage
+     *         collection.
+     */
+    static long heapInUseAfterCollection() {
+        long used = 0;
+        for (var pool : HEAP_POOLS) {
+            var usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Checks whether this budget has been exhausted during the last (or current)
+     * computation.
+     * Contrary to {@link #isExhausted()}, this method does not check the resources
+     * that are currently used.
+     *
+     * @return Whether this budget has been exhausted.
+     */
+    boolean hasBeenExhausted() {
+        return exhausted;
+    }
+
+}
@@ -0,0 +1,221 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.IVecInt;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The CubeSplitter splits the search space of a pseudo-Boolean formula into cubes,
+ * by running the decision procedure of D4 breadth-first, up to a given depth or until
+ * a given number of cubes is reached.
+ * The cubes may then be counted independently, and the number of models of the
+ * formula is the sum of their numbers of models.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class CubeSplitter {
+
+    /**
+     * The formula to split into cubes.
+     */
+    private final PseudoBooleanFormula formula;
+
+    /**
+     * The maximum number of decisions in a cube.
+     */
+    private final int maxDepth;
+
+    /**
+     * The maximum number of cubes to compute.
+     */
+    private final int maxCubes;
+
+    /**
+     * The cubes that will not be split anymore.
+     */
+    private final List<IVecInt> cubes;
+
+    /**
+     * The cubes that may still be split, together with the formula they yield.
+     */
+    private final Deque<OpenCube> openCubes;
+
+    /**
+     * Creates a new CubeSplitter.
+     *
+     * @param formula The formula to split into cubes.
+     * @param maxDepth The maximum number of decisions in a cube.
+     * @param maxCubes The maximum number of cubes to compute.
+     */
+    private CubeSplitter(PseudoBooleanFormula formula, int maxDepth, int maxCubes) {
+        this.formula = formula;
+        this.maxDepth = maxDepth;
+        this.maxCubes = maxCubes;
+        this.cubes = new ArrayList<>();
+        this.openCubes = new ArrayDeque<>();
+    }
+
+    /**
+     * Creates a new CubeSplitter.
+     *
+     * @param formula The formula to split into cubes.
+     * @param maxDepth The maximum number of decisions in a cube.
+     * @param maxCubes The maximum number of cubes to compute.
+     *
+     * @return The created splitter.
+     */
+    static CubeSplitter of(PseudoBooleanFormula formula, int maxDepth, int maxCubes) {
+        return new CubeSplitter(formula, maxDepth, maxCubes);
+    }
+
+    /**
+     * Splits the formula into cubes.
+     *
+     * @param assumptions The literals assumed to be satisfied in the formula, which
+     *        appear in all the cubes.
+     *
+     * @return The cubes of the formula, satisfying its assumptions.
+     */
+    List<IVecInt> split(IVecInt assumptions) {
+        cubes.clear();
+        openCubes.clear();
+        offer(assumptions);
+
+        while (!openCubes.isEmpty()) {
+            var cube = openCubes.poll();
+            int depth = cube.literals.size() - assumptions.size();
+            if ((depth >= maxDepth) || (cubes.size() + openCubes.size() + 2 > maxCubes)) {
+                // Splitting this cube would exceed one of the limits.
+                cubes.add(cube.literals);
+                continue;
+            }
+
+            // Deciding on the variable that is the most constrained.
+            int variable = selectVariable(cube.simplifiedFormula);
+            offer(extend(cube.literals, variable));
+            offer(extend(cube.literals, -variable));
+        }
+
+        return cubes;
+    }
+
+    /**
+     * Propagates a cube in the formula, and records it if it is satisfiable.
+     *
+     * @param literals The literals of the cube.
+     */
+    private void offer(IVecInt literals) {
+        var output = literals.isEmpty() ? formula.propagate() : formula.assume(literals).propagate();
+        if (output.isUnsatisfiable()) {
+            // This cube has no model, and is thus discarded.
+            return;
+        }
+
+        if (output.isSatisfiable()) {
+            // The propagated literals form an implicant: there is no decision to make.
+            cubes.add(literals);
+            return;
+        }
+
+        var simplifiedFormula = output.getSimplifiedFormula();
+        if (simplifiedFormula.numberOfVariables() == 0) {
+            // There is no variable left to decide on.
+            cubes.add(literals);
+
+        } else {
+            openCubes.add(new OpenCube(literals, simplifiedFormula));
+        }
+    }
+
+    /**
+     * Selects the variable to branch on in a formula, based on the scores of its
+     * variables.
+     *
+     * @param simplifiedFormula The formula to branch on.
+     *
+     * @return The selected variable.
+     */
+    private static int selectVariable(PseudoBooleanFormula simplifiedFormula) {
+        var variables = simplifiedFormula.variables();
+        int best = variables.get(0);
+        for (int i = 1; i < variables.size(); i++) {
+            int variable = variables.get(i);
+            if (simplifiedFormula.score(variable) > simplifiedFormula.score(best)) {
+                best = variable;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Extends a cube with a new literal.
+     *
+     * @param literals The literals of the cube.
+     * @param literal The literal to add.
+     *
+     * @return The extended cube.
+     */
+    private static IVecInt extend(IVecInt literals, int literal) {
+        var extended = new VecInt(literals.size() + 1);
+        literals.copyTo(extended);
+        extended.push(literal);
+        return extended;
+    }
+
+    /**
+     * The OpenCube is a cube that may still be split.
+     */
+    private static final class OpenCube {
+
+        /**
+         * The literals of the cube.
+         */
+        private final IVecInt literals;
+
+        /**
+         * The formula obtained after propagating the cube.
+         */
+        private final PseudoBooleanFormula simplifiedFormula;
+
+        /**
+         * Creates a new OpenCube.
+         *
+         * @param literals The literals of the cube.
+         * @param simplifiedFormula The formula obtained after propagating the cube.
+         */
+        private OpenCube(IVecInt literals, PseudoBooleanFormula simplifiedFormula) {
+            this.literals = literals;
+            this.simplifiedFormula = simplifiedFormula;
+        }
+
+    }
+
+}
@@ -23,16 +23,24 @@ package fr.univartois.cril.pbd4;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import org.sat4j.core.VecInt;
 import org.sat4j.pb.SolverFactory;
+import org.sat4j.specs.IVecInt;
 
+import fr.univartois.cril.pbd4.caching.CacheStatistics;
 import fr.univartois.cril.pbd4.caching.CachingStrategy;
 import fr.univartois.cril.pbd4.caching.NoCache;
+import fr.univartois.cril.pbd4.caching.SynchronizedCache;
 import fr.univartois.cril.pbd4.ddnnf.DecisionDnnf;
 import fr.univartois.cril.pbd4.listener.CompositeListener;
 import fr.univartois.cril.pbd4.listener.D4Listener;
@@ -40,8 +48,11 @@ import fr.univartois.cril.pbd4.partitioning.CutsetComputationStrategy;
 import fr.univartois.cril.pbd4.partitioning.CutsetUpdateStrategy;
 import fr.univartois.cril.pbd4.partitioning.KahyparCutsetComputationStrategy;
 import fr.univartois.cril.pbd4.partitioning.LargeChangeCutsetUpdateStrategy;
+import fr.univartois.cril.pbd4.partitioning.MemoizingCutsetComputationStrategy;
+import fr.univartois.cril.pbd4.partitioning.SynchronizedCutsetComputationStrategy;
 import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
 import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormulaReader;
+import fr.univartois.cril.pbd4.pbc.TruthTable;
 import fr.univartois.cril.pbd4.pbc.solver.SolverProvider;
 
 /**
@@ -59,6 +70,17 @@ public final class D4 {
      */
     private Supplier<PseudoBooleanFormula> formulaSupplier;
 
+    /**
+     * The literals assumed to be satisfied in the input formula.
+     */
+    private IVecInt assumptions;
+
+    /**
+     * The weights of the literals, used when computing the weighted number of models
+     * of the formula.
+     */
+    private LiteralWeights weights;
+
     /**
      * The provider for the solver to use as a SAT oracle.
      */
@@ -84,11 +106,69 @@ public final class D4 {
      */
     private int partitionSize;
 
+    /**
+     * The maximum number of cutsets to remember, so as to reuse them when the same
+     * formula is encountered again.
+     */
+    private int cutsetMemoization;
+
     /**
      * The caching strategy to use.
      */
     private CachingStrategy<?> cache;
 
+    /**
+     * The number of threads used to compile the formula.
+     */
+    private int numberOfThreads;
+
+    /**
+     * The number of decisions below which both branches of a decision are explored in
+     * parallel.
+     */
+    private int parallelBranchingDepth;
+
+    /**
+     * Whether the D4 algorithm is driven by an explicit stack rather than by recursive
+     * calls.
+     */
+    private boolean explicitStack;
+
+    /**
+     * The maximum number of variables of the connected components whose models are
+     * enumerated rather than explored by branching on their variables.
+     */
+    private int enumerationThreshold;
+
+    /**
+     * The policy deciding when the satisfiability of a sub-formula must be checked
+     * after BCP.
+     */
+    private SatCheckPolicy satCheckPolicy;
+
+    /**
+     * The maximum wall-clock time of the D4 algorithm, or {@code null} if there is no
+     * such limit.
+     */
+    private Duration timeLimit;
+
+    /**
+     * The maximum amount of heap memory (in bytes) in use during the execution of the
+     * D4 algorithm, or {@code 0} if there is no such limit.
+     */
+    private long memoryLimit;
+
+    /**
+     * The budget of the last (or current) execution of the D4 algorithm.
+     */
+    private Budget budget;
+
+    /**
+     * The period at which the bounds on the number of models are reported while
+     * counting them, or {@code null} if these bounds are not maintained.
+     */
+    private Duration boundsReportingPeriod;
+
     private CompositeListener listener = new CompositeListener();
 
     private CutsetUpdateStrategy cutsetUpdateStrategy = LargeChangeCutsetUpdateStrategy.instance();
@@ -99,10 +179,16 @@ public final class D4 {
     private D4() {
         this.imbalance = KahyparCutsetComputationStrategy.DEFAULT_IMBALANCE;
         this.partitionSize = KahyparCutsetComputationStrategy.DEFAULT_NUMBER_OF_BLOCKS;
+        this.cutsetMemoization = MemoizingCutsetComputationStrategy.DEFAULT_CAPACITY;
         this.solverProvider = SolverProvider.defaultProvider();
         this.solverName = solverProvider.toString();
         this.formulaSupplier = () -> null;
+        this.assumptions = VecInt.EMPTY;
+        this.weights = LiteralWeights.newInstance();
         this.cache = NoCache.instance();
+        this.numberOfThreads = 1;
+        this.satCheckPolicy = SatCheckPolicy.always();
+        this.budget = Budget.of(null, 0);
     }
 
     /**
@@ -198,6 +284,81 @@ public final class D4 {
         return formulaSupplier.get();
     }
 
+    /**
+     * Specifies literals that are assumed to be satisfied in the input formula.
+     * The D4 algorithm is then executed on the models of the formula satisfying all
+     * these literals (e.g., on one of the cubes computed by
+     * {@link #splitIntoCubes(int, int)}).
+     * Note that the assumed literals do not appear in a decision-DNNF computed under
+     * these assumptions.
+     * Repeated literals are only assumed once.
+     *
+     * @param assumptions The literals assumed to be satisfied, in DIMACS format.
+     *
+     * @return This configurator.
+     *
+     * @throws IllegalArgumentException If {@code assumptions} contains {@code 0}, or
+     *         both a literal and its negation.
+     */
+    public D4 underAssumptions(IVecInt assumptions) {
+        var distinct = new VecInt(assumptions.size());
+        var assumed = new HashSet<Integer>();
+        for (var it = assumptions.iterator(); it.hasNext();) {
+            int literal = it.next();
+            if (literal == 0) {
+                throw new IllegalArgumentException("Illegal assumption: " + literal);
+            }
+
+            if (assumed.contains(-literal)) {
+                throw new IllegalArgumentException(
+                        "Contradictory assumptions: " + literal + " and " + (-literal));
+            }
+
+            if (assumed.add(literal)) {
+                distinct.push(literal);
+            }
+        }
+
+        this.assumptions = distinct;
+        return this;
+    }
+
+    /**
+     * Gives the literals that are assumed to be satisfied in the input formula.
+     * Each of these literals appears only once, and never together with its negation.
+     *
+     * @return The assumed literals.
+     */
+    IVecInt getAssumptions() {
+        return assumptions;
+    }
+
+    /**
+     * Specifies the weights of the literals of the formula, used when computing its
+     * weighted number of models.
+     * By default, all literals have weight {@code 1}.
+     *
+     * @param weights The weights of the literals.
+     *
+     * @return This configurator.
+     *
+     * @see #countModelsWeighted()
+     * @see #countModelsWeightedExactly()
+     */
+    public D4 withWeights(LiteralWeights weights) {
+        this.weights = weights;
+        return this;
+    }
+
+    /**
+     * Gives the weights of the literals of the formula.
+     *
+     * @return The weights of the literals.
+     */
+    LiteralWeights getWeights() {
+        return weights;
+    }
+
     /**
      * Specifies the name of the solver to use as a SAT oracle during the
      * execution
@@ -259,6 +420,21 @@ public final class D4 {
         return this;
     }
 
+    /**
+     * Specifies the maximum number of cutsets to remember, so as to reuse them when
+     * the same formula is encountered again.
+     *
+     * @param cutsetMemoization The maximum number of cutsets to remember.
+     *        If this number is {@code 0}, a new cutset is computed each time one is
+     *        needed.
+     *
+     * @return This configurator.
+     */
+    public D4 memoizeCutsets(int cutsetMemoization) {
+        this.cutsetMemoization = cutsetMemoization;
+        return this;
+    }
+
     /**
      * Specifies the caching strategy to use during the execution of the D4
      * algorithm.
@@ -272,6 +448,278 @@ public final class D4 {
         return this;
     }
 
+    /**
+     * Specifies the number of threads to use during the execution of the D4
+     * algorithm.
+     * When more than one thread is used, the independent connected components of
+     * the formula are compiled in parallel.
+     * In this case, the listeners are notified from the different threads, and must
+     * thus be thread-safe.
+     *
+     * @param numberOfThreads The number of threads to use.
+     *
+     * @return This configurator.
+     *
+     * @throws IllegalArgumentException If {@code numberOfThreads} is not positive.
+     *
+     * @see #branchInParallel(int)
+     */
+    public D4 withThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Illegal number of threads: " + numberOfThreads);
+        }
+
+        this.numberOfThreads = numberOfThreads;
+        return this;
+    }
+
+    /**
+     * Gives the number of threads to use during the execution of the D4 algorithm.
+     *
+     * @return The number of threads to use.
+     */
+    int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * Specifies the depth down to which both branches of a decision are explored in
+     * parallel.
+     * This allows to use the threads of the compiler even on formulae that are never
+     * split into independent connected components.
+     * This setting has no effect when a single thread is used.
+     *
+     * @param parallelBranchingDepth The number of decisions below which both branches of
+     *        a decision are explored in parallel.
+     *        If this number is {@code 0}, the branches are always explored one after
+     *        the other.
+     *
+     * @return This configurator.
+     *
+     * @throws IllegalArgumentException If {@code parallelBranchingDepth} is negative.
+     *
+     * @see #withThreads(int)
+     */
+    public D4 branchInParallel(int parallelBranchingDepth) {
+        if (parallelBranchingDepth < 0) {
+            throw new IllegalArgumentException(
+                    "Illegal depth for parallel branching: " + parallelBranchingDepth);
+        }
+
+        this.parallelBranchingDepth = parallelBranchingDepth;
+        return this;
+    }
+
+    /**
+     * Gives the depth down to which both branches of a decision are explored in
+     * parallel.
+     *
+     * @return The number of decisions below which both branches of a decision are
+     *         explored in parallel.
+     */
+    int getParallelBranchingDepth() {
+        return parallelBranchingDepth;
+    }
+
+    /**
+     * Specifies whether the D4 algorithm must be driven by an explicit stack rather
+     * than by recursive calls.
+     * With an explicit stack, the depth of the compilation is not bounded by the size
+     * of the stack of the current thread, so that deep formulae may be compiled without
+     * enlarging this stack.
+     * This setting has no effect when more than one thread is used.
+     *
+     * @param explicitStack Whether to use an explicit stack.
+     *
+     * @return This configurator.
+     *
+     * @see #withThreads(int)
+     */
+    public D4 useExplicitStack(boolean explicitStack) {
+        this.explicitStack = explicitStack;
+        return this;
+    }
+
+    /**
+     * Checks whether the D4 algorithm must be driven by an explicit stack rather than
+     * by recursive calls.
+     *
+     * @return Whether to use an explicit stack.
+     */
+    boolean usesExplicitStack() {
+        return explicitStack;
+    }
+
+    /**
+     * Specifies the maximum number of variables of the connected components whose
+     * models must be enumerated rather than explored by branching on their variables.
+     * The models of such components are computed from the truth table of their
+     * residual constraints, so that no cutset is computed and no decision is made on
+     * them.
+     * By default, no component is enumerated.
+     *
+     * @param maxVariables The maximum number of variables of an enumerated component.
+     *
+     * @return This configurator.
+     *
+     * @throws IllegalArgumentException If {@code maxVariables} is negative, or greater
+     *         than {@link TruthTable#MAX_VARIABLES}.
+     */
+    public D4 enumerateSmallComponents(int maxVariables) {
+        if ((maxVariables < 0) || (maxVariables > TruthTable.MAX_VARIABLES)) {
+            throw new IllegalArgumentException("Illegal number of variables: " + maxVariables);
+        }
+
+        this.enumerationThreshold = maxVariables;
+        return this;
+    }
+
+    /**
+     * Gives the maximum number of variables of the connected components whose models
+     * are enumerated rather than explored by branching on their variables.
+     *
+     * @return The maximum number of variables of an enumerated component.
+     */
+    int getEnumerationThreshold() {
+        return enumerationThreshold;
+    }
+
+    /**
+     * Specifies the policy deciding when the satisfiability of a sub-formula must be
+     * checked by the SAT solver, after BCP has failed to decide it.
+     * Checking less sub-formulae reduces the cost of each node of the search, at the
+     * price of a weaker pruning of the unsatisfiable ones.
+     * By default, every sub-formula is completely checked.
+     *
+     * @param satCheckPolicy The policy for checking satisfiability.
+     *
+     * @return This configurator.
+     *
+     * @see SatCheckPolicy#always()
+     */
+    public D4 checkSatisfiability(SatCheckPolicy satCheckPolicy) {
+        this.satCheckPolicy = satCheckPolicy;
+        return this;
+    }
+
+    /**
+     * Gives the policy deciding when the satisfiability of a sub-formula must be
+     * checked by the SAT solver.
+     *
+     * @return The policy for checking satisfiability.
+     */
+    SatCheckPolicy getSatCheckPolicy() {
+        return satCheckPolicy;
+    }
+
+    /**
+     * Specifies the maximum wall-clock time of the D4 algorithm.
+     * When this time is over, the sub-formulae that have not been explored yet are
+     * given up, and considered as unsatisfiable.
+     * The computed result is thus partial: a model count is a lower bound of the actual
+     * number of models, and a decision-DNNF represents a subset of the models.
+     *
+     * @param timeLimit The maximum wall-clock time of the algorithm.
+     *
+     * @return This configurator.
+     *
+     * @throws IllegalArgumentException If {@code timeLimit} is not positive.
+     *
+     * @see #isComplete()
+     */
+    public D4 withTimeLimit(Duration timeLimit) {
+        if (timeLimit.isNegative() || timeLimit.isZero()) {
+            throw new IllegalArgumentException("Illegal time limit: " + timeLimit);
+        }
+
+        this.timeLimit = timeLimit;
+        return this;
+    }
+
+    /**
+     * Specifies the maximum amount of heap memory in use during the execution of the D4
+     * algorithm.
+     * When this amount is exceeded, the sub-formulae that have not been explored yet
+     * are given up, in the same way as when the time limit is reached.
+     * The memory in use is measured after garbage collections, so that only live
+     * objects are taken into account.
+     *
+     * @param memoryLimit The maximum amount of heap memory (in bytes) in use.
+     *
+     * @return This configurator.
+     *
+     * @throws IllegalArgumentException If {@code memoryLimit} is not positive.
+     *
+     * @see #withTimeLimit(Duration)
+     * @see #isComplete()
+     */
+    public D4 withMemoryLimit(long memoryLimit) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("Illegal memory limit: " + memoryLimit);
+        }
+
+        this.memoryLimit = memoryLimit;
+        return this;
+    }
+
+    /**
+     * Gives a new budget for an execution of the D4 algorithm.
+     *
+     * @return The budget of the execution.
+     */
+    Budget getBudget() {
+        budget = Budget.of(timeLimit, memoryLimit);
+        return budget;
+    }
+
+    /**
+     * Checks whether the last (or current) execution of the D4 algorithm has been
+     * completed, i.e., whether none of its budgets has run out.
+     * If this is not the case, the computed result is partial.
+     *
+     * @return Whether the last execution of the algorithm is complete.
+     *
+     * @see #withTimeLimit(Duration)
+     * @see #withMemoryLimit(long)
+     */
+    public boolean isComplete() {
+        return !budget.hasBeenExhausted();
+    }
+
+    /**
+     * Specifies that a lower bound and an upper bound on the number of models of the
+     * formula must be maintained while counting them.
+     * These bounds are periodically reported to the listeners of the algorithm, so
+     * that an approximation of the count is available at any time.
+     * Bounds are only maintained when a single thread is used.
+     *
+     * @param period The period at which the bounds are reported.
+     *
+     * @return This configurator.
+     *
+     * @throws IllegalArgumentException If {@code period} is negative.
+     *
+     * @see D4Listener#boundsUpdated(BigInteger, BigInteger)
+     */
+    public D4 reportBounds(Duration period) {
+        if (period.isNegative()) {
+            throw new IllegalArgumentException("Illegal reporting period: " + period);
+        }
+
+        this.boundsReportingPeriod = period;
+        return this;
+    }
+
+    /**
+     * Gives the period at which the bounds on the number of models are reported while
+     * counting them.
+     *
+     * @return The reporting period, or {@code null} if the bounds are not maintained.
+     */
+    Duration getBoundsReportingPeriod() {
+        return boundsReportingPeriod;
+    }
+
     /**
      * Gives the caching strategy to use during the execution of the D4
      * algorithm.
@@ -284,9 +732,22 @@ public final class D4 {
     <T> CachingStrategy<T> getCache() {
         @SuppressWarnings("unchecked")
         var actualCache = (CachingStrategy<T>) cache;
+        if (numberOfThreads > 1) {
+            return SynchronizedCache.newInstance(actualCache);
+        }
         return actualCache;
     }
 
+    /**
+     * Gives the statistics about the use of the cache during the last (or current)
+     * execution of the D4 algorithm.
+     *
+     * @return The statistics of the cache.
+     */
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
     public D4 notifyListener(D4Listener listener) {
         this.listener.addListener(listener);
         return this;
@@ -297,8 +758,15 @@ public final class D4 {
     }
 
     CutsetComputationStrategy getCutsetComputationStrategy() {
-        return KahyparCutsetComputationStrategy.newInstance(kahyparConfig, imbalance,
-                partitionSize);
+        CutsetComputationStrategy strategy = KahyparCutsetComputationStrategy.newInstance(
+                kahyparConfig, imbalance, partitionSize);
+        if (cutsetMemoization > 0) {
+            strategy = MemoizingCutsetComputationStrategy.newInstance(strategy, cutsetMemoization);
+        }
+        if (numberOfThreads > 1) {
+            strategy = SynchronizedCutsetComputationStrategy.newInstance(strategy);
+        }
+        return strategy;
     }
 
     D4 useCutsetUpdateStrategy(CutsetUpdateStrategy cutsetUpdateStrategy) {
@@ -316,9 +784,132 @@ public final class D4 {
      * @return The number of models.
      */
     public BigInteger countModels() {
+        if ((boundsReportingPeriod != null) && (numberOfThreads == 1)) {
+            return compute(AnytimeModelCounter::new);
+        }
         return compute(D4ModelCounter::new);
     }
 
+    /**
+     * Approximates the number of models of the formula, by computing its base-2
+     * logarithm in {@code double} arithmetic.
+     * This is much cheaper than computing the exact number of models when only its
+     * order of magnitude is needed.
+     *
+     * @return The base-2 logarithm of the number of models, which is
+     *         {@link Double#NEGATIVE_INFINITY} if the formula is unsatisfiable.
+     */
+    public double countModelsLog2() {
+        return compute(LogModelCounter::new);
+    }
+
+    /**
+     * Computes the weighted number of models of the formula, i.e., the sum over all
+     * its models of the product of the weights of the literals they satisfy, in
+     * {@code double} arithmetic.
+     *
+     * @return The weighted number of models.
+     *
+     * @throws IllegalArgumentException If the weights of the two literals of a
+     *         variable sum to {@code 0}.
+     *
+     * @see #withWeights(LiteralWeights)
+     */
+    public double countModelsWeighted() {
+        return compute(WeightedModelCounter::new);
+    }
+
+    /**
+     * Computes the exact weighted number of models of the formula, i.e., the sum over
+     * all its models of the product of the weights of the literals they satisfy,
+     * without any rounding error.
+     *
+     * @return The weighted number of models.
+     *
+     * @throws IllegalArgumentException If the weights of the two literals of a
+     *         variable sum to {@code 0}.
+     *
+     * @see #withWeights(LiteralWeights)
+     */
+    public BigDecimal countModelsWeightedExactly() {
+        return compute(ExactWeightedModelCounter::new);
+    }
+
+    /**
+     * Evaluates the formula in a commutative semiring, i.e., computes the sum over all
+     * its models of the product of the weights of the literals they satisfy.
+     *
+     * @param <E> The type of the elements of the semiring.
+     *
+     * @param semiring The semiring in which the formula is evaluated.
+     *
+     * @return The value of the formula in the semiring.
+     */
+    public <E> E evaluate(Semiring<E> semiring) {
+        return compute(d4 -> new SemiringEvaluator<>(d4, semiring));
+    }
+
+    /**
+     * Counts the number of models of the formula using modular arithmetic.
+     * The models are counted modulo several 62-bit primes with {@code long}
+     * arithmetic, and the exact count is reconstructed with the Chinese Remainder
+     * Theorem.
+     * This avoids the cost of operations on large integers when the formula has many
+     * models.
+     *
+     * @return The number of models.
+     */
+    public BigInteger countModelsModularly() {
+        return compute(ModularModelCounter::new);
+    }
+
+    /**
+     * Counts the number of models of the formula modulo a prime.
+     *
+     * @param prime The prime modulo which the models are counted.
+     *        It must be an odd prime lower than {@code 2^62}.
+     *
+     * @return The number of models modulo {@code prime}.
+     *
+     * @throws IllegalArgumentException If {@code prime} is not an odd prime lower than
+     *         {@code 2^62}.
+     */
+    public long countModelsModulo(long prime) {
+        return compute(d4 -> new ModularModelCounter(d4, new long[] { prime })).longValue();
+    }
+
+    /**
+     * Splits the search space of the formula into cubes, i.e., into conjunctions of
+     * literals that may be counted independently (e.g., by different processes).
+     * The cubes are obtained by running the decision procedure up to a given depth,
+     * or until a given number of cubes is reached, whichever comes first.
+     * Each cube extends the assumptions of this configurator, and cubes that are
+     * found unsatisfiable are discarded, so that the number of models of the formula
+     * is the sum of the numbers of models satisfying each cube.
+     *
+     * @param maxDepth The maximum number of decisions in a cube.
+     * @param maxCubes The maximum number of cubes to compute.
+     *
+     * @return The computed cubes.
+     *
+     * @throws IllegalArgumentException If {@code maxDepth} is negative, or if
+     *         {@code maxCubes} is not positive.
+     *
+     * @see #underAssumptions(IVecInt)
+     */
+    public List<IVecInt> splitIntoCubes(int maxDepth, int maxCubes) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Illegal depth of cubes: " + maxDepth);
+        }
+
+        if (maxCubes <= 0) {
+            throw new IllegalArgumentException("Illegal number of cubes: " + maxCubes);
+        }
+
+        var splitter = CubeSplitter.of(getFormula(), maxDepth, maxCubes);
+        return splitter.split(assumptions);
+    }
+
     /**
      * Compiles the formula into a decision-DNNF.
      *
@@ -355,7 +946,8 @@ public final class D4 {
                 + kahyparConfig + "\n" + "c Imbalance value for KaHyPar: " + imbalance + "\n"
                 + "c Size of the partitions computed by KaHyPar: " + partitionSize + "\n"
                 + "c Caching strategy: "
-                + cache + "\n" + "c\n"
+                + cache + "\n"
+                + "c Satisfiability checks: " + satCheckPolicy + "\n" + "c\n"
                 + "c ============================================================================";
     }
 
@@ -36,6 +36,8 @@ import fr.univartois.cril.pbd4.ddnnf.LiteralNode;
 /**
  * The D4DecisionDnnfCompiler implements the D4 algorithm for compiling the
  * input formula into a decision-DNNF.
+ * Nodes are created while holding the lock of the compiler, as they may be created
+ * by different threads when the formula is compiled in parallel.
  *
  * @author Romain WALLON
  *
@@ -92,7 +94,7 @@ final class D4DecisionDnnfCompiler extends AbstractD4<DecisionDnnfNode, Decision
      * @see fr.univartois.cril.pbd4.AbstractD4#unsatisfiable()
      */
     @Override
-    protected DecisionDnnfNode unsatisfiable() {
+    protected synchronized DecisionDnnfNode unsatisfiable() {
         if (!falseNodeProduced) {
             // The FALSE node is "created" now.
             numberOfNodes++;
@@ -108,7 +110,7 @@ final class D4DecisionDnnfCompiler extends AbstractD4<DecisionDnnfNode, Decision
      * org.sat4j.specs.IVecInt)
      */
     @Override
-    protected DecisionDnnfNode implicant(int nbFreeVariables, IVecInt implicant) {
+    protected synchronized DecisionDnnfNode implicant(int nbFreeVariables, IVecInt implicant) {
         if (!trueNodeProduced) {
             // The TRUE node is "created" now.
             numberOfNodes++;
@@ -138,7 +140,7 @@ final class D4DecisionDnnfCompiler extends AbstractD4<DecisionDnnfNode, Decision
      * java.lang.Object)
      */
     @Override
-    protected DecisionDnnfNode decision(int variable,
+    protected synchronized DecisionDnnfNode decision(int variable,
             DecisionDnnfNode ifTrue, DecisionDnnfNode ifFalse) {
         // There is one more node: the created decision node.
         numberOfNodes++;
@@ -157,7 +159,7 @@ final class D4DecisionDnnfCompiler extends AbstractD4<DecisionDnnfNode, Decision
      * org.sat4j.specs.IVecInt, java.util.List)
      */
     @Override
-    protected DecisionDnnfNode conjunction(int nbFreeVariables,
+    protected synchronized DecisionDnnfNode conjunction(int nbFreeVariables,
             IVecInt literals, List<DecisionDnnfNode> conjuncts) {
         // There is one more node: the created conjunction node.
         numberOfNodes++;
@@ -192,7 +194,7 @@ final class D4DecisionDnnfCompiler extends AbstractD4<DecisionDnnfNode, Decision
      *
      * @return The decision-DNNF node representing the literal.
      */
-    public DecisionDnnfNode literal(int dimacs) {
+    public synchronized DecisionDnnfNode literal(int dimacs) {
         int index = LiteralsUtils.toInternal(dimacs);
         if (literals[index] == null) {
             literals[index] = LiteralNode.literal(dimacs);
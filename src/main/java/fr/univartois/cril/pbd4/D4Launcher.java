@@ -22,10 +22,21 @@ package fr.univartois.cril.pbd4;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.IVecInt;
 
 import fr.cril.cli.ClassParser;
 import fr.cril.cli.CliArgsParser;
@@ -36,9 +47,17 @@ import fr.cril.cli.annotations.Description;
 import fr.cril.cli.annotations.LongName;
 import fr.cril.cli.annotations.Params;
 import fr.cril.cli.annotations.ShortName;
+import fr.univartois.cril.pbd4.caching.AdmissionFilteredCache;
+import fr.univartois.cril.pbd4.caching.CacheKeyMode;
 import fr.univartois.cril.pbd4.caching.CachingStrategy;
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+import fr.univartois.cril.pbd4.caching.MemoryBoundedCache;
 import fr.univartois.cril.pbd4.caching.NoCache;
+import fr.univartois.cril.pbd4.caching.OffHeapCache;
+import fr.univartois.cril.pbd4.caching.PersistentCache;
+import fr.univartois.cril.pbd4.listener.D4Listener;
 import fr.univartois.cril.pbd4.partitioning.KahyparCutsetComputationStrategy;
+import fr.univartois.cril.pbd4.partitioning.MemoizingCutsetComputationStrategy;
 
 /**
  * The D4Launcher allows to execute PBD4 from the command line.
@@ -55,6 +74,22 @@ public final class D4Launcher {
      */
     private static final Logger LOGGER = Logger.getLogger("fr.univartois.cril.pbd4");
 
+    /**
+     * The number of significant digits used to print the bounds on the model count.
+     */
+    private static final int BOUNDS_PRECISION = 12;
+
+    /**
+     * The pattern of the lines giving an exact model count, which may be merged.
+     */
+    private static final Pattern EXACT_COUNT = Pattern.compile("s (\\d+)");
+
+    /**
+     * The pattern of the lines giving a lower bound on a model count, which may be
+     * merged.
+     */
+    private static final Pattern LOWER_BOUND = Pattern.compile("s lower-bound (\\d+)");
+
     @ShortName("h")
     @LongName("help")
     @Description("Displays the help of PBD4.")
@@ -85,6 +120,72 @@ public final class D4Launcher {
     @Args(value = 1, names = "nb")
     private int partitionSize = KahyparCutsetComputationStrategy.DEFAULT_NUMBER_OF_BLOCKS;
 
+    @ShortName("u")
+    @LongName("cutset-memoization")
+    @Description("The maximum number of cutsets to reuse when a formula is encountered again.")
+    @Args(value = 1, names = "nb")
+    private int cutsetMemoization = MemoizingCutsetComputationStrategy.DEFAULT_CAPACITY;
+
+    @ShortName("t")
+    @LongName("threads")
+    @Description("The number of threads used to compile independent components in parallel.")
+    @Args(value = 1, names = "nb")
+    private int numberOfThreads = 1;
+
+    @ShortName("r")
+    @LongName("parallel-branching")
+    @Description("The number of decisions below which both branches are explored in parallel.")
+    @Args(value = 1, names = "depth")
+    private int parallelBranchingDepth = 0;
+
+    @ShortName("x")
+    @LongName("explicit-stack")
+    @Description("Drives the compilation with an explicit stack instead of recursive calls.")
+    @Args(0)
+    private boolean explicitStack;
+
+    @ShortName("E")
+    @LongName("enumeration-threshold")
+    @Description("The maximum number of variables of the components whose models are enumerated instead of branching on them.")
+    @Args(value = 1, names = "nb")
+    private int enumerationThreshold = 0;
+
+    @ShortName("S")
+    @LongName("sat-check")
+    @Description("The policy deciding when the satisfiability of a sub-formula is checked after BCP.")
+    @Args(value = 1, names = "always,never,depth,size")
+    private String satCheckPolicy = "always";
+
+    @ShortName("D")
+    @LongName("sat-check-threshold")
+    @Description("The maximum depth or the minimum size of a sub-formula whose satisfiability is checked.")
+    @Args(value = 1, names = "nb")
+    private int satCheckThreshold = 0;
+
+    @ShortName("C")
+    @LongName("conflict-budget")
+    @Description("The maximum number of conflicts allowed when checking the satisfiability of a sub-formula.")
+    @Args(value = 1, names = "nb")
+    private int conflictBudget = 0;
+
+    @ShortName("l")
+    @LongName("time-limit")
+    @Description("The wall-clock time after which PBD4 stops and reports a partial result.")
+    @Args(value = 1, names = "seconds")
+    private String timeLimit = null;
+
+    @ShortName("g")
+    @LongName("memory-limit")
+    @Description("The amount of heap memory in use beyond which PBD4 stops and reports a partial result.")
+    @Args(value = 1, names = "megabytes")
+    private int memoryLimit = 0;
+
+    @ShortName("a")
+    @LongName("anytime")
+    @Description("The period at which bounds on the model count are reported while counting.")
+    @Args(value = 1, names = "seconds")
+    private String boundsReportingPeriod = null;
+
     @ShortName("f")
     @LongName("input-format")
     @Description("The format of the input, when read from the standard input.")
@@ -94,13 +195,79 @@ public final class D4Launcher {
     @ShortName("c")
     @LongName("caching-strategy")
     @Description("The strategy for caching the results computed on sub-formulae.")
-    @Args(value = 1, names = "none")
+    @Args(value = 1, names = "none,exact,bounded,offheap,persistent")
     private String cachingStrategy = "none";
 
+    @ShortName("m")
+    @LongName("cache-memory")
+    @Description("The maximum amount of memory used by a bounded, off-heap or persistent cache.")
+    @Args(value = 1, names = "megabytes")
+    private int cacheMemory = 1024;
+
+    @ShortName("d")
+    @LongName("cache-file")
+    @Description("The path of the file in which a persistent cache stores its values.")
+    @Args(value = 1, names = "path")
+    private String cacheFile = "pbd4.cache";
+
+    @ShortName("e")
+    @LongName("cache-keys")
+    @Description("The way formulae are identified in the cache.")
+    @Args(value = 1, names = "identifiers,residual")
+    private String cacheKeys = "identifiers";
+
+    @ShortName("v")
+    @LongName("min-cached-variables")
+    @Description("The minimum number of variables of a formula to admit in the cache.")
+    @Args(value = 1, names = "nb")
+    private int minCachedVariables = 0;
+
+    @ShortName("n")
+    @LongName("min-cached-constraints")
+    @Description("The minimum number of constraints of a formula to admit in the cache.")
+    @Args(value = 1, names = "nb")
+    private int minCachedConstraints = 0;
+
+    @ShortName("q")
+    @LongName("min-cached-frequency")
+    @Description("The minimum number of recent look-ups of a formula to admit in the cache.")
+    @Args(value = 1, names = "nb")
+    private int minCachedFrequency = 1;
+
+    @ShortName("i")
+    @LongName("assumptions")
+    @Description("The path of a file containing literals assumed to be satisfied (e.g., a cube).")
+    @Args(value = 1, names = "path")
+    private String assumptionsFile = null;
+
+    @ShortName("j")
+    @LongName("weights")
+    @Description("The path of a file containing the weights of the literals (by default, they are read from the input file).")
+    @Args(value = 1, names = "path")
+    private String weightsFile = null;
+
+    @ShortName("z")
+    @LongName("cube-depth")
+    @Description("The maximum number of decisions in the cubes computed by the split mode.")
+    @Args(value = 1, names = "depth")
+    private int cubeDepth = 8;
+
+    @ShortName("y")
+    @LongName("max-cubes")
+    @Description("The maximum number of cubes computed by the split mode.")
+    @Args(value = 1, names = "nb")
+    private int maxCubes = 256;
+
+    @ShortName("w")
+    @LongName("cube-directory")
+    @Description("The directory in which the split mode writes the cubes.")
+    @Args(value = 1, names = "path")
+    private String cubeDirectory = "cubes";
+
     @ShortName("o")
     @LongName("output")
-    @Description("The type of the output.")
-    @Args(value = 1, names = "count,ddnnf")
+    @Description("The type of the output (merge sums the counts found in the files of the input directory).")
+    @Args(value = 1, names = "count,modcount,logcount,wmc,exact-wmc,ddnnf,split,merge")
     private String output = "count";
 
     /**
@@ -167,6 +334,12 @@ public final class D4Launcher {
      * @throws Exception If an error occurs during the execution.
      */
     private void launch() throws Exception {
+        if ("merge".equals(output)) {
+            // Merging the counts computed on cubes does not require any formula.
+            mergeCounts();
+            return;
+        }
+
         var d4 = D4.newInstance();
 
         // Configuring the SAT oracle used by PBD4.
@@ -178,16 +351,98 @@ public final class D4Launcher {
         d4.ofSize(partitionSize);
         d4.withConfiguration(kahyparConfig);
         d4.withImbalance(Double.parseDouble(imbalance));
+        d4.memoizeCutsets(cutsetMemoization);
+
+        // Configuring the parallel compilation.
+        d4.withThreads(numberOfThreads);
+        d4.branchInParallel(parallelBranchingDepth);
+
+        // Configuring the way the compilation is driven.
+        d4.useExplicitStack(explicitStack);
+        d4.enumerateSmallComponents(enumerationThreshold);
+        d4.checkSatisfiability(getSatCheckPolicy());
+
+        // Configuring the budgets of the compilation.
+        if (timeLimit != null) {
+            d4.withTimeLimit(Duration.ofNanos((long) (Double.parseDouble(timeLimit) * 1e9)));
+        }
+        if (memoryLimit > 0) {
+            d4.withMemoryLimit((long) memoryLimit << 20);
+        }
+
+        // Configuring the anytime counting.
+        if (boundsReportingPeriod != null) {
+            d4.reportBounds(Duration.ofNanos(
+                    (long) (Double.parseDouble(boundsReportingPeriod) * 1e9)));
+            d4.notifyListener(new D4Listener() {
+
+                @Override
+                public void boundsUpdated(BigInteger lowerBound, BigInteger upperBound) {
+                    printBounds(lowerBound, upperBound);
+                }
+
+            });
+        }
 
         // Configuring the other strategies.
         d4.useCachingStrategy(getCachingStrategy());
 
         // Reading the input formula.
         readInput(d4);
+        if (assumptionsFile != null) {
+            d4.underAssumptions(readAssumptions(assumptionsFile));
+        }
+        if (output.endsWith("wmc")) {
+            readWeights(d4);
+        }
 
         // Actually launching PBD4.
         printHeader(d4);
         launch(d4);
+        if (!"ddnnf".equals(output) && !"split".equals(output)) {
+            // The d-DNNF is written on the standard output, and cubes do not use the cache.
+            printCacheStatistics(d4);
+        }
+    }
+
+    /**
+     * Gives the policy for checking satisfiability specified in the command line.
+     *
+     * @return The specified policy for checking satisfiability.
+     */
+    private SatCheckPolicy getSatCheckPolicy() {
+        var policy = getSatCheckThresholds();
+        if (conflictBudget > 0) {
+            // Each check must stop after the given number of conflicts.
+            return policy.withConflictBudget(conflictBudget);
+        }
+        return policy;
+    }
+
+    /**
+     * Gives the policy specified in the command line to decide which sub-formulae must
+     * be checked.
+     *
+     * @return The specified policy for checking satisfiability.
+     */
+    private SatCheckPolicy getSatCheckThresholds() {
+        switch (satCheckPolicy) {
+            case "always":
+                return SatCheckPolicy.always();
+
+            case "never":
+                return SatCheckPolicy.never();
+
+            case "depth":
+                return SatCheckPolicy.upToDepth(satCheckThreshold);
+
+            case "size":
+                return SatCheckPolicy.fromSize(satCheckThreshold);
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unrecognized satisfiability checking policy: " + satCheckPolicy);
+        }
     }
 
     /**
@@ -196,16 +451,65 @@ public final class D4Launcher {
      * @return The specified caching strategy.
      */
     private CachingStrategy<?> getCachingStrategy() {
+        var cache = getStorageCachingStrategy();
+        if ((minCachedVariables > 0) || (minCachedConstraints > 0) || (minCachedFrequency > 1)) {
+            // Only some of the formulae must be admitted in the cache.
+            return AdmissionFilteredCache.newInstance(cache, minCachedVariables,
+                    minCachedConstraints, minCachedFrequency);
+        }
+        return cache;
+    }
+
+    /**
+     * Gives the caching strategy specified in the command line to store the cached
+     * values.
+     *
+     * @return The specified caching strategy.
+     */
+    private CachingStrategy<Object> getStorageCachingStrategy() {
         switch (cachingStrategy) {
             case "none":
                 return NoCache.instance();
 
+            case "exact":
+                return ExactMatchCache.newInstance(getCacheKeyMode());
+
+            case "bounded":
+                return MemoryBoundedCache.newInstance(cacheMemory * 1024L * 1024L,
+                        getCacheKeyMode());
+
+            case "offheap":
+                return OffHeapCache.newInstance(cacheMemory * 1024L * 1024L, getCacheKeyMode());
+
+            case "persistent":
+                return PersistentCache.newInstance(cacheFile, cacheMemory * 1024L * 1024L,
+                        getCacheKeyMode());
+
             default:
                 throw new IllegalArgumentException(
                         "Unrecognized caching strategy: " + cachingStrategy);
         }
     }
 
+    /**
+     * Gives the mode specified in the command line to identify the formulae in the
+     * cache.
+     *
+     * @return The specified key mode.
+     */
+    private CacheKeyMode getCacheKeyMode() {
+        switch (cacheKeys) {
+            case "identifiers":
+                return CacheKeyMode.CONSTRAINT_IDENTIFIERS;
+
+            case "residual":
+                return CacheKeyMode.RESIDUAL_CONSTRAINTS;
+
+            default:
+                throw new IllegalArgumentException("Unrecognized cache keys: " + cacheKeys);
+        }
+    }
+
     /**
      * Reads the input for PBD4.
      *
@@ -235,21 +539,91 @@ public final class D4Launcher {
         }
     }
 
+    /**
+     * Reads the weights of the literals of the input formula, either from the file
+     * specified with the {@code --weights} option, or from the input file itself.
+     * When the formula is read from the standard input and no such file is specified,
+     * all literals have weight {@code 1}.
+     *
+     * @param d4 The configuration to set up.
+     *
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    private void readWeights(D4 d4) throws IOException {
+        if (weightsFile != null) {
+            d4.withWeights(LiteralWeights.read(weightsFile));
+
+        } else if (!parameters.isEmpty()) {
+            d4.withWeights(LiteralWeights.read(parameters.get(0)));
+        }
+    }
+
+    /**
+     * Reads the literals assumed to be satisfied in the input formula.
+     * These literals are written in the same way as a clause in the DIMACS format, and
+     * may be preceded by comment lines.
+     *
+     * @param path The path of the file containing the assumptions.
+     *
+     * @return The read assumptions.
+     *
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    private static IVecInt readAssumptions(String path) throws IOException {
+        var assumptions = new VecInt();
+        for (var line : Files.readAllLines(Paths.get(path))) {
+            if (line.isBlank() || line.startsWith("c")) {
+                continue;
+            }
+
+            for (var token : line.trim().split("\\s+")) {
+                int literal = Integer.parseInt(token);
+                if (literal == 0) {
+                    return assumptions;
+                }
+                assumptions.push(literal);
+            }
+        }
+        return assumptions;
+    }
+
     /**
      * Launches PBD4 in the specified mode.
      *
      * @param d4 The configuration of PBD4 to launch.
+     *
+     * @throws IOException If an I/O error occurs while writing the output.
      */
-    private void launch(D4 d4) {
+    private void launch(D4 d4) throws IOException {
         switch (output) {
             case "count":
                 launchModelCounter(d4);
                 break;
 
+            case "modcount":
+                launchModularModelCounter(d4);
+                break;
+
+            case "logcount":
+                launchLogModelCounter(d4);
+                break;
+
+            case "wmc":
+                launchWeightedModelCounter(d4);
+                break;
+
+            case "exact-wmc":
+                launchExactWeightedModelCounter(d4);
+                break;
+
             case "ddnnf":
                 launchDecisionDnnfCompiler(d4);
                 break;
 
+            case "split":
+                launchCubeSplitter(d4);
+                break;
+
             default:
                 throw new IllegalArgumentException("Unrecognized output: " + output);
         }
@@ -265,7 +639,106 @@ public final class D4Launcher {
         System.out.println("c");
 
         var count = d4.countModels();
-        System.out.println("s " + count);
+        if (d4.isComplete()) {
+            System.out.println("s " + count);
+
+        } else {
+            System.out.println("c The budget has run out: the model count is a lower bound.");
+            System.out.println("s lower-bound " + count);
+        }
+    }
+
+    /**
+     * Launches PBD4 as a model counter using modular arithmetic.
+     *
+     * @param d4 The configuration of PBD4 to launch.
+     */
+    private void launchModularModelCounter(D4 d4) {
+        System.out.println("c Running PBD4 as a modular model counter.");
+        System.out.println("c");
+
+        var count = d4.countModelsModularly();
+        if (d4.isComplete()) {
+            System.out.println("s " + count);
+
+        } else {
+            System.out.println("c The budget has run out: the model count is a lower bound.");
+            System.out.println("s lower-bound " + count);
+        }
+    }
+
+    /**
+     * Launches PBD4 as an approximate model counter, computing the base-2 logarithm of
+     * the model count.
+     *
+     * @param d4 The configuration of PBD4 to launch.
+     */
+    private void launchLogModelCounter(D4 d4) {
+        System.out.println("c Running PBD4 as a log-space model counter.");
+        System.out.println("c");
+
+        double log2 = d4.countModelsLog2();
+        System.out.printf("c The model count is approximately 10^%.6f.%n", log2 * Math.log10(2));
+        if (d4.isComplete()) {
+            System.out.println("s log2 " + log2);
+
+        } else {
+            System.out.println("c The budget has run out: the model count is a lower bound.");
+            System.out.println("s lower-bound log2 " + log2);
+        }
+    }
+
+    /**
+     * Launches PBD4 as a weighted model counter.
+     *
+     * @param d4 The configuration of PBD4 to launch.
+     */
+    private void launchWeightedModelCounter(D4 d4) {
+        System.out.println("c Running PBD4 as a weighted model counter.");
+        System.out.println("c");
+        printWeightedCount(d4, d4.countModelsWeighted());
+    }
+
+    /**
+     * Launches PBD4 as an exact weighted model counter.
+     *
+     * @param d4 The configuration of PBD4 to launch.
+     */
+    private void launchExactWeightedModelCounter(D4 d4) {
+        System.out.println("c Running PBD4 as an exact weighted model counter.");
+        System.out.println("c");
+        printWeightedCount(d4, d4.countModelsWeightedExactly().toPlainString());
+    }
+
+    /**
+     * Prints the weighted model count computed by PBD4.
+     *
+     * @param d4 The configuration of PBD4 that computed the count.
+     * @param count The computed weighted model count.
+     */
+    private static void printWeightedCount(D4 d4, Object count) {
+        if (d4.isComplete()) {
+            System.out.println("s " + count);
+
+        } else {
+            System.out.println("c The budget has run out: the weighted model count is partial.");
+            System.out.println("s partial " + count);
+        }
+    }
+
+    /**
+     * Prints the current bounds on the model count.
+     * Large bounds are printed in scientific notation, so as to keep the output
+     * readable.
+     *
+     * @param lowerBound The current lower bound on the model count.
+     * @param upperBound The current upper bound on the model count.
+     */
+    private static void printBounds(BigInteger lowerBound, BigInteger upperBound) {
+        var context = new MathContext(BOUNDS_PRECISION);
+        System.out.println("c Bounds on the model count: ["
+                + new BigDecimal(lowerBound).round(context) + ", "
+                + new BigDecimal(upperBound).round(context) + "]");
     }
 
     /**
@@ -278,9 +751,107 @@ public final class D4Launcher {
         System.out.println("c");
 
         var ddnnf = d4.compileToDecisionDnnf();
+        if (!d4.isComplete()) {
+            System.out.println("c The budget has run out: the decision-DNNF only represents "
+                    + "some of the models.");
+        }
         ddnnf.writeTo(System.out);
     }
 
+    /**
+     * Launches PBD4 as a cube splitter, writing each cube in its own file.
+     * Each cube may then be counted by another instance of PBD4, using the
+     * {@code --assumptions} option.
+     *
+     * @param d4 The configuration of PBD4 to launch.
+     *
+     * @throws IOException If an I/O error occurs while writing the cubes.
+     */
+    private void launchCubeSplitter(D4 d4) throws IOException {
+        System.out.println("c Running PBD4 as a cube splitter.");
+        System.out.println("c");
+
+        var cubes = d4.splitIntoCubes(cubeDepth, maxCubes);
+        var directory = Files.createDirectories(Paths.get(cubeDirectory));
+        for (int i = 0; i < cubes.size(); i++) {
+            var cube = cubes.get(i);
+            try (var writer = new PrintWriter(
+                    Files.newBufferedWriter(directory.resolve("cube-" + i + ".txt")))) {
+                writer.println("c cube " + i + " of " + cubes.size());
+                for (var it = cube.iterator(); it.hasNext();) {
+                    writer.print(it.next() + " ");
+                }
+                writer.println(0);
+            }
+        }
+        System.out.println("c " + cubes.size() + " cubes written to " + directory);
+    }
+
+    /**
+     * Merges the model counts computed on different cubes, by summing the counts found
+     * in the files of the input directory.
+     *
+     * @throws IOException If an I/O error occurs while reading the counts.
+     */
+    private void mergeCounts() throws IOException {
+        if (parameters.isEmpty()) {
+            throw new IllegalArgumentException("Missing directory containing the counts");
+        }
+
+        var total = BigInteger.ZERO;
+        var complete = true;
+        try (var files = Files.list(Paths.get(parameters.get(0)))) {
+            for (var file : (Iterable<Path>) files.sorted()::iterator) {
+                Optional<String> count;
+                try (var lines = Files.lines(file)) {
+                    count = lines.filter(line -> line.startsWith("s ")).findFirst();
+                }
+
+                var exact = count.map(String::strip).map(EXACT_COUNT::matcher);
+                var lowerBound = count.map(String::strip).map(LOWER_BOUND::matcher);
+                if (exact.isPresent() && exact.get().matches()) {
+                    total = total.add(new BigInteger(exact.get().group(1)));
+
+                } else if (lowerBound.isPresent() && lowerBound.get().matches()) {
+                    total = total.add(new BigInteger(lowerBound.get().group(1)));
+                    complete = false;
+
+                } else {
+                    // The count is missing, or has been computed in another mode.
+                    System.out.println("c No model count found in " + file);
+                    complete = false;
+                }
+            }
+        }
+
+        if (complete) {
+            System.out.println("s " + total);
+
+        } else {
+            System.out.println("c Some counts are missing or partial: the model count is a lower bound.");
+            System.out.println("s lower-bound " + total);
+        }
+    }
+
+    /**
+     * Displays on the console the statistics about the use of the cache.
+     *
+     * @param d4 The configuration of PBD4 that has been launched.
+     */
+    private void printCacheStatistics(D4 d4) {
+        var statistics = d4.getCacheStatistics();
+        System.out.println("c");
+        System.out.println("c cache look-ups: " + statistics.getLookups());
+        System.out.printf("c cache hits: %d (%.2f%%)%n", statistics.getHits(),
+                100 * statistics.getHitRatio());
+        System.out.println("c cache misses: " + statistics.getMisses());
+        System.out.println("c cache insertions: " + statistics.getInsertions());
+        System.out.println("c cache evictions: " + statistics.getEvictions());
+        System.out.println("c cache bytes held: " + statistics.getBytesHeld());
+        System.out.printf("c cache average key size: %.2f bytes%n",
+                statistics.getAverageKeySize());
+    }
+
     /**
      * Displays on the console some pieces of information about PBD4.
      */
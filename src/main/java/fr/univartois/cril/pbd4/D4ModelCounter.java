@@ -25,6 +25,9 @@ import java.util.List;
 
 import org.sat4j.specs.IVecInt;
 
+import fr.univartois.cril.pbd4.listener.D4Listener;
+import fr.univartois.cril.pbd4.pbc.TruthTable;
+
 /**
  * The D4ModelCounter implements the D4 algorithm for counting the number of
  * models of the input formula.
@@ -33,7 +36,7 @@ import org.sat4j.specs.IVecInt;
  *
  * @version 0.2.0
  */
-final class D4ModelCounter extends AbstractD4<BigInteger, BigInteger> {
+class D4ModelCounter extends AbstractD4<BigInteger, BigInteger> {
 
     /**
      * Creates a new D4ModelCounter.
@@ -44,6 +47,17 @@ final class D4ModelCounter extends AbstractD4<BigInteger, BigInteger> {
         super(configuration);
     }
 
+    /**
+     * Creates a new D4ModelCounter, which notifies an additional listener.
+     *
+     * @param configuration The configuration of the counter.
+     * @param additionalListener The listener to notify, in addition to those of the
+     *        configuration.
+     */
+    D4ModelCounter(D4 configuration, D4Listener additionalListener) {
+        super(configuration, additionalListener);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -99,6 +113,18 @@ final class D4ModelCounter extends AbstractD4<BigInteger, BigInteger> {
         return conjunctsModels.shiftLeft(nbFreeVariables);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.AbstractD4#enumerated(fr.univartois.cril.pbd4.pbc.
+     * TruthTable)
+     */
+    @Override
+    protected BigInteger enumerated(TruthTable truthTable) {
+        return BigInteger.valueOf(truthTable.countModels());
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -0,0 +1,277 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.sat4j.core.LiteralsUtils;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * The ExactWeightedModelCounter implements the D4 algorithm for computing the
+ * weighted number of models of the input formula without any rounding error.
+ * As in {@link WeightedModelCounter}, the weight of each literal is considered
+ * relatively to the sum of the weights of the two literals of its variable, so that a
+ * free variable does not change the weight of the models of a sub-formula.
+ * These relative weights are represented as fractions of integers, so that they are
+ * exact whatever the weights of the literals.
+ * The final result is scaled back to the original weights by multiplying it by the
+ * raw weights of the variables.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ *
+ * @see WeightedModelCounter
+ */
+final class ExactWeightedModelCounter
+        extends AbstractD4<ExactWeightedModelCounter.Fraction, BigDecimal> {
+
+    /**
+     * The relative weights of the literals, indexed by their internal (SAT4J)
+     * representation.
+     */
+    private final Fraction[] relativeWeights;
+
+    /**
+     * The factor by which the relative weighted count of the formula must be
+     * multiplied to obtain its actual weighted count.
+     */
+    private final BigDecimal scalingFactor;
+
+    /**
+     * Creates a new ExactWeightedModelCounter.
+     *
+     * @param configuration The configuration of the counter.
+     *
+     * @throws IllegalArgumentException If the weights of the two literals of a
+     *         variable sum to {@code 0}.
+     */
+    ExactWeightedModelCounter(D4 configuration) {
+        super(configuration);
+        var weights = configuration.getWeights();
+        int nbVariables = formula.numberOfVariables();
+        this.relativeWeights = new Fraction[(nbVariables + 1) << 1];
+
+        // Assumed literals are not seen by the algorithm, so their raw weight is applied
+        // to the final result instead of that of their variable.
+        var assumed = new boolean[nbVariables + 1];
+        var factor = BigDecimal.ONE;
+        var assumptions = configuration.getAssumptions();
+        for (int i = 0; i < assumptions.size(); i++) {
+            int literal = assumptions.get(i);
+            assumed[Math.abs(literal)] = true;
+            factor = factor.multiply(weights.get(literal));
+        }
+
+        // Computing the relative weights of the literals of each variable.
+        for (int v = 1; v <= nbVariables; v++) {
+            var positive = weights.get(v);
+            var negative = weights.get(-v);
+            int scale = Math.max(positive.scale(), negative.scale());
+            var positiveWeight = positive.movePointRight(scale).toBigIntegerExact();
+            var negativeWeight = negative.movePointRight(scale).toBigIntegerExact();
+            var total = positiveWeight.add(negativeWeight);
+            if (total.signum() == 0) {
+                throw new IllegalArgumentException("Literals of variable " + v + " have opposite weights");
+            }
+            relativeWeights[LiteralsUtils.posLit(v)] = Fraction.of(positiveWeight, total);
+            relativeWeights[LiteralsUtils.negLit(v)] = Fraction.of(negativeWeight, total);
+            if (!assumed[v]) {
+                factor = factor.multiply(weights.totalWeight(v));
+            }
+        }
+        this.scalingFactor = factor;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#unsatisfiable()
+     */
+    @Override
+    protected Fraction unsatisfiable() {
+        return Fraction.ZERO;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#implicant(int,
+     * org.sat4j.specs.IVecInt)
+     */
+    @Override
+    protected Fraction implicant(int nbFreeVariables, IVecInt implicant) {
+        return weightOf(implicant);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#cached(int,
+     * org.sat4j.specs.IVecInt, java.lang.Object)
+     */
+    @Override
+    protected Fraction cached(int nbFreeVariables, IVecInt propagatedLiterals, Fraction cached) {
+        return cached.multiply(weightOf(propagatedLiterals));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#decision(int, java.lang.Object,
+     * java.lang.Object)
+     */
+    @Override
+    protected Fraction decision(int variable, Fraction ifTrue, Fraction ifFalse) {
+        return ifTrue.add(ifFalse);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#conjunction(int,
+     * org.sat4j.specs.IVecInt, java.util.List)
+     */
+    @Override
+    protected Fraction conjunction(int nbFreeVariables, IVecInt literals, List<Fraction> conjuncts) {
+        return conjuncts.stream().reduce(weightOf(literals), Fraction::multiply);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#toFinalResult(java.lang.Object)
+     */
+    @Override
+    protected BigDecimal toFinalResult(Fraction intermediateResult) {
+        // The weighted count is a sum of products of decimal weights, so that this
+        // division is exact.
+        return new BigDecimal(intermediateResult.numerator)
+            .multiply(scalingFactor)
+            .divide(new BigDecimal(intermediateResult.denominator))
+            .stripTrailingZeros();
+    }
+
+    /**
+     * Computes the product of the relative weights of literals.
+     *
+     * @param literals The literals to compute the weight of, in DIMACS format.
+     *
+     * @return The product of the relative weights of the literals.
+     */
+    private Fraction weightOf(IVecInt literals) {
+        var numerator = BigInteger.ONE;
+        var denominator = BigInteger.ONE;
+        for (int i = 0; i < literals.size(); i++) {
+            var weight = relativeWeights[LiteralsUtils.toInternal(literals.get(i))];
+            numerator = numerator.multiply(weight.numerator);
+            denominator = denominator.multiply(weight.denominator);
+        }
+        return Fraction.of(numerator, denominator);
+    }
+
+    /**
+     * The Fraction represents an intermediate weighted count as an irreducible
+     * fraction of integers.
+     */
+    static final class Fraction {
+
+        /**
+         * The fraction representing {@code 0}.
+         */
+        private static final Fraction ZERO = new Fraction(BigInteger.ZERO, BigInteger.ONE);
+
+        /**
+         * The numerator of this fraction.
+         */
+        private final BigInteger numerator;
+
+        /**
+         * The denominator of this fraction, which is always positive.
+         */
+        private final BigInteger denominator;
+
+        /**
+         * Creates a new Fraction.
+         *
+         * @param numerator The numerator of the fraction.
+         * @param denominator The denominator of the fraction.
+         */
+        private Fraction(BigInteger numerator, BigInteger denominator) {
+            this.numerator = numerator;
+            this.denominator = denominator;
+        }
+
+        /**
+         * Creates a new irreducible Fraction.
+         *
+         * @param numerator The numerator of the fraction.
+         * @param denominator The (non-zero) denominator of the fraction.
+         *
+         * @return The created fraction.
+         */
+        private static Fraction of(BigInteger numerator, BigInteger denominator) {
+            if (denominator.signum() < 0) {
+                numerator = numerator.negate();
+                denominator = denominator.negate();
+            }
+
+            var gcd = numerator.gcd(denominator);
+            if (!gcd.equals(BigInteger.ONE)) {
+                numerator = numerator.divide(gcd);
+                denominator = denominator.divide(gcd);
+            }
+            return new Fraction(numerator, denominator);
+        }
+
+        /**
+         * Adds a fraction to this fraction.
+         *
+         * @param other The fraction to add.
+         *
+         * @return The sum of the two fractions.
+         */
+        private Fraction add(Fraction other) {
+            if (denominator.equals(other.denominator)) {
+                return of(numerator.add(other.numerator), denominator);
+            }
+            return of(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+                    denominator.multiply(other.denominator));
+        }
+
+        /**
+         * Multiplies this fraction by another fraction.
+         *
+         * @param other The fraction to multiply by.
+         *
+         * @return The product of the two fractions.
+         */
+        private Fraction multiply(Fraction other) {
+            return of(numerator.multiply(other.numerator),
+                    denominator.multiply(other.denominator));
+        }
+
+    }
+
+}
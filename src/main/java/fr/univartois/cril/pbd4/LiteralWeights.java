@@ -0,0 +1,216 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The LiteralWeights associates a weight to the literals of a formula, so as to
+ * compute its weighted model count, i.e., the sum over all its models of the product
+ * of the weights of the literals they satisfy.
+ * Literals are identified by their DIMACS representation, and the weight of a literal
+ * is {@code 1} unless specified otherwise.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class LiteralWeights {
+
+    /**
+     * The prefixes of the lines specifying the weight of a literal.
+     * The first one is used in the format of the model counting competition, and the
+     * second one is its counterpart in OPB files.
+     */
+    private static final String[] WEIGHT_PREFIXES = { "c p weight ", "* p weight " };
+
+    /**
+     * The prefix of the lines specifying the weight of a variable in the format of
+     * Cachet.
+     */
+    private static final String CACHET_PREFIX = "w ";
+
+    /**
+     * The weight given in the format of Cachet to the variables that are not
+     * weighted.
+     */
+    private static final BigDecimal CACHET_UNWEIGHTED = BigDecimal.ONE.negate();
+
+    /**
+     * The map associating literals to their weight.
+     */
+    private final Map<Integer, BigDecimal> weights;
+
+    /**
+     * Creates a new LiteralWeights.
+     */
+    private LiteralWeights() {
+        this.weights = new HashMap<>();
+    }
+
+    /**
+     * Creates a new LiteralWeights, in which all literals have weight {@code 1}.
+     *
+     * @return The created weights.
+     */
+    public static LiteralWeights newInstance() {
+        return new LiteralWeights();
+    }
+
+    /**
+     * Reads the weights of the literals from a file.
+     * This file may be the input file itself, or a separate file.
+     * Each weight is specified on its own line, in the format of the model counting
+     * competition ({@code c p weight <literal> <weight> 0}), its counterpart for OPB
+     * files ({@code * p weight <literal> <weight> 0}) or that of Cachet
+     * ({@code w <literal> <weight>}).
+     * In the latter case, the opposite literal has weight {@code 1 - <weight>}, and
+     * both literals have weight {@code 1} when {@code <weight>} is {@code -1}.
+     * Any other line is ignored.
+     * The file may have been compressed with {@code gzip}.
+     *
+     * @param path The path of the file to read.
+     *
+     * @return The read weights.
+     *
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    public static LiteralWeights read(String path) throws IOException {
+        var weights = new LiteralWeights();
+        var input = Files.newInputStream(Paths.get(path));
+        if (path.endsWith(".gz")) {
+            input = new GZIPInputStream(input);
+        }
+
+        try (var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+                weights.parse(line.strip());
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Parses a line that may specify the weight of a literal.
+     *
+     * @param line The line to parse.
+     */
+    private void parse(String line) {
+        if (line.startsWith(CACHET_PREFIX)) {
+            parseCachet(line.substring(CACHET_PREFIX.length()));
+            return;
+        }
+
+        for (var prefix : WEIGHT_PREFIXES) {
+            if (line.startsWith(prefix)) {
+                var tokens = line.substring(prefix.length()).strip().split("\\s+");
+                set(Integer.parseInt(tokens[0]), new BigDecimal(tokens[1]));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Parses the weight of a literal given in the format of Cachet, which also
+     * determines the weight of the opposite literal.
+     *
+     * @param weight The weight to parse, without its prefix.
+     */
+    private void parseCachet(String weight) {
+        var tokens = weight.strip().split("\\s+");
+        int literal = Integer.parseInt(tokens[0]);
+        var value = new BigDecimal(tokens[1]);
+
+        if (value.compareTo(CACHET_UNWEIGHTED) == 0) {
+            // The variable is not weighted.
+            set(literal, BigDecimal.ONE);
+            set(-literal, BigDecimal.ONE);
+
+        } else {
+            set(literal, value);
+            set(-literal, BigDecimal.ONE.subtract(value));
+        }
+    }
+
+    /**
+     * Sets the weight of a literal.
+     *
+     * @param literal The literal to set the weight of, in DIMACS format.
+     * @param weight The weight of the literal.
+     *
+     * @return These weights.
+     *
+     * @throws IllegalArgumentException If {@code literal} is {@code 0}.
+     */
+    public LiteralWeights set(int literal, BigDecimal weight) {
+        if (literal == 0) {
+            throw new IllegalArgumentException("0 is not a valid literal");
+        }
+
+        weights.put(literal, weight);
+        return this;
+    }
+
+    /**
+     * Gives the weight of a literal.
+     *
+     * @param literal The literal to get the weight of, in DIMACS format.
+     *
+     * @return The weight of the literal.
+     */
+    public BigDecimal get(int literal) {
+        return weights.getOrDefault(literal, BigDecimal.ONE);
+    }
+
+    /**
+     * Gives the largest variable having a literal whose weight has been specified.
+     * All the literals of the variables above this one have weight {@code 1}.
+     *
+     * @return The largest variable having a specified weight, or {@code 0} if no
+     *         weight has been specified.
+     */
+    int maxVariable() {
+        return weights.keySet().stream().mapToInt(Math::abs).max().orElse(0);
+    }
+
+    /**
+     * Gives the sum of the weights of both literals of a variable.
+     * This is the factor by which the weighted model count of a formula is multiplied
+     * when the variable is free.
+     *
+     * @param variable The variable to get the total weight of.
+     *
+     * @return The total weight of the variable.
+     */
+    BigDecimal totalWeight(int variable) {
+        return get(variable).add(get(-variable));
+    }
+
+}
@@ -0,0 +1,163 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.util.List;
+
+import org.sat4j.specs.IVecInt;
+
+import fr.univartois.cril.pbd4.pbc.TruthTable;
+
+/**
+ * The LogModelCounter implements the D4 algorithm for approximating the number of
+ * models of the input formula.
+ * It computes the base-2 logarithm of this number in {@code double} arithmetic, so
+ * that no large integer is ever allocated, even on formulae having a huge number of
+ * models.
+ * A formula having no model is represented by {@link Double#NEGATIVE_INFINITY}.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class LogModelCounter extends AbstractD4<Double, Double> {
+
+    /**
+     * The logarithm of the number of models of an unsatisfiable formula.
+     */
+    private static final Double NO_MODEL = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates a new LogModelCounter.
+     *
+     * @param configuration The configuration of the counter.
+     */
+    LogModelCounter(D4 configuration) {
+        super(configuration);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#unsatisfiable()
+     */
+    @Override
+    protected Double unsatisfiable() {
+        return NO_MODEL;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#implicant(int,
+     * org.sat4j.specs.IVecInt)
+     */
+    @Override
+    protected Double implicant(int nbFreeVariables, IVecInt implicant) {
+        return (double) nbFreeVariables;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#cached(int,
+     * org.sat4j.specs.IVecInt, java.lang.Object)
+     */
+    @Override
+    protected Double cached(int nbFreeVariables, IVecInt propagatedLiterals, Double cached) {
+        if (nbFreeVariables == 0) {
+            return cached;
+        }
+        return cached + nbFreeVariables;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#decision(int, java.lang.Object,
+     * java.lang.Object)
+     */
+    @Override
+    protected Double decision(int variable, Double ifTrue, Double ifFalse) {
+        double max = Math.max(ifTrue, ifFalse);
+        if (max == Double.NEGATIVE_INFINITY) {
+            // Neither branch has a model.
+            return NO_MODEL;
+        }
+
+        // log2(2^a + 2^b) = max + log2(1 + 2^(min - max)), which cannot overflow.
+        double min = Math.min(ifTrue, ifFalse);
+        return max + log2(1 + Math.pow(2, min - max));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#conjunction(int,
+     * org.sat4j.specs.IVecInt, java.util.List)
+     */
+    @Override
+    protected Double conjunction(int nbFreeVariables, IVecInt literals, List<Double> conjuncts) {
+        double log = nbFreeVariables;
+        for (double conjunct : conjuncts) {
+            log += conjunct;
+        }
+        return log;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.AbstractD4#enumerated(fr.univartois.cril.pbd4.pbc.
+     * TruthTable)
+     */
+    @Override
+    protected Double enumerated(TruthTable truthTable) {
+        long nbModels = truthTable.countModels();
+        if (nbModels == 0) {
+            return NO_MODEL;
+        }
+        return log2(nbModels);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#toFinalResult(java.lang.Object)
+     */
+    @Override
+    protected Double toFinalResult(Double intermediateResult) {
+        return intermediateResult;
+    }
+
+    /**
+     * Computes the base-2 logarithm of a value.
+     *
+     * @param value The value to compute the logarithm of.
+     *
+     * @return The base-2 logarithm of {@code value}.
+     */
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+}
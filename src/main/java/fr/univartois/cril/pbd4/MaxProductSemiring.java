@@ -0,0 +1,143 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import org.sat4j.core.LiteralsUtils;
+
+/**
+ * The MaxProductSemiring computes the largest weight of a model of a formula.
+ * The weights of the literals of each variable are divided by the largest of them,
+ * so that the labeling is neutral (the maximum of the weights of the two literals
+ * of a free variable is {@code 1}), and the result is scaled back to the original
+ * weights.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class MaxProductSemiring implements Semiring<Double> {
+
+    /**
+     * The normalized weights of the literals having a specified weight, indexed by
+     * their internal (SAT4J) representation.
+     */
+    private final double[] normalizedWeights;
+
+    /**
+     * The factor by which the largest normalized weight of a model must be
+     * multiplied to obtain its actual weight.
+     */
+    private final double scalingFactor;
+
+    /**
+     * Creates a new MaxProductSemiring.
+     *
+     * @param weights The (non-negative) weights of the literals.
+     *
+     * @throws IllegalArgumentException If both literals of a variable have weight
+     *         {@code 0}, or if a weight is negative.
+     */
+    MaxProductSemiring(LiteralWeights weights) {
+        int nbVariables = weights.maxVariable();
+        this.normalizedWeights = new double[(nbVariables + 1) << 1];
+
+        double factor = 1;
+        for (int v = 1; v <= nbVariables; v++) {
+            double positive = weights.get(v).doubleValue();
+            double negative = weights.get(-v).doubleValue();
+            double max = Math.max(positive, negative);
+            if ((positive < 0) || (negative < 0) || (max == 0)) {
+                throw new IllegalArgumentException("Illegal weights for variable " + v);
+            }
+            normalizedWeights[LiteralsUtils.posLit(v)] = positive / max;
+            normalizedWeights[LiteralsUtils.negLit(v)] = negative / max;
+            factor *= max;
+        }
+        this.scalingFactor = factor;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#zero()
+     */
+    @Override
+    public Double zero() {
+        return 0.0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#one()
+     */
+    @Override
+    public Double one() {
+        return 1.0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#add(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public Double add(Double a, Double b) {
+        return Math.max(a, b);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#multiply(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public Double multiply(Double a, Double b) {
+        return a * b;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#weight(int)
+     */
+    @Override
+    public Double weight(int literal) {
+        int index = LiteralsUtils.toInternal(literal);
+        if (index < normalizedWeights.length) {
+            return normalizedWeights[index];
+        }
+
+        // Both literals of the variable have weight 1.
+        return 1.0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#toResult(java.lang.Object)
+     */
+    @Override
+    public Double toResult(Double element) {
+        return element * scalingFactor;
+    }
+
+}
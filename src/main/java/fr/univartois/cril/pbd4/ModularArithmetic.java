@@ -0,0 +1,223 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.math.BigInteger;
+
+/**
+ * The ModularArithmetic performs arithmetic operations modulo an odd prime
+ * {@code p < 2^62}, using {@code long} values only.
+ * Values are represented in Montgomery form (i.e., {@code x} is represented by
+ * {@code x * 2^64 mod p}), so that products can be reduced without any division.
+ * The powers of two are precomputed, so that shifting a value is a single
+ * multiplication.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class ModularArithmetic {
+
+    /**
+     * The number of bits of the largest prime that may be used as modulus.
+     */
+    static final int MAX_BITS = 62;
+
+    /**
+     * The prime modulus.
+     */
+    private final long modulus;
+
+    /**
+     * The opposite of the inverse of the modulus, modulo {@code 2^64}.
+     */
+    private final long negatedInverse;
+
+    /**
+     * The powers of two, in Montgomery form.
+     */
+    private final long[] powersOfTwo;
+
+    /**
+     * Creates a new ModularArithmetic.
+     *
+     * @param modulus The prime modulus.
+     * @param negatedInverse The opposite of the inverse of the modulus, modulo
+     *        {@code 2^64}.
+     * @param maxExponent The largest exponent of the powers of two to precompute.
+     */
+    private ModularArithmetic(long modulus, long negatedInverse, int maxExponent) {
+        this.modulus = modulus;
+        this.negatedInverse = negatedInverse;
+        this.powersOfTwo = new long[maxExponent + 1];
+
+        // 2^64 mod p is the representation of 1.
+        powersOfTwo[0] = Long.remainderUnsigned(-modulus, modulus);
+        for (int i = 1; i <= maxExponent; i++) {
+            powersOfTwo[i] = add(powersOfTwo[i - 1], powersOfTwo[i - 1]);
+        }
+    }
+
+    /**
+     * Creates a new ModularArithmetic.
+     *
+     * @param prime The prime modulus.
+     * @param maxExponent The largest exponent of the powers of two to shift values by.
+     *
+     * @return The created arithmetic.
+     *
+     * @throws IllegalArgumentException If {@code prime} is not an odd prime lower than
+     *         {@code 2^62}.
+     */
+    static ModularArithmetic modulo(long prime, int maxExponent) {
+        if ((prime <= 2) || (prime >>> MAX_BITS != 0)
+                || !BigInteger.valueOf(prime).isProbablePrime(Integer.SIZE)) {
+            throw new IllegalArgumentException("Illegal modulus: " + prime);
+        }
+
+        // Newton's iteration doubles the number of correct bits of the inverse.
+        long inverse = prime;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - (prime * inverse);
+        }
+        return new ModularArithmetic(prime, -inverse, maxExponent);
+    }
+
+    /**
+     * Gives the largest primes that may be used as modulus, in decreasing order.
+     *
+     * @param count The number of primes to compute.
+     *
+     * @return The computed primes.
+     */
+    static long[] largestPrimes(int count) {
+        var primes = new long[count];
+        long candidate = (1L << MAX_BITS) - 1;
+        for (int i = 0; i < count; candidate -= 2) {
+            if (BigInteger.valueOf(candidate).isProbablePrime(Integer.SIZE)) {
+                primes[i] = candidate;
+                i++;
+            }
+        }
+        return primes;
+    }
+
+    /**
+     * Gives the prime modulus.
+     *
+     * @return The modulus.
+     */
+    long modulus() {
+        return modulus;
+    }
+
+    /**
+     * Gives the representation of {@code 0}.
+     *
+     * @return The representation of {@code 0}.
+     */
+    long zero() {
+        return 0;
+    }
+
+    /**
+     * Gives the representation of {@code 2^exponent}.
+     *
+     * @param exponent The exponent of the power of two.
+     *
+     * @return The representation of {@code 2^exponent}.
+     */
+    long powerOfTwo(int exponent) {
+        return powersOfTwo[exponent];
+    }
+
+    /**
+     * Adds two values.
+     *
+     * @param a The first value.
+     * @param b The second value.
+     *
+     * @return The representation of {@code a + b}.
+     */
+    long add(long a, long b) {
+        // As a, b < p < 2^62, the sum cannot overflow.
+        long sum = a + b;
+        return (sum >= modulus) ? (sum - modulus) : sum;
+    }
+
+    /**
+     * Multiplies two values.
+     *
+     * @param a The first value.
+     * @param b The second value.
+     *
+     * @return The representation of {@code a * b}.
+     */
+    long multiply(long a, long b) {
+        return reduce(Math.multiplyHigh(a, b), a * b);
+    }
+
+    /**
+     * Multiplies a value by a power of two.
+     *
+     * @param a The value to shift.
+     * @param exponent The exponent of the power of two.
+     *
+     * @return The representation of {@code a * 2^exponent}.
+     */
+    long shiftLeft(long a, int exponent) {
+        if (exponent == 0) {
+            return a;
+        }
+        return multiply(a, powersOfTwo[exponent]);
+    }
+
+    /**
+     * Gives the actual value represented by the given value.
+     *
+     * @param a The representation of the value.
+     *
+     * @return The value, between {@code 0} and {@code p - 1}.
+     */
+    long valueOf(long a) {
+        return reduce(0, a);
+    }
+
+    /**
+     * Computes {@code x * 2^-64 mod p} using Montgomery's reduction, where {@code x} is
+     * a 128-bit value lower than {@code p * 2^64}.
+     *
+     * @param high The 64 most significant bits of {@code x}.
+     * @param low The 64 least significant bits of {@code x}.
+     *
+     * @return The reduced value, between {@code 0} and {@code p - 1}.
+     */
+    private long reduce(long high, long low) {
+        // u is chosen so that x + u * p is a multiple of 2^64.
+        long u = low * negatedInverse;
+        long uHigh = Math.multiplyHigh(u, modulus) + ((u >> (Long.SIZE - 1)) & modulus);
+
+        // The low half of the sum is 0, and carries iff the low half of x is not.
+        long result = high + uHigh + ((low == 0) ? 0 : 1);
+        return (result >= modulus) ? (result - modulus) : result;
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+/**
+ * The ModularCountingSemiring is the semiring counting the models of a formula
+ * modulo a prime.
+ * Its elements are represented in Montgomery form by a {@link ModularArithmetic}.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class ModularCountingSemiring implements Semiring<Long> {
+
+    /**
+     * The arithmetic used to perform operations modulo the prime.
+     */
+    private final ModularArithmetic arithmetic;
+
+    /**
+     * Creates a new ModularCountingSemiring.
+     *
+     * @param arithmetic The arithmetic used to perform operations modulo the prime.
+     *        It must have precomputed {@code 2^1}.
+     */
+    ModularCountingSemiring(ModularArithmetic arithmetic) {
+        this.arithmetic = arithmetic;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#zero()
+     */
+    @Override
+    public Long zero() {
+        return arithmetic.zero();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#one()
+     */
+    @Override
+    public Long one() {
+        return arithmetic.powerOfTwo(0);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#add(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public Long add(Long a, Long b) {
+        return arithmetic.add(a, b);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#multiply(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public Long multiply(Long a, Long b) {
+        return arithmetic.multiply(a, b);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#weight(int)
+     */
+    @Override
+    public Long weight(int literal) {
+        return one();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#freeVariables(int)
+     */
+    @Override
+    public Long freeVariables(int nbVariables) {
+        // Computing 2^nbVariables by repeated squaring.
+        long result = one();
+        long square = arithmetic.powerOfTwo(1);
+        for (int n = nbVariables; n > 0; n >>= 1) {
+            if ((n & 1) != 0) {
+                result = arithmetic.multiply(result, square);
+            }
+            square = arithmetic.multiply(square, square);
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.Semiring#toResult(java.lang.Object)
+     */
+    @Override
+    public Long toResult(Long element) {
+        return arithmetic.valueOf(element);
+    }
+
+}
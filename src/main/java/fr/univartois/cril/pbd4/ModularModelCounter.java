@@ -0,0 +1,188 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.sat4j.specs.IVecInt;
+
+/**
+ * The ModularModelCounter implements the D4 algorithm for counting the number of
+ * models of the input formula modulo several 62-bit primes, using {@code long}
+ * arithmetic only.
+ * The residues are computed for all primes during the same execution of the
+ * algorithm, and the exact number of models is reconstructed at the end with the
+ * Chinese Remainder Theorem.
+ * When enough primes are used, the product of the primes exceeds the number of
+ * models, which is thus computed exactly.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class ModularModelCounter extends AbstractD4<long[], BigInteger> {
+
+    /**
+     * The arithmetic used for each prime.
+     */
+    private final ModularArithmetic[] arithmetics;
+
+    /**
+     * The residues representing {@code 0}.
+     */
+    private final long[] zero;
+
+    /**
+     * Creates a new ModularModelCounter, using enough primes to compute the exact
+     * number of models of the input formula.
+     *
+     * @param configuration The configuration of the counter.
+     */
+    ModularModelCounter(D4 configuration) {
+        this(configuration, null);
+    }
+
+    /**
+     * Creates a new ModularModelCounter.
+     *
+     * @param configuration The configuration of the counter.
+     * @param primes The primes modulo which the models are counted, or {@code null} to
+     *        use enough primes to compute the exact number of models.
+     */
+    ModularModelCounter(D4 configuration, long[] primes) {
+        super(configuration);
+        int nbVariables = formula.numberOfVariables();
+        if (primes == null) {
+            // As each prime is greater than 2^61, their product exceeds 2^nbVariables.
+            int nbPrimes = nbVariables / (ModularArithmetic.MAX_BITS - 1) + 1;
+            primes = ModularArithmetic.largestPrimes(nbPrimes);
+        }
+
+        this.arithmetics = new ModularArithmetic[primes.length];
+        for (int i = 0; i < primes.length; i++) {
+            arithmetics[i] = ModularArithmetic.modulo(primes[i], nbVariables);
+        }
+        this.zero = new long[primes.length];
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#unsatisfiable()
+     */
+    @Override
+    protected long[] unsatisfiable() {
+        return zero;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#implicant(int,
+     * org.sat4j.specs.IVecInt)
+     */
+    @Override
+    protected long[] implicant(int nbFreeVariables, IVecInt implicant) {
+        var residues = new long[arithmetics.length];
+        for (int i = 0; i < arithmetics.length; i++) {
+            residues[i] = arithmetics[i].powerOfTwo(nbFreeVariables);
+        }
+        return residues;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#cached(int,
+     * org.sat4j.specs.IVecInt, java.lang.Object)
+     */
+    @Override
+    protected long[] cached(int nbFreeVariables, IVecInt propagatedLiterals, long[] cached) {
+        if (nbFreeVariables == 0) {
+            // Cached residues are never modified, so that they may be shared.
+            return cached;
+        }
+
+        var residues = new long[arithmetics.length];
+        for (int i = 0; i < arithmetics.length; i++) {
+            residues[i] = arithmetics[i].shiftLeft(cached[i], nbFreeVariables);
+        }
+        return residues;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#decision(int, java.lang.Object,
+     * java.lang.Object)
+     */
+    @Override
+    protected long[] decision(int variable, long[] ifTrue, long[] ifFalse) {
+        var residues = new long[arithmetics.length];
+        for (int i = 0; i < arithmetics.length; i++) {
+            residues[i] = arithmetics[i].add(ifTrue[i], ifFalse[i]);
+        }
+        return residues;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#conjunction(int,
+     * org.sat4j.specs.IVecInt, java.util.List)
+     */
+    @Override
+    protected long[] conjunction(int nbFreeVariables, IVecInt literals, List<long[]> conjuncts) {
+        var residues = new long[arithmetics.length];
+        for (int i = 0; i < arithmetics.length; i++) {
+            long residue = arithmetics[i].powerOfTwo(nbFreeVariables);
+            for (var conjunct : conjuncts) {
+                residue = arithmetics[i].multiply(residue, conjunct[i]);
+            }
+            residues[i] = residue;
+        }
+        return residues;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#toFinalResult(java.lang.Object)
+     */
+    @Override
+    protected BigInteger toFinalResult(long[] intermediateResult) {
+        // Reconstructing the count incrementally, following Garner's algorithm.
+        var count = BigInteger.ZERO;
+        var product = BigInteger.ONE;
+        for (int i = 0; i < arithmetics.length; i++) {
+            var prime = BigInteger.valueOf(arithmetics[i].modulus());
+            var residue = BigInteger.valueOf(arithmetics[i].valueOf(intermediateResult[i]));
+
+            // Finding count' = count + product * k such that count' = residue (mod prime).
+            var k = residue.subtract(count).multiply(product.modInverse(prime)).mod(prime);
+            count = count.add(product.multiply(k));
+            product = product.multiply(prime);
+        }
+        return count;
+    }
+
+}
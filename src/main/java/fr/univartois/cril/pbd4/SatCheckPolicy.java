@@ -0,0 +1,152 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+/**
+ * The SatCheckPolicy decides when the satisfiability of a sub-formula must be checked
+ * by the SAT solver, after Boolean Constraint Propagation (BCP) has failed to decide
+ * it.
+ * Such a check prunes unsatisfiable sub-formulae as soon as they are encountered, but
+ * requires to run a complete solver at each node of the search.
+ * Skipping it never changes the computed result, as unsatisfiable sub-formulae are
+ * then detected by BCP deeper in the search.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ *
+ * @see D4#checkSatisfiability(SatCheckPolicy)
+ */
+public interface SatCheckPolicy {
+
+    /**
+     * The number of conflicts representing the absence of limit on the satisfiability
+     * checks.
+     */
+    int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * Gives the policy checking the satisfiability of every sub-formula, without any
+     * limit.
+     * This is the default policy.
+     *
+     * @return The policy always checking satisfiability.
+     */
+    static SatCheckPolicy always() {
+        return ThresholdSatCheckPolicy.ALWAYS;
+    }
+
+    /**
+     * Gives the policy never checking the satisfiability of the sub-formulae, so that
+     * only BCP is applied on them.
+     *
+     * @return The policy never checking satisfiability.
+     */
+    static SatCheckPolicy never() {
+        return ThresholdSatCheckPolicy.NEVER;
+    }
+
+    /**
+     * Gives the policy checking the satisfiability of the sub-formulae that are reached
+     * after at most a given number of decisions.
+     *
+     * @param maxDepth The maximum number of decisions made to reach a checked
+     *        sub-formula.
+     *
+     * @return The policy checking satisfiability up to the given depth.
+     *
+     * @throws IllegalArgumentException If {@code maxDepth} is negative.
+     */
+    static SatCheckPolicy upToDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Illegal depth: " + maxDepth);
+        }
+
+        return new ThresholdSatCheckPolicy(maxDepth, 0, UNLIMITED);
+    }
+
+    /**
+     * Gives the policy checking the satisfiability of the sub-formulae having at least
+     * a given number of variables.
+     *
+     * @param minVariables The minimum number of variables of a checked sub-formula.
+     *
+     * @return The policy checking satisfiability from the given size.
+     *
+     * @throws IllegalArgumentException If {@code minVariables} is negative.
+     */
+    static SatCheckPolicy fromSize(int minVariables) {
+        if (minVariables < 0) {
+            throw new IllegalArgumentException("Illegal number of variables: " + minVariables);
+        }
+
+        return new ThresholdSatCheckPolicy(Integer.MAX_VALUE, minVariables, UNLIMITED);
+    }
+
+    /**
+     * Gives the maximum number of conflicts the SAT solver may encounter while checking
+     * the satisfiability of a sub-formula.
+     * If this number is reached, the satisfiability of the sub-formula remains unknown,
+     * and the search goes on as if it had not been checked.
+     *
+     * @param depth The number of decisions made to reach the sub-formula.
+     * @param nbVariables The number of variables that were free in the sub-formula
+     *        before BCP was applied on it.
+     *
+     * @return The maximum number of conflicts allowed while checking the sub-formula,
+     *         which is {@code 0} if it must not be checked, and {@link #UNLIMITED} if
+     *         it must be checked completely.
+     */
+    int maxConflicts(int depth, int nbVariables);
+
+    /**
+     * Gives the policy checking the same sub-formulae as this policy, but allowing at
+     * most a given number of conflicts for each check.
+     *
+     * @param budget The maximum number of conflicts allowed for a check.
+     *
+     * @return The policy with the given conflict budget.
+     *
+     * @throws IllegalArgumentException If {@code budget} is not positive.
+     */
+    default SatCheckPolicy withConflictBudget(int budget) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Illegal number of conflicts: " + budget);
+        }
+
+        return (depth, nbVariables) -> Math.min(maxConflicts(depth, nbVariables), budget);
+    }
+
+    /**
+     * Checks whether this policy completely checks the satisfiability of every
+     * sub-formula.
+     * In this case, each sub-formula that is decomposed into connected components is
+     * known to be satisfiable.
+     *
+     * @return Whether every sub-formula is proven satisfiable or unsatisfiable.
+     *
+     * @implSpec The default implementation returns {@code false}.
+     */
+    default boolean isComplete() {
+        return false;
+    }
+
+}
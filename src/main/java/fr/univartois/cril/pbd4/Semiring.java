@@ -0,0 +1,155 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+/**
+ * The Semiring interface defines a commutative semiring in which the models of a
+ * formula are evaluated, as in algebraic model counting [Kimmig et al., 2017].
+ * The value of a formula is the sum over all its models of the product of the
+ * weights of the literals they satisfy.
+ * Since the D4 algorithm produces deterministic and decomposable decompositions of
+ * the formula, this value is computed in a single pass, without compiling any
+ * intermediate decision-DNNF.
+ *
+ * @param <E> The type of the elements of the semiring.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ *
+ * @see D4#evaluate(Semiring)
+ */
+public interface Semiring<E> {
+
+    /**
+     * Creates the semiring counting the models of a formula modulo a prime.
+     *
+     * @param prime The prime modulo which the models are counted.
+     *        It must be an odd prime lower than {@code 2^62}.
+     *
+     * @return The semiring counting models modulo {@code prime}.
+     *
+     * @throws IllegalArgumentException If {@code prime} is not an odd prime lower than
+     *         {@code 2^62}.
+     */
+    static Semiring<Long> modularCounting(long prime) {
+        return new ModularCountingSemiring(ModularArithmetic.modulo(prime, 1));
+    }
+
+    /**
+     * Creates the max-product semiring, which computes the largest weight of a model
+     * of a formula (e.g., its most probable explanation when the weights are
+     * probabilities).
+     *
+     * @param weights The (non-negative) weights of the literals.
+     *
+     * @return The max-product semiring for the given weights.
+     *
+     * @throws IllegalArgumentException If both literals of a variable have weight
+     *         {@code 0}, or if a weight is negative.
+     */
+    static Semiring<Double> maxProduct(LiteralWeights weights) {
+        return new MaxProductSemiring(weights);
+    }
+
+    /**
+     * Gives the neutral element of the addition, i.e., the value of a formula having
+     * no model.
+     *
+     * @return The neutral element of the addition.
+     */
+    E zero();
+
+    /**
+     * Gives the neutral element of the multiplication, i.e., the weight of an empty
+     * conjunction of literals.
+     *
+     * @return The neutral element of the multiplication.
+     */
+    E one();
+
+    /**
+     * Adds two elements of this semiring.
+     * This operation must be associative and commutative.
+     *
+     * @param a The first element to add.
+     * @param b The second element to add.
+     *
+     * @return The sum of {@code a} and {@code b}.
+     */
+    E add(E a, E b);
+
+    /**
+     * Multiplies two elements of this semiring.
+     * This operation must be associative and commutative, and distribute over the
+     * addition.
+     *
+     * @param a The first element to multiply.
+     * @param b The second element to multiply.
+     *
+     * @return The product of {@code a} and {@code b}.
+     */
+    E multiply(E a, E b);
+
+    /**
+     * Gives the weight of a literal.
+     *
+     * @param literal The literal to get the weight of, in DIMACS format.
+     *
+     * @return The weight of the literal.
+     */
+    E weight(int literal);
+
+    /**
+     * Gives the value of a given number of variables that are free in a
+     * sub-formula, i.e., the product over these variables of the sum of the weights
+     * of their two literals.
+     * This value must only depend on the number of variables, which is the case when
+     * the labeling is neutral (i.e., when the weights of the two literals of each
+     * variable sum to {@link #one()}) or when all variables have the same weights.
+     *
+     * @param nbVariables The number of free variables.
+     *
+     * @return The value of the free variables.
+     *
+     * @implSpec The default implementation assumes that the labeling is neutral, and
+     *           returns {@link #one()}.
+     */
+    default E freeVariables(int nbVariables) {
+        return one();
+    }
+
+    /**
+     * Gives the actual result represented by an element of this semiring.
+     * This allows implementations to compute the value of a formula in a more
+     * convenient representation (e.g., on normalized weights).
+     *
+     * @param element The element computed for the formula.
+     *
+     * @return The result represented by {@code element}.
+     *
+     * @implSpec The default implementation returns {@code element}.
+     */
+    default E toResult(E element) {
+        return element;
+    }
+
+}
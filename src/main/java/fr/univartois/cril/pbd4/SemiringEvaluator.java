@@ -0,0 +1,149 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.util.List;
+
+import org.sat4j.specs.IVecInt;
+
+/**
+ * The SemiringEvaluator implements the D4 algorithm for evaluating the input
+ * formula in a commutative semiring, in a single pass.
+ *
+ * @param <E> The type of the elements of the semiring.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class SemiringEvaluator<E> extends AbstractD4<E, E> {
+
+    /**
+     * The semiring in which the formula is evaluated.
+     */
+    private final Semiring<E> semiring;
+
+    /**
+     * The literals that are assumed to be satisfied in the formula.
+     */
+    private final IVecInt assumptions;
+
+    /**
+     * Creates a new SemiringEvaluator.
+     *
+     * @param configuration The configuration of the evaluator.
+     * @param semiring The semiring in which the formula is evaluated.
+     */
+    SemiringEvaluator(D4 configuration, Semiring<E> semiring) {
+        super(configuration);
+        this.semiring = semiring;
+        this.assumptions = configuration.getAssumptions();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#unsatisfiable()
+     */
+    @Override
+    protected E unsatisfiable() {
+        return semiring.zero();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#implicant(int,
+     * org.sat4j.specs.IVecInt)
+     */
+    @Override
+    protected E implicant(int nbFreeVariables, IVecInt implicant) {
+        return weightOf(nbFreeVariables, implicant);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#cached(int,
+     * org.sat4j.specs.IVecInt, java.lang.Object)
+     */
+    @Override
+    protected E cached(int nbFreeVariables, IVecInt propagatedLiterals, E cached) {
+        return semiring.multiply(cached, weightOf(nbFreeVariables, propagatedLiterals));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#decision(int, java.lang.Object,
+     * java.lang.Object)
+     */
+    @Override
+    protected E decision(int variable, E ifTrue, E ifFalse) {
+        return semiring.add(ifTrue, ifFalse);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#conjunction(int,
+     * org.sat4j.specs.IVecInt, java.util.List)
+     */
+    @Override
+    protected E conjunction(int nbFreeVariables, IVecInt literals, List<E> conjuncts) {
+        E value = weightOf(nbFreeVariables, literals);
+        for (E conjunct : conjuncts) {
+            value = semiring.multiply(value, conjunct);
+        }
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#toFinalResult(java.lang.Object)
+     */
+    @Override
+    protected E toFinalResult(E intermediateResult) {
+        // Assumed literals are not seen by the algorithm, so their weight is applied here.
+        var result = semiring.multiply(intermediateResult, weightOf(0, assumptions));
+        return semiring.toResult(result);
+    }
+
+    /**
+     * Computes the weight of a conjunction of literals and free variables.
+     *
+     * @param nbFreeVariables The number of free variables in the conjunction.
+     * @param literals The literals in the conjunction, in DIMACS format.
+     *
+     * @return The product of the weights of the literals and of the value of the
+     *         free variables.
+     */
+    private E weightOf(int nbFreeVariables, IVecInt literals) {
+        E weight = (nbFreeVariables == 0) ? semiring.one()
+                : semiring.freeVariables(nbFreeVariables);
+        for (int i = 0; i < literals.size(); i++) {
+            weight = semiring.multiply(weight, semiring.weight(literals.get(i)));
+        }
+        return weight;
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.util.StringJoiner;
+
+/**
+ * The ThresholdSatCheckPolicy is a {@link SatCheckPolicy} checking the satisfiability
+ * of the sub-formulae that are both shallow enough and large enough, with a fixed
+ * conflict budget.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class ThresholdSatCheckPolicy implements SatCheckPolicy {
+
+    /**
+     * The policy checking the satisfiability of every sub-formula.
+     */
+    static final SatCheckPolicy ALWAYS =
+            new ThresholdSatCheckPolicy(Integer.MAX_VALUE, 0, UNLIMITED);
+
+    /**
+     * The policy never checking the satisfiability of the sub-formulae.
+     */
+    static final SatCheckPolicy NEVER = new ThresholdSatCheckPolicy(-1, 0, UNLIMITED);
+
+    /**
+     * The maximum number of decisions made to reach a checked sub-formula.
+     */
+    private final int maxDepth;
+
+    /**
+     * The minimum number of variables of a checked sub-formula.
+     */
+    private final int minVariables;
+
+    /**
+     * The maximum number of conflicts allowed for a check.
+     */
+    private final int budget;
+
+    /**
+     * Creates a new ThresholdSatCheckPolicy.
+     *
+     * @param maxDepth The maximum number of decisions made to reach a checked
+     *        sub-formula.
+     * @param minVariables The minimum number of variables of a checked sub-formula.
+     * @param budget The maximum number of conflicts allowed for a check.
+     */
+    ThresholdSatCheckPolicy(int maxDepth, int minVariables, int budget) {
+        this.maxDepth = maxDepth;
+        this.minVariables = minVariables;
+        this.budget = budget;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.SatCheckPolicy#maxConflicts(int, int)
+     */
+    @Override
+    public int maxConflicts(int depth, int nbVariables) {
+        if ((depth > maxDepth) || (nbVariables < minVariables)) {
+            return 0;
+        }
+        return budget;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.SatCheckPolicy#withConflictBudget(int)
+     */
+    @Override
+    public SatCheckPolicy withConflictBudget(int budget) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Illegal number of conflicts: " + budget);
+        }
+
+        return new ThresholdSatCheckPolicy(maxDepth, minVariables,
+                Math.min(this.budget, budget));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.SatCheckPolicy#isComplete()
+     */
+    @Override
+    public boolean isComplete() {
+        return (maxDepth == Integer.MAX_VALUE) && (minVariables == 0) && (budget == UNLIMITED);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        if (maxDepth < 0) {
+            return "never";
+        }
+
+        var description = new StringJoiner(", ").setEmptyValue("always");
+        if (maxDepth < Integer.MAX_VALUE) {
+            description.add("up to depth " + maxDepth);
+        }
+        if (minVariables > 0) {
+            description.add("from " + minVariables + " variables");
+        }
+        if (budget < UNLIMITED) {
+            description.add("at most " + budget + " conflicts");
+        }
+        return description.toString();
+    }
+
+}
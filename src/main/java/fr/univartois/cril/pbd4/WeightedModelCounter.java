@@ -0,0 +1,197 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.util.List;
+
+import org.sat4j.core.LiteralsUtils;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * The WeightedModelCounter implements the D4 algorithm for computing the weighted
+ * number of models of the input formula in {@code double} arithmetic.
+ * Since the variables that are free in a sub-formula are not known by the callbacks
+ * of the algorithm (only their number is), the weights of the two literals of each
+ * variable are normalized so that they sum to {@code 1}: a free variable thus does
+ * not change the weight of the models of a sub-formula, and the final result is
+ * scaled back to the original weights.
+ * The scaling factor is a product of as many weights as there are variables, and is
+ * thus stored as a mantissa and a binary exponent, so that it does not overflow (or
+ * underflow) when the final result is representable.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ *
+ * @see ExactWeightedModelCounter
+ */
+final class WeightedModelCounter extends AbstractD4<Double, Double> {
+
+    /**
+     * The normalized weights of the literals, indexed by their internal (SAT4J)
+     * representation.
+     */
+    private final double[] normalizedWeights;
+
+    /**
+     * The mantissa of the factor by which the normalized weighted count of the formula
+     * must be multiplied to obtain its actual weighted count.
+     */
+    private final double scalingFactor;
+
+    /**
+     * The binary exponent of the factor by which the normalized weighted count of the
+     * formula must be multiplied to obtain its actual weighted count.
+     */
+    private final long scalingExponent;
+
+    /**
+     * Creates a new WeightedModelCounter.
+     *
+     * @param configuration The configuration of the counter.
+     *
+     * @throws IllegalArgumentException If the weights of the two literals of a
+     *         variable sum to {@code 0}.
+     */
+    WeightedModelCounter(D4 configuration) {
+        super(configuration);
+        var weights = configuration.getWeights();
+        int nbVariables = formula.numberOfVariables();
+        this.normalizedWeights = new double[(nbVariables + 1) << 1];
+
+        // Assumed literals are not seen by the algorithm, so their weight is applied
+        // to the final result instead of that of their variable.
+        var assumedLiterals = new int[nbVariables + 1];
+        var assumptions = configuration.getAssumptions();
+        for (int i = 0; i < assumptions.size(); i++) {
+            assumedLiterals[Math.abs(assumptions.get(i))] = assumptions.get(i);
+        }
+
+        // Normalizing the weights of the literals of each variable.
+        double factor = 1;
+        long exponent = 0;
+        for (int v = 1; v <= nbVariables; v++) {
+            double total = weights.totalWeight(v).doubleValue();
+            if (total == 0) {
+                throw new IllegalArgumentException("Literals of variable " + v + " have opposite weights");
+            }
+            normalizedWeights[LiteralsUtils.posLit(v)] = weights.get(v).doubleValue() / total;
+            normalizedWeights[LiteralsUtils.negLit(v)] = weights.get(-v).doubleValue() / total;
+
+            // The mantissa of the factor is kept within [1, 2).
+            factor *= (assumedLiterals[v] == 0) ? total : weights.get(assumedLiterals[v]).doubleValue();
+            if (factor != 0) {
+                int shift = Math.getExponent(factor);
+                factor = Math.scalb(factor, -shift);
+                exponent += shift;
+            }
+        }
+        this.scalingFactor = factor;
+        this.scalingExponent = exponent;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#unsatisfiable()
+     */
+    @Override
+    protected Double unsatisfiable() {
+        return 0.0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#implicant(int,
+     * org.sat4j.specs.IVecInt)
+     */
+    @Override
+    protected Double implicant(int nbFreeVariables, IVecInt implicant) {
+        return weightOf(implicant);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#cached(int,
+     * org.sat4j.specs.IVecInt, java.lang.Object)
+     */
+    @Override
+    protected Double cached(int nbFreeVariables, IVecInt propagatedLiterals, Double cached) {
+        return cached * weightOf(propagatedLiterals);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#decision(int, java.lang.Object,
+     * java.lang.Object)
+     */
+    @Override
+    protected Double decision(int variable, Double ifTrue, Double ifFalse) {
+        return ifTrue + ifFalse;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#conjunction(int,
+     * org.sat4j.specs.IVecInt, java.util.List)
+     */
+    @Override
+    protected Double conjunction(int nbFreeVariables, IVecInt literals, List<Double> conjuncts) {
+        double weight = weightOf(literals);
+        for (double conjunct : conjuncts) {
+            weight *= conjunct;
+        }
+        return weight;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.AbstractD4#toFinalResult(java.lang.Object)
+     */
+    @Override
+    protected Double toFinalResult(Double intermediateResult) {
+        // Beyond this range, Math.scalb() saturates anyway.
+        int exponent = (int) Math.max(Integer.MIN_VALUE,
+                Math.min(Integer.MAX_VALUE, scalingExponent));
+        return Math.scalb(intermediateResult * scalingFactor, exponent);
+    }
+
+    /**
+     * Computes the product of the normalized weights of literals.
+     *
+     * @param literals The literals to compute the weight of, in DIMACS format.
+     *
+     * @return The product of the normalized weights of the literals.
+     */
+    private double weightOf(IVecInt literals) {
+        double weight = 1;
+        for (int i = 0; i < literals.size(); i++) {
+            weight *= normalizedWeights[LiteralsUtils.toInternal(literals.get(i))];
+        }
+        return weight;
+    }
+
+}
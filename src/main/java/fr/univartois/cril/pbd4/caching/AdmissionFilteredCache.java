@@ -0,0 +1,208 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import java.util.Optional;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The AdmissionFilteredCache is a decorator for a caching strategy, which only admits
+ * in the decorated cache the values of formulae that are likely to be reused and
+ * expensive to compute again.
+ * A formula is admitted if it contains enough variables and constraints, and if it
+ * has been looked up frequently enough recently.
+ * The frequency of the formulae is estimated using a {@link FrequencySketch}, as in
+ * the TinyLFU admission policy.
+ *
+ * @param <T> The type of the values associated to the formulae in the cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class AdmissionFilteredCache<T> implements CachingStrategy<T> {
+
+    /**
+     * The default expected number of distinct formulae to count the occurrences of.
+     */
+    private static final int DEFAULT_SKETCH_CAPACITY = 1 << 16;
+
+    /**
+     * The caching strategy actually storing the values.
+     */
+    private final CachingStrategy<T> decorated;
+
+    /**
+     * The minimum number of variables of an admitted formula.
+     */
+    private final int minVariables;
+
+    /**
+     * The minimum number of constraints of an admitted formula.
+     */
+    private final int minConstraints;
+
+    /**
+     * The minimum (estimated) number of recent look-ups of an admitted formula.
+     */
+    private final int minFrequency;
+
+    /**
+     * The sketch estimating how many times each formula has been looked up recently.
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Creates a new AdmissionFilteredCache.
+     *
+     * @param decorated The caching strategy actually storing the values.
+     * @param minVariables The minimum number of variables of an admitted formula.
+     * @param minConstraints The minimum number of constraints of an admitted formula.
+     * @param minFrequency The minimum number of recent look-ups of an admitted formula.
+     */
+    private AdmissionFilteredCache(CachingStrategy<T> decorated, int minVariables,
+            int minConstraints, int minFrequency) {
+        this.decorated = decorated;
+        this.minVariables = minVariables;
+        this.minConstraints = minConstraints;
+        this.minFrequency = minFrequency;
+        this.sketch = new FrequencySketch(DEFAULT_SKETCH_CAPACITY);
+    }
+
+    /**
+     * Creates a new AdmissionFilteredCache.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param decorated The caching strategy actually storing the values.
+     * @param minVariables The minimum number of variables of an admitted formula.
+     * @param minConstraints The minimum number of constraints of an admitted formula.
+     * @param minFrequency The minimum number of recent look-ups of an admitted formula
+     *        (including the look-up preceding its computation).
+     *        Frequencies are capped at 15.
+     *
+     * @return The created cache.
+     */
+    public static <T> CachingStrategy<T> newInstance(CachingStrategy<T> decorated,
+            int minVariables, int minConstraints, int minFrequency) {
+        return new AdmissionFilteredCache<>(decorated, minVariables, minConstraints,
+                minFrequency);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationStarts()
+     */
+    @Override
+    public void compilationStarts() {
+        sketch.clear();
+        decorated.compilationStarts();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object)
+     */
+    @Override
+    public void put(PseudoBooleanFormula formula, T toCache) {
+        if (admits(formula)) {
+            decorated.put(formula, toCache);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object, long)
+     */
+    @Override
+    public void put(PseudoBooleanFormula formula, T toCache, long cost) {
+        if (admits(formula)) {
+            decorated.put(formula, toCache, cost);
+        }
+    }
+
+    /**
+     * Checks whether the value of the given formula should be admitted in the cache.
+     *
+     * @param formula The formula to check.
+     *
+     * @return Whether the value of the formula should be cached.
+     */
+    private boolean admits(PseudoBooleanFormula formula) {
+        return (formula.numberOfVariables() >= minVariables)
+                && (formula.numberOfConstraints() >= minConstraints)
+                && (sketch.frequency(formula.signature()) >= minFrequency);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#get(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula)
+     */
+    @Override
+    public Optional<T> get(PseudoBooleanFormula formula) {
+        sketch.increment(formula.signature());
+        return decorated.get(formula);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#getStatistics()
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return decorated.getStatistics();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationEnds()
+     */
+    @Override
+    public void compilationEnds() {
+        decorated.compilationEnds();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return decorated + " admitting formulae with at least " + minVariables
+                + " variable(s) and " + minConstraints + " constraint(s), looked up at least "
+                + minFrequency + " time(s)";
+    }
+
+}
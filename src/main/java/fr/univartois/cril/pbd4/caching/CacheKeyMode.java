@@ -0,0 +1,91 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The CacheKeyMode specifies how the formulae stored in a cache are identified.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public enum CacheKeyMode {
+
+    /**
+     * Formulae are identified by the indices of their active constraints, and by the
+     * satisfied literals appearing in these constraints.
+     * Keys are cheap to compute, thanks to the incremental signatures of the formulae.
+     */
+    CONSTRAINT_IDENTIFIERS {
+
+        @Override
+        FormulaKey keyOf(PseudoBooleanFormula formula) {
+            return FormulaKey.of(formula);
+        }
+
+        @Override
+        FormulaKey lookUpKeyOf(PseudoBooleanFormula formula) {
+            return FormulaKey.lookUp(formula);
+        }
+
+    },
+
+    /**
+     * Formulae are identified by their residual constraints, so that equivalent
+     * formulae obtained through different assignments are identified by the same key.
+     * Keys are more expensive to compute, as the residual constraints must be computed
+     * each time a formula is looked up.
+     */
+    RESIDUAL_CONSTRAINTS {
+
+        @Override
+        FormulaKey keyOf(PseudoBooleanFormula formula) {
+            return FormulaKey.residualOf(formula);
+        }
+
+        @Override
+        FormulaKey lookUpKeyOf(PseudoBooleanFormula formula) {
+            return FormulaKey.residualOf(formula);
+        }
+
+    };
+
+    /**
+     * Creates the key identifying the given formula, so as to store it in a cache.
+     *
+     * @param formula The formula to create the key of.
+     *
+     * @return The key identifying the formula.
+     */
+    abstract FormulaKey keyOf(PseudoBooleanFormula formula);
+
+    /**
+     * Creates the key identifying the given formula, so as to look it up in a cache.
+     *
+     * @param formula The formula to create the key of.
+     *
+     * @return The key identifying the formula.
+     */
+    abstract FormulaKey lookUpKeyOf(PseudoBooleanFormula formula);
+
+}
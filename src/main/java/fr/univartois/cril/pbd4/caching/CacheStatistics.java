@@ -0,0 +1,209 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+/**
+ * The CacheStatistics gathers statistics about the use of a cache during the
+ * execution of the D4 algorithm.
+ * These statistics are reset each time a compilation starts.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class CacheStatistics {
+
+    /**
+     * The number of times a formula has been looked up in the cache.
+     */
+    private long lookups;
+
+    /**
+     * The number of times a formula has been found in the cache.
+     */
+    private long hits;
+
+    /**
+     * The number of values that have been inserted into the cache.
+     */
+    private long insertions;
+
+    /**
+     * The number of values that have been evicted from the cache.
+     */
+    private long evictions;
+
+    /**
+     * The (estimated) number of bytes currently held by the cache.
+     */
+    private long bytesHeld;
+
+    /**
+     * The total (estimated) size of the keys that have been inserted into the cache.
+     */
+    private long totalKeySize;
+
+    /**
+     * Creates a new CacheStatistics, in which all statistics are set to 0.
+     */
+    CacheStatistics() {
+        // Nothing to do: all statistics are initially 0.
+    }
+
+    /**
+     * Creates a new CacheStatistics, for a strategy that does not cache anything.
+     *
+     * @return The created statistics.
+     */
+    static CacheStatistics empty() {
+        return new CacheStatistics();
+    }
+
+    /**
+     * Resets all the statistics to 0.
+     */
+    void reset() {
+        lookups = 0;
+        hits = 0;
+        insertions = 0;
+        evictions = 0;
+        bytesHeld = 0;
+        totalKeySize = 0;
+    }
+
+    /**
+     * Records a look-up in the cache.
+     *
+     * @param hit Whether the looked up formula has been found in the cache.
+     */
+    void lookUp(boolean hit) {
+        lookups++;
+        if (hit) {
+            hits++;
+        }
+    }
+
+    /**
+     * Records the insertion of a value into the cache.
+     *
+     * @param keySize The (estimated) size of the key of the value.
+     * @param entrySize The (estimated) number of bytes used to store the value and its
+     *        key.
+     */
+    void insert(long keySize, long entrySize) {
+        insertions++;
+        totalKeySize += keySize;
+        bytesHeld += entrySize;
+    }
+
+    /**
+     * Records the eviction of values from the cache.
+     *
+     * @param nbEvicted The number of evicted values.
+     * @param releasedSize The (estimated) number of bytes released by the eviction.
+     */
+    void evict(long nbEvicted, long releasedSize) {
+        evictions += nbEvicted;
+        bytesHeld -= releasedSize;
+    }
+
+    /**
+     * Sets the number of bytes currently held by the cache.
+     *
+     * @param bytesHeld The (estimated) number of bytes held by the cache.
+     */
+    void setBytesHeld(long bytesHeld) {
+        this.bytesHeld = bytesHeld;
+    }
+
+    /**
+     * Gives the number of times a formula has been looked up in the cache.
+     *
+     * @return The number of look-ups.
+     */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * Gives the number of times a formula has been found in the cache.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gives the number of times a formula has not been found in the cache.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return lookups - hits;
+    }
+
+    /**
+     * Gives the ratio of look-ups that have found a formula in the cache.
+     *
+     * @return The hit ratio (between 0 and 1), or 0 if there has been no look-up.
+     */
+    public double getHitRatio() {
+        return (lookups == 0) ? 0 : ((double) hits / lookups);
+    }
+
+    /**
+     * Gives the number of values that have been inserted into the cache.
+     *
+     * @return The number of insertions.
+     */
+    public long getInsertions() {
+        return insertions;
+    }
+
+    /**
+     * Gives the number of values that have been evicted from the cache.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gives the (estimated) number of bytes currently held by the cache.
+     *
+     * @return The number of bytes held by the cache.
+     */
+    public long getBytesHeld() {
+        return bytesHeld;
+    }
+
+    /**
+     * Gives the average (estimated) size of the keys inserted into the cache.
+     *
+     * @return The average key size (in bytes), or 0 if there has been no insertion.
+     */
+    public double getAverageKeySize() {
+        return (insertions == 0) ? 0 : ((double) totalKeySize / insertions);
+    }
+
+}
@@ -36,6 +36,17 @@ import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
  */
 public interface CachingStrategy<T> {
 
+    /**
+     * Notifies this strategy that the compilation starts.
+     * It may be used to forget values cached during a previous compilation, for
+     * instance.
+     *
+     * @implSpec The default implementation does nothing.
+     */
+    default void compilationStarts() {
+        // Nothing to do by default.
+    }
+
     /**
      * Puts a value computed for a pseudo-Boolean formula into the cache.
      *
@@ -50,6 +61,24 @@ public interface CachingStrategy<T> {
      */
     void put(PseudoBooleanFormula formula, T toCache);
 
+    /**
+     * Puts a value computed for a pseudo-Boolean formula into the cache, together with
+     * the cost of its computation.
+     * This cost may be used by the strategy to decide which values are worth keeping.
+     *
+     * @param formula The formula to put the value of.
+     * @param value The value to cache for the formula.
+     * @param cost The time (in nanoseconds) spent to compute the value.
+     *
+     * @implSpec The default implementation ignores the cost, and invokes
+     *           {@link #put(PseudoBooleanFormula, Object)}.
+     *
+     * @see #put(PseudoBooleanFormula, Object)
+     */
+    default void put(PseudoBooleanFormula formula, T toCache, long cost) {
+        put(formula, toCache);
+    }
+
     /**
      * Gives the value that has been cached for the given formula.
      *
@@ -65,4 +94,27 @@ public interface CachingStrategy<T> {
      */
     Optional<T> get(PseudoBooleanFormula formula);
 
+    /**
+     * Gives the statistics about the use of this cache during the last (or current)
+     * compilation.
+     *
+     * @return The statistics of this cache.
+     *
+     * @implSpec The default implementation returns statistics in which everything is
+     *           set to 0.
+     */
+    default CacheStatistics getStatistics() {
+        return CacheStatistics.empty();
+    }
+
+    /**
+     * Notifies this strategy that the compilation has ended.
+     * It may be used to perform some clean up, for instance.
+     *
+     * @implSpec The default implementation does nothing.
+     */
+    default void compilationEnds() {
+        // Nothing to do by default.
+    }
+
 }
@@ -0,0 +1,156 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The ExactMatchCache is a caching strategy that stores the value computed for each
+ * formula, and retrieves it for any formula having exactly the same residual
+ * constraints, i.e., the same active constraints and the same assignment of the
+ * variables appearing in these constraints.
+ *
+ * @param <T> The type of the values associated to the formulae in the cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class ExactMatchCache<T> implements CachingStrategy<T> {
+
+    /**
+     * The map associating the key of each cached formula to its value.
+     */
+    private final Map<FormulaKey, T> cache;
+
+    /**
+     * The statistics about the use of this cache.
+     */
+    private final CacheStatistics statistics;
+
+    /**
+     * The mode used to identify the formulae stored in this cache.
+     */
+    private final CacheKeyMode keyMode;
+
+    /**
+     * Creates a new ExactMatchCache.
+     *
+     * @param keyMode The mode used to identify the formulae stored in the cache.
+     */
+    private ExactMatchCache(CacheKeyMode keyMode) {
+        this.cache = new HashMap<>();
+        this.statistics = new CacheStatistics();
+        this.keyMode = keyMode;
+    }
+
+    /**
+     * Creates a new ExactMatchCache.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @return The created cache.
+     */
+    public static <T> CachingStrategy<T> newInstance() {
+        return newInstance(CacheKeyMode.CONSTRAINT_IDENTIFIERS);
+    }
+
+    /**
+     * Creates a new ExactMatchCache.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param keyMode The mode used to identify the formulae stored in the cache.
+     *
+     * @return The created cache.
+     */
+    public static <T> CachingStrategy<T> newInstance(CacheKeyMode keyMode) {
+        return new ExactMatchCache<>(keyMode);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationStarts()
+     */
+    @Override
+    public void compilationStarts() {
+        // Values computed on another formula must not be retrieved.
+        cache.clear();
+        statistics.reset();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object)
+     */
+    @Override
+    public void put(PseudoBooleanFormula formula, T toCache) {
+        var key = keyMode.keyOf(formula);
+        var previous = cache.put(key, toCache);
+        if (previous != null) {
+            statistics.evict(1, SizeEstimator.sizeOf(key, previous));
+        }
+        statistics.insert(key.estimatedSize(), SizeEstimator.sizeOf(key, toCache));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#get(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula)
+     */
+    @Override
+    public Optional<T> get(PseudoBooleanFormula formula) {
+        var value = cache.get(keyMode.lookUpKeyOf(formula));
+        statistics.lookUp(value != null);
+        return Optional.ofNullable(value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#getStatistics()
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "exact-match caching";
+    }
+
+}
@@ -0,0 +1,388 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.sat4j.core.LiteralsUtils;
+import org.sat4j.specs.IVecInt;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+import fr.univartois.cril.pbd4.pbc.ResidualConstraint;
+
+/**
+ * The FormulaKey identifies a (residual) pseudo-Boolean formula inside a cache.
+ * Two formulae are identified by the same key if they have the same active constraints
+ * and if the same literals are satisfied among those appearing in these constraints.
+ *
+ * Keys are hashed using the signature of the formula, which is also used to pre-check
+ * their equality.
+ * This way, the actual content of a key used to look up a formula in the cache is only
+ * computed when a formula with the same signature is found.
+ *
+ * To keep cached keys small, their content is packed into a single array of bytes.
+ * This array contains the number of active constraints, followed by the differences
+ * between the indices of consecutive active constraints, and then by the differences
+ * between the (internal representations of the) consecutive assigned literals.
+ * All these (non-negative) integers are encoded as variable-length quantities, i.e.,
+ * using 7 bits per byte, the most significant bit telling whether there are more
+ * bytes to read.
+ *
+ * Keys may also identify formulae by their residual constraints (see
+ * {@link PseudoBooleanFormula#residualConstraints()}), so that equivalent formulae
+ * obtained from different assignments share the same key.
+ * In this case, the content of the key is made of the number of residual
+ * constraints, followed by the (sorted) encodings of these constraints, and the
+ * signature of the key is computed from its content.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class FormulaKey {
+
+    /**
+     * The (estimated) number of bytes used by a key, regardless of its content.
+     */
+    private static final long KEY_OVERHEAD = 56;
+
+    /**
+     * The maximum number of bytes needed to encode an {@code int}.
+     */
+    private static final int MAX_ENCODING_LENGTH = 5;
+
+    /**
+     * The offset basis of the FNV-1a hash function, used to hash the content of keys.
+     */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /**
+     * The prime of the FNV-1a hash function, used to hash the content of keys.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * The mask identifying the bits of an encoded byte carrying data.
+     */
+    private static final int DATA_MASK = 0x7f;
+
+    /**
+     * The mask identifying the bit of an encoded byte telling whether there are more
+     * bytes to read.
+     */
+    private static final int CONTINUATION_BIT = 0x80;
+
+    /**
+     * The signature of the formula.
+     */
+    private final long signature;
+
+    /**
+     * The formula identified by this key, until the content of the key is computed.
+     */
+    private PseudoBooleanFormula formula;
+
+    /**
+     * The packed content of this key, describing the active constraints of the formula
+     * and the satisfied literals appearing in these constraints.
+     */
+    private byte[] content;
+
+    /**
+     * Creates a new FormulaKey.
+     *
+     * @param formula The formula identified by the key.
+     */
+    private FormulaKey(PseudoBooleanFormula formula) {
+        this.signature = formula.signature();
+        this.formula = formula;
+    }
+
+    /**
+     * Creates a new FormulaKey, whose content is already computed.
+     *
+     * @param signature The signature of the identified formula.
+     * @param content The packed content of the key.
+     */
+    private FormulaKey(long signature, byte[] content) {
+        this.signature = signature;
+        this.content = content;
+    }
+
+    /**
+     * Creates the key identifying the given formula, so as to store it in a cache.
+     * The content of the key is computed immediately, and the key does not keep any
+     * reference to the formula.
+     *
+     * @param formula The formula to create the key of.
+     *
+     * @return The key identifying the formula.
+     */
+    static FormulaKey of(PseudoBooleanFormula formula) {
+        var key = new FormulaKey(formula);
+        key.computeContent();
+        return key;
+    }
+
+    /**
+     * Creates the key identifying the given formula, so as to look it up in a cache.
+     * The content of the key is only computed when needed.
+     *
+     * @param formula The formula to create the key of.
+     *
+     * @return The key identifying the formula.
+     */
+    static FormulaKey lookUp(PseudoBooleanFormula formula) {
+        return new FormulaKey(formula);
+    }
+
+    /**
+     * Creates the key identifying the given formula by its residual constraints.
+     * The content of the key is computed immediately, as the signature of the key
+     * depends on it.
+     *
+     * @param formula The formula to create the key of.
+     *
+     * @return The key identifying the formula.
+     */
+    static FormulaKey residualOf(PseudoBooleanFormula formula) {
+        var content = encode(formula.residualConstraints());
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : content) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return new FormulaKey(hash, content);
+    }
+
+    /**
+     * Computes the content of this key (if this has not been done yet).
+     */
+    private void computeContent() {
+        if (formula != null) {
+            content = encode(formula.activeConstraints(), formula.assignedLiterals());
+            formula = null;
+        }
+    }
+
+    /**
+     * Packs the description of a formula into an array of bytes.
+     *
+     * @param activeConstraints The active constraints of the formula, in increasing
+     *        order.
+     * @param assignedLiterals The satisfied literals appearing in the active
+     *        constraints of the formula, in increasing order w.r.t. their internal
+     *        representation.
+     *
+     * @return The packed description of the formula.
+     */
+    private static byte[] encode(IVecInt activeConstraints, IVecInt assignedLiterals) {
+        var bytes = new byte[MAX_ENCODING_LENGTH
+                * (1 + activeConstraints.size() + assignedLiterals.size())];
+        int length = encode(activeConstraints.size(), bytes, 0);
+
+        // Encoding the active constraints.
+        int previous = 0;
+        for (var it = activeConstraints.iterator(); it.hasNext();) {
+            int constr = it.next();
+            length = encode(constr - previous, bytes, length);
+            previous = constr;
+        }
+
+        // Encoding the assigned literals.
+        previous = 0;
+        for (var it = assignedLiterals.iterator(); it.hasNext();) {
+            int lit = LiteralsUtils.toInternal(it.next());
+            length = encode(lit - previous, bytes, length);
+            previous = lit;
+        }
+
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Encodes a non-negative integer as a variable-length quantity.
+     *
+     * @param value The value to encode.
+     * @param bytes The array in which to write the encoded value.
+     * @param index The index at which to start writing in {@code bytes}.
+     *
+     * @return The index following the last byte that has been written.
+     */
+    private static int encode(int value, byte[] bytes, int index) {
+        while ((value & ~DATA_MASK) != 0) {
+            bytes[index++] = (byte) ((value & DATA_MASK) | CONTINUATION_BIT);
+            value >>>= 7;
+        }
+        bytes[index++] = (byte) value;
+        return index;
+    }
+
+    /**
+     * Packs the description of a formula into an array of bytes, from its residual
+     * constraints.
+     *
+     * @param residualConstraints The residual constraints of the formula.
+     *
+     * @return The packed description of the formula.
+     */
+    private static byte[] encode(Collection<ResidualConstraint> residualConstraints) {
+        // Encoding the constraints in a canonical order.
+        var encodedConstraints = new byte[residualConstraints.size()][];
+        int index = 0;
+        for (var constr : residualConstraints) {
+            encodedConstraints[index++] = encode(constr);
+        }
+        Arrays.sort(encodedConstraints, Arrays::compare);
+
+        // Concatenating the encoded constraints.
+        var output = new ByteArrayOutputStream();
+        write(output, encodedConstraints.length);
+        for (var encoded : encodedConstraints) {
+            output.writeBytes(encoded);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Packs a residual constraint into an array of bytes.
+     * The constraint is encoded by its number of literals, followed by the differences
+     * between the (internal representations of the) consecutive literals, each one
+     * followed by its coefficient, and finally by the degree of the constraint.
+     *
+     * @param constraint The residual constraint to encode.
+     *
+     * @return The packed residual constraint.
+     */
+    private static byte[] encode(ResidualConstraint constraint) {
+        var output = new ByteArrayOutputStream();
+        write(output, constraint.size());
+
+        int previous = 0;
+        for (int i = 0; i < constraint.size(); i++) {
+            int lit = LiteralsUtils.toInternal(constraint.getLiteral(i));
+            write(output, lit - previous);
+            write(output, constraint.getCoefficient(i));
+            previous = lit;
+        }
+
+        write(output, constraint.getDegree());
+        return output.toByteArray();
+    }
+
+    /**
+     * Writes a non-negative integer as a variable-length quantity.
+     *
+     * @param output The stream in which to write the encoded value.
+     * @param value The value to encode.
+     */
+    private static void write(ByteArrayOutputStream output, int value) {
+        while ((value & ~DATA_MASK) != 0) {
+            output.write((value & DATA_MASK) | CONTINUATION_BIT);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    /**
+     * Writes a big integer as the length of its two's-complement representation,
+     * followed by this representation.
+     *
+     * @param output The stream in which to write the encoded value.
+     * @param value The value to encode.
+     */
+    private static void write(ByteArrayOutputStream output, BigInteger value) {
+        var bytes = value.toByteArray();
+        write(output, bytes.length);
+        output.writeBytes(bytes);
+    }
+
+    /**
+     * Gives the signature of the formula identified by this key.
+     *
+     * @return The signature of the formula.
+     */
+    long signature() {
+        return signature;
+    }
+
+    /**
+     * Gives the packed content of this key.
+     * Calling this method forces the computation of this content.
+     *
+     * @return The packed content of this key.
+     */
+    byte[] content() {
+        computeContent();
+        return content;
+    }
+
+    /**
+     * Estimates the number of bytes used by this key in memory.
+     * Calling this method forces the computation of the content of this key.
+     *
+     * @return The estimated size of this key (in bytes).
+     */
+    long estimatedSize() {
+        computeContent();
+        return KEY_OVERHEAD + content.length;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(signature);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj instanceof FormulaKey) {
+            var other = (FormulaKey) obj;
+            if (signature != other.signature) {
+                // The formulae are necessarily different.
+                return false;
+            }
+
+            // The formulae are most likely equal, but this must be checked.
+            computeContent();
+            other.computeContent();
+            return Arrays.equals(content, other.content);
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import java.util.Arrays;
+
+/**
+ * The FrequencySketch is a count-min sketch estimating how many times each formula
+ * has been encountered recently, as in the TinyLFU admission policy [Einziger et
+ * al., 2017].
+ * Counters are stored on 4 bits, and are all halved once a given number of
+ * increments has been performed, so that old occurrences are progressively
+ * forgotten.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class FrequencySketch {
+
+    /**
+     * The number of counters associated to each hash value.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * The number of bits of a counter.
+     */
+    private static final int COUNTER_SIZE = 4;
+
+    /**
+     * The maximum value of a counter.
+     */
+    private static final int MAX_COUNT = (1 << COUNTER_SIZE) - 1;
+
+    /**
+     * The mask used to halve all the counters stored in a {@code long} at once.
+     */
+    private static final long HALVING_MASK = 0x7777777777777777L;
+
+    /**
+     * The ratio between the number of increments between two agings and the capacity
+     * of the sketch.
+     */
+    private static final int SAMPLE_RATIO = 10;
+
+    /**
+     * The counters of this sketch, packed by 16 in each {@code long}.
+     */
+    private final long[] table;
+
+    /**
+     * The number of increments after which all counters are halved.
+     */
+    private final int sampleSize;
+
+    /**
+     * The number of increments performed since the last aging.
+     */
+    private int nbIncrements;
+
+    /**
+     * Creates a new FrequencySketch.
+     *
+     * @param capacity The expected number of distinct hash values to count.
+     */
+    FrequencySketch(int capacity) {
+        this.table = new long[Math.max(1, Integer.highestOneBit(capacity) >> 2)];
+        this.sampleSize = SAMPLE_RATIO * Math.max(1, capacity);
+    }
+
+    /**
+     * Gives the estimated number of times the given hash value has been recently
+     * counted.
+     *
+     * @param hash The hash value to get the frequency of.
+     *
+     * @return The estimated frequency of the hash value.
+     */
+    int frequency(long hash) {
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            long h = spread(hash, i);
+            int shift = counterShift(h);
+            frequency = Math.min(frequency, (int) ((table[indexOf(h)] >>> shift) & MAX_COUNT));
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts one more occurrence of the given hash value.
+     *
+     * @param hash The hash value to count.
+     */
+    void increment(long hash) {
+        for (int i = 0; i < DEPTH; i++) {
+            long h = spread(hash, i);
+            int index = indexOf(h);
+            int shift = counterShift(h);
+            if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << shift;
+            }
+        }
+
+        if (++nbIncrements == sampleSize) {
+            age();
+        }
+    }
+
+    /**
+     * Halves all the counters of this sketch.
+     */
+    private void age() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALVING_MASK;
+        }
+        nbIncrements >>>= 1;
+    }
+
+    /**
+     * Forgets all the occurrences counted by this sketch.
+     */
+    void clear() {
+        Arrays.fill(table, 0);
+        nbIncrements = 0;
+    }
+
+    /**
+     * Spreads the bits of a hash value differently for each of its counters.
+     * This method applies the finalizer of SplitMix64.
+     *
+     * @param hash The hash value to spread.
+     * @param row The index of the counter to compute the hash value for.
+     *
+     * @return The spread hash value.
+     */
+    private static long spread(long hash, int row) {
+        long z = hash + (row + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gives the index of the {@code long} storing the counter for a spread hash value.
+     *
+     * @param h The spread hash value.
+     *
+     * @return The index of the {@code long} containing the counter.
+     */
+    private int indexOf(long h) {
+        return (int) h & (table.length - 1);
+    }
+
+    /**
+     * Gives the position of the counter for a spread hash value inside its
+     * {@code long}.
+     *
+     * @param h The spread hash value.
+     *
+     * @return The number of bits to shift to reach the counter.
+     */
+    private static int counterShift(long h) {
+        return (int) (h >>> 60) * COUNTER_SIZE;
+    }
+
+}
@@ -0,0 +1,338 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The MemoryBoundedCache is a caching strategy that retrieves values in the same way
+ * as {@link ExactMatchCache}, but that does not use more than a given amount of
+ * memory to store them.
+ * When the memory budget is exceeded, cached values are evicted following the
+ * GreedyDual-Size policy [Cao and Irani, 1997], in which the priority of each entry
+ * is the time spent to compute its value divided by its size, plus an inflation
+ * value that ages the entries that have not been used recently.
+ *
+ * @param <T> The type of the values associated to the formulae in the cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class MemoryBoundedCache<T> implements CachingStrategy<T> {
+
+    /**
+     * The maximum number of bytes this cache may use.
+     */
+    private final long budget;
+
+    /**
+     * The mode used to identify the formulae stored in this cache.
+     */
+    private final CacheKeyMode keyMode;
+
+    /**
+     * The map associating the key of each cached formula to its entry.
+     */
+    private final Map<FormulaKey, Entry<T>> cache;
+
+    /**
+     * The entries of this cache, ordered by increasing priority.
+     */
+    private final NavigableSet<Entry<T>> evictionQueue;
+
+    /**
+     * The inflation value of GreedyDual-Size, i.e., the priority of the last evicted
+     * entry.
+     */
+    private double inflation;
+
+    /**
+     * The number of bytes currently used by this cache.
+     */
+    private long usedMemory;
+
+    /**
+     * The number of entries that have been created so far, used to break ties between
+     * entries having the same priority.
+     */
+    private long nbEntries;
+
+    /**
+     * The statistics about the use of this cache.
+     */
+    private final CacheStatistics statistics;
+
+    /**
+     * Creates a new MemoryBoundedCache.
+     *
+     * @param budget The maximum number of bytes the cache may use.
+     * @param keyMode The mode used to identify the formulae stored in the cache.
+     */
+    private MemoryBoundedCache(long budget, CacheKeyMode keyMode) {
+        this.budget = budget;
+        this.keyMode = keyMode;
+        this.cache = new HashMap<>();
+        this.evictionQueue = new TreeSet<>();
+        this.statistics = new CacheStatistics();
+    }
+
+    /**
+     * Creates a new MemoryBoundedCache.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param budget The maximum number of bytes the cache may use.
+     *
+     * @return The created cache.
+     *
+     * @throws IllegalArgumentException If {@code budget} is not positive.
+     */
+    public static <T> CachingStrategy<T> newInstance(long budget) {
+        return newInstance(budget, CacheKeyMode.CONSTRAINT_IDENTIFIERS);
+    }
+
+    /**
+     * Creates a new MemoryBoundedCache.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param budget The maximum number of bytes the cache may use.
+     * @param keyMode The mode used to identify the formulae stored in the cache.
+     *
+     * @return The created cache.
+     *
+     * @throws IllegalArgumentException If {@code budget} is not positive.
+     */
+    public static <T> CachingStrategy<T> newInstance(long budget, CacheKeyMode keyMode) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Illegal memory budget for cache: " + budget);
+        }
+
+        return new MemoryBoundedCache<>(budget, keyMode);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationStarts()
+     */
+    @Override
+    public void compilationStarts() {
+        // Values computed on another formula must not be retrieved.
+        cache.clear();
+        evictionQueue.clear();
+        inflation = 0;
+        usedMemory = 0;
+        statistics.reset();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object)
+     */
+    @Override
+    public void put(PseudoBooleanFormula formula, T toCache) {
+        put(formula, toCache, 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object, long)
+     */
+    @Override
+    public void put(PseudoBooleanFormula formula, T toCache, long cost) {
+        var key = keyMode.keyOf(formula);
+        long size = SizeEstimator.sizeOf(key, toCache);
+        if (size > budget) {
+            // This value would never fit in the cache.
+            return;
+        }
+
+        // Removing the previous entry for the formula, if any.
+        var previous = cache.remove(key);
+        if (previous != null) {
+            evictionQueue.remove(previous);
+            usedMemory -= previous.size;
+            statistics.evict(1, previous.size);
+        }
+
+        // Making room for the new entry.
+        while (usedMemory + size > budget) {
+            evict();
+        }
+
+        // Actually adding the entry.
+        var entry = new Entry<>(key, toCache, size, Math.max(1, cost), nbEntries++);
+        entry.priority = inflation + entry.credit();
+        cache.put(key, entry);
+        evictionQueue.add(entry);
+        usedMemory += size;
+        statistics.insert(key.estimatedSize(), size);
+    }
+
+    /**
+     * Evicts the entry having the lowest priority from this cache.
+     */
+    private void evict() {
+        var victim = evictionQueue.pollFirst();
+        inflation = victim.priority;
+        cache.remove(victim.key);
+        usedMemory -= victim.size;
+        statistics.evict(1, victim.size);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#get(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula)
+     */
+    @Override
+    public Optional<T> get(PseudoBooleanFormula formula) {
+        var entry = cache.get(keyMode.lookUpKeyOf(formula));
+        statistics.lookUp(entry != null);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        // The entry has been used, so its priority is restored.
+        evictionQueue.remove(entry);
+        entry.priority = inflation + entry.credit();
+        evictionQueue.add(entry);
+        return Optional.of(entry.value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#getStatistics()
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "memory-bounded caching (" + budget + " bytes)";
+    }
+
+    /**
+     * The Entry represents a value stored in a {@link MemoryBoundedCache}, together
+     * with the data needed to decide when to evict it.
+     *
+     * @param <T> The type of the value in the entry.
+     */
+    private static final class Entry<T> implements Comparable<Entry<T>> {
+
+        /**
+         * The key of the formula for which the value has been cached.
+         */
+        private final FormulaKey key;
+
+        /**
+         * The cached value.
+         */
+        private final T value;
+
+        /**
+         * The estimated size of this entry (in bytes).
+         */
+        private final long size;
+
+        /**
+         * The time spent to compute the cached value (in nanoseconds).
+         */
+        private final long cost;
+
+        /**
+         * The identifier of this entry, used to break ties.
+         */
+        private final long identifier;
+
+        /**
+         * The current priority of this entry.
+         */
+        private double priority;
+
+        /**
+         * Creates a new Entry.
+         *
+         * @param key The key of the formula for which the value has been cached.
+         * @param value The cached value.
+         * @param size The estimated size of the entry (in bytes).
+         * @param cost The time spent to compute the cached value (in nanoseconds).
+         * @param identifier The identifier of the entry.
+         */
+        private Entry(FormulaKey key, T value, long size, long cost, long identifier) {
+            this.key = key;
+            this.value = value;
+            this.size = size;
+            this.cost = cost;
+            this.identifier = identifier;
+        }
+
+        /**
+         * Gives the credit of this entry, i.e., the priority it is given (above the
+         * inflation value) each time it is used.
+         *
+         * @return The credit of this entry.
+         */
+        private double credit() {
+            return (double) cost / size;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        @Override
+        public int compareTo(Entry<T> other) {
+            int cmp = Double.compare(priority, other.priority);
+            if (cmp == 0) {
+                return Long.compare(identifier, other.identifier);
+            }
+            return cmp;
+        }
+
+    }
+
+}
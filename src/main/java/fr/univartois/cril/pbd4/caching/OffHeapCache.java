@@ -0,0 +1,493 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The OffHeapCache is a caching strategy that retrieves values in the same way as
+ * {@link ExactMatchCache}, but that stores its keys and values outside of the heap, so
+ * as not to put pressure on the garbage collector.
+ *
+ * The cache is made of two direct buffers.
+ * The first one is a hash table using open addressing (with linear probing), in which
+ * each slot contains the signature of a cached formula and the offset of the
+ * corresponding record in the second buffer.
+ * Each record contains the packed content of a key (see {@link FormulaKey}), followed
+ * by the encoded value.
+ * Model counts are encoded by the bytes of their two's-complement representation.
+ * Other values (such as decision-DNNF nodes, which must remain on the heap anyway)
+ * are encoded by an identifier.
+ *
+ * Both buffers grow as needed, until a given memory budget is reached.
+ * At this point, all cached values are discarded at once, which is cheap since
+ * there is nothing to collect.
+ * As direct buffers are indexed by {@code int} offsets, each buffer cannot hold
+ * more than {@link Integer#MAX_VALUE} bytes, so that larger budgets are capped to
+ * {@link #MAXIMUM_BUDGET}.
+ *
+ * @param <T> The type of the values associated to the formulae in the cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class OffHeapCache<T> implements CachingStrategy<T> {
+
+    /**
+     * The initial number of slots in the hash table.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 8;
+
+    /**
+     * The initial number of bytes available for storing records.
+     */
+    private static final int INITIAL_DATA_SIZE = 1 << 12;
+
+    /**
+     * The number of bytes of a slot in the hash table.
+     */
+    private static final int SLOT_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * The maximum number of slots in the hash table, i.e., the largest power of 2 for
+     * which the hash table fits in a single buffer.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 27;
+
+    /**
+     * The maximum number of bytes available for storing records, i.e., the size of the
+     * largest buffer that can be allocated.
+     */
+    private static final int MAXIMUM_DATA_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * The maximum memory budget of an off-heap cache.
+     * Larger budgets cannot be used, since the buffers of the cache would not be able
+     * to address them.
+     */
+    public static final long MAXIMUM_BUDGET = (long) MAXIMUM_CAPACITY * SLOT_SIZE
+            + MAXIMUM_DATA_SIZE;
+
+    /**
+     * The minimum memory budget of an off-heap cache.
+     */
+    public static final long MINIMUM_BUDGET = (long) INITIAL_CAPACITY * SLOT_SIZE
+            + INITIAL_DATA_SIZE;
+
+    /**
+     * The tag of values encoded as the bytes of a {@link BigInteger}.
+     */
+    private static final byte BIG_INTEGER = 0;
+
+    /**
+     * The tag of values encoded as the identifier of an object.
+     */
+    private static final byte REFERENCE = 1;
+
+    /**
+     * The maximum number of bytes this cache may use.
+     */
+    private final long budget;
+
+    /**
+     * The mode used to identify the formulae stored in this cache.
+     */
+    private final CacheKeyMode keyMode;
+
+    /**
+     * The objects that are referenced by cached values, indexed by their identifier.
+     */
+    private final List<Object> references;
+
+    /**
+     * The hash table associating the signature of each cached formula to its record.
+     */
+    private ByteBuffer slots;
+
+    /**
+     * The number of slots in the hash table.
+     * It is always a power of 2.
+     */
+    private int capacity;
+
+    /**
+     * The number of formulae in this cache.
+     */
+    private int size;
+
+    /**
+     * The buffer in which the records are stored.
+     */
+    private ByteBuffer data;
+
+    /**
+     * The statistics about the use of this cache.
+     */
+    private final CacheStatistics statistics;
+
+    /**
+     * Creates a new OffHeapCache.
+     *
+     * @param budget The maximum number of bytes the cache may use.
+     * @param keyMode The mode used to identify the formulae stored in the cache.
+     */
+    private OffHeapCache(long budget, CacheKeyMode keyMode) {
+        this.budget = Math.min(budget, MAXIMUM_BUDGET);
+        this.keyMode = keyMode;
+        this.references = new ArrayList<>();
+        this.statistics = new CacheStatistics();
+        reset();
+    }
+
+    /**
+     * Creates a new OffHeapCache.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param budget The maximum number of bytes the cache may use (outside of the
+     *        heap).
+     *        It is capped to {@link #MAXIMUM_BUDGET}.
+     *
+     * @return The created cache.
+     *
+     * @throws IllegalArgumentException If {@code budget} is less than
+     *         {@link #MINIMUM_BUDGET}.
+     */
+    public static <T> CachingStrategy<T> newInstance(long budget) {
+        return newInstance(budget, CacheKeyMode.CONSTRAINT_IDENTIFIERS);
+    }
+
+    /**
+     * Creates a new OffHeapCache.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param budget The maximum number of bytes the cache may use (outside of the
+     *        heap).
+     *        It is capped to {@link #MAXIMUM_BUDGET}.
+     * @param keyMode The mode used to identify the formulae stored in the cache.
+     *
+     * @return The created cache.
+     *
+     * @throws IllegalArgumentException If {@code budget} is less than
+     *         {@link #MINIMUM_BUDGET}.
+     */
+    public static <T> CachingStrategy<T> newInstance(long budget, CacheKeyMode keyMode) {
+        if (budget < MINIMUM_BUDGET) {
+            throw new IllegalArgumentException("Illegal memory budget for cache: " + budget);
+        }
+
+        return new OffHeapCache<>(budget, keyMode);
+    }
+
+    /**
+     * Discards all the values stored in this cache.
+     */
+    private void reset() {
+        this.capacity = INITIAL_CAPACITY;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        this.size = 0;
+        this.data = ByteBuffer.allocateDirect(INITIAL_DATA_SIZE);
+        this.references.clear();
+        this.statistics.setBytesHeld(usedMemory());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationStarts()
+     */
+    @Override
+    public void compilationStarts() {
+        // Values computed on another formula must not be retrieved.
+        statistics.reset();
+        reset();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object)
+     */
+    @Override
+    public void put(PseudoBooleanFormula formula, T toCache) {
+        var key = keyMode.keyOf(formula);
+        if (find(key) >= 0) {
+            // The value is already cached.
+            return;
+        }
+
+        // Encoding the value.
+        byte tag;
+        byte[] value;
+        if (toCache instanceof BigInteger) {
+            tag = BIG_INTEGER;
+            value = ((BigInteger) toCache).toByteArray();
+
+        } else {
+            tag = REFERENCE;
+            value = ByteBuffer.allocate(Integer.BYTES).putInt(references.size()).array();
+        }
+
+        // Making room for the new record.
+        var content = key.content();
+        int recordSize = Integer.BYTES + content.length + 1 + Integer.BYTES + value.length;
+        if (!ensureCapacity(recordSize)) {
+            // The budget is exhausted: the cache is flushed.
+            statistics.evict(size, 0);
+            reset();
+            if (!ensureCapacity(recordSize)) {
+                // This value would never fit in the cache.
+                return;
+            }
+        }
+
+        // Actually storing the record.
+        if (tag == REFERENCE) {
+            references.add(toCache);
+        }
+        int offset = data.position();
+        data.putInt(content.length).put(content).put(tag).putInt(value.length).put(value);
+        insert(slots, capacity, key.signature(), offset);
+        size++;
+        statistics.insert(Long.BYTES + content.length, SLOT_SIZE + recordSize);
+        statistics.setBytesHeld(usedMemory());
+    }
+
+    /**
+     * Makes sure that this cache can store a new record.
+     *
+     * @param recordSize The size of the record to store.
+     *
+     * @return Whether there is enough room to store the record without exceeding the
+     *         memory budget.
+     */
+    private boolean ensureCapacity(int recordSize) {
+        // Growing the hash table so as to keep its load factor below 1/2.
+        if ((size + 1) << 1 > capacity) {
+            if ((capacity == MAXIMUM_CAPACITY)
+                    || ((long) capacity * 2 * SLOT_SIZE + data.capacity() > budget)) {
+                return false;
+            }
+            rehash(capacity << 1);
+        }
+
+        // Growing the data buffer so as to make room for the record.
+        if (data.remaining() < recordSize) {
+            int newSize = grownDataSize(budget - (long) capacity * SLOT_SIZE,
+                    data.capacity(), data.position(), recordSize);
+            if (newSize < 0) {
+                return false;
+            }
+            var grown = ByteBuffer.allocateDirect(newSize);
+            grown.put(data.flip());
+            data = grown;
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes the size of the data buffer needed to store a new record.
+     * The size of the buffer is doubled, unless the record needs more room, and
+     * without exceeding either the given budget or {@link #MAXIMUM_DATA_SIZE}.
+     *
+     * @param dataBudget The maximum number of bytes the data buffer may use.
+     * @param currentSize The current size of the data buffer.
+     * @param position The number of bytes already used in the data buffer.
+     * @param recordSize The size of the record to store.
+     *
+     * @return The new size of the data buffer, or {@code -1} if the record cannot be
+     *         stored.
+     */
+    static int grownDataSize(long dataBudget, int currentSize, int position,
+            int recordSize) {
+        long required = (long) position + recordSize;
+        long limit = Math.min(dataBudget, MAXIMUM_DATA_SIZE);
+        if (required > limit) {
+            return -1;
+        }
+        return (int) Math.min(Math.max(2L * currentSize, required), limit);
+    }
+
+    /**
+     * Moves all the slots of the hash table to a new hash table.
+     *
+     * @param newCapacity The number of slots in the new hash table.
+     */
+    private void rehash(int newCapacity) {
+        var newSlots = ByteBuffer.allocateDirect(newCapacity * SLOT_SIZE);
+        for (int i = 0; i < capacity; i++) {
+            int offset = slots.getInt(i * SLOT_SIZE + Long.BYTES) - 1;
+            if (offset >= 0) {
+                insert(newSlots, newCapacity, slots.getLong(i * SLOT_SIZE), offset);
+            }
+        }
+        slots = newSlots;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Inserts a record in a hash table.
+     *
+     * @param table The hash table to insert the record in.
+     * @param tableCapacity The number of slots in the hash table.
+     * @param signature The signature of the formula associated to the record.
+     * @param offset The offset of the record in the data buffer.
+     */
+    private static void insert(ByteBuffer table, int tableCapacity, long signature,
+            int offset) {
+        int index = indexOf(signature, tableCapacity);
+        while (table.getInt(index * SLOT_SIZE + Long.BYTES) != 0) {
+            index = (index + 1) & (tableCapacity - 1);
+        }
+
+        // Offsets are shifted so that 0 identifies empty slots.
+        table.putLong(index * SLOT_SIZE, signature);
+        table.putInt(index * SLOT_SIZE + Long.BYTES, offset + 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#get(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula)
+     */
+    @Override
+    public Optional<T> get(PseudoBooleanFormula formula) {
+        int offset = find(keyMode.lookUpKeyOf(formula));
+        statistics.lookUp(offset >= 0);
+        if (offset < 0) {
+            return Optional.empty();
+        }
+
+        // Decoding the value stored in the record.
+        int position = offset + Integer.BYTES + data.getInt(offset);
+        byte tag = data.get(position);
+        var value = new byte[data.getInt(position + 1)];
+        data.duplicate().position(position + 1 + Integer.BYTES).get(value);
+
+        @SuppressWarnings("unchecked")
+        var decoded = (T) ((tag == BIG_INTEGER) ? new BigInteger(value)
+                : references.get(ByteBuffer.wrap(value).getInt()));
+        return Optional.of(decoded);
+    }
+
+    /**
+     * Looks for the record of a formula in this cache.
+     *
+     * @param key The key of the formula to look for.
+     *
+     * @return The offset of the record of the formula, or {@code -1} if the formula
+     *         is not in this cache.
+     */
+    private int find(FormulaKey key) {
+        int index = indexOf(key.signature(), capacity);
+        while (true) {
+            int offset = slots.getInt(index * SLOT_SIZE + Long.BYTES) - 1;
+            if (offset < 0) {
+                // An empty slot has been reached.
+                return -1;
+            }
+
+            if ((slots.getLong(index * SLOT_SIZE) == key.signature())
+                    && matches(offset, key.content())) {
+                return offset;
+            }
+
+            index = (index + 1) & (capacity - 1);
+        }
+    }
+
+    /**
+     * Checks whether the record at the given offset has been stored for the given key.
+     *
+     * @param offset The offset of the record.
+     * @param content The packed content of the key.
+     *
+     * @return Whether the record corresponds to the key.
+     */
+    private boolean matches(int offset, byte[] content) {
+        if (data.getInt(offset) != content.length) {
+            return false;
+        }
+
+        for (int i = 0; i < content.length; i++) {
+            if (data.get(offset + Integer.BYTES + i) != content[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gives the number of bytes currently used by this cache outside of the heap.
+     *
+     * @return The capacity of the hash table plus the size of the stored records.
+     */
+    private long usedMemory() {
+        return (long) capacity * SLOT_SIZE + data.position();
+    }
+
+    /**
+     * Computes the index of the first slot to consider for a signature.
+     *
+     * @param signature The signature of a formula.
+     * @param tableCapacity The number of slots in the hash table.
+     *
+     * @return The index of the first slot for the signature.
+     */
+    private static int indexOf(long signature, int tableCapacity) {
+        return Long.hashCode(signature) & (tableCapacity - 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#getStatistics()
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "off-heap caching (" + budget + " bytes)";
+    }
+
+}
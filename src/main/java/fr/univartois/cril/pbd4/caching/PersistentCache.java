@@ -0,0 +1,448 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The PersistentCache is a caching strategy that stores model counts in a
+ * memory-mapped file, so that they can be reused by later executions on the same
+ * input formula (possibly with different assumptions or settings).
+ *
+ * Each value is identified by the fingerprint of the input formula (see
+ * {@link PseudoBooleanFormula#fingerprint()}) together with the key of the cached
+ * formula (see {@link FormulaKey}).
+ * The file starts with a header, followed by a hash table using open addressing
+ * (with linear probing), in which each slot contains the fingerprint and the
+ * signature of a cached formula, and the offset of its record in the file.
+ * Each record contains the packed content of the key, followed by the bytes of the
+ * model count.
+ *
+ * The size of the file is fixed when it is created.
+ * Once the file is full, no more values are added to the cache, so that values
+ * computed by previous executions are never lost.
+ * Values that are not model counts (such as decision-DNNF nodes) cannot be
+ * persisted, and are thus never cached.
+ *
+ * @param <T> The type of the values associated to the formulae in the cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class PersistentCache<T> implements CachingStrategy<T> {
+
+    /**
+     * The magic number identifying the files written by this cache.
+     */
+    private static final long MAGIC_NUMBER = 0x5042443443616368L;
+
+    /**
+     * The number of bytes of the header of the file.
+     * The header contains the magic number, the number of slots in the hash table,
+     * the number of cached values and the offset at which to write the next record.
+     */
+    private static final int HEADER_SIZE = Long.BYTES + 3 * Integer.BYTES;
+
+    /**
+     * The offset of the number of slots in the header.
+     */
+    private static final int CAPACITY_OFFSET = Long.BYTES;
+
+    /**
+     * The offset of the number of cached values in the header.
+     */
+    private static final int SIZE_OFFSET = CAPACITY_OFFSET + Integer.BYTES;
+
+    /**
+     * The offset of the offset of the next record in the header.
+     */
+    private static final int END_OFFSET = SIZE_OFFSET + Integer.BYTES;
+
+    /**
+     * The number of bytes of a slot in the hash table.
+     */
+    private static final int SLOT_SIZE = 2 * Long.BYTES + Integer.BYTES;
+
+    /**
+     * The ratio between the size of the file and the size of the hash table.
+     */
+    private static final int TABLE_RATIO = 4;
+
+    /**
+     * The minimum size of a cache file.
+     */
+    public static final long MINIMUM_SIZE = 1 << 12;
+
+    /**
+     * The path of the file in which values are stored.
+     */
+    private final Path path;
+
+    /**
+     * The size of the file to create, if it does not exist yet.
+     */
+    private final long fileSize;
+
+    /**
+     * The mode used to identify the formulae stored in this cache.
+     */
+    private final CacheKeyMode keyMode;
+
+    /**
+     * The buffer mapping the content of the file.
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * The number of slots in the hash table.
+     * It is always a power of 2.
+     */
+    private int capacity;
+
+    /**
+     * The statistics about the use of this cache.
+     */
+    private final CacheStatistics statistics;
+
+    /**
+     * Creates a new PersistentCache.
+     *
+     * @param path The path of the file in which values are stored.
+     * @param fileSize The size of the file to create, if it does not exist yet.
+     * @param keyMode The mode used to identify the formulae stored in the cache.
+     */
+    private PersistentCache(Path path, long fileSize, CacheKeyMode keyMode) {
+        this.path = path;
+        this.fileSize = fileSize;
+        this.keyMode = keyMode;
+        this.statistics = new CacheStatistics();
+    }
+
+    /**
+     * Creates a new PersistentCache.
+     * If the file does not exist yet, it will be created when the compilation starts.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param path The path of the file in which values are stored.
+     * @param fileSize The size of the file to create, if it does not exist yet.
+     *
+     * @return The created cache.
+     *
+     * @throws IllegalArgumentException If {@code fileSize} is not between
+     *         {@link #MINIMUM_SIZE} and {@link Integer#MAX_VALUE}.
+     */
+    public static <T> CachingStrategy<T> newInstance(String path, long fileSize) {
+        return newInstance(path, fileSize, CacheKeyMode.CONSTRAINT_IDENTIFIERS);
+    }
+
+    /**
+     * Creates a new PersistentCache.
+     * If the file does not exist yet, it will be created when the compilation starts.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param path The path of the file in which values are stored.
+     * @param fileSize The size of the file to create, if it does not exist yet.
+     * @param keyMode The mode used to identify the formulae stored in the cache.
+     *
+     * @return The created cache.
+     *
+     * @throws IllegalArgumentException If {@code fileSize} is not between
+     *         {@link #MINIMUM_SIZE} and {@link Integer#MAX_VALUE}.
+     */
+    public static <T> CachingStrategy<T> newInstance(String path, long fileSize,
+            CacheKeyMode keyMode) {
+        if ((fileSize < MINIMUM_SIZE) || (fileSize > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Illegal size for cache file: " + fileSize);
+        }
+
+        return new PersistentCache<>(Paths.get(path), fileSize, keyMode);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationStarts()
+     */
+    @Override
+    public void compilationStarts() {
+        if (buffer == null) {
+            open();
+        }
+        statistics.reset();
+        statistics.setBytesHeld(buffer.getInt(END_OFFSET));
+    }
+
+    /**
+     * Maps the cache file into memory, and creates it if needed.
+     *
+     * @throws UncheckedIOException If an I/O error occurs while mapping the file.
+     * @throws IllegalStateException If the file exists but has not been written by a
+     *         persistent cache.
+     */
+    private void open() {
+        try (var channel = FileChannel.open(path, CREATE, READ, WRITE)) {
+            if (channel.size() == 0) {
+                // The file does not exist yet.
+                buffer = channel.map(READ_WRITE, 0, fileSize);
+                capacity = Integer.highestOneBit((int) (fileSize / (TABLE_RATIO * SLOT_SIZE)));
+                buffer.putLong(0, MAGIC_NUMBER);
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+                buffer.putInt(SIZE_OFFSET, 0);
+                buffer.putInt(END_OFFSET, HEADER_SIZE + capacity * SLOT_SIZE);
+                return;
+            }
+
+            // Reusing the existing file.
+            buffer = channel.map(READ_WRITE, 0, channel.size());
+            if ((channel.size() < HEADER_SIZE) || (buffer.getLong(0) != MAGIC_NUMBER)) {
+                buffer = null;
+                throw new IllegalStateException(path + " is not a cache file");
+            }
+            capacity = buffer.getInt(CAPACITY_OFFSET);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object)
+     */
+    @Override
+    public void put(PseudoBooleanFormula formula, T toCache) {
+        if (!(toCache instanceof BigInteger)) {
+            // Only model counts can be persisted.
+            return;
+        }
+
+        var key = keyMode.keyOf(formula);
+        if (find(fingerprintOf(formula), key) >= 0) {
+            // The value is already cached.
+            return;
+        }
+
+        // Checking whether there is enough room for the record.
+        int size = buffer.getInt(SIZE_OFFSET);
+        int end = buffer.getInt(END_OFFSET);
+        var content = key.content();
+        var value = ((BigInteger) toCache).toByteArray();
+        long recordSize = Integer.BYTES + content.length + Integer.BYTES + value.length;
+        if (((size + 1) << 1 > capacity) || (end + recordSize > buffer.capacity())) {
+            // The file is full.
+            return;
+        }
+
+        // Writing the record before the slot, so that the file remains consistent.
+        buffer.position(end);
+        buffer.putInt(content.length).put(content).putInt(value.length).put(value);
+        insert(fingerprintOf(formula), key.signature(), end);
+        buffer.putInt(SIZE_OFFSET, size + 1);
+        buffer.putInt(END_OFFSET, buffer.position());
+        statistics.insert(2 * Long.BYTES + content.length, recordSize);
+        statistics.setBytesHeld(buffer.position());
+    }
+
+    /**
+     * Inserts a record in the hash table.
+     *
+     * @param fingerprint The fingerprint of the input formula.
+     * @param signature The signature of the formula associated to the record.
+     * @param offset The offset of the record in the file.
+     */
+    private void insert(long fingerprint, long signature, int offset) {
+        int index = indexOf(fingerprint, signature);
+        while (buffer.getInt(slotOffset(index) + 2 * Long.BYTES) != 0) {
+            index = (index + 1) & (capacity - 1);
+        }
+
+        // As the header precedes the records, 0 identifies empty slots.
+        int slot = slotOffset(index);
+        buffer.putLong(slot, fingerprint);
+        buffer.putLong(slot + Long.BYTES, signature);
+        buffer.putInt(slot + 2 * Long.BYTES, offset);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#get(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula)
+     */
+    @Override
+    public Optional<T> get(PseudoBooleanFormula formula) {
+        int offset = find(fingerprintOf(formula), keyMode.lookUpKeyOf(formula));
+        statistics.lookUp(offset >= 0);
+        if (offset < 0) {
+            return Optional.empty();
+        }
+
+        // Reading the model count stored in the record.
+        int position = offset + Integer.BYTES + buffer.getInt(offset);
+        var value = new byte[buffer.getInt(position)];
+        buffer.duplicate().position(position + Integer.BYTES).get(value);
+
+        @SuppressWarnings("unchecked")
+        var decoded = (T) new BigInteger(value);
+        return Optional.of(decoded);
+    }
+
+    /**
+     * Gives the fingerprint identifying the input formula from which the given formula
+     * has been derived.
+     * The key mode is taken into account, so that keys computed in different modes
+     * cannot be confused when sharing the same file.
+     *
+     * @param formula The formula to get the fingerprint of.
+     *
+     * @return The fingerprint of the input formula.
+     */
+    private long fingerprintOf(PseudoBooleanFormula formula) {
+        return formula.fingerprint() ^ keyMode.ordinal();
+    }
+
+    /**
+     * Looks for the record of a formula in this cache.
+     *
+     * @param fingerprint The fingerprint of the input formula.
+     * @param key The key of the formula to look for.
+     *
+     * @return The offset of the record of the formula, or {@code -1} if the formula
+     *         is not in this cache.
+     */
+    private int find(long fingerprint, FormulaKey key) {
+        int index = indexOf(fingerprint, key.signature());
+        while (true) {
+            int slot = slotOffset(index);
+            int offset = buffer.getInt(slot + 2 * Long.BYTES);
+            if (offset == 0) {
+                // An empty slot has been reached.
+                return -1;
+            }
+
+            if ((buffer.getLong(slot) == fingerprint)
+                    && (buffer.getLong(slot + Long.BYTES) == key.signature())
+                    && matches(offset, key.content())) {
+                return offset;
+            }
+
+            index = (index + 1) & (capacity - 1);
+        }
+    }
+
+    /**
+     * Checks whether the record at the given offset has been stored for the given key.
+     *
+     * @param offset The offset of the record.
+     * @param content The packed content of the key.
+     *
+     * @return Whether the record corresponds to the key.
+     */
+    private boolean matches(int offset, byte[] content) {
+        if (buffer.getInt(offset) != content.length) {
+            return false;
+        }
+
+        for (int i = 0; i < content.length; i++) {
+            if (buffer.get(offset + Integer.BYTES + i) != content[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes the index of the first slot to consider for a formula.
+     *
+     * @param fingerprint The fingerprint of the input formula.
+     * @param signature The signature of the formula.
+     *
+     * @return The index of the first slot for the formula.
+     */
+    private int indexOf(long fingerprint, long signature) {
+        return Long.hashCode(fingerprint ^ signature) & (capacity - 1);
+    }
+
+    /**
+     * Computes the offset of a slot of the hash table in the file.
+     *
+     * @param index The index of the slot.
+     *
+     * @return The offset of the slot.
+     */
+    private static int slotOffset(int index) {
+        return HEADER_SIZE + index * SLOT_SIZE;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationEnds()
+     */
+    @Override
+    public void compilationEnds() {
+        // Making sure that the cached values are written to the file.
+        buffer.force();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#getStatistics()
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "persistent caching (" + path + ")";
+    }
+
+}
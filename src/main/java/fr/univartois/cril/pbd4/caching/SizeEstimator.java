@@ -0,0 +1,109 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * The SizeEstimator estimates the number of bytes used on the heap by the entries of
+ * a cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class SizeEstimator {
+
+    /**
+     * The (estimated) number of bytes used by the data structures of a cache to store
+     * an entry, regardless of its key and value.
+     */
+    private static final long ENTRY_OVERHEAD = 128;
+
+    /**
+     * The (estimated) number of bytes used by a {@link BigInteger}, regardless of its
+     * magnitude.
+     */
+    private static final long BIG_INTEGER_OVERHEAD = 56;
+
+    /**
+     * The (estimated) number of bytes used by a {@link BigDecimal}, regardless of its
+     * unscaled value.
+     */
+    private static final long BIG_DECIMAL_OVERHEAD = 40;
+
+    /**
+     * The (estimated) number of bytes used by an array, regardless of its length.
+     */
+    private static final long ARRAY_OVERHEAD = 16;
+
+    /**
+     * The (estimated) number of bytes used by a reference to another value.
+     * Such values are typically nodes of a decision-DNNF, which are shared with the
+     * decision-DNNF being built.
+     */
+    private static final long REFERENCE_SIZE = 8;
+
+    /**
+     * Disables instantiation.
+     */
+    private SizeEstimator() {
+        // Nothing to do: this class only defines static methods.
+    }
+
+    /**
+     * Estimates the number of bytes used by a cache entry.
+     *
+     * @param key The key of the entry.
+     * @param value The value of the entry.
+     *
+     * @return The estimated size of the entry (in bytes).
+     */
+    static long sizeOf(FormulaKey key, Object value) {
+        return ENTRY_OVERHEAD + key.estimatedSize() + sizeOf(value);
+    }
+
+    /**
+     * Estimates the number of bytes used by a cached value.
+     *
+     * @param value The value to estimate the size of.
+     *
+     * @return The estimated size of the value (in bytes).
+     */
+    static long sizeOf(Object value) {
+        if (value instanceof BigInteger) {
+            int nbWords = ((BigInteger) value).bitLength() / Integer.SIZE + 1;
+            return BIG_INTEGER_OVERHEAD + Integer.BYTES * nbWords;
+        }
+
+        if (value instanceof BigDecimal) {
+            return BIG_DECIMAL_OVERHEAD + sizeOf(((BigDecimal) value).unscaledValue());
+        }
+
+        if (value instanceof long[]) {
+            return ARRAY_OVERHEAD + Long.BYTES * ((long[]) value).length;
+        }
+
+        return REFERENCE_SIZE;
+    }
+
+}
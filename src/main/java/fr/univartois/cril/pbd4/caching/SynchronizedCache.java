@@ -0,0 +1,144 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import java.util.Optional;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The SynchronizedCache is a decorator for a caching strategy, which allows to use
+ * this strategy from multiple threads.
+ * Each operation on the decorated cache is performed while holding the lock of this
+ * decorator.
+ *
+ * @param <T> The type of the values associated to the formulae in the cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class SynchronizedCache<T> implements CachingStrategy<T> {
+
+    /**
+     * The caching strategy actually storing the values.
+     */
+    private final CachingStrategy<T> decorated;
+
+    /**
+     * Creates a new SynchronizedCache.
+     *
+     * @param decorated The caching strategy actually storing the values.
+     */
+    private SynchronizedCache(CachingStrategy<T> decorated) {
+        this.decorated = decorated;
+    }
+
+    /**
+     * Creates a new SynchronizedCache.
+     *
+     * @param <T> The type of the values associated to the formulae in the cache.
+     *
+     * @param decorated The caching strategy actually storing the values.
+     *
+     * @return The created cache.
+     */
+    public static <T> CachingStrategy<T> newInstance(CachingStrategy<T> decorated) {
+        return new SynchronizedCache<>(decorated);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationStarts()
+     */
+    @Override
+    public synchronized void compilationStarts() {
+        decorated.compilationStarts();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object)
+     */
+    @Override
+    public synchronized void put(PseudoBooleanFormula formula, T toCache) {
+        decorated.put(formula, toCache);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#put(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula, java.lang.Object, long)
+     */
+    @Override
+    public synchronized void put(PseudoBooleanFormula formula, T toCache, long cost) {
+        decorated.put(formula, toCache, cost);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.caching.CachingStrategy#get(fr.univartois.cril.pbd4.pbc.
+     * PseudoBooleanFormula)
+     */
+    @Override
+    public synchronized Optional<T> get(PseudoBooleanFormula formula) {
+        return decorated.get(formula);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#getStatistics()
+     */
+    @Override
+    public synchronized CacheStatistics getStatistics() {
+        return decorated.getStatistics();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.caching.CachingStrategy#compilationEnds()
+     */
+    @Override
+    public synchronized void compilationEnds() {
+        decorated.compilationEnds();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return decorated.toString();
+    }
+
+}
@@ -222,36 +222,36 @@ final class DecisionDnnfEvaluator implements DecisionDnnfVisitor {
      * Pushes a partial evaluation on {@link #partialEvaluations}.
      * The last operation is applied between {@code value} and the last value on the
      * stack.
+     * If there is no such operation, {@code value} is the value of the root node, and
+     * is thus pushed as is.
      * 
      * @param value The value to push.
      */
-    private boolean pushPartialEvaluation(boolean value) {
+    private void pushPartialEvaluation(boolean value) {
+        if (operations.isEmpty()) {
+            partialEvaluations.push(value);
+            return;
+        }
+
         boolean previous = partialEvaluations.pop();
-        boolean result = operations.peek().apply(previous, value);
-        partialEvaluations.push(result);
-        return result;
+        partialEvaluations.push(operations.peek().apply(previous, value));
     }
 
     /**
      * Exits an internal node.
-     * Unless the node is the root node, the last pushed value is consumed.
+     * Unless the node is the root node, the value of the node is consumed by the
+     * operation of its parent.
      */
     private void exitInternal(NonConstantDecisionDnnfNode node) {
-        boolean value;
-
-        if (operations.size() > 1) {
-            // The value of the exited node must be consumed.
-            operations.pop();
-            value = pushPartialEvaluation(partialEvaluations.pop());
-
-        } else {
-            // The value is that on the top of the stack.
-            value = partialEvaluations.peek();
-        }
+        // The value of the node is that on the top of the stack.
+        boolean value = partialEvaluations.pop();
+        operations.pop();
 
         // Caching the value computed for the node.
+        // This value must not include that of its siblings, as the node may be shared.
         node.setVisitStamp(startTime);
         node.cacheValue(value);
+        pushPartialEvaluation(value);
     }
 
     /**
@@ -18,6 +18,7 @@
 
 package fr.univartois.cril.pbd4.listener;
 
+import java.math.BigInteger;
 import java.util.Collection;
 import java.util.LinkedList;
 
@@ -129,6 +130,18 @@ public final class CompositeListener implements D4Listener {
         listeners.forEach(l -> l.cached(cachedFormula));
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.listener.D4Listener#enumerated(fr.univartois.cril.pbd4.
+     * pbc.PseudoBooleanFormula)
+     */
+    @Override
+    public void enumerated(PseudoBooleanFormula component) {
+        listeners.forEach(l -> l.enumerated(component));
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -194,6 +207,18 @@ public final class CompositeListener implements D4Listener {
         listeners.forEach(D4Listener::cachingConjunction);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * fr.univartois.cril.pbd4.listener.D4Listener#boundsUpdated(java.math.BigInteger,
+     * java.math.BigInteger)
+     */
+    @Override
+    public void boundsUpdated(BigInteger lowerBound, BigInteger upperBound) {
+        listeners.forEach(l -> l.boundsUpdated(lowerBound, upperBound));
+    }
+
     /*
      * (non-Javadoc)
      *
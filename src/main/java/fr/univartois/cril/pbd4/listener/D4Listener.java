@@ -18,6 +18,7 @@
 
 package fr.univartois.cril.pbd4.listener;
 
+import java.math.BigInteger;
 import java.util.Collection;
 
 import org.sat4j.specs.IVecInt;
@@ -97,6 +98,16 @@ public interface D4Listener {
         // Nothing to do by default.
     }
 
+    /**
+     * Notifies this listener that the models of a (small) connected component have
+     * been enumerated, instead of being explored by branching on its variables.
+     *
+     * @param component The component whose models have been enumerated.
+     */
+    default void enumerated(PseudoBooleanFormula component) {
+        // Nothing to do by default.
+    }
+
     /**
      * Notifies this listener that the connected components of the current formula
      * are being computed.
@@ -147,6 +158,17 @@ public interface D4Listener {
         // Nothing to do by default.
     }
 
+    /**
+     * Notifies this listener that the bounds on the number of models of the formula
+     * have been updated while counting them.
+     *
+     * @param lowerBound The current lower bound on the number of models.
+     * @param upperBound The current upper bound on the number of models.
+     */
+    default void boundsUpdated(BigInteger lowerBound, BigInteger upperBound) {
+        // Nothing to do by default.
+    }
+
     /**
      * Notifies this listener that the compilation is finished.
      */
@@ -0,0 +1,225 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.partitioning;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.IVecInt;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The MemoizingCutsetComputationStrategy is a decorator of a
+ * {@link CutsetComputationStrategy} that remembers the cutsets computed for the most
+ * recently partitioned formulae.
+ * When the cutset of a formula that has already been partitioned is requested, the
+ * previous cutset is reused instead of computing a new partition.
+ *
+ * Formulae are identified by their signature, i.e., by their active constraints and
+ * the literals satisfying these constraints, which together determine their dual
+ * hypergraph.
+ * As different formulae may share the same signature, the active constraints and
+ * the variables of the formulae are also compared before reusing a cutset.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class MemoizingCutsetComputationStrategy implements CutsetComputationStrategy {
+
+    /**
+     * The default maximum number of cutsets to remember.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The strategy used to actually compute the cutsets.
+     */
+    private final CutsetComputationStrategy decorated;
+
+    /**
+     * The maximum number of cutsets to remember.
+     */
+    private final int capacity;
+
+    /**
+     * The map associating the signature of the most recently partitioned formulae to
+     * their cutset, in least-recently used order.
+     */
+    private final Map<Long, MemoizedCutset> cutsets;
+
+    /**
+     * Creates a new MemoizingCutsetComputationStrategy.
+     *
+     * @param decorated The strategy used to actually compute the cutsets.
+     * @param capacity The maximum number of cutsets to remember.
+     */
+    private MemoizingCutsetComputationStrategy(CutsetComputationStrategy decorated,
+            int capacity) {
+        this.decorated = decorated;
+        this.capacity = capacity;
+        this.cutsets = new LinkedHashMap<>(16, 0.75f, true) {
+
+            /**
+             * The {@code serialVersionUID} of this {@link java.io.Serializable} class.
+             */
+            private static final long serialVersionUID = 1L;
+
+            /*
+             * (non-Javadoc)
+             *
+             * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MemoizedCutset> eldest) {
+                return size() > MemoizingCutsetComputationStrategy.this.capacity;
+            }
+
+        };
+    }
+
+    /**
+     * Creates a new MemoizingCutsetComputationStrategy.
+     *
+     * @param decorated The strategy used to actually compute the cutsets.
+     * @param capacity The maximum number of cutsets to remember.
+     *
+     * @return The created strategy.
+     *
+     * @throws IllegalArgumentException If {@code capacity} is not positive.
+     */
+    public static CutsetComputationStrategy newInstance(CutsetComputationStrategy decorated,
+            int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity for cutset memoization: "
+                    + capacity);
+        }
+
+        return new MemoizingCutsetComputationStrategy(decorated, capacity);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.partitioning.CutsetComputationStrategy#compilationStarts()
+     */
+    @Override
+    public void compilationStarts() {
+        // Cutsets computed on another formula must not be reused.
+        cutsets.clear();
+        decorated.compilationStarts();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.partitioning.CutsetComputationStrategy#cutset(
+     * fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula)
+     */
+    @Override
+    public IVecInt cutset(PseudoBooleanFormula formula) {
+        var memoized = cutsets.get(formula.signature());
+        if ((memoized == null) || !memoized.matches(formula)) {
+            // The formula has not been partitioned recently.
+            memoized = new MemoizedCutset(formula, decorated.cutset(formula));
+            cutsets.put(formula.signature(), memoized);
+        }
+
+        // The cutset is copied, as it will be modified by the caller.
+        return copyOf(memoized.cutset);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.partitioning.CutsetComputationStrategy#compilationEnds()
+     */
+    @Override
+    public void compilationEnds() {
+        cutsets.clear();
+        decorated.compilationEnds();
+    }
+
+    /**
+     * Copies the given vector.
+     *
+     * @param vec The vector to copy.
+     *
+     * @return The copy of the vector.
+     */
+    private static IVecInt copyOf(IVecInt vec) {
+        var copy = new VecInt(vec.size());
+        vec.copyTo(copy);
+        return copy;
+    }
+
+    /**
+     * The MemoizedCutset represents a cutset remembered by a
+     * {@link MemoizingCutsetComputationStrategy}, together with the data needed to
+     * check that it has been computed for a given formula.
+     */
+    private static final class MemoizedCutset {
+
+        /**
+         * The active constraints of the formula for which the cutset has been computed.
+         */
+        private final IVecInt activeConstraints;
+
+        /**
+         * The variables of the formula for which the cutset has been computed.
+         */
+        private final IVecInt variables;
+
+        /**
+         * The cutset computed for the formula.
+         */
+        private final IVecInt cutset;
+
+        /**
+         * Creates a new MemoizedCutset.
+         *
+         * @param formula The formula for which the cutset has been computed.
+         * @param cutset The cutset computed for the formula.
+         */
+        private MemoizedCutset(PseudoBooleanFormula formula, IVecInt cutset) {
+            this.activeConstraints = copyOf(formula.activeConstraints());
+            this.variables = copyOf(formula.variables());
+            this.cutset = copyOf(cutset);
+        }
+
+        /**
+         * Checks whether this cutset has been computed for the given
+         * formula.
+         *
+         * @param formula The formula to check.
+         *
+         * @return Whether this cutset corresponds to the given formula.
+         */
+        private boolean matches(PseudoBooleanFormula formula) {
+            return activeConstraints.equals(formula.activeConstraints())
+                    && variables.equals(formula.variables());
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.partitioning;
+
+import org.sat4j.specs.IVecInt;
+
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The SynchronizedCutsetComputationStrategy is a decorator of a
+ * {@link CutsetComputationStrategy} that allows to compute cutsets from multiple
+ * threads.
+ * Cutsets are computed one at a time, while holding the lock of this decorator.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class SynchronizedCutsetComputationStrategy implements CutsetComputationStrategy {
+
+    /**
+     * The strategy used to actually compute the cutsets.
+     */
+    private final CutsetComputationStrategy decorated;
+
+    /**
+     * Creates a new SynchronizedCutsetComputationStrategy.
+     *
+     * @param decorated The strategy used to actually compute the cutsets.
+     */
+    private SynchronizedCutsetComputationStrategy(CutsetComputationStrategy decorated) {
+        this.decorated = decorated;
+    }
+
+    /**
+     * Creates a new SynchronizedCutsetComputationStrategy.
+     *
+     * @param decorated The strategy used to actually compute the cutsets.
+     *
+     * @return The created strategy.
+     */
+    public static CutsetComputationStrategy newInstance(CutsetComputationStrategy decorated) {
+        return new SynchronizedCutsetComputationStrategy(decorated);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.partitioning.CutsetComputationStrategy#compilationStarts()
+     */
+    @Override
+    public synchronized void compilationStarts() {
+        decorated.compilationStarts();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.partitioning.CutsetComputationStrategy#cutset(
+     * fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula)
+     */
+    @Override
+    public synchronized IVecInt cutset(PseudoBooleanFormula formula) {
+        return decorated.cutset(formula);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.partitioning.CutsetComputationStrategy#compilationEnds()
+     */
+    @Override
+    public synchronized void compilationEnds() {
+        decorated.compilationEnds();
+    }
+
+}
@@ -91,6 +91,56 @@ public final class Contradiction implements PseudoBooleanFormula {
         return VecInt.EMPTY;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#activeConstraints()
+     */
+    @Override
+    public IVecInt activeConstraints() {
+        return VecInt.EMPTY;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#assignedLiterals()
+     */
+    @Override
+    public IVecInt assignedLiterals() {
+        return VecInt.EMPTY;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#residualConstraints()
+     */
+    @Override
+    public Collection<ResidualConstraint> residualConstraints() {
+        return List.of();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#signature()
+     */
+    @Override
+    public long signature() {
+        return 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#fingerprint()
+     */
+    @Override
+    public long fingerprint() {
+        return 0;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -134,10 +184,10 @@ public final class Contradiction implements PseudoBooleanFormula {
     /*
      * (non-Javadoc)
      *
-     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#propagate()
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#propagate(int)
      */
     @Override
-    public PropagationOutput propagate() {
+    public PropagationOutput propagate(int maxConflicts) {
         return PropagationOutput.unsatisfiable();
     }
 
@@ -0,0 +1,155 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import java.util.Arrays;
+
+import org.sat4j.specs.IVecInt;
+
+/**
+ * The ModelPool stores the last models found by the solver of an
+ * {@link OriginalPseudoBooleanFormula}, so that the satisfiability of a sub-formula
+ * does not need to be checked again when one of these models already satisfies it.
+ *
+ * A model is compatible with the assumptions characterizing a sub-formula when it
+ * satisfies all the literal assumptions, and when the selector of each active
+ * constraint is falsified in the model, so that this constraint is satisfied.
+ * Constraints that are ignored by the sub-formula do not need to be satisfied.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class ModelPool {
+
+    /**
+     * The default number of models kept in a pool.
+     */
+    static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * The number of variables of the formula, above which variables are selectors.
+     */
+    private final int numberOfVariables;
+
+    /**
+     * The models in this pool, as arrays giving the literal satisfied by each variable
+     * (or {@code 0} if the variable is not assigned).
+     */
+    private final int[][] models;
+
+    /**
+     * The number of models currently in this pool.
+     */
+    private int size;
+
+    /**
+     * The index at which the next model is to be stored.
+     */
+    private int next;
+
+    /**
+     * Creates a new ModelPool.
+     *
+     * @param numberOfVariables The number of variables of the formula.
+     * @param capacity The maximum number of models kept in the pool.
+     */
+    ModelPool(int numberOfVariables, int capacity) {
+        this.numberOfVariables = numberOfVariables;
+        this.models = new int[capacity][];
+    }
+
+    /**
+     * Adds a model to this pool.
+     * If the pool is full, the oldest model is replaced.
+     *
+     * @param model The model to add, given as literals in DIMACS format (including the
+     *        selector variables).
+     */
+    void add(int[] model) {
+        int maxVariable = 0;
+        for (int literal : model) {
+            maxVariable = Math.max(maxVariable, Math.abs(literal));
+        }
+
+        // Reusing the array of the replaced model if possible.
+        var values = models[next];
+        if ((values == null) || (values.length <= maxVariable)) {
+            values = new int[maxVariable + 1];
+        } else {
+            Arrays.fill(values, 0);
+        }
+        for (int literal : model) {
+            values[Math.abs(literal)] = literal;
+        }
+
+        models[next] = values;
+        next = (next + 1) % models.length;
+        size = Math.min(size + 1, models.length);
+    }
+
+    /**
+     * Checks whether this pool contains a model that satisfies the sub-formula
+     * characterized by the given assumptions.
+     *
+     * @param assumptions The assumptions characterizing the sub-formula, including the
+     *        selectors of its constraints.
+     *
+     * @return Whether a model in this pool satisfies the sub-formula.
+     */
+    boolean containsModelOf(IVecInt assumptions) {
+        // The most recent models are the most likely to be compatible.
+        for (int i = 1; i <= size; i++) {
+            var values = models[(next - i + models.length) % models.length];
+            if (isCompatible(values, assumptions)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a model is compatible with the given assumptions.
+     *
+     * @param values The literal satisfied by each variable in the model.
+     * @param assumptions The assumptions characterizing a sub-formula.
+     *
+     * @return Whether the model satisfies the sub-formula.
+     */
+    private boolean isCompatible(int[] values, IVecInt assumptions) {
+        for (var it = assumptions.iterator(); it.hasNext();) {
+            int literal = it.next();
+            int variable = Math.abs(literal);
+
+            if ((variable > numberOfVariables) && (literal > 0)) {
+                // This constraint is ignored, so that it does not need to be satisfied.
+                continue;
+            }
+
+            if ((variable >= values.length) || (values[variable] != literal)) {
+                // The model does not satisfy this assumption.
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
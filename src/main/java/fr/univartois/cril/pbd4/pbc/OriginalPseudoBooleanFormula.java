@@ -25,8 +25,16 @@ import static fr.univartois.cril.pbd4.pbc.PropagationOutput.unknown;
 import static fr.univartois.cril.pbd4.pbc.PropagationOutput.unsatisfiable;
 import static fr.univartois.cril.pbd4.pbc.RangeVecInt.range;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
 
+import org.sat4j.core.LiteralsUtils;
 import org.sat4j.core.VecInt;
 import org.sat4j.minisat.core.ICDCL;
 import org.sat4j.pb.constraints.pb.PBConstr;
@@ -44,37 +52,60 @@ import fr.univartois.cril.pbd4.pbc.solver.UnitPropagationListener;
  * The OriginalPseudoBooleanFormula represents the original pseudo-Boolean
  * formula used as input for the compiler or model counter.
  *
+ * The solver used to propagate the formula is confined to the thread that has read
+ * the formula.
+ * Any other thread propagating the formula (or one of its sub-formulae) checks out
+ * a replica of the solver from a {@link SolverPool}, and gives it back once the
+ * propagation is over.
+ *
  * @author Romain WALLON
  *
  * @version 0.2.0
  */
 final class OriginalPseudoBooleanFormula implements PseudoBooleanFormula {
 
+    /**
+     * The seed of the pseudo-random generator used to compute the Zobrist keys of the
+     * constraints.
+     * A fixed seed makes signatures reproducible from one execution to another.
+     */
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+
+    /**
+     * The odd constant used to spread the bits of the values mixed into hashes.
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
     /**
      * The solver that actually manages the formula.
+     * Its constraints are read by all threads, but it is only run by the thread that
+     * has read the formula.
      */
     private final PBSelectorSolver solver;
 
     /**
-     * The solving engine, which actually performs the search.
+     * The thread that has read this formula, and which thus owns {@link #solver}.
      */
-    private final ISolverService engine;
+    private final Thread owner;
 
     /**
-     * The order used by the solver as branching heuristic.
+     * The propagator applying BCP on the constraints of this formula, which is copied
+     * into each {@link SolverState}.
+     * It is absent when the coefficients of the formula are too large, in which case
+     * BCP is delegated to the solver.
      */
-    private final SwitchableOrder order;
+    private final Optional<UnitPropagator> unitPropagator;
 
     /**
-     * The original listener used in the solver.
+     * The state of {@link #solver}, used by {@link #owner} to propagate this formula.
      */
-    private final SearchListener<?> originalListener;
+    private final SolverState ownerState;
 
     /**
-     * The unit-propagation listener used to record the propagations performed
-     * during the execution of the solver.
+     * The pool of the replicas of {@link #solver}, used by the other threads to
+     * propagate this formula.
      */
-    private final UnitPropagationListener unitPropagationListener;
+    private final SolverPool<SolverState> solverPool;
 
     /**
      * The variables of this formula.
@@ -87,37 +118,69 @@ final class OriginalPseudoBooleanFormula implements PseudoBooleanFormula {
      */
     private final int[] dlcsScores;
 
+    /**
+     * The Zobrist keys associated to the constraints of this formula, which are used to
+     * compute the signatures of its sub-formulae.
+     */
+    private final long[] zobristKeys;
+
+    /**
+     * The signature of this formula, in which all constraints are active.
+     */
+    private final long signature;
+
+    /**
+     * The fingerprint of this formula.
+     */
+    private final long fingerprint;
+
     /**
      * Creates a new OriginalPseudoBooleanFormula.
      *
      * @param solver The solver that actually manages the formula.
+     * @param solverFactory The factory used to create the solvers replicating
+     *        {@code solver}.
      */
-    OriginalPseudoBooleanFormula(PBSelectorSolver solver) {
+    OriginalPseudoBooleanFormula(PBSelectorSolver solver,
+            Supplier<PBSelectorSolver> solverFactory) {
         this.solver = solver;
-        this.engine = (ISolverService) solver.getSolvingEngine();
-        this.order = new SwitchableOrder();
-        this.originalListener = ((ICDCL<?>) engine).getSearchListener();
-        this.unitPropagationListener = new UnitPropagationListener();
+        this.owner = Thread.currentThread();
+        this.unitPropagator = UnitPropagator.of(solver);
+        this.ownerState = new SolverState(solver);
+        this.solverPool = SolverPool.of(solver, solverFactory, SolverState::new);
         this.variables = range(1, numberOfVariables() + 1);
         this.dlcsScores = new int[solver.nVars() + 1];
+        this.zobristKeys = new SplittableRandom(ZOBRIST_SEED).longs(solver.nConstraints()).toArray();
+        this.signature = signatureOf(range(solver.nConstraints()), new BitSet());
+        this.fingerprint = computeFingerprint();
         init();
     }
 
     /**
-     * Initializes this formula, by retrieving the information from the solver,
-     * and setting up the solver for future calls.
+     * Initializes this formula, by retrieving the information from the solver.
      */
     private void init() {
-        // Setting up the solver.
-        ((ICDCL<?>) engine).setOrder(order);
-        solver.setKeepSolverHot(true);
-
         // Computing the DLCS scores.
         for (int v = 1; v <= numberOfVariables(); v++) {
             dlcsScores[v] = solver.getConstraintsContaining(v).size();
         }
     }
 
+    /**
+     * Checks out a state of the solver to use to propagate this formula from the
+     * current thread.
+     * The state must be given back by closing the returned lease.
+     *
+     * @return The lease of a state of the solver, which is confined to the current
+     *         thread until the lease is closed.
+     */
+    private SolverPool.Lease<SolverState> solverState() {
+        if (Thread.currentThread() == owner) {
+            return SolverPool.Lease.unpooled(ownerState);
+        }
+        return solverPool.checkOut();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -149,6 +212,204 @@ final class OriginalPseudoBooleanFormula implements PseudoBooleanFormula {
         return variables;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#activeConstraints()
+     */
+    @Override
+    public IVecInt activeConstraints() {
+        return range(numberOfConstraints());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#assignedLiterals()
+     */
+    @Override
+    public IVecInt assignedLiterals() {
+        return VecInt.EMPTY;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#residualConstraints()
+     */
+    @Override
+    public Collection<ResidualConstraint> residualConstraints() {
+        var residualConstraints = new ArrayList<ResidualConstraint>(numberOfConstraints());
+        var noLiterals = new BitSet();
+        for (int i = 0; i < numberOfConstraints(); i++) {
+            residualConstraints.add(residualConstraint(i, noLiterals));
+        }
+        return residualConstraints;
+    }
+
+    /**
+     * Computes the residual form of a constraint of this formula under the given
+     * assignment.
+     *
+     * @param constraint The index of the constraint.
+     * @param satisfiedLiterals The literals that are satisfied in the sub-formula.
+     *
+     * @return The residual constraint.
+     */
+    ResidualConstraint residualConstraint(int constraint, BitSet satisfiedLiterals) {
+        var constr = solver.getConstraint(constraint);
+        var coefficients = constr.getCoefs();
+
+        // Collecting the unassigned literals, and decreasing the degree.
+        // Each free literal is packed with its position in the constraint.
+        var degree = constr.getDegree();
+        var freeLiterals = new long[constr.size()];
+        int nbFreeLiterals = 0;
+        for (int i = 0; i < constr.size(); i++) {
+            int lit = constr.get(i);
+
+            if (LiteralsUtils.var(lit) > numberOfVariables()) {
+                // This literal is used as a selector, and must be ignored.
+                continue;
+            }
+
+            if (satisfiedLiterals.get(lit)) {
+                degree = degree.subtract(coefficients[i]);
+
+            } else if (!satisfiedLiterals.get(LiteralsUtils.neg(lit))) {
+                freeLiterals[nbFreeLiterals++] = ((long) lit << Integer.SIZE) | i;
+            }
+        }
+
+        // Normalizing the constraint.
+        Arrays.sort(freeLiterals, 0, nbFreeLiterals);
+        var literals = new int[nbFreeLiterals];
+        var saturatedCoefficients = new BigInteger[nbFreeLiterals];
+        for (int i = 0; i < nbFreeLiterals; i++) {
+            literals[i] = LiteralsUtils.toDimacs((int) (freeLiterals[i] >>> Integer.SIZE));
+            saturatedCoefficients[i] = coefficients[(int) freeLiterals[i]].min(degree);
+        }
+        return new ResidualConstraint(literals, saturatedCoefficients, degree);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#signature()
+     */
+    @Override
+    public long signature() {
+        return signature;
+    }
+
+    /**
+     * Computes from scratch the signature of the sub-formula made of the given
+     * constraints, under the given assignment.
+     *
+     * @param constraints The indices of the (active) constraints of the sub-formula.
+     * @param satisfiedLiterals The literals that are satisfied in the sub-formula.
+     *
+     * @return The signature of the sub-formula.
+     */
+    long signatureOf(IVecInt constraints, BitSet satisfiedLiterals) {
+        long subSignature = 0;
+        for (var it = constraints.iterator(); it.hasNext();) {
+            subSignature ^= constraintSignature(it.next(), satisfiedLiterals);
+        }
+        return subSignature;
+    }
+
+    /**
+     * Computes the contribution of an active constraint to the signature of a
+     * sub-formula.
+     * This contribution depends on the literals of the constraint that are assigned.
+     *
+     * @param constraint The index of the constraint.
+     * @param satisfiedLiterals The literals that are satisfied in the sub-formula.
+     *
+     * @return The contribution of the constraint to the signature.
+     */
+    long constraintSignature(int constraint, BitSet satisfiedLiterals) {
+        long contribution = zobristKeys[constraint];
+        var constr = solver.getConstraint(constraint);
+        for (int i = 0; i < constr.size(); i++) {
+            int lit = constr.get(i);
+
+            if (LiteralsUtils.var(lit) > numberOfVariables()) {
+                // This literal is used as a selector, and must be ignored.
+                continue;
+            }
+
+            if (satisfiedLiterals.get(lit)) {
+                contribution ^= literalSignature(constraint, lit);
+
+            } else if (satisfiedLiterals.get(LiteralsUtils.neg(lit))) {
+                contribution ^= literalSignature(constraint, LiteralsUtils.neg(lit));
+            }
+        }
+        return contribution;
+    }
+
+    /**
+     * Computes the contribution of a satisfied literal appearing in an active
+     * constraint to the signature of a sub-formula.
+     *
+     * @param constraint The index of the constraint.
+     * @param literal The satisfied literal (in internal format).
+     *
+     * @return The contribution of the literal to the signature.
+     */
+    long literalSignature(int constraint, int literal) {
+        return mix(zobristKeys[constraint], literal + 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#fingerprint()
+     */
+    @Override
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes the fingerprint of this formula, from the literals, coefficients and
+     * degree of each of its constraints.
+     *
+     * @return The fingerprint of this formula.
+     */
+    private long computeFingerprint() {
+        long hash = mix(numberOfVariables(), numberOfConstraints());
+        for (int i = 0; i < numberOfConstraints(); i++) {
+            var constr = solver.getConstraint(i);
+            var coefficients = constr.getCoefs();
+            for (int j = 0; j < constr.size(); j++) {
+                hash = mix(hash, constr.get(j));
+                hash = mix(hash, coefficients[j].hashCode());
+            }
+            hash = mix(hash, constr.getDegree().hashCode());
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes a hash value with an integer value.
+     * This method applies the finalizer of SplitMix64 to spread the bits of the
+     * integer value.
+     *
+     * @param hash The hash value to mix.
+     * @param value The value to mix into the hash.
+     *
+     * @return The mixed hash value.
+     */
+    private static long mix(long hash, int value) {
+        long z = hash + value * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -168,7 +429,12 @@ final class OriginalPseudoBooleanFormula implements PseudoBooleanFormula {
      * @return The score of the variable.
      */
     double score(int variable, int dlcs) {
-        return engine.getVariableHeuristics()[variable] + 0.5 * dlcs;
+        // The heuristic values are only available once the solver has been run.
+        try (var lease = solverState()) {
+            var heuristics = lease.get().engine.getVariableHeuristics();
+            double activity = (variable < heuristics.length) ? heuristics[variable] : 0;
+            return activity + 0.5 * dlcs;
+        }
     }
 
     /*
@@ -207,80 +473,69 @@ final class OriginalPseudoBooleanFormula implements PseudoBooleanFormula {
     /*
      * (non-Javadoc)
      *
-     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#propagate()
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#propagate(int)
      */
     @Override
-    public PropagationOutput propagate() {
-        solver.externalState();
-        return internalPropagate(VecInt.EMPTY);
+    public PropagationOutput propagate(int maxConflicts) {
+        try (var lease = solverState()) {
+            var state = lease.get();
+            state.solver.externalState();
+            return state.propagate(VecInt.EMPTY, new BitSet(), () -> VecInt.EMPTY,
+                    maxConflicts, false);
+        }
     }
 
     /**
-     * Applies Boolean Constraint Propagation (BCP) on this formula.
+     * Applies Boolean Constraint Propagation (BCP) on a sub-formula of this formula.
      *
-     * @param assumptions The assumptions to make when propagating.
+     * @param assumptions The literals assumed to be satisfied in the sub-formula.
+     * @param inactiveConstraints The constraints that are not in the sub-formula.
+     * @param maxConflicts The maximum number of conflicts allowed while checking the
+     *        satisfiability of the sub-formula.
      *
      * @return The output of the propagation.
-     */
-    PropagationOutput propagate(IVecInt assumptions) {
-        solver.internalState();
-        return internalPropagate(assumptions);
-    }
-
-    /**
-     * Applies Boolean Constraint Propagation (BCP) on this formula.
-     * If the result is unknown, the solver is then completely run to check whether the
-     * formula is satisfiable.
      *
-     * @param assumptions The assumptions to make when propagating.
-     *
-     * @return The output of the propagation.
+     * @see #propagate(int)
      */
-    private PropagationOutput internalPropagate(IVecInt assumptions) {
-        unitPropagationListener.reset();
-
-        // Trying to solve the formula using BCP.
-        order.switchToBCP();
-        solver.setSearchListener(unitPropagationListener);
-        var bcpOutput = solve(assumptions);
-
-        if (bcpOutput.isUnknown()) {
-            // Solving completely the formula
-            order.switchToComplete();
-            solver.setSearchListener(originalListener);
-            var completeOutput = solve(assumptions);
-
-            // Only unsatisfiable outputs are considered as is:
-            // satisfiable outputs require further exploration.
-            if (completeOutput.isUnsatisfiable()) {
-                return completeOutput;
-            }
+    PropagationOutput propagate(IVecInt assumptions, BitSet inactiveConstraints,
+            int maxConflicts) {
+        try (var lease = solverState()) {
+            var state = lease.get();
+            state.solver.internalState();
+            return state.propagate(assumptions, inactiveConstraints,
+                    () -> solverAssumptions(assumptions, inactiveConstraints), maxConflicts,
+                    true);
         }
-
-        return bcpOutput;
     }
 
     /**
-     * Solves this formula under the given assumptions.
+     * Computes the assumptions to give to the solver so as to consider a sub-formula
+     * of this formula.
      *
-     * @param assumptions The assumptions to make when solving.
+     * @param assumptions The literals assumed to be satisfied in the sub-formula.
+     * @param inactiveConstraints The constraints that are not in the sub-formula.
      *
-     * @return The output of the solver.
+     * @return The assumptions characterizing the sub-formula, including those on the
+     *         selectors of the constraints.
      */
-    private PropagationOutput solve(IVecInt assumptions) {
-        try {
-            if (solver.isSatisfiable(assumptions)) {
-                // The solver has found a solution.
-                return satisfiable(unitPropagationListener.getPropagatedLiterals());
+    private IVecInt solverAssumptions(IVecInt assumptions, BitSet inactiveConstraints) {
+        // Copying the true literal assumptions.
+        var effectiveAssumptions = new VecInt(assumptions.size() + numberOfConstraints());
+        assumptions.copyTo(effectiveAssumptions);
+
+        // Computing the assumptions for the constraint selectors.
+        for (int i = 0; i < numberOfConstraints(); i++) {
+            if (inactiveConstraints.get(i)) {
+                // This constraint must be ignored.
+                effectiveAssumptions.push(numberOfVariables() + i + 1);
+
+            } else {
+                // This constraint must be considered.
+                effectiveAssumptions.push(-numberOfVariables() - i - 1);
             }
-
-            // The formula is unsatisfiable.
-            return unsatisfiable();
-
-        } catch (TimeoutException e) {
-            // The solver could not determine whether the formula was satisfiable.
-            return unknown(unitPropagationListener.getPropagatedLiterals(), this);
         }
+
+        return effectiveAssumptions;
     }
 
     /**
@@ -315,4 +570,237 @@ final class OriginalPseudoBooleanFormula implements PseudoBooleanFormula {
         throw new UnsupportedOperationException("No DualHypergraph for original formula!");
     }
 
+    /**
+     * The SolverState gathers the objects needed to run a solver so as to propagate
+     * an {@link OriginalPseudoBooleanFormula}.
+     * Such a state must be used by a single thread.
+     */
+    private final class SolverState {
+
+        /**
+         * The solver that actually propagates the formula.
+         */
+        private final PBSelectorSolver solver;
+
+        /**
+         * The solving engine, which actually performs the search.
+         */
+        private final ISolverService engine;
+
+        /**
+         * The order used by the solver as branching heuristic.
+         */
+        private final SwitchableOrder order;
+
+        /**
+         * The listener used in the solver while checking the satisfiability of the
+         * formula, which imports the learned constraints into the propagator (if any).
+         */
+        private final SearchListener<?> searchListener;
+
+        /**
+         * The unit-propagation listener used to record the propagations performed
+         * during the execution of the solver.
+         */
+        private final UnitPropagationListener unitPropagationListener;
+
+        /**
+         * The last models found by the solver, which are reused to avoid checking
+         * again the satisfiability of the sub-formulae they satisfy.
+         */
+        private final ModelPool models;
+
+        /**
+         * The propagator applying BCP on the formula, or {@code null} if BCP must be
+         * applied by the solver.
+         */
+        private final UnitPropagator unitPropagator;
+
+        /**
+         * Creates a new SolverState, and sets up the given solver for future calls.
+         *
+         * @param solver The solver that propagates the formula.
+         */
+        private SolverState(PBSelectorSolver solver) {
+            this.solver = solver;
+            this.engine = (ISolverService) solver.getSolvingEngine();
+            this.order = new SwitchableOrder();
+            this.unitPropagationListener = new UnitPropagationListener();
+            this.models = new ModelPool(solver.nVars(), ModelPool.DEFAULT_CAPACITY);
+            this.unitPropagator = OriginalPseudoBooleanFormula.this.unitPropagator
+                    .map(UnitPropagator::copy).orElse(null);
+            this.searchListener = (unitPropagator == null)
+                    ? ((ICDCL<?>) engine).getSearchListener()
+                    : unitPropagator.learningListener();
+            ((ICDCL<?>) engine).setOrder(order);
+            solver.setKeepSolverHot(true);
+        }
+
+        /**
+         * Applies Boolean Constraint Propagation (BCP) on the formula.
+         * If the result is unknown, the solver is then run to check whether the formula
+         * is satisfiable, until it encounters the given number of conflicts.
+         *
+         * The check is skipped when a model found by a previous check is known to
+         * satisfy the formula.
+         *
+         * @param assumptions The literals assumed to be satisfied when propagating.
+         * @param inactiveConstraints The constraints to ignore when propagating.
+         * @param solverAssumptions The supplier of the assumptions to give to the
+         *        solver, which are only computed when the solver is run.
+         * @param maxConflicts The maximum number of conflicts allowed while checking
+         *        the satisfiability of the formula.
+         * @param reuseModels Whether the assumptions characterize a sub-formula, so that
+         *        the models found by the solver may be reused to check the
+         *        satisfiability of other sub-formulae.
+         *
+         * @return The output of the propagation.
+         */
+        private PropagationOutput propagate(IVecInt assumptions, BitSet inactiveConstraints,
+                Supplier<IVecInt> solverAssumptions, int maxConflicts, boolean reuseModels) {
+            unitPropagationListener.reset();
+
+            // Trying to solve the formula using BCP.
+            PropagationOutput bcpOutput;
+            IVecInt effectiveAssumptions = null;
+            if (unitPropagator == null) {
+                effectiveAssumptions = solverAssumptions.get();
+                bcpOutput = propagateWithSolver(effectiveAssumptions);
+
+            } else {
+                bcpOutput = unitPropagator.propagate(assumptions, inactiveConstraints,
+                        OriginalPseudoBooleanFormula.this);
+            }
+
+            if (bcpOutput.isUnknown() && (maxConflicts > 0)) {
+                if (effectiveAssumptions == null) {
+                    effectiveAssumptions = solverAssumptions.get();
+                }
+
+                if (reuseModels && models.containsModelOf(effectiveAssumptions)) {
+                    // The formula is already known to be satisfiable.
+                    return bcpOutput;
+                }
+
+                // Solving the formula, within the conflict budget.
+                order.switchToComplete();
+                solver.setSearchListener(searchListener);
+                var completeOutput = solveWithin(effectiveAssumptions, maxConflicts);
+
+                // Only unsatisfiable outputs are considered as is:
+                // satisfiable outputs require further exploration.
+                if (completeOutput.isUnsatisfiable()) {
+                    return completeOutput;
+                }
+
+                if (reuseModels && completeOutput.isSatisfiable()) {
+                    // The model may also satisfy the next sub-formulae to check.
+                    models.add(solver.modelWithInternalVariables());
+                }
+            }
+
+            return bcpOutput;
+        }
+
+        /**
+         * Applies BCP on the formula by running the solver, while recording the
+         * literals it propagates.
+         *
+         * @param assumptions The assumptions to make when propagating.
+         *
+         * @return The output of the propagation.
+         */
+        private PropagationOutput propagateWithSolver(IVecInt assumptions) {
+            order.switchToBCP();
+            solver.setSearchListener(unitPropagationListener);
+            return solve(assumptions);
+        }
+
+        /**
+         * Solves the formula under the given assumptions, until the solver encounters
+         * the given number of conflicts.
+         *
+         * @param assumptions The assumptions to make when solving.
+         * @param maxConflicts The maximum number of conflicts allowed while solving.
+         *
+         * @return The output of the solver, which is unknown if the budget has run out.
+         */
+        private PropagationOutput solveWithin(IVecInt assumptions, int maxConflicts) {
+            if (maxConflicts == Integer.MAX_VALUE) {
+                return solve(assumptions);
+            }
+
+            var restoreTimeout = saveTimeout();
+            try {
+                solver.setTimeoutOnConflicts(maxConflicts);
+                return solve(assumptions);
+
+            } finally {
+                // Restoring the timeout the solver had before.
+                restoreTimeout.run();
+            }
+        }
+
+        /**
+         * Saves the current timeout of the solver, so that it can be restored later.
+         * This timeout may be given either in milliseconds or in number of conflicts.
+         *
+         * @return The action restoring the saved timeout of the solver.
+         */
+        private Runnable saveTimeout() {
+            try {
+                long timeoutMs = solver.getTimeoutMs();
+                return () -> solver.setTimeoutMs(timeoutMs);
+
+            } catch (UnsupportedOperationException e) {
+                // The timeout is given in number of conflicts.
+                int maxConflicts = solver.getTimeout();
+                return () -> solver.setTimeoutOnConflicts(maxConflicts);
+            }
+        }
+
+        /**
+         * Solves the formula under the given assumptions.
+         *
+         * @param assumptions The assumptions to make when solving.
+         *
+         * @return The output of the solver.
+         */
+        private PropagationOutput solve(IVecInt assumptions) {
+            try {
+                if (solver.isSatisfiable(assumptions)) {
+                    // The solver has found a solution.
+                    return satisfiable(propagatedLiterals());
+                }
+
+                // The formula is unsatisfiable.
+                return unsatisfiable();
+
+            } catch (TimeoutException e) {
+                // The solver could not determine whether the formula was satisfiable.
+                return unknown(propagatedLiterals(), OriginalPseudoBooleanFormula.this);
+            }
+        }
+
+        /**
+         * Gives a copy of the literals that have been propagated by the solver.
+         * The listener recording these literals is reset on each propagation, so the
+         * literals must be copied to remain available afterwards.
+         *
+         * @return The propagated literals.
+         */
+        private IVecInt propagatedLiterals() {
+            var propagatedLiterals = unitPropagationListener.getPropagatedLiterals();
+            if (propagatedLiterals == null) {
+                // BCP has not been applied by the solver yet.
+                return new VecInt();
+            }
+
+            var copy = new VecInt(propagatedLiterals.size() + 1);
+            propagatedLiterals.copyTo(copy);
+            return copy;
+        }
+
+    }
+
 }
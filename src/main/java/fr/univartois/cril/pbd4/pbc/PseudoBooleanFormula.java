@@ -60,6 +60,60 @@ public interface PseudoBooleanFormula {
      */
     IVecInt variables();
 
+    /**
+     * Gives the constraints appearing in this formula.
+     * Only constraints that are not satisfied yet are present.
+     *
+     * @return The indices of the constraints in this formula, in increasing order.
+     */
+    IVecInt activeConstraints();
+
+    /**
+     * Gives the literals that are satisfied in this formula and that appear in (at
+     * least) one of its active constraints.
+     * Together with {@link #activeConstraints()}, these literals completely
+     * characterize the residual formula.
+     *
+     * @return The relevant satisfied literals (in DIMACS format), in increasing order
+     *         w.r.t. their internal representation.
+     */
+    IVecInt assignedLiterals();
+
+    /**
+     * Gives the residual form of the constraints appearing in this formula.
+     * Only constraints that are not satisfied yet are considered.
+     * Contrary to {@link #activeConstraints()} and {@link #assignedLiterals()}, the
+     * residual constraints do not depend on how the formula has been obtained, so
+     * that equivalent formulae reached through different assignments have the same
+     * residual constraints.
+     *
+     * @return The residual constraints of this formula, in no particular order.
+     */
+    Collection<ResidualConstraint> residualConstraints();
+
+    /**
+     * Gives the signature of this formula.
+     * Formulae having the same active constraints and the same relevant satisfied
+     * literals (see {@link #activeConstraints()} and {@link #assignedLiterals()})
+     * always have the same signature.
+     * The converse is only true with high probability, so that the signature is well
+     * suited for hashing formulae or pre-checking their equality.
+     *
+     * @return The (64-bit) signature of this formula.
+     */
+    long signature();
+
+    /**
+     * Gives the fingerprint of the input formula from which this formula has been
+     * derived.
+     * Contrary to signatures, fingerprints depend on the actual content of the
+     * constraints, and not only on their indices, so that they may be used to
+     * recognize the same input formula from one execution to another.
+     *
+     * @return The (64-bit) fingerprint of the input formula.
+     */
+    long fingerprint();
+
     /**
      * Gives the VSADS score of a variable in this formula.
      *
@@ -100,10 +154,32 @@ public interface PseudoBooleanFormula {
 
     /**
      * Applies Boolean Constraint Propagation (BCP) on this formula.
+     * If BCP does not decide whether this formula is satisfiable, a SAT solver is then
+     * completely run to check it.
+     *
+     * @return The output of the propagation.
+     *
+     * @implSpec The default implementation invokes {@link #propagate(int)} without any
+     *           limit on the number of conflicts.
+     */
+    default PropagationOutput propagate() {
+        return propagate(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Applies Boolean Constraint Propagation (BCP) on this formula.
+     * If BCP does not decide whether this formula is satisfiable, a SAT solver is then
+     * run to check it, until it encounters the given number of conflicts.
+     * If the check is not conclusive, the output is the same as if only BCP had been
+     * applied.
+     *
+     * @param maxConflicts The maximum number of conflicts allowed while checking the
+     *        satisfiability of this formula, which is {@code 0} if it must not be
+     *        checked, and {@link Integer#MAX_VALUE} if it must be checked completely.
      *
      * @return The output of the propagation.
      */
-    PropagationOutput propagate();
+    PropagationOutput propagate(int maxConflicts);
 
     /**
      * Computes the dual hypergraph of this sub-formula (unless it has already been
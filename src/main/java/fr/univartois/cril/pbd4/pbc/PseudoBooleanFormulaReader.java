@@ -74,7 +74,7 @@ public final class PseudoBooleanFormulaReader {
             var solver = solverProvider.createSolver();
             var reader = new PBInstanceReader(solver);
             reader.parseInstance(path);
-            return new OriginalPseudoBooleanFormula(solver);
+            return new OriginalPseudoBooleanFormula(solver, solverProvider::createSolver);
 
         } catch (ContradictionException e) {
             // The read formula is unsatisfiable.
@@ -100,7 +100,7 @@ public final class PseudoBooleanFormulaReader {
             var solver = solverProvider.createSatSolver();
             var reader = new LecteurDimacs(solver);
             reader.parseInstance(inputStream);
-            return new OriginalPseudoBooleanFormula(solver);
+            return new OriginalPseudoBooleanFormula(solver, solverProvider::createSatSolver);
 
         } catch (ContradictionException e) {
             // The read formula is unsatisfiable.
@@ -126,7 +126,7 @@ public final class PseudoBooleanFormulaReader {
             var solver = solverProvider.createPBSolver();
             var reader = new OPBReader2010(solver);
             reader.parseInstance(inputStream);
-            return new OriginalPseudoBooleanFormula(solver);
+            return new OriginalPseudoBooleanFormula(solver, solverProvider::createPBSolver);
 
         } catch (ContradictionException e) {
             // The read formula is unsatisfiable.
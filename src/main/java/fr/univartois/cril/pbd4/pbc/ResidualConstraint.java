@@ -0,0 +1,113 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import java.math.BigInteger;
+
+/**
+ * The ResidualConstraint represents what remains of a pseudo-Boolean constraint
+ * under a partial assignment.
+ * It contains the unassigned literals of the original constraint, and its degree is
+ * decreased by the weight of the satisfied literals.
+ * Its coefficients are saturated, i.e., no coefficient is greater than the degree.
+ *
+ * Residual constraints are normalized, so that constraints obtained from different
+ * assignments (or even from different original constraints) are equal whenever they
+ * have the same literals, coefficients and degree.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class ResidualConstraint {
+
+    /**
+     * The unassigned literals of the constraint (in DIMACS format), in increasing
+     * order w.r.t. their internal representation.
+     */
+    private final int[] literals;
+
+    /**
+     * The (saturated) coefficients of the literals.
+     */
+    private final BigInteger[] coefficients;
+
+    /**
+     * The degree of the constraint.
+     */
+    private final BigInteger degree;
+
+    /**
+     * Creates a new ResidualConstraint.
+     *
+     * @param literals The unassigned literals of the constraint (in DIMACS format), in
+     *        increasing order w.r.t. their internal representation.
+     * @param coefficients The (saturated) coefficients of the literals.
+     * @param degree The degree of the constraint.
+     */
+    ResidualConstraint(int[] literals, BigInteger[] coefficients, BigInteger degree) {
+        this.literals = literals;
+        this.coefficients = coefficients;
+        this.degree = degree;
+    }
+
+    /**
+     * Gives the number of literals in this constraint.
+     *
+     * @return The number of literals in this constraint.
+     */
+    public int size() {
+        return literals.length;
+    }
+
+    /**
+     * Gives the {@code i}-th literal of this constraint.
+     * Literals are ordered w.r.t. their internal representation.
+     *
+     * @param i The index of the literal to get.
+     *
+     * @return The {@code i}-th literal (in DIMACS format).
+     */
+    public int getLiteral(int i) {
+        return literals[i];
+    }
+
+    /**
+     * Gives the coefficient of the {@code i}-th literal of this constraint.
+     *
+     * @param i The index of the literal to get the coefficient of.
+     *
+     * @return The coefficient of the {@code i}-th literal.
+     */
+    public BigInteger getCoefficient(int i) {
+        return coefficients[i];
+    }
+
+    /**
+     * Gives the degree of this constraint.
+     *
+     * @return The degree of this constraint.
+     */
+    public BigInteger getDegree() {
+        return degree;
+    }
+
+}
@@ -0,0 +1,273 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import java.math.BigInteger;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.sat4j.core.LiteralsUtils;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+
+import fr.univartois.cril.pbd4.pbc.solver.PBSelectorSolver;
+
+/**
+ * The SolverPool manages the replicas of the solver of an
+ * {@link OriginalPseudoBooleanFormula}, so that this formula may be propagated
+ * concurrently by different threads.
+ *
+ * The constraints of the formula are copied once, when the pool is created (i.e.,
+ * when the formula is loaded), and each replica is built from this copy.
+ * A replica is checked out through a {@link Lease}, which gives its holder an
+ * exclusive access to the replica until it is closed.
+ * Closing the lease gives the replica back to the pool, so that it may be checked
+ * out by any thread.
+ * Replicas are thus never pinned to threads that are idle or have terminated, and
+ * the pool only contains as many replicas as there have been concurrent leases.
+ *
+ * @param <S> The type of the states wrapping the replicas of the solver.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class SolverPool<S> {
+
+    /**
+     * The factory used to create the solvers that are replicated.
+     */
+    private final Supplier<PBSelectorSolver> solverFactory;
+
+    /**
+     * The function creating the state wrapping a replica.
+     */
+    private final Function<PBSelectorSolver, S> stateFactory;
+
+    /**
+     * The number of variables of the replicated formula.
+     */
+    private final int numberOfVariables;
+
+    /**
+     * The literals of each constraint of the formula, in DIMACS format.
+     */
+    private final int[][] literals;
+
+    /**
+     * The coefficients of the literals of each constraint of the formula.
+     */
+    private final BigInteger[][] coefficients;
+
+    /**
+     * The degree of each constraint of the formula.
+     */
+    private final BigInteger[] degrees;
+
+    /**
+     * The states that are available to be checked out.
+     */
+    private final Queue<S> available;
+
+    /**
+     * Creates a new SolverPool.
+     *
+     * @param solverFactory The factory used to create the solvers that are replicated.
+     * @param stateFactory The function creating the state wrapping a replica.
+     * @param numberOfVariables The number of variables of the replicated formula.
+     * @param nbConstraints The number of constraints of the replicated formula.
+     */
+    private SolverPool(Supplier<PBSelectorSolver> solverFactory,
+            Function<PBSelectorSolver, S> stateFactory, int numberOfVariables,
+            int nbConstraints) {
+        this.solverFactory = solverFactory;
+        this.stateFactory = stateFactory;
+        this.numberOfVariables = numberOfVariables;
+        this.literals = new int[nbConstraints][];
+        this.coefficients = new BigInteger[nbConstraints][];
+        this.degrees = new BigInteger[nbConstraints];
+        this.available = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Creates a new SolverPool replicating the given solver.
+     * The constraints of this solver are copied right away: they must thus have all
+     * been added to the solver, which must not be running while the pool is created.
+     *
+     * @param <S> The type of the states wrapping the replicas of the solver.
+     *
+     * @param solver The solver to replicate.
+     * @param solverFactory The factory used to create solvers of the same type as
+     *        {@code solver}.
+     * @param stateFactory The function creating the state wrapping a replica.
+     *
+     * @return The created pool.
+     */
+    static <S> SolverPool<S> of(PBSelectorSolver solver, Supplier<PBSelectorSolver> solverFactory,
+            Function<PBSelectorSolver, S> stateFactory) {
+        var pool = new SolverPool<>(solverFactory, stateFactory, solver.nVars(),
+                solver.nConstraints());
+        pool.copyConstraints(solver);
+        return pool;
+    }
+
+    /**
+     * Copies the constraints of the given solver.
+     * Selectors are not copied, as they are added by the replicas themselves.
+     *
+     * @param solver The solver to copy the constraints of.
+     */
+    private void copyConstraints(PBSelectorSolver solver) {
+        for (int i = 0; i < degrees.length; i++) {
+            var constr = solver.getConstraint(i);
+            var constrCoefficients = constr.getCoefs();
+            var constrLiterals = new VecInt(constr.size());
+            var selectedCoefficients = new Vec<BigInteger>(constr.size());
+
+            for (int j = 0; j < constr.size(); j++) {
+                int lit = constr.get(j);
+                if (LiteralsUtils.var(lit) <= numberOfVariables) {
+                    constrLiterals.push(LiteralsUtils.toDimacs(lit));
+                    selectedCoefficients.push(constrCoefficients[j]);
+                }
+            }
+
+            literals[i] = new int[constrLiterals.size()];
+            constrLiterals.copyTo(literals[i]);
+            coefficients[i] = new BigInteger[selectedCoefficients.size()];
+            selectedCoefficients.copyTo(coefficients[i]);
+            degrees[i] = constr.getDegree();
+        }
+    }
+
+    /**
+     * Checks out a state from this pool, either by reusing a state that has been given
+     * back or by creating a new replica.
+     * The state must be given back by closing the returned lease, typically in a
+     * try-with-resources statement.
+     *
+     * @return The lease of the checked-out state.
+     */
+    Lease<S> checkOut() {
+        var state = available.poll();
+        if (state == null) {
+            state = stateFactory.apply(replicate());
+        }
+        return new Lease<>(state, available::add);
+    }
+
+    /**
+     * Creates a new solver containing the copied constraints, in the same order as in
+     * the replicated solver.
+     * The selectors of the constraints are thus the same in both solvers.
+     *
+     * @return The created solver.
+     */
+    private PBSelectorSolver replicate() {
+        var replica = solverFactory.get();
+        replica.newVar(numberOfVariables);
+        replica.setExpectedNumberOfClauses(degrees.length);
+
+        try {
+            for (int i = 0; i < degrees.length; i++) {
+                // The copies are given to the replica, which may modify them.
+                replica.addAtLeast(new VecInt(literals[i].clone()),
+                        new Vec<>(coefficients[i].clone()), degrees[i]);
+            }
+
+        } catch (ContradictionException e) {
+            // The replicated solver has accepted the very same constraints.
+            throw new IllegalStateException("Could not replicate the solver", e);
+        }
+
+        return replica;
+    }
+
+    /**
+     * The Lease gives an exclusive access to a state until it is closed.
+     *
+     * @param <S> The type of the leased state.
+     */
+    static final class Lease<S> implements AutoCloseable {
+
+        /**
+         * The leased state.
+         */
+        private final S state;
+
+        /**
+         * The action giving back the state once the lease is closed.
+         */
+        private final Consumer<S> release;
+
+        /**
+         * Creates a new Lease.
+         *
+         * @param state The leased state.
+         * @param release The action giving back the state once the lease is closed.
+         */
+        private Lease(S state, Consumer<S> release) {
+            this.state = state;
+            this.release = release;
+        }
+
+        /**
+         * Creates a new Lease on a state that does not belong to any pool, and which
+         * is thus not given back when the lease is closed.
+         *
+         * @param <S> The type of the leased state.
+         *
+         * @param state The leased state.
+         *
+         * @return The created lease.
+         */
+        static <S> Lease<S> unpooled(S state) {
+            return new Lease<>(state, s -> {
+                // Nothing to give back.
+            });
+        }
+
+        /**
+         * Gives the leased state.
+         *
+         * @return The leased state.
+         */
+        S get() {
+            return state;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.AutoCloseable#close()
+         */
+        @Override
+        public void close() {
+            release.accept(state);
+        }
+
+    }
+
+}
@@ -25,6 +25,7 @@ import java.util.BitSet;
 import java.util.Collection;
 import java.util.OptionalInt;
 
+import org.sat4j.core.LiteralsUtils;
 import org.sat4j.core.VecInt;
 import org.sat4j.specs.IVecInt;
 
@@ -66,6 +67,11 @@ final class SubPseudoBooleanFormula implements PseudoBooleanFormula, Hypergrapha
      */
     private final BitSet inactiveConstraints;
 
+    /**
+     * The signature of this sub-formula.
+     */
+    private final long signature;
+
     /**
      * The variables appearing in this formula.
      */
@@ -93,6 +99,7 @@ final class SubPseudoBooleanFormula implements PseudoBooleanFormula, Hypergrapha
         this.assumptions = builder.getAssumptions();
         this.satisfiedLiterals = builder.getSatisfiedLiterals();
         this.inactiveConstraints = builder.getInactiveConstraints();
+        this.signature = builder.getSignature();
         this.variables = builder.getVariables();
         this.updatedDlcsScores = builder.getUpdatedDlcsScores();
     }
@@ -127,6 +134,92 @@ final class SubPseudoBooleanFormula implements PseudoBooleanFormula, Hypergrapha
         return variables;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#activeConstraints()
+     */
+    @Override
+    public IVecInt activeConstraints() {
+        var activeConstraints = new VecInt(numberOfConstraints());
+        for (int i = inactiveConstraints.nextClearBit(0); i < decorated.numberOfConstraints();
+                i = inactiveConstraints.nextClearBit(i + 1)) {
+            activeConstraints.push(i);
+        }
+        return activeConstraints;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#assignedLiterals()
+     */
+    @Override
+    public IVecInt assignedLiterals() {
+        // Collecting the satisfied literals appearing in the active constraints.
+        var relevantLiterals = new BitSet(satisfiedLiterals.length());
+        for (var it = activeConstraints().iterator(); it.hasNext();) {
+            var constr = decorated.getConstraint(it.next());
+            for (int i = 0; i < constr.size(); i++) {
+                int lit = constr.get(i);
+
+                if (LiteralsUtils.var(lit) > decorated.numberOfVariables()) {
+                    // This literal is used as a selector, and must be ignored.
+                    continue;
+                }
+
+                if (satisfiedLiterals.get(lit)) {
+                    relevantLiterals.set(lit);
+
+                } else if (satisfiedLiterals.get(LiteralsUtils.neg(lit))) {
+                    relevantLiterals.set(LiteralsUtils.neg(lit));
+                }
+            }
+        }
+
+        // Translating the literals into the DIMACS format.
+        var assignedLiterals = new VecInt(relevantLiterals.cardinality());
+        for (int lit = relevantLiterals.nextSetBit(0); lit >= 0;
+                lit = relevantLiterals.nextSetBit(lit + 1)) {
+            assignedLiterals.push(LiteralsUtils.toDimacs(lit));
+        }
+        return assignedLiterals;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#residualConstraints()
+     */
+    @Override
+    public Collection<ResidualConstraint> residualConstraints() {
+        var residualConstraints = new ArrayList<ResidualConstraint>(numberOfConstraints());
+        for (var it = activeConstraints().iterator(); it.hasNext();) {
+            residualConstraints.add(decorated.residualConstraint(it.next(), satisfiedLiterals));
+        }
+        return residualConstraints;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#signature()
+     */
+    @Override
+    public long signature() {
+        return signature;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#fingerprint()
+     */
+    @Override
+    public long fingerprint() {
+        return decorated.fingerprint();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -180,6 +273,7 @@ final class SubPseudoBooleanFormula implements PseudoBooleanFormula, Hypergrapha
             .initialAssumptions(assumptions)
             .satisfiedLiterals((BitSet) satisfiedLiterals.clone())
             .inactiveConstraints((BitSet) inactiveConstraints.clone())
+            .signature(signature)
             .possibleVariables(variables)
             .decision(literal)
             .build();
@@ -196,6 +290,7 @@ final class SubPseudoBooleanFormula implements PseudoBooleanFormula, Hypergrapha
             .initialAssumptions(assumptions)
             .satisfiedLiterals((BitSet) satisfiedLiterals.clone())
             .inactiveConstraints((BitSet) inactiveConstraints.clone())
+            .signature(signature)
             .possibleVariables(variables)
             .newAssumptions(literals)
             .build();
@@ -241,6 +336,7 @@ final class SubPseudoBooleanFormula implements PseudoBooleanFormula, Hypergrapha
             .initialAssumptions(assumptions)
             .satisfiedLiterals((BitSet) satisfiedLiterals.clone())
             .inactiveConstraints(subInactiveConstraints)
+            .signature(decorated.signatureOf(constraints, satisfiedLiterals))
             .possibleVariables(variables)
             .build();
     }
@@ -262,12 +358,12 @@ final class SubPseudoBooleanFormula implements PseudoBooleanFormula, Hypergrapha
     /*
      * (non-Javadoc)
      *
-     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#propagate()
+     * @see fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula#propagate(int)
      */
     @Override
-    public PropagationOutput propagate() {
+    public PropagationOutput propagate(int maxConflicts) {
         // Applying BCP to the formula with the assumptions characterizing this sub-formula.
-        var output = decorated.propagate(computeAssumptions());
+        var output = decorated.propagate(assumptions, inactiveConstraints, maxConflicts);
 
         if (output.isUnsatisfiable()) {
             // There is nothing more to do.
@@ -285,31 +381,6 @@ final class SubPseudoBooleanFormula implements PseudoBooleanFormula, Hypergrapha
         return PropagationOutput.unknown(propagatedLiterals, this);
     }
 
-    /**
-     * Computes the assumptions characterizing this sub-formula.
-     *
-     * @return The assumptions characterizing this sub-formula.
-     */
-    private IVecInt computeAssumptions() {
-        // Copying the true literal assumptions.
-        var effectiveAssumptions = new VecInt(assumptions.size() + decorated.numberOfConstraints());
-        assumptions.copyTo(effectiveAssumptions);
-
-        // Computing the assumptions for the constraint selectors.
-        for (int i = 0; i < decorated.numberOfConstraints(); i++) {
-            if (inactiveConstraints.get(i)) {
-                // This constraint must be ignored.
-                effectiveAssumptions.push(decorated.numberOfVariables() + i + 1);
-
-            } else {
-                // This constraint must be considered.
-                effectiveAssumptions.push(-decorated.numberOfVariables() - i - 1);
-            }
-        }
-
-        return effectiveAssumptions;
-    }
-
     /*
      * (non-Javadoc)
      *
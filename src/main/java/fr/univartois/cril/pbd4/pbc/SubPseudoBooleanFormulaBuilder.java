@@ -72,6 +72,12 @@ final class SubPseudoBooleanFormulaBuilder {
      */
     private BitSet inactiveConstraints;
 
+    /**
+     * The signature of the sub-formula, which is maintained incrementally as literals
+     * are satisfied and constraints are deactivated.
+     */
+    private long signature;
+
     /**
      * The variables that may appear in the formula.
      */
@@ -99,6 +105,7 @@ final class SubPseudoBooleanFormulaBuilder {
         this.initialAssumptions = VecInt.EMPTY;
         this.newAssumptions = VecInt.EMPTY;
         this.possibleVariables = original.variables();
+        this.signature = original.signature();
         this.updatedDlcsScores = new int[original.numberOfVariables() + 1];
     }
 
@@ -227,6 +234,29 @@ final class SubPseudoBooleanFormulaBuilder {
         return inactiveConstraints;
     }
 
+    /**
+     * Sets the signature of the formula, before the new assumptions are considered.
+     * This signature must be consistent with the satisfied literals and the
+     * deactivated constraints.
+     *
+     * @param signature The signature of the formula.
+     *
+     * @return This builder.
+     */
+    SubPseudoBooleanFormulaBuilder signature(long signature) {
+        this.signature = signature;
+        return this;
+    }
+
+    /**
+     * Gives the signature of the sub-formula.
+     *
+     * @return The signature of the sub-formula.
+     */
+    long getSignature() {
+        return signature;
+    }
+
     /**
      * Sets the variables that may appear in the formula.
      *
@@ -297,6 +327,10 @@ final class SubPseudoBooleanFormulaBuilder {
 
         // Updating the literal data structure.
         allAssumptions.push(dimacs);
+        if (getSatisfiedLiterals().get(literal)) {
+            // This literal has already been taken into account.
+            return;
+        }
         getSatisfiedLiterals().set(literal);
 
         // Updating the constraint data structure.
@@ -308,6 +342,9 @@ final class SubPseudoBooleanFormulaBuilder {
                 continue;
             }
 
+            // The literal is now satisfied in this (active) constraint.
+            signature ^= original.literalSignature(constrIndex, literal);
+
             // Computing the current value of the constraint.
             var constr = original.getConstraint(constrIndex);
             var constrValue = BigInteger.ZERO;
@@ -327,6 +364,7 @@ final class SubPseudoBooleanFormulaBuilder {
             // Is the constraint to be deactivated?
             if (constrValue.compareTo(constr.getDegree()) >= 0) {
                 getInactiveConstraints().set(constrIndex);
+                signature ^= original.constraintSignature(constrIndex, satisfiedLiterals);
             }
         }
     }
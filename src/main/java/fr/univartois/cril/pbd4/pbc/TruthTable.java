@@ -0,0 +1,301 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The TruthTable represents the models of a (small) pseudo-Boolean formula, as a
+ * bit-set indexed by the assignments of its variables.
+ * In the assignment represented by row {@code r}, the {@code i}-th variable of the
+ * formula is satisfied if and only if the {@code i}-th bit of {@code r} is set.
+ *
+ * The table is computed in a bit-parallel manner: for each constraint, the rows of
+ * a word (i.e., the 64 assignments of the first 6 variables) satisfying the
+ * constraint are obtained at once, from the sum of the weights of the satisfied
+ * literals of the other variables.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public final class TruthTable {
+
+    /**
+     * The maximum number of variables of a formula for which a truth table may be
+     * computed.
+     */
+    public static final int MAX_VARIABLES = 24;
+
+    /**
+     * The maximum number of bits of the degree of a constraint for which the truth
+     * table may be computed with {@code long} arithmetic.
+     * As coefficients are saturated, the sum of the coefficients of a constraint
+     * cannot overflow when there are at most {@link #MAX_VARIABLES} of them.
+     */
+    private static final int MAX_DEGREE_BITS = Long.SIZE - 8;
+
+    /**
+     * The number of variables whose assignments are enumerated inside a word.
+     */
+    private static final int LOG_WORD_SIZE = 6;
+
+    /**
+     * The masks of the rows of a word in which each of the first variables is
+     * satisfied.
+     */
+    private static final long[] VARIABLE_MASKS = {
+            0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L };
+
+    /**
+     * The variables of the formula, in increasing order.
+     */
+    private final int[] variables;
+
+    /**
+     * The words of the table.
+     */
+    private final long[] words;
+
+    /**
+     * Creates a new TruthTable, in which all rows are set.
+     *
+     * @param variables The variables of the formula, in increasing order.
+     */
+    private TruthTable(int[] variables) {
+        this.variables = variables;
+        int nbRows = 1 << variables.length;
+        this.words = new long[Math.max(1, nbRows >>> LOG_WORD_SIZE)];
+        Arrays.fill(words, (nbRows < Long.SIZE) ? ((1L << nbRows) - 1) : -1L);
+    }
+
+    /**
+     * Computes the truth table of a pseudo-Boolean formula.
+     *
+     * @param formula The formula to compute the truth table of.
+     *
+     * @return The truth table of the formula, or {@link Optional#empty()} if the
+     *         formula has more than {@link #MAX_VARIABLES} variables, or if one of its
+     *         degrees is too large.
+     */
+    public static Optional<TruthTable> of(PseudoBooleanFormula formula) {
+        if (formula.numberOfVariables() > MAX_VARIABLES) {
+            return Optional.empty();
+        }
+
+        var constraints = formula.residualConstraints();
+        for (var constraint : constraints) {
+            if (constraint.getDegree().bitLength() > MAX_DEGREE_BITS) {
+                return Optional.empty();
+            }
+        }
+
+        var variables = new int[formula.numberOfVariables()];
+        formula.variables().copyTo(variables);
+        Arrays.sort(variables);
+        var table = new TruthTable(variables);
+        for (var constraint : constraints) {
+            table.filter(constraint);
+        }
+        return Optional.of(table);
+    }
+
+    /**
+     * Removes from this table the rows that falsify a constraint.
+     *
+     * @param constraint The constraint to filter the rows with.
+     */
+    private void filter(ResidualConstraint constraint) {
+        // Splitting the literals of the constraint w.r.t. the position of their variable.
+        int[] highLiterals = new int[constraint.size()];
+        long[] highCoefficients = new long[constraint.size()];
+        int nbHighLiterals = 0;
+        long[] lowSums = new long[Long.SIZE];
+        for (int i = 0; i < constraint.size(); i++) {
+            int literal = constraint.getLiteral(i);
+            int index = indexOf(Math.abs(literal));
+            long coefficient = constraint.getCoefficient(i).longValue();
+
+            if (index < LOG_WORD_SIZE) {
+                // The weight of this literal is added to the rows satisfying it.
+                long mask = (literal > 0) ? VARIABLE_MASKS[index] : ~VARIABLE_MASKS[index];
+                for (int row = 0; row < Long.SIZE; row++) {
+                    if ((mask & (1L << row)) != 0) {
+                        lowSums[row] += coefficient;
+                    }
+                }
+
+            } else {
+                highLiterals[nbHighLiterals] = (literal > 0) ? index : ~index;
+                highCoefficients[nbHighLiterals] = coefficient;
+                nbHighLiterals++;
+            }
+        }
+
+        // Sorting the rows of a word by decreasing sum of weights.
+        var rows = new Integer[Long.SIZE];
+        for (int row = 0; row < Long.SIZE; row++) {
+            rows[row] = row;
+        }
+        Arrays.sort(rows, (r1, r2) -> Long.compare(lowSums[r2], lowSums[r1]));
+        long[] sortedSums = new long[Long.SIZE];
+        long[] prefixMasks = new long[Long.SIZE + 1];
+        for (int i = 0; i < Long.SIZE; i++) {
+            sortedSums[i] = lowSums[rows[i]];
+            prefixMasks[i + 1] = prefixMasks[i] | (1L << rows[i]);
+        }
+
+        // Filtering each word of the table at once.
+        long degree = constraint.getDegree().longValue();
+        for (int w = 0; w < words.length; w++) {
+            long highSum = 0;
+            for (int i = 0; i < nbHighLiterals; i++) {
+                int literal = highLiterals[i];
+                int bit = ((literal >= 0) ? literal : ~literal) - LOG_WORD_SIZE;
+                boolean satisfied = ((w >>> bit) & 1) != 0;
+                if (satisfied == (literal >= 0)) {
+                    highSum += highCoefficients[i];
+                }
+            }
+            words[w] &= prefixMasks[countAtLeast(sortedSums, degree - highSum)];
+        }
+    }
+
+    /**
+     * Counts the values of a sorted array that are at least equal to a threshold.
+     *
+     * @param sortedValues The values, in decreasing order.
+     * @param threshold The threshold to compare the values with.
+     *
+     * @return The number of values that are at least equal to {@code threshold}.
+     */
+    private static int countAtLeast(long[] sortedValues, long threshold) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] >= threshold) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gives the index of a variable in this table.
+     *
+     * @param variable The variable to get the index of.
+     *
+     * @return The index of the variable.
+     */
+    private int indexOf(int variable) {
+        return Arrays.binarySearch(variables, variable);
+    }
+
+    /**
+     * Gives the number of variables of this table.
+     *
+     * @return The number of variables.
+     */
+    public int numberOfVariables() {
+        return variables.length;
+    }
+
+    /**
+     * Gives the {@code i}-th variable of this table.
+     *
+     * @param i The index of the variable to get.
+     *
+     * @return The {@code i}-th variable, in DIMACS format.
+     */
+    public int getVariable(int i) {
+        return variables[i];
+    }
+
+    /**
+     * Counts the models represented by this table.
+     *
+     * @return The number of models.
+     */
+    public long countModels() {
+        return countModels(0, 1 << variables.length);
+    }
+
+    /**
+     * Counts the models represented by a block of rows of this table.
+     *
+     * @param from The index of the first row of the block.
+     * @param size The number of rows in the block.
+     *        It must be a power of two dividing {@code from}.
+     *
+     * @return The number of models in the block.
+     */
+    public long countModels(int from, int size) {
+        if (size < Long.SIZE) {
+            return Long.bitCount(block(from, size));
+        }
+
+        long count = 0;
+        for (int w = from >>> LOG_WORD_SIZE, end = (from + size) >>> LOG_WORD_SIZE; w < end; w++) {
+            count += Long.bitCount(words[w]);
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether two blocks of rows of this table are equal.
+     *
+     * @param from The index of the first row of the first block.
+     * @param other The index of the first row of the second block.
+     * @param size The number of rows in the blocks.
+     *        It must be a power of two dividing both {@code from} and {@code other}.
+     *
+     * @return Whether the blocks are equal.
+     */
+    public boolean sameRows(int from, int other, int size) {
+        if (size < Long.SIZE) {
+            return block(from, size) == block(other, size);
+        }
+
+        int nbWords = size >>> LOG_WORD_SIZE;
+        int first = from >>> LOG_WORD_SIZE;
+        int second = other >>> LOG_WORD_SIZE;
+        return Arrays.equals(words, first, first + nbWords, words, second, second + nbWords);
+    }
+
+    /**
+     * Gives a block of less than 64 rows of this table.
+     *
+     * @param from The index of the first row of the block.
+     * @param size The number of rows in the block.
+     *        It must be a power of two dividing {@code from}.
+     *
+     * @return The bits of the rows in the block.
+     */
+    private long block(int from, int size) {
+        return (words[from >>> LOG_WORD_SIZE] >>> (from & (Long.SIZE - 1))) & ((1L << size) - 1);
+    }
+
+}
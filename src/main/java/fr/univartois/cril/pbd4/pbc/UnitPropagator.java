@@ -0,0 +1,1246 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import static fr.univartois.cril.pbd4.pbc.PropagationOutput.satisfiable;
+import static fr.univartois.cril.pbd4.pbc.PropagationOutput.unknown;
+import static fr.univartois.cril.pbd4.pbc.PropagationOutput.unsatisfiable;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.sat4j.core.LiteralsUtils;
+import org.sat4j.core.VecInt;
+import org.sat4j.pb.constraints.pb.PBConstr;
+import org.sat4j.specs.IConstr;
+import org.sat4j.specs.ISolverService;
+import org.sat4j.specs.IVecInt;
+import org.sat4j.specs.SearchListener;
+import org.sat4j.specs.SearchListenerAdapter;
+
+import fr.univartois.cril.pbd4.pbc.solver.PBSelectorSolver;
+
+/**
+ * The UnitPropagator applies Boolean Constraint Propagation (BCP) on the constraints
+ * of an {@link OriginalPseudoBooleanFormula}, without running a solver.
+ *
+ * Each constraint {@code sum(a_i l_i) >= d} watches some of its literals, so that
+ * it is only visited when one of them is falsified.
+ * As long as the coefficients of its non-falsified watched literals sum up to at
+ * least {@code d + max(a_i)}, the constraint can neither propagate a literal nor be
+ * falsified.
+ * Otherwise, all its non-falsified literals are watched, so that this sum minus
+ * {@code d} is its slack: the constraint is falsified when its slack is negative,
+ * and each of its unassigned literals whose coefficient is greater than the slack
+ * must be satisfied.
+ * The constraints learned by the solver while checking the satisfiability of the
+ * formula are propagated in the same way, so that BCP is as strong as when it is
+ * applied by the solver.
+ *
+ * The propagator keeps its state from one call to the next.
+ * The assumptions shared with the previous call remain on the trail, together with
+ * the literals they propagate, and only the constraints that have been activated or
+ * deactivated since the previous call are visited.
+ * The watches of inactive constraints are not replaced when their literals are
+ * falsified, but are repaired when these constraints are activated again.
+ * The number of unsatisfied active constraints is also maintained, so as to detect
+ * satisfied formulae without considering all their constraints.
+ * A propagator must be used by a single thread, but the constraints it reads may be
+ * shared with its copies.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+final class UnitPropagator {
+
+    /**
+     * The maximum number of bits of the sums of the coefficients of a constraint, so
+     * that the slacks may be represented with {@code long} values.
+     */
+    private static final int MAX_BITS = Long.SIZE - 2;
+
+    /**
+     * The maximum number of learned constraints that may be imported by a
+     * propagator.
+     */
+    private static final int MAX_LEARNED_CONSTRAINTS = 1 << 16;
+
+    /**
+     * The reason given to the literals that are assumed, i.e., not propagated.
+     */
+    private static final int ASSUMPTION = -1;
+
+    /**
+     * The number of variables of the formula.
+     */
+    private final int numberOfVariables;
+
+    /**
+     * The number of constraints of the formula, i.e., those that are not learned.
+     */
+    private final int numberOfOriginalConstraints;
+
+    /**
+     * The indices of the constraints of the formula containing each literal (in
+     * internal format).
+     */
+    private final int[][] occurrences;
+
+    /**
+     * The coefficients of each literal in the constraints of the formula containing
+     * it.
+     */
+    private final long[][] occurrenceCoefficients;
+
+    /**
+     * The literals of each constraint, in internal format, ordered by decreasing
+     * coefficients.
+     * The constraints of the formula come first, followed by the learned ones.
+     */
+    private int[][] literals;
+
+    /**
+     * The coefficients of the literals of each constraint.
+     */
+    private long[][] coefficients;
+
+    /**
+     * The degree of each constraint.
+     */
+    private long[] degrees;
+
+    /**
+     * The number of constraints, including the learned ones.
+     */
+    private int numberOfConstraints;
+
+    /**
+     * Whether each literal of each constraint is watched.
+     */
+    private boolean[][] watched;
+
+    /**
+     * The sum of the coefficients of the watched literals of each constraint that
+     * have not been falsified by the literals propagated so far.
+     */
+    private long[] watchedWeights;
+
+    /**
+     * Whether each constraint is currently active.
+     * A learned constraint is active when all the constraints it has been derived
+     * from are active.
+     */
+    private boolean[] active;
+
+    /**
+     * The position on the trail of the first literal propagated by each constraint,
+     * or {@code -1} if the constraint does not propagate any literal.
+     */
+    private int[] firstPropagated;
+
+    /**
+     * The constraints of the formula each learned constraint has been derived from.
+     */
+    private int[][] derivedFrom;
+
+    /**
+     * The number of inactive constraints each learned constraint has been derived
+     * from.
+     */
+    private int[] nbInactiveOrigins;
+
+    /**
+     * The learned constraints derived from each constraint of the formula.
+     */
+    private final IVecInt[] derivedConstraints;
+
+    /**
+     * The constraints that propagate literals when no literal is assigned.
+     */
+    private final IVecInt rootConstraints;
+
+    /**
+     * The constraints that have been activated since the previous call, and that may
+     * thus propagate literals that have not been propagated yet.
+     */
+    private final IVecInt activatedConstraints;
+
+    /**
+     * The watches of each literal (in internal format), i.e., the constraints
+     * watching this literal, each followed by the position of the literal in the
+     * constraint.
+     */
+    private final IVecInt[] watches;
+
+    /**
+     * The sum of the coefficients of the satisfied literals of each constraint of
+     * the formula.
+     */
+    private final long[] satisfiedWeights;
+
+    /**
+     * The number of active constraints of the formula that are not satisfied.
+     */
+    private int nbUnsatisfied;
+
+    /**
+     * The constraints that were inactive during the previous call.
+     */
+    private final BitSet inactiveConstraints;
+
+    /**
+     * Whether each literal (in internal format) is currently satisfied.
+     */
+    private final boolean[] satisfied;
+
+    /**
+     * The number of occurrences of each literal (in internal format) among the
+     * assumptions of the previous call that are still on the trail.
+     */
+    private final int[] assumed;
+
+    /**
+     * The number of distinct literals among the assumptions of the previous call that
+     * are still on the trail.
+     */
+    private int nbAssumedLiterals;
+
+    /**
+     * The constraint that has propagated each variable, or {@link #ASSUMPTION} if the
+     * variable has been assumed.
+     */
+    private final int[] reasons;
+
+    /**
+     * The position of each variable on the trail.
+     */
+    private final int[] positions;
+
+    /**
+     * The literals that are currently assigned, in the order of their assignment.
+     */
+    private final int[] trail;
+
+    /**
+     * The number of literals on the trail.
+     */
+    private int trailSize;
+
+    /**
+     * The number of literals on the trail whose watches have been visited.
+     */
+    private int head;
+
+    /**
+     * Whether the literals propagated by the constraints when no literal is assigned
+     * are on the trail.
+     */
+    private boolean rootPropagated;
+
+    /**
+     * The assumptions of the previous call, in DIMACS format.
+     */
+    private int[] lastAssumptions;
+
+    /**
+     * The number of assumptions of the previous call that are still on the trail.
+     */
+    private int nbLastAssumptions;
+
+    /**
+     * The size of the trail after each prefix of {@link #lastAssumptions} has been
+     * assigned and propagated.
+     */
+    private int[] assumptionLevels;
+
+    /**
+     * Creates a new UnitPropagator.
+     *
+     * @param numberOfVariables The number of variables of the formula.
+     * @param literals The literals of each constraint, in internal format, ordered by
+     *        decreasing coefficients.
+     * @param coefficients The coefficients of the literals of each constraint.
+     * @param degrees The degree of each constraint.
+     * @param occurrences The indices of the constraints containing each literal.
+     * @param occurrenceCoefficients The coefficients of each literal in the
+     *        constraints containing it.
+     */
+    private UnitPropagator(int numberOfVariables, int[][] literals, long[][] coefficients,
+            long[] degrees, int[][] occurrences, long[][] occurrenceCoefficients) {
+        this.numberOfVariables = numberOfVariables;
+        this.numberOfOriginalConstraints = degrees.length;
+        this.occurrences = occurrences;
+        this.occurrenceCoefficients = occurrenceCoefficients;
+        this.literals = literals;
+        this.coefficients = coefficients;
+        this.degrees = degrees;
+
+        // Initializing the state of the constraints, which are all inactive for now.
+        this.watched = new boolean[numberOfOriginalConstraints][];
+        this.watchedWeights = new long[numberOfOriginalConstraints];
+        this.active = new boolean[numberOfOriginalConstraints];
+        this.firstPropagated = new int[numberOfOriginalConstraints];
+        this.derivedFrom = new int[numberOfOriginalConstraints][];
+        this.nbInactiveOrigins = new int[numberOfOriginalConstraints];
+        this.derivedConstraints = new IVecInt[numberOfOriginalConstraints];
+        this.rootConstraints = new VecInt();
+        this.activatedConstraints = new VecInt();
+        this.satisfiedWeights = new long[numberOfOriginalConstraints];
+        this.inactiveConstraints = new BitSet(numberOfOriginalConstraints);
+        this.inactiveConstraints.set(0, numberOfOriginalConstraints);
+
+        // Initializing the state of the literals, which are all unassigned for now.
+        int nbLiterals = (numberOfVariables + 1) << 1;
+        this.watches = new IVecInt[nbLiterals];
+        for (int lit = 0; lit < nbLiterals; lit++) {
+            watches[lit] = new VecInt();
+        }
+        this.satisfied = new boolean[nbLiterals];
+        this.assumed = new int[nbLiterals];
+        this.reasons = new int[numberOfVariables + 1];
+        this.positions = new int[numberOfVariables + 1];
+        this.trail = new int[numberOfVariables];
+        this.lastAssumptions = new int[numberOfVariables];
+        this.assumptionLevels = new int[numberOfVariables + 1];
+
+        // Watching the literals of the constraints.
+        this.numberOfConstraints = numberOfOriginalConstraints;
+        for (int c = 0; c < numberOfConstraints; c++) {
+            initialize(c);
+        }
+    }
+
+    /**
+     * Creates a new UnitPropagator sharing the constraints of another propagator.
+     * The constraints learned by the other propagator are not shared.
+     *
+     * @param other The propagator to copy.
+     */
+    private UnitPropagator(UnitPropagator other) {
+        this(other.numberOfVariables,
+                Arrays.copyOf(other.literals, other.numberOfOriginalConstraints),
+                Arrays.copyOf(other.coefficients, other.numberOfOriginalConstraints),
+                Arrays.copyOf(other.degrees, other.numberOfOriginalConstraints),
+                other.occurrences, other.occurrenceCoefficients);
+    }
+
+    /**
+     * Creates a new UnitPropagator for the constraints of the given solver.
+     *
+     * @param solver The solver managing the constraints to propagate.
+     *
+     * @return The created propagator, or {@link Optional#empty()} if the coefficients
+     *         of the constraints are too large to be represented with {@code long}
+     *         values.
+     */
+    static Optional<UnitPropagator> of(PBSelectorSolver solver) {
+        int nbVariables = solver.nVars();
+        int nbConstraints = solver.nConstraints();
+        var literals = new int[nbConstraints][];
+        var coefficients = new long[nbConstraints][];
+        var degrees = new long[nbConstraints];
+
+        for (int c = 0; c < nbConstraints; c++) {
+            var constr = solver.getConstraint(c);
+            var coefs = constr.getCoefs();
+            var degree = constr.getDegree();
+
+            // Collecting the literals of the constraint, except its selector.
+            var sum = BigInteger.ZERO;
+            var positions = new VecInt(constr.size());
+            for (int i = 0; i < constr.size(); i++) {
+                if (LiteralsUtils.var(constr.get(i)) <= nbVariables) {
+                    sum = sum.add(coefs[i]);
+                    positions.push(i);
+                }
+            }
+            if (!fitsInLong(sum, degree)) {
+                // The slack of this constraint may not be represented as a long.
+                return Optional.empty();
+            }
+
+            // Ordering the literals by decreasing coefficients.
+            var sorted = sortByDecreasingCoefficients(positions, coefs);
+            literals[c] = Arrays.stream(sorted).map(constr::get).toArray();
+            coefficients[c] = Arrays.stream(sorted).mapToLong(i -> coefs[i].longValue()).toArray();
+            degrees[c] = degree.longValue();
+        }
+
+        // Computing the occurrences of each literal.
+        int nbLiterals = (nbVariables + 1) << 1;
+        var nbOccurrences = new int[nbLiterals];
+        for (int[] constraint : literals) {
+            for (int lit : constraint) {
+                nbOccurrences[lit]++;
+            }
+        }
+        var occurrences = new int[nbLiterals][];
+        var occurrenceCoefficients = new long[nbLiterals][];
+        for (int lit = 0; lit < nbLiterals; lit++) {
+            occurrences[lit] = new int[nbOccurrences[lit]];
+            occurrenceCoefficients[lit] = new long[nbOccurrences[lit]];
+            nbOccurrences[lit] = 0;
+        }
+        for (int c = 0; c < nbConstraints; c++) {
+            for (int i = 0; i < literals[c].length; i++) {
+                int lit = literals[c][i];
+                occurrences[lit][nbOccurrences[lit]] = c;
+                occurrenceCoefficients[lit][nbOccurrences[lit]] = coefficients[c][i];
+                nbOccurrences[lit]++;
+            }
+        }
+
+        return Optional.of(new UnitPropagator(nbVariables, literals, coefficients, degrees,
+                occurrences, occurrenceCoefficients));
+    }
+
+    /**
+     * Checks whether the slack of a constraint may be represented with {@code long}
+     * values.
+     *
+     * @param sum The sum of the coefficients of the constraint.
+     * @param degree The degree of the constraint.
+     *
+     * @return Whether the slack of the constraint fits in a {@code long}.
+     */
+    private static boolean fitsInLong(BigInteger sum, BigInteger degree) {
+        return (sum.bitLength() <= MAX_BITS) && (degree.bitLength() <= MAX_BITS)
+                && (sum.subtract(degree).bitLength() <= MAX_BITS);
+    }
+
+    /**
+     * Sorts the literals of a constraint by decreasing coefficients.
+     *
+     * @param positions The positions of the literals to sort in the constraint.
+     * @param coefs The coefficients of the literals of the constraint.
+     *
+     * @return The positions of the literals, sorted by decreasing coefficients.
+     */
+    private static int[] sortByDecreasingCoefficients(IVecInt positions, BigInteger[] coefs) {
+        return IntStream.range(0, positions.size())
+                .map(positions::get)
+                .boxed()
+                .sorted(Comparator.comparing((Integer i) -> coefs[i]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Creates a copy of this propagator, which shares its constraints but has its own
+     * trail.
+     * This allows to propagate the formula from another thread.
+     *
+     * @return The created copy.
+     */
+    UnitPropagator copy() {
+        return new UnitPropagator(this);
+    }
+
+    /**
+     * Gives a listener importing in this propagator the constraints learned by a
+     * solver managing the constraints of the formula.
+     * The listener must be notified from the thread using this propagator, between
+     * two propagations.
+     *
+     * @return The listener to give to the solver.
+     */
+    SearchListener<ISolverService> learningListener() {
+        return new LearningListener();
+    }
+
+    /**
+     * Applies BCP on the constraints of the formula that are active, under the given
+     * assumptions.
+     *
+     * @param assumptions The literals assumed to be satisfied, in DIMACS format.
+     * @param inactiveConstraints The constraints that must be ignored.
+     * @param formula The formula to give as simplified formula when the result of the
+     *        propagation is unknown.
+     *
+     * @return The output of the propagation.
+     */
+    PropagationOutput propagate(IVecInt assumptions, BitSet inactiveConstraints,
+            PseudoBooleanFormula formula) {
+        // Undoing the propagations that may change with the active constraints.
+        keepSharedAssumptions(assumptions);
+        cancelFrom(updateActiveConstraints(inactiveConstraints));
+        cancelFrom(checkActivatedConstraints());
+        watchActivatedConstraints();
+        if (!rootPropagated && !propagateRoot()) {
+            return unsatisfiable();
+        }
+
+        // Satisfying and propagating the other assumptions.
+        if (!assume(assumptions)) {
+            return unsatisfiable();
+        }
+
+        // The formula is satisfied when all its active constraints are.
+        var propagatedLiterals = propagatedLiterals();
+        if (nbUnsatisfied == 0) {
+            return satisfiable(propagatedLiterals);
+        }
+        return unknown(propagatedLiterals, formula);
+    }
+
+    /**
+     * Undoes the assignments on the trail that follow the longest prefix shared by
+     * the given assumptions and those of the previous call.
+     *
+     * @param assumptions The literals assumed to be satisfied, in DIMACS format.
+     */
+    private void keepSharedAssumptions(IVecInt assumptions) {
+        int nbAssumptions = assumptions.size();
+        int common = 0;
+        while ((common < nbLastAssumptions) && (common < nbAssumptions)
+                && (lastAssumptions[common] == assumptions.get(common))) {
+            common++;
+        }
+        backtrack(assumptionLevels[common]);
+        forgetAssumptions(common);
+    }
+
+    /**
+     * Satisfies and propagates the assumptions that are not on the trail yet.
+     * Each assumption starts a new level, so that the next calls can keep it.
+     *
+     * @param assumptions The literals assumed to be satisfied, in DIMACS format.
+     *
+     * @return Whether the active constraints are not falsified.
+     */
+    private boolean assume(IVecInt assumptions) {
+        int nbAssumptions = assumptions.size();
+        ensureCapacity(nbAssumptions);
+        for (int i = nbLastAssumptions; i < nbAssumptions; i++) {
+            int dimacs = assumptions.get(i);
+            int lit = LiteralsUtils.toInternal(dimacs);
+            if (satisfied[LiteralsUtils.neg(lit)]) {
+                // The assumptions are contradictory.
+                return false;
+            }
+            if (!satisfied[lit]) {
+                assign(lit, ASSUMPTION);
+                if (!propagate()) {
+                    backtrack(assumptionLevels[i]);
+                    return false;
+                }
+            }
+            lastAssumptions[i] = dimacs;
+            assumptionLevels[i + 1] = trailSize;
+            nbLastAssumptions = i + 1;
+            if (assumed[lit]++ == 0) {
+                nbAssumedLiterals++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the assumptions of the previous call that follow the given prefix.
+     *
+     * @param nbAssumptions The number of assumptions to keep.
+     */
+    private void forgetAssumptions(int nbAssumptions) {
+        for (int i = nbAssumptions; i < nbLastAssumptions; i++) {
+            if (--assumed[LiteralsUtils.toInternal(lastAssumptions[i])] == 0) {
+                nbAssumedLiterals--;
+            }
+        }
+        nbLastAssumptions = nbAssumptions;
+    }
+
+    /**
+     * Collects the literals on the trail that are not assumed.
+     * All the assumptions must be on the trail.
+     *
+     * @return The propagated literals, in DIMACS format.
+     */
+    private IVecInt propagatedLiterals() {
+        int nbPropagated = trailSize - nbAssumedLiterals;
+        var propagatedLiterals = new VecInt(nbPropagated + 1);
+        for (int i = 0; propagatedLiterals.size() < nbPropagated; i++) {
+            if (assumed[trail[i]] == 0) {
+                propagatedLiterals.push(LiteralsUtils.toDimacs(trail[i]));
+            }
+        }
+        return propagatedLiterals;
+    }
+
+    /**
+     * Updates the state of the constraints that have been activated or deactivated
+     * since the previous call.
+     *
+     * @param inactive The constraints that must now be ignored.
+     *
+     * @return The position of the first literal on the trail that has been propagated
+     *         by a deactivated constraint, or the size of the trail if there is none.
+     */
+    private int updateActiveConstraints(BitSet inactive) {
+        var changed = (BitSet) inactive.clone();
+        changed.xor(inactiveConstraints);
+
+        int position = trailSize;
+        for (int c = changed.nextSetBit(0); (c >= 0) && (c < numberOfOriginalConstraints);
+                c = changed.nextSetBit(c + 1)) {
+            if (inactive.get(c)) {
+                position = Math.min(position, deactivate(c));
+            } else {
+                activate(c);
+            }
+        }
+
+        inactiveConstraints.xor(changed);
+        return position;
+    }
+
+    /**
+     * Activates a constraint of the formula, together with the learned constraints
+     * that are only derived from active constraints.
+     *
+     * @param constraint The index of the constraint to activate.
+     */
+    private void activate(int constraint) {
+        active[constraint] = true;
+        activatedConstraints.push(constraint);
+        if (satisfiedWeights[constraint] < degrees[constraint]) {
+            nbUnsatisfied++;
+        }
+
+        var derived = derivedConstraints[constraint];
+        for (int i = 0; (derived != null) && (i < derived.size()); i++) {
+            int learned = derived.get(i);
+            nbInactiveOrigins[learned]--;
+            if (nbInactiveOrigins[learned] == 0) {
+                active[learned] = true;
+                activatedConstraints.push(learned);
+            }
+        }
+    }
+
+    /**
+     * Deactivates a constraint of the formula, together with the learned constraints
+     * derived from it.
+     *
+     * @param constraint The index of the constraint to deactivate.
+     *
+     * @return The position of the first literal on the trail that has been propagated
+     *         by a deactivated constraint, or the size of the trail if there is none.
+     */
+    private int deactivate(int constraint) {
+        active[constraint] = false;
+        if (satisfiedWeights[constraint] < degrees[constraint]) {
+            nbUnsatisfied--;
+        }
+        int position = firstPropagatedBy(constraint);
+
+        var derived = derivedConstraints[constraint];
+        for (int i = 0; (derived != null) && (i < derived.size()); i++) {
+            int learned = derived.get(i);
+            if (nbInactiveOrigins[learned] == 0) {
+                active[learned] = false;
+                position = Math.min(position, firstPropagatedBy(learned));
+            }
+            nbInactiveOrigins[learned]++;
+        }
+
+        return position;
+    }
+
+    /**
+     * Gives the position of the first literal on the trail propagated by a
+     * constraint.
+     *
+     * @param constraint The index of the constraint.
+     *
+     * @return The position of the first literal propagated by the constraint, or the
+     *         size of the trail if there is none.
+     */
+    private int firstPropagatedBy(int constraint) {
+        int position = firstPropagated[constraint];
+        return (position < 0) ? trailSize : position;
+    }
+
+    /**
+     * Checks whether the constraints that have been activated since the previous call
+     * propagate literals or are falsified.
+     * Such a constraint would have been taken into account as soon as it propagated
+     * a literal, had it been active, so the trail must be undone from this point.
+     *
+     * @return The position of the first literal on the trail from which the trail must
+     *         be undone, which is {@code -1} if the literals propagated at the root must
+     *         also be undone, or the size of the trail if nothing must be undone.
+     */
+    private int checkActivatedConstraints() {
+        int position = trailSize;
+        for (int i = 0; i < activatedConstraints.size(); i++) {
+            int constraint = activatedConstraints.get(i);
+            if (active[constraint]) {
+                position = Math.min(position, firstPropagating(constraint));
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Repairs the watches of the constraints that have been activated since the
+     * previous call, as the watches of inactive constraints are not replaced when
+     * their literals are falsified.
+     */
+    private void watchActivatedConstraints() {
+        for (int i = 0; i < activatedConstraints.size(); i++) {
+            int constraint = activatedConstraints.get(i);
+            if (active[constraint] && !replaceWatch(constraint)) {
+                // The falsified literals may be unassigned before the watched ones.
+                var isWatched = watched[constraint];
+                for (int j = 0; j < isWatched.length; j++) {
+                    if (!isWatched[j]) {
+                        watch(constraint, j);
+                    }
+                }
+            }
+        }
+        activatedConstraints.clear();
+    }
+
+    /**
+     * Gives the position on the trail of the literal whose falsification makes a
+     * constraint propagate a literal or be falsified.
+     * The falsified literals of the constraint are considered in the order of the
+     * trail, as the constraint may propagate literals that have been assigned since.
+     *
+     * @param constraint The index of the constraint to check.
+     *
+     * @return The position of the literal from which the constraint propagates
+     *         literals, which is {@code -1} if the constraint propagates literals when
+     *         no literal is assigned, or the size of the trail if the constraint does
+     *         not propagate any literal.
+     */
+    private int firstPropagating(int constraint) {
+        if (watchedWeights[constraint] >= watchBound(constraint)) {
+            // The constraint has never been close enough to propagate a literal.
+            return trailSize;
+        }
+
+        var lits = literals[constraint];
+        var coefs = coefficients[constraint];
+        long slack = Arrays.stream(coefs).sum() - degrees[constraint];
+        if (isPropagating(constraint, slack, -1)) {
+            return -1;
+        }
+
+        // Falsifying the literals of the constraint in the order of the trail.
+        var falsified = IntStream.range(0, lits.length)
+                .filter(i -> satisfied[LiteralsUtils.neg(lits[i])])
+                .boxed()
+                .sorted(Comparator.comparingInt(i -> positions[LiteralsUtils.var(lits[i])]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int i : falsified) {
+            int position = positions[LiteralsUtils.var(lits[i])];
+            slack -= coefs[i];
+            if (isPropagating(constraint, slack, position)) {
+                return position;
+            }
+        }
+        return trailSize;
+    }
+
+    /**
+     * Checks whether a constraint is falsified or propagates a literal when only the
+     * literals up to the given position on the trail are assigned.
+     *
+     * @param constraint The index of the constraint to check.
+     * @param slack The slack of the constraint at this position.
+     * @param position The position of the last assigned literal to consider.
+     *
+     * @return Whether the constraint is falsified or propagates a literal.
+     */
+    private boolean isPropagating(int constraint, long slack, int position) {
+        if (slack < 0) {
+            return true;
+        }
+
+        var lits = literals[constraint];
+        var coefs = coefficients[constraint];
+        for (int i = 0; (i < lits.length) && (coefs[i] > slack); i++) {
+            int lit = lits[i];
+            boolean assigned = satisfied[lit] || satisfied[LiteralsUtils.neg(lit)];
+            if (!assigned || (positions[LiteralsUtils.var(lit)] > position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Undoes the assignments on the trail, from the assumption level containing the
+     * given position.
+     *
+     * @param position The position of the first literal to unassign, or {@code -1} to
+     *        undo all assignments.
+     */
+    private void cancelFrom(int position) {
+        if (position < assumptionLevels[0]) {
+            // Even the literals propagated at the root must be propagated again.
+            backtrack(0);
+            rootPropagated = false;
+            assumptionLevels[0] = 0;
+            forgetAssumptions(0);
+
+        } else if (position < trailSize) {
+            // Only the assumptions from the given position must be assigned again.
+            int level = nbLastAssumptions;
+            while (assumptionLevels[level] > position) {
+                level--;
+            }
+            backtrack(assumptionLevels[level]);
+            forgetAssumptions(level);
+        }
+    }
+
+    /**
+     * Propagates the active constraints that propagate literals when no literal is
+     * assigned.
+     *
+     * @return Whether the active constraints are not falsified.
+     */
+    private boolean propagateRoot() {
+        for (int i = 0; i < rootConstraints.size(); i++) {
+            int constraint = rootConstraints.get(i);
+            if (active[constraint] && !propagate(constraint)) {
+                backtrack(0);
+                return false;
+            }
+        }
+
+        if (!propagate()) {
+            backtrack(0);
+            return false;
+        }
+
+        rootPropagated = true;
+        assumptionLevels[0] = trailSize;
+        return true;
+    }
+
+    /**
+     * Propagates the literals on the trail whose watches have not been visited yet.
+     *
+     * @return Whether the active constraints are not falsified.
+     */
+    private boolean propagate() {
+        while (head < trailSize) {
+            if (!propagateWatches(LiteralsUtils.neg(trail[head++]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits the constraints watching a literal that has just been falsified.
+     * All the watches of the literal are visited, even if a conflict occurs, so that
+     * the watched weights of the constraints remain consistent.
+     *
+     * @param falsified The falsified literal, in internal format.
+     *
+     * @return Whether the active constraints watching the literal are not falsified.
+     */
+    private boolean propagateWatches(int falsified) {
+        var watchers = watches[falsified];
+        boolean consistent = true;
+        int kept = 0;
+        for (int i = 0; i < watchers.size(); i += 2) {
+            int constraint = watchers.get(i);
+            int position = watchers.get(i + 1);
+            watchedWeights[constraint] -= coefficients[constraint][position];
+
+            if (!active[constraint]) {
+                // The watches of the constraint are repaired when it is activated.
+                watchers.set(kept++, constraint);
+                watchers.set(kept++, position);
+                continue;
+            }
+
+            if (replaceWatch(constraint)) {
+                // The constraint does not need to watch this literal anymore.
+                watched[constraint][position] = false;
+                continue;
+            }
+
+            // The literal remains watched, and the constraint may propagate literals.
+            watchers.set(kept++, constraint);
+            watchers.set(kept++, position);
+            if (consistent) {
+                consistent = propagate(constraint);
+            }
+        }
+        watchers.shrinkTo(kept);
+        return consistent;
+    }
+
+    /**
+     * Watches non-falsified literals of a constraint until the coefficients of its
+     * non-falsified watched literals sum up to at least {@link #watchBound(int)}.
+     *
+     * @param constraint The index of the constraint.
+     *
+     * @return Whether the bound has been reached.
+     */
+    private boolean replaceWatch(int constraint) {
+        long bound = watchBound(constraint);
+        var lits = literals[constraint];
+        var coefs = coefficients[constraint];
+        var isWatched = watched[constraint];
+        for (int i = 0; (i < lits.length) && (watchedWeights[constraint] < bound); i++) {
+            if (!isWatched[i] && !satisfied[LiteralsUtils.neg(lits[i])]) {
+                watch(constraint, i);
+                watchedWeights[constraint] += coefs[i];
+            }
+        }
+        return watchedWeights[constraint] >= bound;
+    }
+
+    /**
+     * Satisfies the literals of a constraint that are implied by its slack.
+     * This constraint must watch all its non-falsified literals.
+     *
+     * @param constraint The index of the constraint to propagate.
+     *
+     * @return Whether the constraint is not falsified.
+     */
+    private boolean propagate(int constraint) {
+        long slack = watchedWeights[constraint] - degrees[constraint];
+        if (slack < 0) {
+            return false;
+        }
+
+        var lits = literals[constraint];
+        var coefs = coefficients[constraint];
+        for (int i = 0; (i < lits.length) && (coefs[i] > slack); i++) {
+            int lit = lits[i];
+            if (!satisfied[lit] && !satisfied[LiteralsUtils.neg(lit)]) {
+                assign(lit, constraint);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives the sum of the coefficients of the non-falsified watched literals of a
+     * constraint above which it can neither propagate a literal nor be falsified.
+     *
+     * @param constraint The index of the constraint.
+     *
+     * @return The bound of the watched weight of the constraint.
+     */
+    private long watchBound(int constraint) {
+        var coefs = coefficients[constraint];
+        return (coefs.length == 0) ? degrees[constraint] : (degrees[constraint] + coefs[0]);
+    }
+
+    /**
+     * Watches a literal of a constraint.
+     *
+     * @param constraint The index of the constraint.
+     * @param position The position of the literal to watch in the constraint.
+     */
+    private void watch(int constraint, int position) {
+        watched[constraint][position] = true;
+        watches[literals[constraint][position]].push(constraint).push(position);
+    }
+
+    /**
+     * Satisfies a literal, and updates the satisfied weights of the constraints
+     * containing it.
+     *
+     * @param lit The literal to satisfy, in internal format.
+     * @param reason The constraint propagating the literal, or {@link #ASSUMPTION}
+     *        if the literal is assumed.
+     */
+    private void assign(int lit, int reason) {
+        int variable = LiteralsUtils.var(lit);
+        satisfied[lit] = true;
+        reasons[variable] = reason;
+        positions[variable] = trailSize;
+        if ((reason != ASSUMPTION) && (firstPropagated[reason] < 0)) {
+            firstPropagated[reason] = trailSize;
+        }
+        trail[trailSize++] = lit;
+
+        var constraints = occurrences[lit];
+        var coefs = occurrenceCoefficients[lit];
+        for (int i = 0; i < constraints.length; i++) {
+            int c = constraints[i];
+            long weight = satisfiedWeights[c];
+            satisfiedWeights[c] += coefs[i];
+            if (active[c] && (weight < degrees[c]) && (satisfiedWeights[c] >= degrees[c])) {
+                nbUnsatisfied--;
+            }
+        }
+    }
+
+    /**
+     * Unassigns the literals on the trail, until it has the given size.
+     *
+     * @param size The size of the trail to reach.
+     */
+    private void backtrack(int size) {
+        while (trailSize > size) {
+            int position = --trailSize;
+            int lit = trail[position];
+            satisfied[lit] = false;
+
+            int reason = reasons[LiteralsUtils.var(lit)];
+            if ((reason != ASSUMPTION) && (firstPropagated[reason] == position)) {
+                firstPropagated[reason] = -1;
+            }
+
+            if (position < head) {
+                // The watches of the falsified literal have been visited.
+                var watchers = watches[LiteralsUtils.neg(lit)];
+                for (int i = 0; i < watchers.size(); i += 2) {
+                    int c = watchers.get(i);
+                    watchedWeights[c] += coefficients[c][watchers.get(i + 1)];
+                }
+            }
+
+            var constraints = occurrences[lit];
+            var coefs = occurrenceCoefficients[lit];
+            for (int i = 0; i < constraints.length; i++) {
+                int c = constraints[i];
+                long weight = satisfiedWeights[c];
+                satisfiedWeights[c] -= coefs[i];
+                if (active[c] && (weight >= degrees[c]) && (satisfiedWeights[c] < degrees[c])) {
+                    nbUnsatisfied++;
+                }
+            }
+        }
+        head = Math.min(head, size);
+    }
+
+    /**
+     * Initializes the watches of a constraint, given the literals that are currently
+     * assigned.
+     * The constraint is also recorded if it propagates literals when no literal is
+     * assigned.
+     *
+     * @param constraint The index of the constraint to initialize.
+     */
+    private void initialize(int constraint) {
+        var lits = literals[constraint];
+        var coefs = coefficients[constraint];
+        watched[constraint] = new boolean[lits.length];
+        firstPropagated[constraint] = -1;
+
+        // Watching the non-falsified literals with the largest coefficients.
+        long bound = watchBound(constraint);
+        for (int i = 0; (i < lits.length) && (watchedWeights[constraint] < bound); i++) {
+            if (!satisfied[LiteralsUtils.neg(lits[i])]) {
+                watch(constraint, i);
+                watchedWeights[constraint] += coefs[i];
+            }
+        }
+
+        if (watchedWeights[constraint] < bound) {
+            // The falsified literals must also be watched, as they may be unassigned.
+            for (int i = 0; i < lits.length; i++) {
+                if (!watched[constraint][i]) {
+                    watch(constraint, i);
+                }
+            }
+        }
+
+        long slack = Arrays.stream(coefs).sum() - degrees[constraint];
+        if ((slack < 0) || ((coefs.length > 0) && (coefs[0] > slack))) {
+            rootConstraints.push(constraint);
+        }
+    }
+
+    /**
+     * Imports a constraint learned by the solver.
+     * Learned constraints that are not pseudo-Boolean constraints are considered as
+     * the clauses they imply.
+     *
+     * @param constr The learned constraint.
+     */
+    private void learn(IConstr constr) {
+        var lits = new int[constr.size()];
+        var coefs = new BigInteger[lits.length];
+        var degree = BigInteger.ONE;
+        for (int i = 0; i < lits.length; i++) {
+            lits[i] = constr.get(i);
+            coefs[i] = BigInteger.ONE;
+        }
+
+        if (constr instanceof PBConstr) {
+            var pbConstr = (PBConstr) constr;
+            for (int i = 0; i < lits.length; i++) {
+                coefs[i] = pbConstr.getCoef(i);
+            }
+            degree = pbConstr.getDegree();
+        }
+
+        learn(lits, coefs, degree);
+    }
+
+    /**
+     * Imports a constraint learned by the solver.
+     * The selectors of the constraints it has been derived from are falsified as long
+     * as these constraints are active, and are thus removed from the learned
+     * constraint, which is only active when these constraints are.
+     *
+     * @param lits The literals of the learned constraint, in internal format.
+     * @param coefs The coefficients of the literals of the learned constraint.
+     * @param degree The degree of the learned constraint.
+     */
+    private void learn(int[] lits, BigInteger[] coefs, BigInteger degree) {
+        if (numberOfConstraints - numberOfOriginalConstraints >= MAX_LEARNED_CONSTRAINTS) {
+            // Enough constraints have been learned.
+            return;
+        }
+
+        // Separating the literals of the formula from the selectors.
+        var sum = BigInteger.ZERO;
+        var positions = new VecInt(lits.length);
+        var origins = new VecInt();
+        for (int i = 0; i < lits.length; i++) {
+            int variable = LiteralsUtils.var(lits[i]);
+            if (variable <= numberOfVariables) {
+                sum = sum.add(coefs[i]);
+                positions.push(i);
+
+            } else if ((lits[i] == LiteralsUtils.posLit(variable))
+                    && (variable - numberOfVariables <= numberOfOriginalConstraints)) {
+                origins.push(variable - numberOfVariables - 1);
+
+            } else {
+                // This literal is satisfied when its constraint is active.
+                return;
+            }
+        }
+        if ((degree.signum() <= 0) || !fitsInLong(sum, degree)) {
+            // The constraint is useless, or cannot be represented with long values.
+            return;
+        }
+
+        // Adding the constraint, with its literals ordered by decreasing coefficients.
+        var sorted = sortByDecreasingCoefficients(positions, coefs);
+        int constraint = numberOfConstraints;
+        ensureConstraintCapacity(constraint + 1);
+        literals[constraint] = Arrays.stream(sorted).map(i -> lits[i]).toArray();
+        coefficients[constraint] = Arrays.stream(sorted).mapToLong(i -> coefs[i].longValue()).toArray();
+        degrees[constraint] = degree.longValue();
+        numberOfConstraints++;
+        initialize(constraint);
+
+        // The constraint is active when all the constraints it is derived from are.
+        derivedFrom[constraint] = IntStream.range(0, origins.size())
+                .map(origins::get).distinct().toArray();
+        for (int origin : derivedFrom[constraint]) {
+            if (derivedConstraints[origin] == null) {
+                derivedConstraints[origin] = new VecInt();
+            }
+            derivedConstraints[origin].push(constraint);
+            if (inactiveConstraints.get(origin)) {
+                nbInactiveOrigins[constraint]++;
+            }
+        }
+        if (nbInactiveOrigins[constraint] == 0) {
+            active[constraint] = true;
+            activatedConstraints.push(constraint);
+        }
+    }
+
+    /**
+     * Ensures that the given number of constraints may be stored.
+     *
+     * @param capacity The number of constraints to store.
+     */
+    private void ensureConstraintCapacity(int capacity) {
+        if (capacity > degrees.length) {
+            int newCapacity = Math.max(capacity, degrees.length << 1);
+            literals = Arrays.copyOf(literals, newCapacity);
+            coefficients = Arrays.copyOf(coefficients, newCapacity);
+            degrees = Arrays.copyOf(degrees, newCapacity);
+            watched = Arrays.copyOf(watched, newCapacity);
+            watchedWeights = Arrays.copyOf(watchedWeights, newCapacity);
+            active = Arrays.copyOf(active, newCapacity);
+            firstPropagated = Arrays.copyOf(firstPropagated, newCapacity);
+            derivedFrom = Arrays.copyOf(derivedFrom, newCapacity);
+            nbInactiveOrigins = Arrays.copyOf(nbInactiveOrigins, newCapacity);
+        }
+    }
+
+    /**
+     * Ensures that the given number of assumptions may be recorded.
+     * There may be more assumptions than variables when some of them are repeated.
+     *
+     * @param nbAssumptions The number of assumptions to record.
+     */
+    private void ensureCapacity(int nbAssumptions) {
+        if (nbAssumptions > lastAssumptions.length) {
+            lastAssumptions = Arrays.copyOf(lastAssumptions, nbAssumptions);
+            assumptionLevels = Arrays.copyOf(assumptionLevels, nbAssumptions + 1);
+        }
+    }
+
+    /**
+     * The LearningListener imports in this propagator the constraints learned by a
+     * solver.
+     */
+    private final class LearningListener extends SearchListenerAdapter<ISolverService> {
+
+        /**
+         * The {@code serialVersionUID} of this {@link Serializable} class.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see org.sat4j.specs.SearchListenerAdapter#learn(org.sat4j.specs.IConstr)
+         */
+        @Override
+        public void learn(IConstr constr) {
+            UnitPropagator.this.learn(constr);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see org.sat4j.specs.SearchListenerAdapter#learnUnit(int)
+         */
+        @Override
+        public void learnUnit(int p) {
+            UnitPropagator.this.learn(new int[] { LiteralsUtils.toInternal(p) },
+                    new BigInteger[] { BigInteger.ONE }, BigInteger.ONE);
+        }
+
+    }
+
+}
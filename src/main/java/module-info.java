@@ -32,6 +32,8 @@ module fr.univartois.cril.pbd4 {
 
     requires java.logging;
 
+    requires java.management;
+
     // Module required for parsing the command line.
 
     requires fr.cril.cli;
@@ -0,0 +1,125 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+/**
+ * The AbstractTestModelCounting is the parent class for the test cases checking the
+ * values computed by {@link D4} on formulae whose number of models is known.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+public abstract class AbstractTestModelCounting {
+
+    /**
+     * The path of the KaHyPar configuration file used in the tests.
+     */
+    protected static final String KAHYPAR_CONFIGURATION = "src/test/resources/config/kahypar.ini";
+
+    /**
+     * Creates a new instance of {@link D4} using the KaHyPar configuration of the
+     * tests.
+     *
+     * @return The created configurator.
+     */
+    protected static D4 newD4() {
+        return D4.newInstance().withConfiguration(KAHYPAR_CONFIGURATION);
+    }
+
+    /**
+     * Creates a new instance of {@link D4} using the KaHyPar configuration of the
+     * tests, and reading its input formula from the given file.
+     *
+     * @param path The path of the file containing the formula.
+     *
+     * @return The created configurator.
+     */
+    protected static D4 newD4(String path) {
+        return newD4().onInput(path);
+    }
+
+    /**
+     * Generates the arguments for the test cases run on the CNF and pseudo-Boolean
+     * formulae of the test resources.
+     *
+     * @return The arguments of the test cases, i.e., the path of each formula and its
+     *         number of models.
+     */
+    protected static Stream<Arguments> generateModelCounts() {
+        return Stream.of(
+                Arguments.of("src/test/resources/cnf/example-1.cnf", BigInteger.valueOf(8)),
+                Arguments.of("src/test/resources/cnf/example-2.cnf", BigInteger.valueOf(4)),
+                Arguments.of("src/test/resources/cnf/example-3.cnf", BigInteger.valueOf(576)),
+                Arguments.of("src/test/resources/opb/example-1.opb", BigInteger.valueOf(22)),
+                Arguments.of("src/test/resources/opb/example-2.opb", BigInteger.valueOf(64)),
+                Arguments.of("src/test/resources/opb/example-3.opb", BigInteger.valueOf(115)));
+    }
+
+    /**
+     * Gives a formula made of a single cardinality constraint requiring half of its
+     * variables to be satisfied.
+     *
+     * @param size The number of variables of the formula.
+     *
+     * @return The stream from which the formula can be read, in the OPB format.
+     */
+    protected static InputStream halfCardinalityFormula(int size) {
+        var opb = new StringBuilder("* #variable= " + size + " #constraint= 1\n");
+        for (int i = 1; i <= size; i++) {
+            opb.append("+1 x").append(i).append(' ');
+        }
+        opb.append(">= ").append(size / 2).append(" ;\n");
+        return new ByteArrayInputStream(opb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Gives the number of models of a formula made of a single cardinality constraint
+     * requiring half of its variables to be satisfied.
+     *
+     * @param size The number of variables of the formula.
+     *
+     * @return The number of models of the formula.
+     *
+     * @see #halfCardinalityFormula(int)
+     */
+    protected static BigInteger halfCardinalityModelCount(int size) {
+        var modelCount = BigInteger.ZERO;
+        var binomial = BigInteger.ONE;
+        for (int k = 0; k <= size; k++) {
+            if (k >= size / 2) {
+                modelCount = modelCount.add(binomial);
+            }
+            binomial = binomial.multiply(BigInteger.valueOf(size - (long) k))
+                .divide(BigInteger.valueOf(k + 1L));
+        }
+        return modelCount;
+    }
+
+}
@@ -0,0 +1,165 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+import fr.univartois.cril.pbd4.listener.D4Listener;
+
+/**
+ * The TestAnytimeModelCounter is a JUnit test case testing the bounds on the number
+ * of models reported by {@link AnytimeModelCounter}.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The bounds reported while counting models are correct.")
+public final class TestAnytimeModelCounter extends AbstractTestModelCounting {
+
+    /**
+     * Tests that the bounds reported by D4 while counting the models of a formula are
+     * correct.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The bounds reported while counting models are correct.")
+    public void testBounds(String path, BigInteger expectedModelCount) {
+        var checker = new BoundsChecker(expectedModelCount);
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .reportBounds(Duration.ZERO)
+            .notifyListener(checker)
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+        checker.assertConverged();
+    }
+
+    /**
+     * Tests that the bounds reported by D4 while counting the models of a formula are
+     * correct when the algorithm is driven by an explicit stack.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The bounds reported while counting models are correct when using an explicit stack.")
+    public void testBoundsWithExplicitStack(String path, BigInteger expectedModelCount) {
+        var checker = new BoundsChecker(expectedModelCount);
+        var computedModelCount = newD4(path)
+            .reportBounds(Duration.ZERO)
+            .useExplicitStack(true)
+            .notifyListener(checker)
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+        checker.assertConverged();
+    }
+
+    /**
+     * Tests that the bounds reported by D4 while counting the models of a formula are
+     * correct when the satisfiability of the sub-formulae is never checked.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The bounds reported while counting models are correct when satisfiability is never checked.")
+    public void testBoundsWithoutSatChecks(String path, BigInteger expectedModelCount) {
+        var checker = new BoundsChecker(expectedModelCount);
+        var computedModelCount = newD4(path)
+            .checkSatisfiability(SatCheckPolicy.never())
+            .reportBounds(Duration.ZERO)
+            .notifyListener(checker)
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+        checker.assertConverged();
+    }
+
+    /**
+     * The BoundsChecker is a listener checking that the bounds reported while counting
+     * the models of a formula enclose the actual number of models.
+     */
+    private static final class BoundsChecker implements D4Listener {
+
+        /**
+         * The actual number of models of the formula.
+         */
+        private final BigInteger expectedModelCount;
+
+        /**
+         * The last lower bound that has been reported.
+         */
+        private BigInteger lowerBound;
+
+        /**
+         * The last upper bound that has been reported.
+         */
+        private BigInteger upperBound;
+
+        /**
+         * Creates a new BoundsChecker.
+         *
+         * @param expectedModelCount The actual number of models of the formula.
+         */
+        private BoundsChecker(BigInteger expectedModelCount) {
+            this.expectedModelCount = expectedModelCount;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * fr.univartois.cril.pbd4.listener.D4Listener#boundsUpdated(java.math.BigInteger,
+         * java.math.BigInteger)
+         */
+        @Override
+        public void boundsUpdated(BigInteger lowerBound, BigInteger upperBound) {
+            assertTrue(lowerBound.compareTo(expectedModelCount) <= 0);
+            assertTrue(upperBound.compareTo(expectedModelCount) >= 0);
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        /**
+         * Checks that the last reported bounds are both equal to the number of models.
+         */
+        private void assertConverged() {
+            assertEquals(expectedModelCount, lowerBound);
+            assertEquals(expectedModelCount, upperBound);
+        }
+
+    }
+
+}
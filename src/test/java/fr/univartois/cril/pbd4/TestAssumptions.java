@@ -0,0 +1,94 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sat4j.core.VecInt;
+
+/**
+ * The TestAssumptions is a JUnit test case testing the results computed by D4 under
+ * assumptions.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The assumptions of D4 are handled as expected.")
+public final class TestAssumptions extends AbstractTestModelCounting {
+
+    /**
+     * The number of models of the formula given by {@link #formula()} in which its
+     * first variable is satisfied.
+     */
+    private static final BigInteger ASSUMED_MODEL_COUNT = BigInteger.valueOf(3);
+
+    /**
+     * Tests that repeating an assumed literal does not change the number of models
+     * computed by D4.
+     */
+    @Test
+    @DisplayName("Repeated assumptions are only assumed once.")
+    public void testRepeatedAssumptions() {
+        var computedModelCount = newD4()
+            .onCnfInput(formula())
+            .underAssumptions(VecInt.of(1))
+            .countModels();
+        assertEquals(ASSUMED_MODEL_COUNT, computedModelCount);
+
+        var repeatedModelCount = newD4()
+            .onCnfInput(formula())
+            .underAssumptions(VecInt.of(1, 1))
+            .countModels();
+        assertEquals(ASSUMED_MODEL_COUNT, repeatedModelCount);
+    }
+
+    /**
+     * Tests that contradictory assumptions are rejected.
+     */
+    @Test
+    @DisplayName("Contradictory assumptions are rejected.")
+    public void testContradictoryAssumptions() {
+        var d4 = newD4().onCnfInput(formula());
+        assertThrows(IllegalArgumentException.class,
+                () -> d4.underAssumptions(VecInt.of(1, 2, -1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> d4.underAssumptions(VecInt.of(1, 0)));
+    }
+
+    /**
+     * Gives a formula in which the first variable does not occur in all constraints,
+     * so that the free variables of the assumed formula are counted.
+     *
+     * @return The input stream of the formula, in the DIMACS format.
+     */
+    private static InputStream formula() {
+        return new ByteArrayInputStream("p cnf 4 2\n-1 2 0\n3 4 0\n".getBytes());
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestBudget is a JUnit test case testing the results computed by D4 when its
+ * computation is given a {@link Budget}.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The budgets of D4 are respected.")
+public final class TestBudget extends AbstractTestModelCounting {
+
+    /**
+     * Tests that the number of models computed by D4 is correct when the budgets of
+     * the computation do not run out.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when the budgets do not run out.")
+    public void testWithinBudget(String path, BigInteger expectedModelCount) {
+        var d4 = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .withTimeLimit(Duration.ofHours(1))
+            .withMemoryLimit(Long.MAX_VALUE);
+        var computedModelCount = d4.countModels();
+        assertTrue(d4.isComplete());
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is a lower bound when a budget of
+     * the computation runs out.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is a lower bound when a budget runs out.")
+    public void testOutOfBudget(String path, BigInteger expectedModelCount) {
+        var d4 = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .withTimeLimit(Duration.ofNanos(1));
+        var computedModelCount = d4.countModels();
+        assertFalse(d4.isComplete());
+        assertTrue(computedModelCount.compareTo(expectedModelCount) <= 0);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is a lower bound when the memory
+     * that survives garbage collections exceeds the memory budget of the computation.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is a lower bound when the memory budget runs out.")
+    public void testOutOfMemoryBudget(String path, BigInteger expectedModelCount) {
+        // Making sure that the heap in use after a collection is known.
+        System.gc();
+        assertTrue(Budget.heapInUseAfterCollection() > 1);
+
+        var d4 = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .withMemoryLimit(1);
+        var computedModelCount = d4.countModels();
+        assertFalse(d4.isComplete());
+        assertTrue(computedModelCount.compareTo(expectedModelCount) <= 0);
+    }
+
+}
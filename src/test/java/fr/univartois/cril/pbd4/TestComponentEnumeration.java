@@ -0,0 +1,90 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestComponentEnumeration is a JUnit test case testing the values computed by D4
+ * when the models of small components are enumerated instead of being compiled.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The values computed when enumerating small components are correct.")
+public final class TestComponentEnumeration extends AbstractTestModelCounting {
+
+    /**
+     * The maximum number of variables of the components whose models are enumerated in
+     * the tests, which is large enough for some components of the formulae to be
+     * enumerated, but not all of them.
+     */
+    private static final int ENUMERATION_THRESHOLD = 4;
+
+    /**
+     * Tests that the number of models computed by D4 is correct when the models of
+     * small components are enumerated.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when small components are enumerated.")
+    public void testCountModels(String path, BigInteger expectedModelCount) {
+        var computedCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .enumerateSmallComponents(ENUMERATION_THRESHOLD)
+            .countModels();
+        assertEquals(expectedModelCount, computedCount);
+    }
+
+    /**
+     * Tests that the exact weighted number of models computed by D4 on a formula whose
+     * literals all have weight 1 is its number of models when the models of small
+     * components are enumerated.
+     * Contrary to the model counter, the weighted model counter rebuilds the result of
+     * enumerated components from its callbacks.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The exact weighted number of models is correct when small components are enumerated.")
+    public void testCountModelsWeightedExactly(String path, BigInteger expectedModelCount) {
+        var computedCount = newD4(path)
+            .enumerateSmallComponents(ENUMERATION_THRESHOLD)
+            .countModelsWeightedExactly();
+        assertEquals(new BigDecimal(expectedModelCount), computedCount);
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestCubeSplitter is a JUnit test case testing the cubes computed by
+ * {@link CubeSplitter}.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The cubes of a formula cover all its models.")
+public final class TestCubeSplitter extends AbstractTestModelCounting {
+
+    /**
+     * The maximum number of decisions in the cubes computed in the tests.
+     */
+    private static final int CUBE_DEPTH = 3;
+
+    /**
+     * The maximum number of cubes computed in the tests.
+     */
+    private static final int MAX_CUBES = 6;
+
+    /**
+     * Tests that the numbers of models computed by D4 on the cubes of a formula sum up
+     * to its number of models.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The numbers of models of the cubes of a formula sum up to its number of models.")
+    public void testCountModelsOfCubes(String path, BigInteger expectedModelCount) {
+        var cubes = newD4(path).splitIntoCubes(CUBE_DEPTH, MAX_CUBES);
+        assertTrue(cubes.size() <= MAX_CUBES);
+
+        var modelCount = BigInteger.ZERO;
+        for (var cube : cubes) {
+            assertTrue(cube.size() <= CUBE_DEPTH);
+            modelCount = modelCount.add(newD4(path)
+                .useCachingStrategy(ExactMatchCache.newInstance())
+                .underAssumptions(cube)
+                .countModels());
+        }
+        assertEquals(expectedModelCount, modelCount);
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.CacheKeyMode;
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestExplicitStack is a JUnit test case testing the compilation engine of D4
+ * that is driven by an explicit stack.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The explicit-stack engine of D4 behaves as expected.")
+public final class TestExplicitStack extends AbstractTestModelCounting {
+
+    /**
+     * The number of variables of the deep formula used in the tests.
+     * This is about the smallest size for which the recursive algorithm overflows a
+     * stack of {@link #SMALL_STACK_SIZE} bytes, even once its code has been compiled
+     * by the JIT (which makes its stack frames smaller).
+     */
+    private static final int DEEP_FORMULA_SIZE = 250;
+
+    /**
+     * The size (in bytes) of the stack of the thread compiling the deep formula, which
+     * is too small for the recursive algorithm.
+     */
+    private static final long SMALL_STACK_SIZE = 192 * 1024;
+
+    /**
+     * Tests that the number of models computed by D4 is correct when the algorithm is
+     * driven by an explicit stack.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when using an explicit stack.")
+    public void testCountModels(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .useExplicitStack(true)
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+    /**
+     * Tests that a formula requiring many nested decisions overflows a small stack
+     * when the algorithm is recursive.
+     * This test ensures that {@link #testDeepFormula()} actually needs the explicit
+     * stack.
+     *
+     * @throws InterruptedException If the compiling thread is interrupted.
+     */
+    @Test
+    @DisplayName("A deep formula overflows a small stack when using the recursive algorithm.")
+    public void testDeepFormulaWithRecursion() throws InterruptedException {
+        var result = countModelsOfDeepFormula(false);
+        assertTrue(result instanceof StackOverflowError);
+    }
+
+    /**
+     * Tests that a formula requiring many nested decisions is compiled on a small
+     * stack when the algorithm is driven by an explicit stack.
+     *
+     * @throws InterruptedException If the compiling thread is interrupted.
+     */
+    @Test
+    @DisplayName("A deep formula is compiled on a small stack when using an explicit stack.")
+    public void testDeepFormula() throws InterruptedException {
+        var result = countModelsOfDeepFormula(true);
+        assertEquals(halfCardinalityModelCount(DEEP_FORMULA_SIZE), result);
+    }
+
+    /**
+     * Counts the models of a formula requiring many nested decisions, on a thread
+     * having a small stack.
+     * The formula is a single cardinality constraint, stating that at least half of
+     * its variables must be satisfied.
+     *
+     * @param explicitStack Whether the algorithm is driven by an explicit stack.
+     *
+     * @return The number of models of the formula, or the {@link StackOverflowError}
+     *         thrown while counting them.
+     *
+     * @throws InterruptedException If the compiling thread is interrupted.
+     */
+    private static Object countModelsOfDeepFormula(boolean explicitStack)
+            throws InterruptedException {
+        var result = new AtomicReference<Object>();
+        var thread = new Thread(null, () -> {
+            try {
+                result.set(newD4()
+                    .useCachingStrategy(ExactMatchCache.newInstance(CacheKeyMode.RESIDUAL_CONSTRAINTS))
+                    .useExplicitStack(explicitStack)
+                    .onOpbInput(halfCardinalityFormula(DEEP_FORMULA_SIZE))
+                    .countModels());
+
+            } catch (StackOverflowError e) {
+                result.set(e);
+            }
+        }, "deep-formula", SMALL_STACK_SIZE);
+        thread.start();
+        thread.join();
+        return result.get();
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestLogModelCounter is a JUnit test case testing the logarithms of the numbers
+ * of models computed by {@link LogModelCounter}.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The logarithm of the number of models is correct.")
+public final class TestLogModelCounter extends AbstractTestModelCounting {
+
+    /**
+     * The precision expected for the logarithms of the numbers of models.
+     */
+    private static final double LOG2_PRECISION = 1e-9;
+
+    /**
+     * Tests that the logarithm of the number of models computed by D4 is correct.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The logarithm of the number of models is correct.")
+    public void testCountModelsLog2(String path, BigInteger expectedModelCount) {
+        var computedLog2 = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .countModelsLog2();
+        assertEquals(Math.log(expectedModelCount.doubleValue()) / Math.log(2), computedLog2,
+                LOG2_PRECISION);
+    }
+
+    /**
+     * Tests that the logarithm of the number of models of an unsatisfiable formula is
+     * negative infinity.
+     */
+    @Test
+    @DisplayName("The logarithm of the number of models of an unsatisfiable formula is negative infinity.")
+    public void testUnsatisfiableFormula() {
+        var cnf = "p cnf 2 4\n1 2 0\n1 -2 0\n-1 2 0\n-1 -2 0\n";
+        var computedLog2 = newD4()
+            .onCnfInput(new ByteArrayInputStream(cnf.getBytes(StandardCharsets.UTF_8)))
+            .countModelsLog2();
+        assertEquals(Double.NEGATIVE_INFINITY, computedLog2);
+    }
+
+}
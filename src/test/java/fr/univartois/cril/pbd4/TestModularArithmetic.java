@@ -0,0 +1,111 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestModularArithmetic is a JUnit test case testing the arithmetic operations
+ * performed modulo a 62-bit prime.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Arithmetic operations modulo a prime are performed as expected.")
+public final class TestModularArithmetic {
+
+    /**
+     * The largest exponent of the powers of two used in the tests.
+     */
+    private static final int MAX_EXPONENT = 200;
+
+    /**
+     * The number of random operations performed in the tests.
+     */
+    private static final int NB_OPERATIONS = 1000;
+
+    /**
+     * Tests that the largest primes are computed in decreasing order.
+     */
+    @Test
+    @DisplayName("The largest primes are computed in decreasing order.")
+    public void testLargestPrimes() {
+        var primes = ModularArithmetic.largestPrimes(3);
+        for (int i = 0; i < primes.length; i++) {
+            assertTrue(primes[i] < (1L << ModularArithmetic.MAX_BITS));
+            assertTrue(primes[i] > (1L << (ModularArithmetic.MAX_BITS - 1)));
+            assertTrue(BigInteger.valueOf(primes[i]).isProbablePrime(Integer.SIZE));
+            assertTrue((i == 0) || (primes[i] < primes[i - 1]));
+        }
+    }
+
+    /**
+     * Tests that only odd primes lower than {@code 2^62} are accepted as modulus.
+     */
+    @Test
+    @DisplayName("Illegal moduli are rejected.")
+    public void testIllegalModulus() {
+        assertThrows(IllegalArgumentException.class, () -> ModularArithmetic.modulo(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> ModularArithmetic.modulo(91, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> ModularArithmetic.modulo(Long.MAX_VALUE, 1));
+    }
+
+    /**
+     * Tests that additions, multiplications and shifts give the same results as
+     * their counterparts on {@link BigInteger}.
+     */
+    @Test
+    @DisplayName("Operations give the same results as on big integers.")
+    public void testOperations() {
+        var random = new Random(42);
+        for (long prime : ModularArithmetic.largestPrimes(2)) {
+            var arithmetic = ModularArithmetic.modulo(prime, MAX_EXPONENT);
+            var modulus = BigInteger.valueOf(prime);
+
+            for (int i = 0; i < NB_OPERATIONS; i++) {
+                // Building random values from powers of two.
+                int e1 = random.nextInt(MAX_EXPONENT + 1);
+                int e2 = random.nextInt(MAX_EXPONENT + 1);
+                int shift = random.nextInt(MAX_EXPONENT + 1);
+                long a = arithmetic.add(arithmetic.powerOfTwo(e1), arithmetic.powerOfTwo(e2));
+                var expected = BigInteger.ONE.shiftLeft(e1).add(BigInteger.ONE.shiftLeft(e2));
+                assertEquals(expected.mod(modulus).longValue(), arithmetic.valueOf(a));
+
+                long b = arithmetic.multiply(a, arithmetic.shiftLeft(a, shift));
+                expected = expected.multiply(expected).shiftLeft(shift);
+                assertEquals(expected.mod(modulus).longValue(), arithmetic.valueOf(b));
+            }
+
+            assertEquals(0, arithmetic.valueOf(arithmetic.zero()));
+        }
+    }
+
+}
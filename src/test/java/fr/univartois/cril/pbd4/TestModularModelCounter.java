@@ -0,0 +1,103 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.CacheKeyMode;
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestModularModelCounter is a JUnit test case testing the numbers of models
+ * computed by D4 using modular arithmetic.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The number of models computed using modular arithmetic is correct.")
+public final class TestModularModelCounter extends AbstractTestModelCounting {
+
+    /**
+     * The number of variables of the formula used in the tests, whose number of
+     * models exceeds the product of two 62-bit primes.
+     */
+    private static final int LARGE_COUNT_FORMULA_SIZE = 150;
+
+    /**
+     * The prime modulo which models are counted in the tests.
+     */
+    private static final long SMALL_PRIME = 13;
+
+    /**
+     * Tests that the number of models computed by D4 is correct when using modular
+     * arithmetic.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when using modular arithmetic.")
+    public void testCountModelsModularly(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .countModelsModularly();
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is correct modulo a small prime.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct modulo a prime.")
+    public void testCountModelsModuloPrime(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path).countModelsModulo(SMALL_PRIME);
+        assertEquals(expectedModelCount.mod(BigInteger.valueOf(SMALL_PRIME)).longValue(),
+                computedModelCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 on a formula having many models
+     * is correct when using modular arithmetic.
+     */
+    @Test
+    @DisplayName("The number of models of a formula having many models is correct when using modular arithmetic.")
+    public void testLargeModelCount() {
+        var computedModelCount = newD4()
+            .useCachingStrategy(ExactMatchCache.newInstance(CacheKeyMode.RESIDUAL_CONSTRAINTS))
+            .onOpbInput(halfCardinalityFormula(LARGE_COUNT_FORMULA_SIZE))
+            .countModelsModularly();
+        assertEquals(halfCardinalityModelCount(LARGE_COUNT_FORMULA_SIZE), computedModelCount);
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestParallelCompilation is a JUnit test case testing that the number of models
+ * computed by D4 is correct when it uses several threads.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The number of models computed by D4 in parallel is correct.")
+public final class TestParallelCompilation extends AbstractTestModelCounting {
+
+    /**
+     * The number of threads used in the tests.
+     */
+    private static final int NUMBER_OF_THREADS = 4;
+
+    /**
+     * The depth down to which both branches of a decision are explored in parallel in
+     * the tests.
+     */
+    private static final int PARALLEL_BRANCHING_DEPTH = 3;
+
+    /**
+     * Tests that the number of models computed by D4 is correct when the connected
+     * components of the formula are compiled in parallel.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when compiling components in parallel.")
+    public void testParallelComponents(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .withThreads(NUMBER_OF_THREADS)
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is correct when both branches of
+     * the first decisions are explored in parallel.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when branching in parallel.")
+    public void testParallelBranches(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .withThreads(NUMBER_OF_THREADS)
+            .branchInParallel(PARALLEL_BRANCHING_DEPTH)
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+}
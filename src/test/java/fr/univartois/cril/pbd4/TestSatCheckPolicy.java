@@ -0,0 +1,94 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestSatCheckPolicy is a JUnit test case testing that the number of models
+ * computed by D4 does not depend on the {@link SatCheckPolicy} it uses.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The number of models is correct whatever the satisfiability checks.")
+public final class TestSatCheckPolicy extends AbstractTestModelCounting {
+
+    /**
+     * The maximum number of decisions made to reach the sub-formulae whose
+     * satisfiability is checked in the tests.
+     */
+    private static final int SAT_CHECK_DEPTH = 1;
+
+    /**
+     * The maximum number of conflicts allowed when checking the satisfiability of a
+     * sub-formula in the tests.
+     */
+    private static final int CONFLICT_BUDGET = 1;
+
+    /**
+     * Tests that the number of models computed by D4 is correct when the
+     * satisfiability of the sub-formulae is never checked.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when satisfiability is never checked.")
+    public void testNever(String path, BigInteger expectedModelCount) {
+        var computedCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .checkSatisfiability(SatCheckPolicy.never())
+            .countModels();
+        assertEquals(expectedModelCount, computedCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is correct when the
+     * satisfiability of the sub-formulae is only checked close to the root of the
+     * search, with a conflict budget.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when satisfiability is partially checked.")
+    public void testUpToDepthWithConflictBudget(String path, BigInteger expectedModelCount) {
+        var computedCount = newD4(path)
+            .useExplicitStack(true)
+            .checkSatisfiability(SatCheckPolicy.upToDepth(SAT_CHECK_DEPTH)
+                    .withConflictBudget(CONFLICT_BUDGET))
+            .countModels();
+        assertEquals(expectedModelCount, computedCount);
+    }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static fr.univartois.cril.pbd4.TestWeightedModelCounter.WEIGHTED_FORMULA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.sat4j.core.VecInt;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestSemiringEvaluator is a JUnit test case testing the values computed by D4
+ * when evaluating formulae in a semiring.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The values computed in semirings are correct.")
+public final class TestSemiringEvaluator extends AbstractTestModelCounting {
+
+    /**
+     * The prime modulo which models are counted in the tests.
+     */
+    private static final long SMALL_PRIME = 13;
+
+    /**
+     * The largest weight of a model of the formula in
+     * {@link TestWeightedModelCounter#WEIGHTED_FORMULA}.
+     */
+    private static final double MAX_MODEL_WEIGHT = 1.26;
+
+    /**
+     * The largest weight of a model of the formula in
+     * {@link TestWeightedModelCounter#WEIGHTED_FORMULA} satisfying its first variable.
+     */
+    private static final double ASSUMED_MAX_MODEL_WEIGHT = 0.54;
+
+    /**
+     * The precision used when comparing weights computed in {@code double} arithmetic.
+     */
+    private static final double WEIGHT_PRECISION = 1e-9;
+
+    /**
+     * Tests that the value computed by D4 in a generic counting semiring is the number
+     * of models of the formula.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The value computed in the counting semiring is the number of models.")
+    public void testCountingSemiring(String path, BigInteger expectedModelCount) {
+        var computedCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .evaluate(new CountingSemiring());
+        assertEquals(expectedModelCount, computedCount);
+    }
+
+    /**
+     * Tests that the value computed by D4 in the semiring counting models modulo a
+     * prime is correct.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The value computed in the modular counting semiring is correct.")
+    public void testModularCountingSemiring(String path, BigInteger expectedModelCount) {
+        long computedCount = newD4(path).evaluate(Semiring.modularCounting(SMALL_PRIME));
+        assertEquals(expectedModelCount.mod(BigInteger.valueOf(SMALL_PRIME)).longValue(),
+                computedCount);
+    }
+
+    /**
+     * Tests that the value computed by D4 on a weighted formula in the max-product
+     * semiring is the largest weight of its models, with or without assumptions.
+     *
+     * @throws IOException If an I/O error occurs while reading the weights.
+     */
+    @Test
+    @DisplayName("The value computed in the max-product semiring is correct.")
+    public void testMaxProductSemiring() throws IOException {
+        var semiring = Semiring.maxProduct(LiteralWeights.read(WEIGHTED_FORMULA));
+        double computedWeight = newD4(WEIGHTED_FORMULA).evaluate(semiring);
+        assertEquals(MAX_MODEL_WEIGHT, computedWeight, WEIGHT_PRECISION);
+
+        double assumedWeight = newD4(WEIGHTED_FORMULA)
+            .underAssumptions(VecInt.of(1))
+            .evaluate(semiring);
+        assertEquals(ASSUMED_MAX_MODEL_WEIGHT, assumedWeight, WEIGHT_PRECISION);
+    }
+
+    /**
+     * The CountingSemiring is the semiring of the natural numbers, in which the value
+     * of a formula is its number of models.
+     */
+    private static final class CountingSemiring implements Semiring<BigInteger> {
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.Semiring#zero()
+         */
+        @Override
+        public BigInteger zero() {
+            return BigInteger.ZERO;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.Semiring#one()
+         */
+        @Override
+        public BigInteger one() {
+            return BigInteger.ONE;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.Semiring#add(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public BigInteger add(BigInteger a, BigInteger b) {
+            return a.add(b);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.Semiring#multiply(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public BigInteger multiply(BigInteger a, BigInteger b) {
+            return a.multiply(b);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.Semiring#weight(int)
+         */
+        @Override
+        public BigInteger weight(int literal) {
+            return BigInteger.ONE;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see fr.univartois.cril.pbd4.Semiring#freeVariables(int)
+         */
+        @Override
+        public BigInteger freeVariables(int nbVariables) {
+            return BigInteger.ONE.shiftLeft(nbVariables);
+        }
+
+    }
+
+}
@@ -0,0 +1,271 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.sat4j.core.VecInt;
+
+import fr.univartois.cril.pbd4.caching.ExactMatchCache;
+
+/**
+ * The TestWeightedModelCounter is a JUnit test case testing the weighted numbers of
+ * models computed by {@link WeightedModelCounter} and
+ * {@link ExactWeightedModelCounter}.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The weighted number of models is correct.")
+public final class TestWeightedModelCounter extends AbstractTestModelCounting {
+
+    /**
+     * The path of the file containing a formula whose literals are weighted.
+     */
+    static final String WEIGHTED_FORMULA = "src/test/resources/cnf/weighted.cnf";
+
+    /**
+     * The weighted number of models of the formula in {@link #WEIGHTED_FORMULA}.
+     */
+    private static final BigDecimal WEIGHTED_MODEL_COUNT = new BigDecimal("3.6");
+
+    /**
+     * The weighted number of models of the formula in {@link #WEIGHTED_FORMULA}, under
+     * the assumption that its first variable is falsified.
+     */
+    private static final BigDecimal ASSUMED_WEIGHTED_MODEL_COUNT = new BigDecimal("2.1");
+
+    /**
+     * The path of the file containing weights in the format of Cachet, for the
+     * formula {@link #TERNARY_BINARY_CLAUSE}.
+     */
+    private static final String CACHET_WEIGHTS = "src/test/resources/cnf/weighted-cachet.txt";
+
+    /**
+     * The weighted number of models of {@link #TERNARY_BINARY_CLAUSE}, with the weights
+     * in {@link #CACHET_WEIGHTS}.
+     */
+    private static final BigDecimal CACHET_WEIGHTED_MODEL_COUNT = new BigDecimal("1.3");
+
+    /**
+     * The formula {@code 1 | 2} over 3 variables, in the DIMACS format.
+     */
+    private static final String TERNARY_BINARY_CLAUSE = "p cnf 3 1\n1 2 0\n";
+
+    /**
+     * The formula {@code 1 | 2}, in the DIMACS format.
+     */
+    private static final String BINARY_CLAUSE = "p cnf 2 1\n1 2 0\n";
+
+    /**
+     * The formula {@code 1 | 2 | 3 | 4}, in the DIMACS format.
+     */
+    private static final String QUATERNARY_CLAUSE = "p cnf 4 1\n1 2 3 4 0\n";
+
+    /**
+     * The precision used when comparing weighted model counts computed in
+     * {@code double} arithmetic.
+     */
+    private static final double WEIGHT_PRECISION = 1e-9;
+
+    /**
+     * Tests that the weighted number of models computed by D4 on a formula whose
+     * literals all have weight 1 is its number of models.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The weighted number of models of an unweighted formula is its number of models.")
+    public void testUnweightedFormula(String path, BigInteger expectedModelCount) {
+        var computedCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .countModelsWeighted();
+        assertEquals(expectedModelCount.doubleValue(), computedCount, WEIGHT_PRECISION);
+    }
+
+    /**
+     * Tests that the exact weighted number of models computed by D4 on a formula whose
+     * literals all have weight 1 is its number of models.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The exact weighted number of models of an unweighted formula is its number of models.")
+    public void testUnweightedFormulaExactly(String path, BigInteger expectedModelCount) {
+        var computedCount = newD4(path).countModelsWeightedExactly();
+        assertEquals(new BigDecimal(expectedModelCount), computedCount);
+    }
+
+    /**
+     * Tests that the weighted number of models computed by D4 on a weighted formula is
+     * correct.
+     *
+     * @throws IOException If an I/O error occurs while reading the weights.
+     */
+    @Test
+    @DisplayName("The weighted number of models of a weighted formula is correct.")
+    public void testWeightedFormula() throws IOException {
+        var computedCount = newD4(WEIGHTED_FORMULA)
+            .withWeights(LiteralWeights.read(WEIGHTED_FORMULA))
+            .countModelsWeighted();
+        assertEquals(WEIGHTED_MODEL_COUNT.doubleValue(), computedCount, WEIGHT_PRECISION);
+    }
+
+    /**
+     * Tests that the exact weighted number of models computed by D4 on a weighted
+     * formula is correct, with or without assumptions.
+     *
+     * @throws IOException If an I/O error occurs while reading the weights.
+     */
+    @Test
+    @DisplayName("The exact weighted number of models of a weighted formula is correct.")
+    public void testWeightedFormulaExactly() throws IOException {
+        var weights = LiteralWeights.read(WEIGHTED_FORMULA);
+        var computedCount = newD4(WEIGHTED_FORMULA)
+            .withWeights(weights)
+            .countModelsWeightedExactly();
+        assertEquals(WEIGHTED_MODEL_COUNT, computedCount);
+
+        var assumedCount = newD4(WEIGHTED_FORMULA)
+            .withWeights(weights)
+            .underAssumptions(VecInt.of(-1))
+            .countModelsWeightedExactly();
+        assertEquals(ASSUMED_WEIGHTED_MODEL_COUNT, assumedCount);
+    }
+
+    /**
+     * Tests that the weighted number of models computed by D4 is correct when the
+     * weights are given in the format of Cachet, which also determines the weights of
+     * the opposite literals.
+     *
+     * @throws IOException If an I/O error occurs while reading the weights.
+     */
+    @Test
+    @DisplayName("The weights given in the format of Cachet are read correctly.")
+    public void testCachetWeights() throws IOException {
+        var weights = LiteralWeights.read(CACHET_WEIGHTS);
+        assertEquals(new BigDecimal("0.7"), weights.get(-1));
+        assertEquals(BigDecimal.ONE, weights.get(-3));
+
+        var computedCount = newD4()
+            .onCnfInput(new ByteArrayInputStream(TERNARY_BINARY_CLAUSE.getBytes()))
+            .withWeights(weights)
+            .countModelsWeighted();
+        assertEquals(CACHET_WEIGHTED_MODEL_COUNT.doubleValue(), computedCount,
+                WEIGHT_PRECISION);
+
+        var exactCount = newD4()
+            .onCnfInput(new ByteArrayInputStream(TERNARY_BINARY_CLAUSE.getBytes()))
+            .withWeights(weights)
+            .countModelsWeightedExactly();
+        assertEquals(0, CACHET_WEIGHTED_MODEL_COUNT.compareTo(exactCount));
+    }
+
+    /**
+     * Tests that repeating an assumed literal does not change the weighted number of
+     * models computed by D4.
+     *
+     * @throws IOException If an I/O error occurs while reading the weights.
+     */
+    @Test
+    @DisplayName("The weight of a repeated assumption is only counted once.")
+    public void testRepeatedAssumptions() throws IOException {
+        var weights = LiteralWeights.read(WEIGHTED_FORMULA);
+        var computedCount = newD4(WEIGHTED_FORMULA)
+            .withWeights(weights)
+            .underAssumptions(VecInt.of(-1, -1))
+            .countModelsWeighted();
+        assertEquals(ASSUMED_WEIGHTED_MODEL_COUNT.doubleValue(), computedCount,
+                WEIGHT_PRECISION);
+
+        var exactCount = newD4(WEIGHTED_FORMULA)
+            .withWeights(weights)
+            .underAssumptions(VecInt.of(-1, -1))
+            .countModelsWeightedExactly();
+        assertEquals(ASSUMED_WEIGHTED_MODEL_COUNT, exactCount);
+    }
+
+    /**
+     * Tests that the exact weighted number of models computed by D4 is correct when
+     * the weights of the literals of a variable cannot be normalized into decimal
+     * numbers.
+     */
+    @Test
+    @DisplayName("The exact weighted number of models does not require decimal normalized weights.")
+    public void testNonDecimalNormalizedWeights() {
+        var weights = LiteralWeights.newInstance().set(-1, BigDecimal.valueOf(2));
+        var exactCount = newD4()
+            .onCnfInput(new ByteArrayInputStream(BINARY_CLAUSE.getBytes()))
+            .withWeights(weights)
+            .countModelsWeightedExactly();
+        assertEquals(BigDecimal.valueOf(4), exactCount);
+
+        var computedCount = newD4()
+            .onCnfInput(new ByteArrayInputStream(BINARY_CLAUSE.getBytes()))
+            .withWeights(weights)
+            .countModelsWeighted();
+        assertEquals(4, computedCount, WEIGHT_PRECISION);
+    }
+
+    /**
+     * Tests that the weighted number of models computed by D4 is correct when the
+     * product of the weights of the variables exceeds the range of {@code double}
+     * while the result does not.
+     */
+    @Test
+    @DisplayName("The weighted number of models does not overflow when the weights are large.")
+    public void testLargeWeights() {
+        var large = new BigDecimal("1e200");
+        var small = new BigDecimal("1e-200");
+        var weights = LiteralWeights.newInstance()
+            .set(1, large).set(-1, large)
+            .set(2, large).set(-2, large)
+            .set(3, small).set(-3, small)
+            .set(4, small).set(-4, small);
+
+        var computedCount = newD4()
+            .onCnfInput(new ByteArrayInputStream(QUATERNARY_CLAUSE.getBytes()))
+            .withWeights(weights)
+            .countModelsWeighted();
+        assertEquals(15, computedCount, WEIGHT_PRECISION);
+
+        var exactCount = newD4()
+            .onCnfInput(new ByteArrayInputStream(QUATERNARY_CLAUSE.getBytes()))
+            .withWeights(weights)
+            .countModelsWeightedExactly();
+        assertEquals(BigDecimal.valueOf(15), exactCount);
+    }
+
+}
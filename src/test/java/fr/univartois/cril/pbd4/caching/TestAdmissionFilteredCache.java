@@ -0,0 +1,84 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestAdmissionFilteredCache is a JUnit test case testing the admission of
+ * formulae in a cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Only the expected formulae are admitted in the cache.")
+public final class TestAdmissionFilteredCache extends AbstractTestCaching {
+
+    /**
+     * Tests that formulae having too few variables or constraints are not admitted in
+     * the cache.
+     */
+    @Test
+    @DisplayName("Small formulae are not admitted.")
+    public void testSmallFormulae() {
+        var formula = readCnf("example-3.cnf");
+        var small = formula.assume(1).assume(-5);
+
+        var cache = AdmissionFilteredCache.<BigInteger>newInstance(ExactMatchCache.newInstance(),
+                formula.numberOfVariables(), formula.numberOfConstraints(), 1);
+        cache.compilationStarts();
+        assertFalse(cache.get(formula).isPresent());
+        cache.put(formula, BigInteger.TWO);
+        assertFalse(cache.get(small).isPresent());
+        cache.put(small, BigInteger.ONE);
+
+        assertEquals(BigInteger.TWO, cache.get(formula).get());
+        assertFalse(cache.get(small).isPresent());
+    }
+
+    /**
+     * Tests that formulae are admitted in the cache only once they have been looked up
+     * often enough.
+     */
+    @Test
+    @DisplayName("Infrequent formulae are not admitted.")
+    public void testInfrequentFormulae() {
+        var formula = readCnf("example-3.cnf");
+
+        var cache = AdmissionFilteredCache.<BigInteger>newInstance(ExactMatchCache.newInstance(),
+                0, 0, 2);
+        cache.compilationStarts();
+        assertFalse(cache.get(formula).isPresent());
+        cache.put(formula, BigInteger.TWO);
+        assertFalse(cache.get(formula).isPresent());
+        cache.put(formula, BigInteger.TWO);
+        assertTrue(cache.get(formula).isPresent());
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestCacheStatistics is a JUnit test case testing the statistics collected by
+ * the caching strategies.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Cache statistics are collected as expected.")
+public final class TestCacheStatistics extends AbstractTestCaching {
+
+    /**
+     * Tests that look-ups and insertions are recorded, and that statistics are reset
+     * when a new compilation starts.
+     */
+    @Test
+    @DisplayName("Look-ups and insertions are recorded.")
+    public void testLookupsAndInsertions() {
+        var formula = readCnf("example-3.cnf");
+        var cache = ExactMatchCache.<BigInteger>newInstance();
+        var statistics = cache.getStatistics();
+
+        cache.compilationStarts();
+        cache.get(formula);
+        cache.put(formula, BigInteger.TEN);
+        cache.get(formula);
+        cache.get(formula.assume(1));
+
+        assertEquals(3, statistics.getLookups());
+        assertEquals(1, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(1.0 / 3, statistics.getHitRatio(), 1e-9);
+        assertEquals(1, statistics.getInsertions());
+        assertEquals(0, statistics.getEvictions());
+        assertTrue(statistics.getBytesHeld() > 0);
+        assertTrue(statistics.getAverageKeySize() > 0);
+
+        cache.compilationStarts();
+        assertEquals(0, statistics.getLookups());
+        assertEquals(0, statistics.getInsertions());
+        assertEquals(0, statistics.getBytesHeld());
+    }
+
+    /**
+     * Tests that evictions are recorded.
+     */
+    @Test
+    @DisplayName("Evictions are recorded.")
+    public void testEvictions() {
+        var formula = readCnf("example-3.cnf");
+        var other = formula.assume(1);
+        var cache = MemoryBoundedCache.<BigInteger>newInstance(
+                SizeEstimator.sizeOf(FormulaKey.of(formula), BigInteger.TEN));
+        var statistics = cache.getStatistics();
+
+        cache.compilationStarts();
+        cache.put(formula, BigInteger.TEN);
+        cache.put(other, BigInteger.TEN);
+
+        assertEquals(2, statistics.getInsertions());
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(SizeEstimator.sizeOf(FormulaKey.of(other), BigInteger.TEN),
+                statistics.getBytesHeld());
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.univartois.cril.pbd4.AbstractTestModelCounting;
+
+/**
+ * The TestCachedModelCounting is a JUnit test case testing that the number of models
+ * computed by D4 is correct whatever the caching strategy it uses.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The number of models computed by D4 is correct when using a cache.")
+public final class TestCachedModelCounting extends AbstractTestModelCounting {
+
+    /**
+     * The memory budget (in bytes) of the bounded caches used in the tests, which is
+     * small enough to force evictions.
+     */
+    private static final long SMALL_CACHE_BUDGET = 1024;
+
+    /**
+     * Tests that the number of models computed by D4 is correct when an exact-match
+     * cache is used.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when using an exact-match cache.")
+    public void testExactMatchCache(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance())
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is correct when a cache
+     * identifying formulae by their residual constraints is used.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when using residual cache keys.")
+    public void testResidualCacheKeys(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(ExactMatchCache.newInstance(CacheKeyMode.RESIDUAL_CONSTRAINTS))
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is correct when a memory-bounded
+     * cache is used.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when using a memory-bounded cache.")
+    public void testMemoryBoundedCache(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(MemoryBoundedCache.newInstance(SMALL_CACHE_BUDGET))
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is correct when an off-heap cache
+     * is used.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when using an off-heap cache.")
+    public void testOffHeapCache(String path, BigInteger expectedModelCount) {
+        var computedModelCount = newD4(path)
+            .useCachingStrategy(OffHeapCache.newInstance(OffHeapCache.MINIMUM_BUDGET))
+            .countModels();
+        assertEquals(expectedModelCount, computedModelCount);
+    }
+
+    /**
+     * Tests that the number of models computed by D4 is correct when a persistent
+     * cache is used, both when the cache is empty and when it contains the values
+     * computed during a previous execution.
+     *
+     * @param path The path of the file containing the formula.
+     * @param expectedModelCount The number of models of the formula.
+     *
+     * @throws IOException If an I/O error occurs while managing the cache file.
+     */
+    @ParameterizedTest
+    @MethodSource("generateModelCounts")
+    @DisplayName("The number of models is correct when using a persistent cache.")
+    public void testPersistentCache(String path, BigInteger expectedModelCount)
+            throws IOException {
+        var cacheFile = Files.createTempFile("pbd4", ".cache");
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                var computedModelCount = newD4(path)
+                    .useCachingStrategy(PersistentCache.newInstance(cacheFile.toString(),
+                            PersistentCache.MINIMUM_SIZE))
+                    .countModels();
+                assertEquals(expectedModelCount, computedModelCount);
+            }
+
+        } finally {
+            Files.delete(cacheFile);
+        }
+    }
+
+}
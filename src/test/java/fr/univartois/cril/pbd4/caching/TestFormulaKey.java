@@ -0,0 +1,121 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestFormulaKey is a JUnit test case testing the keys used to identify
+ * pseudo-Boolean formulae in a cache.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Formulae are identified by the expected keys.")
+public final class TestFormulaKey extends AbstractTestCaching {
+
+    /**
+     * Tests that formulae having the same residual constraints are identified by equal
+     * keys, even if they are obtained from different assignments.
+     */
+    @Test
+    @DisplayName("Formulae having the same residual constraints have equal keys.")
+    public void testSameResidualConstraints() {
+        var formula = readCnf("example-3.cnf");
+
+        // Variable 6 only appears in a clause that is satisfied by -2.
+        var stored = FormulaKey.of(formula.assume(-2).assume(6));
+        var lookedUp = FormulaKey.lookUp(formula.assume(-2).assume(-6));
+        assertEquals(stored, lookedUp);
+        assertEquals(stored.hashCode(), lookedUp.hashCode());
+    }
+
+    /**
+     * Tests that formulae having different residual constraints are identified by
+     * different keys.
+     */
+    @Test
+    @DisplayName("Formulae having different residual constraints have different keys.")
+    public void testDifferentResidualConstraints() {
+        var formula = readCnf("example-3.cnf");
+
+        // Variable 1 appears in clauses that are not satisfied by its negation.
+        var stored = FormulaKey.of(formula.assume(1));
+        var lookedUp = FormulaKey.lookUp(formula.assume(-1));
+        assertNotEquals(stored, lookedUp);
+    }
+
+    /**
+     * Tests that formulae obtained through different assignments, but having the same
+     * normalized residual constraints, are identified by equal residual keys only.
+     */
+    @Test
+    @DisplayName("Equivalent residual constraints have equal residual keys.")
+    public void testEquivalentResidualConstraints() {
+        var formula = readOpb("example-2.opb");
+
+        // Both assignments reduce '+3 ~x2 +2 x5 +2 x6 +1 x7 >= 3' to '~x2 + x7 >= 1'.
+        var first = formula.assume(5).assume(-6);
+        var second = formula.assume(-5).assume(6);
+        assertNotEquals(FormulaKey.of(first), FormulaKey.lookUp(second));
+
+        var stored = FormulaKey.residualOf(first);
+        var lookedUp = FormulaKey.residualOf(second);
+        assertEquals(stored, lookedUp);
+        assertEquals(stored.hashCode(), lookedUp.hashCode());
+    }
+
+    /**
+     * Tests that formulae having non-equivalent residual constraints are identified by
+     * different residual keys.
+     */
+    @Test
+    @DisplayName("Different residual constraints have different residual keys.")
+    public void testDifferentNormalizedResidualConstraints() {
+        var formula = readOpb("example-2.opb");
+
+        // The first assignment satisfies the constraint, while the second does not.
+        var stored = FormulaKey.residualOf(formula.assume(5).assume(6));
+        var lookedUp = FormulaKey.residualOf(formula.assume(-5).assume(-6));
+        assertNotEquals(stored, lookedUp);
+    }
+
+    /**
+     * Tests that the content of a key is packed, i.e., that small integers are encoded
+     * on a single byte.
+     */
+    @Test
+    @DisplayName("The content of keys is packed.")
+    public void testPackedContent() {
+        var formula = readCnf("example-3.cnf");
+        var subFormula = formula.assume(1).assume(-5);
+        int difference = formula.activeConstraints().size() + formula.assignedLiterals().size()
+                - subFormula.activeConstraints().size() - subFormula.assignedLiterals().size();
+        assertEquals(difference,
+                FormulaKey.of(formula).estimatedSize() - FormulaKey.of(subFormula).estimatedSize());
+    }
+
+}
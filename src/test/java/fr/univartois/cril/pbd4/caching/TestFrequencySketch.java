@@ -0,0 +1,77 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestFrequencySketch is a JUnit test case testing the estimation of the
+ * frequencies of formulae.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Frequencies are estimated as expected.")
+public final class TestFrequencySketch {
+
+    /**
+     * Tests that the occurrences of hash values are counted, up to the maximum value
+     * of a counter.
+     */
+    @Test
+    @DisplayName("Occurrences are counted.")
+    public void testIncrement() {
+        var sketch = new FrequencySketch(1 << 10);
+        assertEquals(0, sketch.frequency(42));
+
+        for (int i = 1; i <= 20; i++) {
+            sketch.increment(42);
+            assertEquals(Math.min(i, 15), sketch.frequency(42));
+        }
+
+        sketch.clear();
+        assertEquals(0, sketch.frequency(42));
+    }
+
+    /**
+     * Tests that the frequencies are halved once enough occurrences have been counted.
+     */
+    @Test
+    @DisplayName("Old occurrences are forgotten.")
+    public void testAging() {
+        var sketch = new FrequencySketch(1 << 10);
+        for (int i = 0; i < 12; i++) {
+            sketch.increment(42);
+        }
+
+        // Reaching the number of increments triggering the aging of the sketch.
+        for (int i = 12; i < 10 << 10; i++) {
+            sketch.increment(-42);
+        }
+        assertEquals(6, sketch.frequency(42));
+        assertEquals(7, sketch.frequency(-42));
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestOffHeapCache is a JUnit test case testing the off-heap caching strategy
+ * with budgets that a single direct buffer cannot address.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The off-heap cache supports large memory budgets.")
+public final class TestOffHeapCache extends AbstractTestCaching {
+
+    /**
+     * A memory budget that exceeds what a single direct buffer can address.
+     * The cache grows lazily, so that this budget is never actually allocated.
+     */
+    private static final long LARGE_BUDGET = 4L << 30;
+
+    /**
+     * Tests that a cache with a large budget stores and retrieves values.
+     */
+    @Test
+    @DisplayName("Values are cached when the budget exceeds 2 GiB.")
+    public void testLargeBudget() {
+        var formula = readCnf("example-3.cnf");
+        var assumed = formula.assume(1);
+
+        var cache = OffHeapCache.<BigInteger>newInstance(LARGE_BUDGET);
+        cache.compilationStarts();
+        assertFalse(cache.get(formula).isPresent());
+        cache.put(formula, BigInteger.TWO);
+        cache.put(assumed, BigInteger.ONE);
+
+        assertEquals(BigInteger.TWO, cache.get(formula).get());
+        assertEquals(BigInteger.ONE, cache.get(assumed).get());
+        assertEquals("off-heap caching (" + OffHeapCache.MAXIMUM_BUDGET + " bytes)",
+                cache.toString());
+    }
+
+    /**
+     * Tests that the data buffer never grows beyond what a single direct buffer can
+     * address.
+     */
+    @Test
+    @DisplayName("The data buffer does not overflow when the budget exceeds 2 GiB.")
+    public void testGrownDataSize() {
+        int half = 1 << 30;
+        assertEquals(Integer.MAX_VALUE,
+                OffHeapCache.grownDataSize(LARGE_BUDGET, half, half - 1, 16));
+        assertEquals(half + 16,
+                OffHeapCache.grownDataSize(half + 16, half, half, 16));
+        assertEquals(-1,
+                OffHeapCache.grownDataSize(LARGE_BUDGET, Integer.MAX_VALUE,
+                        Integer.MAX_VALUE - 8, 16));
+        assertEquals(-1,
+                OffHeapCache.grownDataSize(half, half, half - 8, 16));
+    }
+
+}
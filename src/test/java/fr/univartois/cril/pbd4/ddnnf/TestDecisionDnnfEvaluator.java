@@ -21,11 +21,15 @@
 package fr.univartois.cril.pbd4.ddnnf;
 
 import static fr.univartois.cril.pbd4.ddnnf.ConjunctionNode.and;
+import static fr.univartois.cril.pbd4.ddnnf.ConstantNode.FALSE;
 import static fr.univartois.cril.pbd4.ddnnf.ConstantNode.TRUE;
 import static fr.univartois.cril.pbd4.ddnnf.DecisionNode.decision;
 import static fr.univartois.cril.pbd4.ddnnf.LiteralNode.literal;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 
 /**
  * The TestDecisionDnnfEvaluator is a JUnit test case testing the implementation
@@ -97,4 +101,31 @@ public final class TestDecisionDnnfEvaluator extends AbstractTestDecisionDnnfEva
 		return new DecisionDnnf(3, 15, 14, root);
 	}
 
+	/**
+	 * Tests that a node shared by several parents is evaluated independently of its
+	 * siblings.
+	 */
+	@Test
+	@DisplayName("A shared node is evaluated independently of its siblings")
+	public void testEvaluateSharedNode() {
+		var shared = decision(2, literal(2), literal(-2));
+		var root = decision(1, and(literal(1), shared), and(literal(-1), shared));
+		var ddnnf = new DecisionDnnf(2, 7, 8, root);
+
+		assertTrue(ddnnf.evaluate(-1, 2));
+		assertTrue(ddnnf.evaluate(1, -2));
+	}
+
+	/**
+	 * Tests the evaluation of decision-DNNFs made of a single node.
+	 */
+	@Test
+	@DisplayName("A d-DNNF made of a single node is evaluated to the value of this node")
+	public void testEvaluateSingleNode() {
+		assertTrue(new DecisionDnnf(1, 1, 0, TRUE).evaluate(1));
+		assertFalse(new DecisionDnnf(1, 1, 0, FALSE).evaluate(1));
+		assertTrue(new DecisionDnnf(1, 1, 0, literal(1)).evaluate(1));
+		assertFalse(new DecisionDnnf(1, 1, 0, literal(1)).evaluate(-1));
+	}
+
 }
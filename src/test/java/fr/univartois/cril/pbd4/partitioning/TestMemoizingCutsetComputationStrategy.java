@@ -0,0 +1,158 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.partitioning;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sat4j.core.VecInt;
+
+import fr.univartois.cril.pbd4.pbc.AbstractTestPseudoBooleanSolving;
+import fr.univartois.cril.pbd4.pbc.PseudoBooleanFormula;
+
+/**
+ * The TestMemoizingCutsetComputationStrategy is a JUnit test case testing that
+ * cutsets are reused when the same formula is partitioned again.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Cutsets are reused when the same formula is partitioned again.")
+public final class TestMemoizingCutsetComputationStrategy
+        extends AbstractTestPseudoBooleanSolving {
+
+    /**
+     * The number of cutsets that have actually been computed.
+     */
+    private int nbComputations;
+
+    /**
+     * The strategy actually computing the cutsets, which takes all the variables of
+     * the formula.
+     */
+    private final CutsetComputationStrategy counting = formula -> {
+        nbComputations++;
+        var cutset = new VecInt(formula.variables().size());
+        formula.variables().copyTo(cutset);
+        return cutset;
+    };
+
+    /**
+     * Resets the number of cutsets that have been computed.
+     */
+    @BeforeEach
+    public void resetComputations() {
+        nbComputations = 0;
+    }
+
+    /**
+     * Simplifies the given formula by applying unit propagation on it.
+     *
+     * @param formula The formula to simplify.
+     *
+     * @return The simplified formula.
+     */
+    private static PseudoBooleanFormula simplify(PseudoBooleanFormula formula) {
+        return formula.propagate().getSimplifiedFormula();
+    }
+
+    /**
+     * Tests that the cutset of a formula is computed only once.
+     */
+    @Test
+    @DisplayName("The cutset of a formula is computed only once.")
+    public void testSameFormula() {
+        var strategy = MemoizingCutsetComputationStrategy.newInstance(counting, 8);
+        strategy.compilationStarts();
+        var formula = simplify(readCnf("example-3.cnf"));
+
+        var first = strategy.cutset(formula.assume(1));
+        first.pop();
+        var second = strategy.cutset(formula.assume(1));
+        assertEquals(1, nbComputations);
+        assertNotSame(first, second);
+        assertEquals(formula.assume(1).variables(), second);
+    }
+
+    /**
+     * Tests that the cutsets of different formulae are computed separately.
+     */
+    @Test
+    @DisplayName("The cutsets of different formulae are computed separately.")
+    public void testDifferentFormulae() {
+        var strategy = MemoizingCutsetComputationStrategy.newInstance(counting, 8);
+        strategy.compilationStarts();
+        var formula = simplify(readCnf("example-3.cnf"));
+
+        strategy.cutset(formula.assume(1));
+        strategy.cutset(formula.assume(-1));
+        assertEquals(2, nbComputations);
+    }
+
+    /**
+     * Tests that only the most recently computed cutsets are remembered.
+     */
+    @Test
+    @DisplayName("Only the most recently computed cutsets are remembered.")
+    public void testBoundedCapacity() {
+        var strategy = MemoizingCutsetComputationStrategy.newInstance(counting, 1);
+        strategy.compilationStarts();
+        var formula = simplify(readCnf("example-3.cnf"));
+
+        strategy.cutset(formula.assume(1));
+        strategy.cutset(formula.assume(-1));
+        strategy.cutset(formula.assume(1));
+        assertEquals(3, nbComputations);
+    }
+
+    /**
+     * Tests that cutsets are forgotten when a new compilation starts.
+     */
+    @Test
+    @DisplayName("Cutsets are forgotten when a new compilation starts.")
+    public void testNewCompilation() {
+        var strategy = MemoizingCutsetComputationStrategy.newInstance(counting, 8);
+        var formula = simplify(readCnf("example-3.cnf"));
+
+        strategy.compilationStarts();
+        strategy.cutset(formula.assume(1));
+        strategy.compilationEnds();
+        strategy.compilationStarts();
+        strategy.cutset(formula.assume(1));
+        assertEquals(2, nbComputations);
+    }
+
+    /**
+     * Tests that the capacity of the memoization must be positive.
+     */
+    @Test
+    @DisplayName("The capacity of the memoization must be positive.")
+    public void testIllegalCapacity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MemoizingCutsetComputationStrategy.newInstance(counting, 0));
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sat4j.core.LiteralsUtils;
+
+/**
+ * The TestFormulaSignature is a JUnit test case testing the signatures of the
+ * sub-formulae of a pseudo-Boolean formula.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Signatures of sub-formulae are maintained as expected.")
+public final class TestFormulaSignature extends AbstractTestPseudoBooleanSolving {
+
+    /**
+     * Tests that the signature of a sub-formula does not depend on the order in which
+     * literals are assumed.
+     */
+    @Test
+    @DisplayName("Signatures do not depend on the order of the assumptions.")
+    public void testSignatureIsIndependentOfOrder() {
+        var formula = readCnf("example-3.cnf").propagate().getSimplifiedFormula();
+        var first = formula.assume(1).assume(-5).assume(8);
+        var second = formula.assume(8).assume(1).assume(-5);
+        assertEquals(first.signature(), second.signature());
+    }
+
+    /**
+     * Tests that sub-formulae having the same residual constraints have the same
+     * signature, even if they are obtained from different assignments.
+     */
+    @Test
+    @DisplayName("Signatures only depend on the residual constraints.")
+    public void testSignatureOnlyDependsOnResidualConstraints() {
+        var formula = readCnf("example-3.cnf").propagate().getSimplifiedFormula();
+
+        // Variable 6 only appears in a clause that is satisfied by -2.
+        var positive = formula.assume(-2).assume(6);
+        var negative = formula.assume(-2).assume(-6);
+        assertEquals(positive.signature(), negative.signature());
+
+        // Variable 1 appears in clauses that are not satisfied by its negation.
+        assertNotEquals(formula.assume(1).signature(), formula.assume(-1).signature());
+    }
+
+    /**
+     * Tests that the signature maintained incrementally is the same as the one computed
+     * from scratch.
+     */
+    @Test
+    @DisplayName("Incremental signatures are equal to signatures computed from scratch.")
+    public void testIncrementalSignature() {
+        var original = readOpb("example-1.opb");
+        var formula = original.propagate().getSimplifiedFormula();
+        assertSignatureFromScratch(original, formula);
+        assertSignatureFromScratch(original, formula.assume(2));
+        assertSignatureFromScratch(original, formula.assume(2).assume(-5));
+        assertSignatureFromScratch(original, formula.assume(-2).assume(5).assume(7));
+
+        for (var component : formula.assume(-2).connectedComponents()) {
+            assertSignatureFromScratch(original, component);
+        }
+    }
+
+    /**
+     * Checks that the signature of a sub-formula is the same as the one computed from
+     * scratch.
+     *
+     * @param original The original formula.
+     * @param formula The sub-formula to check the signature of.
+     */
+    private static void assertSignatureFromScratch(OriginalPseudoBooleanFormula original,
+            PseudoBooleanFormula formula) {
+        var satisfiedLiterals = new BitSet();
+        for (var it = formula.assignedLiterals().iterator(); it.hasNext();) {
+            satisfiedLiterals.set(LiteralsUtils.toInternal(it.next()));
+        }
+
+        var expected = original.signatureOf(formula.activeConstraints(), satisfiedLiterals);
+        assertEquals(expected, formula.signature());
+    }
+
+}
@@ -0,0 +1,94 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sat4j.core.VecInt;
+
+/**
+ * The TestModelPool is a JUnit test case testing the reuse of the models found by the
+ * solver to check the satisfiability of sub-formulae.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Models are reused for the sub-formulae they satisfy.")
+public final class TestModelPool {
+
+    /**
+     * The number of variables of the formula in the tests.
+     * The variables {@code 4} and {@code 5} are the selectors of its two constraints.
+     */
+    private static final int NUMBER_OF_VARIABLES = 3;
+
+    /**
+     * Tests that a model is reused for the sub-formulae whose literal assumptions it
+     * satisfies.
+     */
+    @Test
+    @DisplayName("A model is reused when it satisfies the literal assumptions.")
+    public void testLiteralAssumptions() {
+        var pool = new ModelPool(NUMBER_OF_VARIABLES, ModelPool.DEFAULT_CAPACITY);
+        pool.add(new int[] { 1, -2, 3, -4, -5 });
+
+        assertTrue(pool.containsModelOf(VecInt.of(1, -4, -5)));
+        assertTrue(pool.containsModelOf(VecInt.of(1, -2, 3, -4, -5)));
+        assertFalse(pool.containsModelOf(VecInt.of(2, -4, -5)));
+    }
+
+    /**
+     * Tests that a model is only reused when it satisfies all active constraints.
+     */
+    @Test
+    @DisplayName("A model is only reused when it satisfies all active constraints.")
+    public void testSelectorAssumptions() {
+        var pool = new ModelPool(NUMBER_OF_VARIABLES, ModelPool.DEFAULT_CAPACITY);
+        pool.add(new int[] { 1, -2, 3, -4, 5 });
+
+        // The second constraint has been ignored by the solver.
+        assertTrue(pool.containsModelOf(VecInt.of(1, -4, 5)));
+        assertTrue(pool.containsModelOf(VecInt.of(1, 4, 5)));
+        assertFalse(pool.containsModelOf(VecInt.of(1, -4, -5)));
+    }
+
+    /**
+     * Tests that the oldest models are forgotten when the pool is full.
+     */
+    @Test
+    @DisplayName("The oldest models are forgotten when the pool is full.")
+    public void testCapacity() {
+        var pool = new ModelPool(NUMBER_OF_VARIABLES, 2);
+        pool.add(new int[] { 1, 2, 3, -4, -5 });
+        pool.add(new int[] { -1, 2, 3, -4, -5 });
+        assertTrue(pool.containsModelOf(VecInt.of(1, -4, -5)));
+
+        pool.add(new int[] { -1, -2, 3, -4, -5 });
+        assertFalse(pool.containsModelOf(VecInt.of(1, -4, -5)));
+        assertTrue(pool.containsModelOf(VecInt.of(-1, 2, -4, -5)));
+        assertTrue(pool.containsModelOf(VecInt.of(-1, -2, -4, -5)));
+    }
+
+}
@@ -80,6 +80,26 @@ public final class TestPropagateCnf extends AbstractTestPseudoBooleanSolving {
         assertTrue(propagatedLiterals3.contains(3));
     }
 
+    /**
+     * Tests that the literals propagated by BCP remain available after another
+     * propagation has been performed.
+     */
+    @Test
+    @DisplayName("Propagated literals are not overwritten by later propagations.")
+    public void testPropagatedLiteralsArePreserved() {
+        var formula = readCnf("example-2.cnf");
+        var simplifiedFormula = formula.propagate().getSimplifiedFormula();
+
+        // Propagating literal 1, then literal 2.
+        var propagatedLiterals1 = simplifiedFormula.assume(1).propagate().getPropagatedLiterals();
+        simplifiedFormula.assume(2).propagate();
+
+        // The literals propagated by literal 1 must not have changed.
+        assertEquals(2, propagatedLiterals1.size());
+        assertTrue(propagatedLiterals1.contains(1));
+        assertTrue(propagatedLiterals1.contains(-2));
+    }
+
     /**
      * Tests that, when variables are assumed in such a way that BCP identifies a conflict,
      * the partial assignment is detected as falsifying.
@@ -103,7 +123,7 @@ public final class TestPropagateCnf extends AbstractTestPseudoBooleanSolving {
         var propagatedLiteralsNot3 = propagationAssumingNot3.getPropagatedLiterals();
         assertEquals(1, propagatedLiteralsNot3.size());
         assertTrue(propagatedLiteralsNot3.contains(-3));
-        var simplifiedFormulaNot3 = propagation.getSimplifiedFormula();
+        var simplifiedFormulaNot3 = propagationAssumingNot3.getSimplifiedFormula();
         assertEquals(3, simplifiedFormulaNot3.numberOfVariables());
         assertEquals(4, simplifiedFormulaNot3.numberOfConstraints());
         
@@ -23,6 +23,8 @@ package fr.univartois.cril.pbd4.pbc;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.concurrent.Executors;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -590,4 +592,36 @@ public final class TestPropagateOpb extends AbstractTestPseudoBooleanSolving {
         assertTrue(propagatedLiterals510.contains(10));
     }
     
+    /**
+     * Tests that propagating a formula from another thread than the one that has read
+     * it gives the same result, as this thread uses its own replica of the solver.
+     *
+     * @throws Exception If the propagation fails in the other thread.
+     */
+    @Test
+    @DisplayName("BCP behaves the same when performed from another thread.")
+    public void testPropagateFromAnotherThread() throws Exception {
+        var formula = readOpb("example-2.opb");
+        var simplifiedFormula = formula.propagate().getSimplifiedFormula();
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var propagationAssumingNot1 = executor.submit(
+                    () -> simplifiedFormula.assume(-1).propagate()).get();
+            assertTrue(propagationAssumingNot1.isUnknown());
+            var propagatedLiteralsNot1 = propagationAssumingNot1.getPropagatedLiterals();
+            assertEquals(3, propagatedLiteralsNot1.size());
+            assertTrue(propagatedLiteralsNot1.contains(-1));
+            assertTrue(propagatedLiteralsNot1.contains(2));
+            assertTrue(propagatedLiteralsNot1.contains(3));
+
+            var propagationAssumingNot3 = executor.submit(
+                    () -> simplifiedFormula.assume(-3).propagate()).get();
+            assertTrue(propagationAssumingNot3.isUnsatisfiable());
+
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
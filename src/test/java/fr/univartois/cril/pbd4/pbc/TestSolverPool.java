@@ -0,0 +1,162 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+
+import fr.univartois.cril.pbd4.pbc.solver.PBSelectorSolver;
+import fr.univartois.cril.pbd4.pbc.solver.PBSolverSelectorProviderDecorator;
+import fr.univartois.cril.pbd4.pbc.solver.SolverProvider;
+
+/**
+ * The TestSolverPool is a JUnit test case testing the pool of solver replicas used to
+ * propagate a formula from different threads.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("The pool of solver replicas behaves as expected.")
+public final class TestSolverPool {
+
+    /**
+     * The solver that is replicated in the tests.
+     */
+    private PBSelectorSolver solver;
+
+    /**
+     * The pool used in the tests.
+     */
+    private SolverPool<PBSelectorSolver> pool;
+
+    /**
+     * Creates the solver and the pool used in the tests.
+     *
+     * @throws ContradictionException If the constraints are unsatisfiable (should not
+     *         occur).
+     */
+    @BeforeEach
+    public void setUp() throws ContradictionException {
+        var provider = PBSolverSelectorProviderDecorator.of(SolverProvider.defaultProvider());
+        solver = provider.createPBSolver();
+        solver.newVar(3);
+        solver.setExpectedNumberOfClauses(2);
+        solver.addAtLeast(VecInt.of(1, 2, 3), VecInt.of(1, 2, 3), 3);
+        solver.addAtLeast(VecInt.of(-1, -2), VecInt.of(1, 1), 1);
+        pool = SolverPool.of(solver, provider::createPBSolver, s -> s);
+    }
+
+    /**
+     * Tests that the replicas contain the same constraints as the replicated solver.
+     */
+    @Test
+    @DisplayName("Replicas contain the same constraints as the replicated solver.")
+    public void testReplicaHasSameConstraints() {
+        try (var lease = pool.checkOut()) {
+            var replica = lease.get();
+            assertNotSame(solver, replica);
+            assertEquals(solver.nVars(), replica.nVars());
+            assertEquals(solver.nConstraints(), replica.nConstraints());
+            for (int i = 0; i < solver.nConstraints(); i++) {
+                assertEquals(solver.getConstraint(i).size(), replica.getConstraint(i).size());
+                assertEquals(solver.getConstraint(i).getDegree(),
+                        replica.getConstraint(i).getDegree());
+            }
+        }
+    }
+
+    /**
+     * Tests that a replica that has been given back is checked out again.
+     */
+    @Test
+    @DisplayName("A replica that has been given back is reused.")
+    public void testReplicaIsReused() {
+        PBSelectorSolver replica;
+        try (var lease = pool.checkOut()) {
+            replica = lease.get();
+        }
+
+        try (var lease = pool.checkOut()) {
+            assertSame(replica, lease.get());
+        }
+    }
+
+    /**
+     * Tests that replicas that are checked out at the same time are different.
+     *
+     * @throws InterruptedException If the thread is interrupted (should not occur).
+     */
+    @Test
+    @DisplayName("Replicas checked out at the same time are different.")
+    public void testConcurrentLeasesDifferentReplicas() throws InterruptedException {
+        try (var first = pool.checkOut(); var second = pool.checkOut()) {
+            assertNotSame(first.get(), second.get());
+            assertNotSame(first.get(), checkOutFromNewThread());
+        }
+    }
+
+    /**
+     * Tests that the replica given back by a thread is reused by another thread,
+     * even though the first thread is still alive.
+     *
+     * @throws InterruptedException If the thread is interrupted (should not occur).
+     */
+    @Test
+    @DisplayName("The replica given back by a thread is reused by another thread.")
+    public void testReplicaIsReusedByAnotherThread() throws InterruptedException {
+        PBSelectorSolver replica;
+        try (var lease = pool.checkOut()) {
+            replica = lease.get();
+        }
+        assertSame(replica, checkOutFromNewThread());
+    }
+
+    /**
+     * Checks out a replica from a new thread, gives it back, and waits for this
+     * thread to terminate.
+     *
+     * @return The replica checked out by the thread.
+     *
+     * @throws InterruptedException If the thread is interrupted (should not occur).
+     */
+    private PBSelectorSolver checkOutFromNewThread() throws InterruptedException {
+        var replica = new AtomicReference<PBSelectorSolver>();
+        var thread = new Thread(() -> {
+            try (var lease = pool.checkOut()) {
+                replica.set(lease.get());
+            }
+        });
+        thread.start();
+        thread.join();
+        return replica.get();
+    }
+
+}
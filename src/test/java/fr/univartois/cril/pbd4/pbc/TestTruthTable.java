@@ -0,0 +1,157 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TestTruthTable is a JUnit test case testing the truth tables computed for
+ * pseudo-Boolean formulae.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Truth tables represent the models of the formulae.")
+public final class TestTruthTable extends AbstractTestPseudoBooleanSolving {
+
+    /**
+     * Tests that the truth tables computed for sub-formulae of CNF formulae are
+     * correct.
+     */
+    @Test
+    @DisplayName("Truth tables of sub-formulae of CNF formulae are correct.")
+    public void testTruthTablesOfCnf() {
+        assertTruthTables(readCnf("example-1.cnf"));
+        assertTruthTables(readCnf("example-2.cnf"));
+        assertTruthTables(readCnf("example-3.cnf"));
+    }
+
+    /**
+     * Tests that the truth tables computed for sub-formulae of pseudo-Boolean formulae
+     * are correct.
+     */
+    @Test
+    @DisplayName("Truth tables of sub-formulae of pseudo-Boolean formulae are correct.")
+    public void testTruthTablesOfOpb() {
+        assertTruthTables(readOpb("example-1.opb"));
+        assertTruthTables(readOpb("example-2.opb"));
+        assertTruthTables(readOpb("example-3.opb"));
+    }
+
+    /**
+     * Tests that no truth table is computed for a formula having too many variables.
+     *
+     * @throws IOException If an I/O error occurs while reading the formula.
+     */
+    @Test
+    @DisplayName("No truth table is computed for formulae having too many variables.")
+    public void testNoTruthTableForLargeFormula() throws IOException {
+        int nbVariables = TruthTable.MAX_VARIABLES + 1;
+        var cnf = new StringBuilder("p cnf " + nbVariables + " 1\n");
+        for (int v = 1; v <= nbVariables; v++) {
+            cnf.append(v).append(' ');
+        }
+        cnf.append("0\n");
+
+        var formula = defaultReader().readCnf(
+                new ByteArrayInputStream(cnf.toString().getBytes(StandardCharsets.UTF_8)));
+        assertFalse(TruthTable.of(formula).isPresent());
+    }
+
+    /**
+     * Checks the truth tables of the simplified form of a formula, of its connected
+     * components, and of the sub-formulae obtained by assigning its first variable.
+     *
+     * @param original The formula to check the truth tables of.
+     */
+    private static void assertTruthTables(PseudoBooleanFormula original) {
+        var formula = original.propagate().getSimplifiedFormula();
+        assertTruthTable(formula);
+        for (var component : formula.connectedComponents()) {
+            assertTruthTable(component);
+        }
+
+        int variable = formula.variables().get(0);
+        for (int literal : new int[] { variable, -variable }) {
+            var output = formula.assume(literal).propagate();
+            if (!output.isUnsatisfiable() && !output.isSatisfiable()) {
+                assertTruthTable(output.getSimplifiedFormula());
+            }
+        }
+    }
+
+    /**
+     * Checks that each row of the truth table of a formula is set if and only if the
+     * corresponding assignment satisfies all the residual constraints of the formula.
+     *
+     * @param formula The formula to check the truth table of.
+     */
+    private static void assertTruthTable(PseudoBooleanFormula formula) {
+        var truthTable = TruthTable.of(formula).orElseThrow();
+        assertEquals(formula.numberOfVariables(), truthTable.numberOfVariables());
+
+        long nbModels = 0;
+        for (int row = 0; row < (1 << truthTable.numberOfVariables()); row++) {
+            boolean satisfied = true;
+            for (var constraint : formula.residualConstraints()) {
+                satisfied &= isSatisfied(constraint, truthTable, row);
+            }
+            assertEquals(satisfied ? 1 : 0, truthTable.countModels(row, 1));
+            nbModels += satisfied ? 1 : 0;
+        }
+        assertEquals(nbModels, truthTable.countModels());
+    }
+
+    /**
+     * Checks whether a residual constraint is satisfied by a row of a truth table.
+     *
+     * @param constraint The constraint to check.
+     * @param truthTable The truth table defining the variables of the row.
+     * @param row The row representing the assignment to check.
+     *
+     * @return Whether the constraint is satisfied by the assignment.
+     */
+    private static boolean isSatisfied(ResidualConstraint constraint, TruthTable truthTable,
+            int row) {
+        var sum = BigInteger.ZERO;
+        for (int i = 0; i < constraint.size(); i++) {
+            int literal = constraint.getLiteral(i);
+            for (int v = 0; v < truthTable.numberOfVariables(); v++) {
+                boolean value = ((row >>> v) & 1) != 0;
+                if ((truthTable.getVariable(v) == Math.abs(literal)) && (value == (literal > 0))) {
+                    sum = sum.add(constraint.getCoefficient(i));
+                }
+            }
+        }
+        return sum.compareTo(constraint.getDegree()) >= 0;
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * PBD4, a pseudo-Boolean based implementation of the D4 compiler.
+ * Copyright (c) 2020 - Univ Artois & CNRS.
+ * All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.univartois.cril.pbd4.pbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * The TestUnitPropagator is a JUnit test case testing the incremental propagation of
+ * the constraints of a formula, as performed by {@link UnitPropagator}.
+ * The satisfiability of the formulae is never checked in these tests, so that only
+ * BCP is applied.
+ *
+ * @author Romain WALLON
+ *
+ * @version 0.2.0
+ */
+@DisplayName("Incremental BCP behaves as expected.")
+public final class TestUnitPropagator extends AbstractTestPseudoBooleanSolving {
+
+    /**
+     * Tests that propagating assumptions sharing a prefix with the previous ones
+     * produces the same output as propagating them on a fresh formula.
+     */
+    @Test
+    @DisplayName("Assumptions sharing a prefix are propagated as on a fresh formula.")
+    public void testSharedPrefix() {
+        var formula = readCnf("example-3.cnf");
+        var sequence = new IVecInt[] {
+                VecInt.of(1), VecInt.of(1, -4), VecInt.of(1, -4, 6), VecInt.of(1, -4, -6),
+                VecInt.of(1, 4), VecInt.of(-1), VecInt.of(-1, 5), VecInt.of(1, -4, 6) };
+
+        for (var assumptions : sequence) {
+            var expected = propagate(readCnf("example-3.cnf"), assumptions, new BitSet());
+            var actual = propagate(formula, assumptions, new BitSet());
+            assertSameOutput(expected, actual);
+        }
+    }
+
+    /**
+     * Tests that propagating pseudo-Boolean constraints under successive assumptions
+     * produces the same output as propagating them on a fresh formula.
+     */
+    @Test
+    @DisplayName("Pseudo-Boolean constraints are propagated as on a fresh formula.")
+    public void testPseudoBooleanConstraints() {
+        var formula = readOpb("example-1.opb");
+        var sequence = new IVecInt[] {
+                VecInt.of(2), VecInt.of(2, -5), VecInt.of(2, -5, -6), VecInt.of(-2),
+                VecInt.of(-2, 7), VecInt.of(2, -5, -6) };
+
+        for (var assumptions : sequence) {
+            var expected = propagate(readOpb("example-1.opb"), assumptions, new BitSet());
+            var actual = propagate(formula, assumptions, new BitSet());
+            assertSameOutput(expected, actual);
+        }
+    }
+
+    /**
+     * Tests that conflicts are detected, and that the propagation is correctly
+     * restored afterwards.
+     */
+    @Test
+    @DisplayName("Conflicts are detected and undone.")
+    public void testConflict() {
+        var formula = readCnf("example-1.cnf");
+
+        // Assuming -1 propagates -4.
+        var propagateNot1 = propagate(formula, VecInt.of(-1), new BitSet());
+        assertTrue(propagateNot1.isUnknown());
+        assertEquals(1, propagateNot1.getPropagatedLiterals().size());
+        assertTrue(propagateNot1.getPropagatedLiterals().contains(-4));
+
+        // Assuming also -2 and -3 falsifies the first clause.
+        assertTrue(propagate(formula, VecInt.of(-1, -2, -3), new BitSet()).isUnsatisfiable());
+
+        // Assuming -1 alone propagates -4 again.
+        var propagateNot1Again = propagate(formula, VecInt.of(-1), new BitSet());
+        assertSameOutput(propagateNot1, propagateNot1Again);
+    }
+
+    /**
+     * Tests that inactive constraints are ignored when propagating.
+     */
+    @Test
+    @DisplayName("Inactive constraints are not propagated.")
+    public void testInactiveConstraints() {
+        var formula = readCnf("example-1.cnf");
+
+        // The third clause is the only one propagating -1.
+        var inactiveConstraints = new BitSet();
+        inactiveConstraints.set(2);
+        var propagateNot1 = propagate(formula, VecInt.of(-1), inactiveConstraints);
+        assertTrue(propagateNot1.isUnknown());
+        assertTrue(propagateNot1.getPropagatedLiterals().isEmpty());
+
+        // When all clauses but the first are ignored, satisfying 1 satisfies the formula.
+        inactiveConstraints.set(1, 4);
+        var propagate1 = propagate(formula, VecInt.of(1), inactiveConstraints);
+        assertTrue(propagate1.isSatisfiable());
+        assertTrue(propagate1.getPropagatedLiterals().isEmpty());
+    }
+
+    /**
+     * Applies BCP on a sub-formula of the given formula.
+     *
+     * @param formula The formula to propagate.
+     * @param assumptions The literals assumed to be satisfied in the sub-formula.
+     * @param inactiveConstraints The constraints that are not in the sub-formula.
+     *
+     * @return The output of the propagation.
+     */
+    private static PropagationOutput propagate(OriginalPseudoBooleanFormula formula,
+            IVecInt assumptions, BitSet inactiveConstraints) {
+        return formula.propagate(assumptions, inactiveConstraints, 0);
+    }
+
+    /**
+     * Checks that two outputs of BCP are the same.
+     *
+     * @param expected The expected output.
+     * @param actual The actual output.
+     */
+    private static void assertSameOutput(PropagationOutput expected,
+            PropagationOutput actual) {
+        assertEquals(expected.isSatisfiable(), actual.isSatisfiable());
+        assertEquals(expected.isUnsatisfiable(), actual.isUnsatisfiable());
+        assertEquals(expected.getPropagatedLiterals().size(),
+                actual.getPropagatedLiterals().size());
+        for (var it = expected.getPropagatedLiterals().iterator(); it.hasNext();) {
+            assertTrue(actual.getPropagatedLiterals().contains(it.next()));
+        }
+    }
+
+}